@@ -51,6 +51,7 @@ import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
 import org.apache.openejb.core.cmp.KeyGenerator;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorData;
 import org.apache.openejb.core.interceptor.InterceptorInstance;
 import org.apache.openejb.core.interceptor.InterceptorStack;
@@ -63,6 +64,7 @@ import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.core.transaction.TransactionPolicyFactory;
 import org.apache.openejb.core.transaction.TransactionType;
 import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.monitoring.InvocationMetrics;
 import org.apache.openejb.util.Duration;
 import org.apache.openejb.util.Index;
 import org.apache.openejb.util.LogCategory;
@@ -205,6 +207,8 @@ public class BeanContext extends DeploymentContext {
             entry.getValue().setCdiInterceptors(new ArrayList<>());
         }
 
+        clearInterceptorChains();
+
         // handled by OpenEJB now so clean up all duplication from OWB
         if (info.getSelfInterceptorBean() != null) {
             try {
@@ -339,16 +343,23 @@ public class BeanContext extends DeploymentContext {
 
     //private final Map<Method, TransactionType> methodTransactionType = new HashMap<Method, TransactionType>();
     private final Map<Method, Method> methodMap = new HashMap<>();
-    private final Map<Method, MethodContext> methodContextMap = new HashMap<>();
-    private final Map<String, ViewContext> viewContextMap = new HashMap<>();
+    private final Map<Method, MethodContext> methodContextMap = new ConcurrentHashMap<>();
+    private final Map<String, ViewContext> viewContextMap = new ConcurrentHashMap<>();
+    private final Object methodTableLock = new Object();
+    private volatile boolean frozen;
+    private boolean buildingMethodTable; // guarded by methodTableLock
+    private volatile MethodTable methodTable; // null when not frozen or stale, rebuilt on the next lookup then
 
     private TransactionPolicyFactory transactionPolicyFactory;
 
+    private final InvocationMetrics invocationMetrics = new InvocationMetrics();
+
     private final List<InterceptorData> callbackInterceptors = new ArrayList<>();
     private final List<InterceptorData> beanCallbackInterceptors = new ArrayList<>();
     private final Set<InterceptorData> instanceScopedInterceptors = new HashSet<>();
     private final List<InterceptorInstance> systemInterceptors = new ArrayList<>();
     private final List<InterceptorInstance> userInterceptors = new ArrayList<>();
+    private final Map<Operation, InterceptorChain> callbackInterceptorChains = new ConcurrentHashMap<>();
     private final List<Injection> injections = new ArrayList<>();
     private final Map<Class, InterfaceType> interfaces = new HashMap<>();
     private final Map<Class, ExceptionType> exceptions = new ConcurrentHashMap<>();
@@ -775,6 +786,10 @@ public class BeanContext extends DeploymentContext {
     }
 
     public LockType getConcurrencyAttribute(final Method beanMethod) {
+        final MethodTable.Entry entry = getFrozenEntry(beanMethod);
+        if (entry != null) {
+            return entry.getLockType();
+        }
         return getMethodContext(beanMethod).getLockType();
     }
 
@@ -787,6 +802,14 @@ public class BeanContext extends DeploymentContext {
     }
 
     public TransactionType getTransactionType(final Method method, final InterfaceType interfaceType) {
+        final MethodTable.Entry entry = getFrozenEntry(method);
+        if (entry != null) {
+            return entry.getTransactionType(interfaceType);
+        }
+        return resolveTransactionType(method, interfaceType);
+    }
+
+    private TransactionType resolveTransactionType(final Method method, final InterfaceType interfaceType) {
 
         MethodContext methodContext = null;
 
@@ -1011,6 +1034,7 @@ public class BeanContext extends DeploymentContext {
 
     public void setBeanManagedTransaction(final boolean value) {
         isBeanManagedTransaction = value;
+        methodsChanged();
     }
 
     public void setBeanManagedConcurrency(final boolean beanManagedConcurrency) {
@@ -1030,17 +1054,112 @@ public class BeanContext extends DeploymentContext {
     }
 
     public Method getMatchingBeanMethod(final Method interfaceMethod) {
+        final MethodTable.Entry entry = getFrozenEntry(interfaceMethod);
+        if (entry != null) {
+            return entry.getBeanMethod();
+        }
         final Method method = methodMap.get(interfaceMethod);
         return method == null ? interfaceMethod : method;
     }
 
     public MethodContext getMethodContext(final Method method) {
-        MethodContext methodContext = methodContextMap.get(method);
-        if (methodContext == null) {
-            methodContext = new MethodContext(this, method);
-            methodContextMap.put(method, methodContext);
+        final MethodContext methodContext = methodContextMap.get(method);
+        if (methodContext != null) {
+            return methodContext;
+        }
+        return methodContextMap.computeIfAbsent(method, m -> new MethodContext(this, m));
+    }
+
+    /**
+     * Resolves the metadata of all the interface and bean methods into an
+     * immutable {@link MethodTable}, the per call lookups then use it instead
+     * of the method maps. Called once the bean is deployed in its container,
+     * a later change of the method metadata drops the table and the next
+     * lookup builds it again.
+     */
+    public void freeze() {
+        synchronized (methodTableLock) {
+            frozen = true;
+            methodTable = null;
+            methodTable = createMethodTable();
+        }
+    }
+
+    private MethodTable createMethodTable() {
+        final Set<Method> methods = new LinkedHashSet<>(methodMap.keySet());
+        methods.addAll(methodMap.values());
+        methods.addAll(methodContextMap.keySet());
+
+        final Map<Method, MethodTable.Entry> entries = new HashMap<>(methods.size() * 2);
+        buildingMethodTable = true; // the entries are resolved with the slow lookups
+        try {
+            int index = 0;
+            for (final Method method : methods) {
+                entries.put(method, createMethodEntry(index++, method));
+            }
+        } finally {
+            buildingMethodTable = false;
+        }
+        return new MethodTable(entries);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * @param method the called interface or bean method
+     * @return the frozen entry of the method, or one resolved for this call only if the bean is not frozen
+     */
+    public MethodTable.Entry getMethodEntry(final Method method) {
+        final MethodTable.Entry entry = getFrozenEntry(method);
+        if (entry != null) {
+            return entry;
+        }
+        return createMethodEntry(-1, method);
+    }
+
+    private MethodTable.Entry getFrozenEntry(final Method method) {
+        MethodTable table = methodTable;
+        if (table == null) {
+            if (!frozen) {
+                return null;
+            }
+            synchronized (methodTableLock) { // a change can't drop the table while it is rebuilt
+                if (buildingMethodTable) {
+                    return null;
+                }
+                table = methodTable;
+                if (table == null) {
+                    table = createMethodTable();
+                    methodTable = table;
+                }
+            }
+        }
+        return table.get(method);
+    }
+
+    private MethodTable.Entry createMethodEntry(final int index, final Method method) {
+        final Method mapped = methodMap.get(method);
+        final Method beanMethod = mapped == null ? method : mapped;
+
+        final Map<String, TransactionType> viewTransactionTypes = new HashMap<>();
+        for (final Entry<String, ViewContext> view : viewContextMap.entrySet()) {
+            final MethodContext viewMethodContext = view.getValue().getMethodContext(method);
+            if (viewMethodContext != null) {
+                viewTransactionTypes.put(view.getKey(), viewMethodContext.getTransactionType());
+            }
+        }
+
+        return new MethodTable.Entry(this, index, method, beanMethod, getMethodContext(beanMethod),
+            resolveTransactionType(method, null), viewTransactionTypes, resolveAsynchronous(method));
+    }
+
+    // a method metadata changed, the frozen table is stale
+    void methodsChanged() {
+        synchronized (methodTableLock) {
+            methodTable = null;
         }
-        return methodContext;
     }
 
     // TODO The MethodContext object has Method as a variable, so we could change this
@@ -1132,14 +1251,17 @@ public class BeanContext extends DeploymentContext {
 
     public void addSystemInterceptor(final Object interceptor) {
         systemInterceptors.add(new InterceptorInstance(interceptor));
+        clearInterceptorChains();
     }
 
     public void addFirstSystemInterceptor(final Object interceptor) {
         systemInterceptors.add(0, new InterceptorInstance(interceptor));
+        clearInterceptorChains();
     }
 
     public void addUserInterceptor(final Object interceptor) {
         userInterceptors.add(new InterceptorInstance(interceptor));
+        clearInterceptorChains();
     }
 
     public List<InterceptorInstance> getUserAndSystemInterceptors() {
@@ -1170,6 +1292,7 @@ public class BeanContext extends DeploymentContext {
             }
         }
         this.instanceScopedInterceptors.addAll(callbackInterceptors);
+        clearInterceptorChains();
     }
 
     public List<InterceptorData> getCdiInterceptors() {
@@ -1180,12 +1303,41 @@ public class BeanContext extends DeploymentContext {
         this.cdiInterceptors.clear();
         this.cdiInterceptors.addAll(cdiInterceptors);
         this.instanceScopedInterceptors.addAll(cdiInterceptors);
+        clearInterceptorChains();
     }
 
     public List<InterceptorData> getMethodInterceptors(final Method method) {
         return getMethodContext(method).getInterceptors();
     }
 
+    public InterceptorChain getMethodInterceptorChain(final Method method, final Operation operation) {
+        return getMethodContext(method).getInterceptorChain(operation);
+    }
+
+    /**
+     * @param operation the lifecycle callback (POST_CONSTRUCT, PRE_DESTROY, AFTER_BEGIN...)
+     * @return the {@link #getCallbackInterceptors()} compiled for the operation, built on first use
+     */
+    public InterceptorChain getCallbackInterceptorChain(final Operation operation) {
+        InterceptorChain chain = callbackInterceptorChains.get(operation);
+        if (chain == null) {
+            chain = new InterceptorChain(operation, getCallbackInterceptors());
+            final InterceptorChain existing = callbackInterceptorChains.putIfAbsent(operation, chain);
+            if (existing != null) {
+                chain = existing;
+            }
+        }
+        return chain;
+    }
+
+    // the chains are built from the interceptor lists so each change of these lists drops them
+    private void clearInterceptorChains() {
+        callbackInterceptorChains.clear();
+        for (final MethodContext methodContext : methodContextMap.values()) {
+            methodContext.clearInterceptorChains();
+        }
+    }
+
     public List<InterceptorData> getInterceptorData() {
         final List<InterceptorData> datas = new ArrayList<>(getUserAndSystemInterceptors().size());
         for (final InterceptorInstance instance : getUserAndSystemInterceptors()) {
@@ -1338,6 +1490,7 @@ public class BeanContext extends DeploymentContext {
 
     public void mapMethods(final Method interfaceMethod, final Method beanMethod) {
         methodMap.put(interfaceMethod, beanMethod);
+        methodsChanged();
     }
 
     private void mapObjectInterface(final Class intrface) {
@@ -1387,7 +1540,16 @@ public class BeanContext extends DeploymentContext {
     }
 
     public boolean isAsynchronous(final Method method) {
-        final Method matchingBeanMethod = getMatchingBeanMethod(method);
+        final MethodTable.Entry entry = getFrozenEntry(method);
+        if (entry != null) {
+            return entry.isAsynchronous();
+        }
+        return resolveAsynchronous(method);
+    }
+
+    private boolean resolveAsynchronous(final Method method) {
+        final Method mapped = methodMap.get(method);
+        final Method matchingBeanMethod = mapped == null ? method : mapped;
         final Class<?> returnType = matchingBeanMethod.getReturnType();
         if (returnType != void.class && returnType != Future.class) {
             return false;
@@ -1467,6 +1629,10 @@ public class BeanContext extends DeploymentContext {
         return ejbName;
     }
 
+    public InvocationMetrics getInvocationMetrics() {
+        return invocationMetrics;
+    }
+
     public String getModuleID() {
         return getModuleContext().getModuleURI().toString();
     }
@@ -1532,6 +1698,10 @@ public class BeanContext extends DeploymentContext {
     }
 
     public Duration getAccessTimeout(final Method beanMethod) {
+        final MethodTable.Entry entry = getFrozenEntry(beanMethod);
+        if (entry != null) {
+            return entry.getAccessTimeout();
+        }
         return getMethodContext(beanMethod).getAccessTimeout();
     }
 
@@ -1541,6 +1711,7 @@ public class BeanContext extends DeploymentContext {
 
     public void setAccessTimeout(final Duration accessTimeout) {
         this.accessTimeout = accessTimeout;
+        methodsChanged();
     }
 
     public Duration getStatefulTimeout() {
@@ -1753,13 +1924,13 @@ public class BeanContext extends DeploymentContext {
 
             // Invoke post construct method
             callContext.setCurrentOperation(Operation.POST_CONSTRUCT);
-            final List<InterceptorData> callbackInterceptors = this.getCallbackInterceptors();
-            final InterceptorStack postConstruct = new InterceptorStack(beanInstance, null, Operation.POST_CONSTRUCT, callbackInterceptors, interceptorInstances);
+            final InterceptorChain postConstruct = getCallbackInterceptorChain(Operation.POST_CONSTRUCT);
 
             //Transaction Demarcation for Singleton PostConstruct method
             TransactionType transactionType;
 
             if (componentType == BeanType.SINGLETON || componentType == BeanType.STATEFUL) {
+                final List<InterceptorData> callbackInterceptors = this.getCallbackInterceptors();
                 final Set<Method> callbacks = callbackInterceptors.get(callbackInterceptors.size() - 1).getPostConstruct();
                 if (callbacks.isEmpty()) {
                     transactionType = TransactionType.RequiresNew;
@@ -1778,7 +1949,7 @@ public class BeanContext extends DeploymentContext {
                 if (cdiEjbBean != null) { // call it, it has no postconstruct but extensions can add stuff here, TODO: see if it should be called before or after effective postconstruct
                     cdiEjbBean.getInjectionTarget().postConstruct(beanInstance);
                 }
-                postConstruct.invoke();
+                postConstruct.invoke(beanInstance, null, interceptorInstances);
             } catch (final Throwable e) {
                 //RollBack Transaction
                 EjbTransactionUtil.handleSystemException(transactionPolicy, e, callContext);
@@ -1917,13 +2088,7 @@ public class BeanContext extends DeploymentContext {
     }
 
     private MethodContext initViewMethodContext(final Method method, final String view) {
-        ViewContext viewContext = this.viewContextMap.get(view);
-        if (viewContext == null) {
-            viewContext = new ViewContext();
-            viewContextMap.put(view, viewContext);
-        }
-
-        return viewContext.initMethodContext(method);
+        return viewContextMap.computeIfAbsent(view, v -> new ViewContext()).initMethodContext(method);
     }
 
     public Class<?> getProxyClass() {
@@ -1936,22 +2101,14 @@ public class BeanContext extends DeploymentContext {
 
     public class ViewContext {
 
-        private final Map<Method, MethodContext> methodContextMap = new HashMap<>();
+        private final Map<Method, MethodContext> methodContextMap = new ConcurrentHashMap<>();
 
         public MethodContext getMethodContext(final Method method) {
             return methodContextMap.get(method);
         }
 
         public MethodContext initMethodContext(final Method method) {
-            MethodContext methodContext = methodContextMap.get(method);
-            if (methodContext != null) {
-                return methodContext;
-            }
-
-            methodContext = new MethodContext(BeanContext.this, method);
-            methodContextMap.put(method, methodContext);
-
-            return methodContext;
+            return methodContextMap.computeIfAbsent(method, m -> new MethodContext(BeanContext.this, m));
         }
     }
 
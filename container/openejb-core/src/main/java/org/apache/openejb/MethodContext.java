@@ -17,6 +17,8 @@
 
 package org.apache.openejb;
 
+import org.apache.openejb.core.Operation;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorData;
 import org.apache.openejb.core.timer.ScheduleData;
 import org.apache.openejb.core.transaction.TransactionType;
@@ -27,7 +29,9 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @version $Rev$ $Date$
@@ -38,6 +42,7 @@ public class MethodContext {
     private final List<ScheduleData> schedules = new ArrayList<>();
     private final List<InterceptorData> interceptors = new ArrayList<>();
     private final Set<InterceptorData> cdiInterceptors = new LinkedHashSet<>();
+    private final Map<Operation, InterceptorChain> interceptorChains = new ConcurrentHashMap<>();
     private InterceptorData self = null;
     private LockType lockType;
     private TransactionType transactionType;
@@ -51,10 +56,12 @@ public class MethodContext {
 
     public void setSelfInterception(final InterceptorData data) {
         self = data;
+        clearInterceptorChains();
     }
 
     public void setAccessTimeout(final Duration accessTimeout) {
         this.accessTimeout = accessTimeout;
+        beanContext.methodsChanged();
     }
 
     public Duration getAccessTimeout() {
@@ -71,11 +78,13 @@ public class MethodContext {
 
     public void addCdiInterceptor(final InterceptorData data) {
         cdiInterceptors.add(data);
+        clearInterceptorChains();
     }
 
     public void setInterceptors(final List<InterceptorData> interceptors) {
         this.interceptors.clear();
         this.interceptors.addAll(interceptors);
+        clearInterceptorChains();
     }
 
     public List<InterceptorData> getInterceptors() {
@@ -89,12 +98,33 @@ public class MethodContext {
         return datas;
     }
 
+    /**
+     * @param operation BUSINESS, TIMEOUT or REMOVE
+     * @return the interceptors of this method compiled for the operation, built on first use
+     */
+    public InterceptorChain getInterceptorChain(final Operation operation) {
+        InterceptorChain chain = interceptorChains.get(operation);
+        if (chain == null) {
+            chain = new InterceptorChain(operation, getInterceptors());
+            final InterceptorChain existing = interceptorChains.putIfAbsent(operation, chain);
+            if (existing != null) {
+                chain = existing;
+            }
+        }
+        return chain;
+    }
+
+    void clearInterceptorChains() {
+        interceptorChains.clear();
+    }
+
     public LockType getLockType() {
         return lockType != null ? lockType : beanContext.getLockType();
     }
 
     public void setLockType(final LockType lockType) {
         this.lockType = lockType;
+        beanContext.methodsChanged();
     }
 
     public TransactionType getTransactionType() {
@@ -103,6 +133,7 @@ public class MethodContext {
 
     public void setTransactionType(final TransactionType transactionType) {
         this.transactionType = transactionType;
+        beanContext.methodsChanged();
     }
 
     public List<ScheduleData> getSchedules() {
@@ -115,6 +146,7 @@ public class MethodContext {
 
     public void setAsynchronous(final boolean asynchronous) {
         this.asynchronous = asynchronous;
+        beanContext.methodsChanged();
     }
 
     /**
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb;
+
+import org.apache.openejb.core.Operation;
+import org.apache.openejb.core.interceptor.InterceptorChain;
+import org.apache.openejb.core.transaction.TransactionType;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
+import org.apache.openejb.util.Duration;
+
+import jakarta.ejb.LockType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the containers need to know about a called method, resolved once when
+ * the bean is deployed ({@link BeanContext#freeze()}) instead of on each call
+ * through the methodMap, methodContextMap and viewContextMap of the
+ * {@link BeanContext}.
+ *
+ * The table is never modified, a change of the method metadata after the
+ * freeze drops it and the lookups go back to the maps until the next freeze.
+ */
+public final class MethodTable {
+    private final Map<Method, Entry> entries;
+    private final Entry[] byIndex;
+
+    MethodTable(final Map<Method, Entry> entries) {
+        this.entries = new HashMap<>(entries);
+        this.byIndex = new Entry[entries.size()];
+        for (final Entry entry : entries.values()) {
+            byIndex[entry.index] = entry;
+        }
+    }
+
+    /**
+     * @param method an interface or bean method
+     * @return its entry, null if the method is not a method of the bean
+     */
+    public Entry get(final Method method) {
+        return entries.get(method);
+    }
+
+    public Entry get(final int index) {
+        return byIndex[index];
+    }
+
+    public int size() {
+        return byIndex.length;
+    }
+
+    public static final class Entry {
+        private final BeanContext beanContext;
+        private final int index;
+        private final Method method;
+        private final Method beanMethod;
+        private final MethodContext methodContext;
+        private final TransactionType transactionType;
+        private final Map<String, TransactionType> viewTransactionTypes;
+        private final LockType lockType;
+        private final Duration accessTimeout;
+        private final boolean asynchronous;
+        private volatile MethodMetrics metrics;
+
+        Entry(final BeanContext beanContext, final int index, final Method method, final Method beanMethod, final MethodContext methodContext,
+              final TransactionType transactionType, final Map<String, TransactionType> viewTransactionTypes, final boolean asynchronous) {
+            this.beanContext = beanContext;
+            this.index = index;
+            this.method = method;
+            this.beanMethod = beanMethod;
+            this.methodContext = methodContext;
+            this.transactionType = transactionType;
+            this.viewTransactionTypes = viewTransactionTypes.isEmpty() ? Collections.<String, TransactionType>emptyMap() : new HashMap<>(viewTransactionTypes);
+            this.lockType = methodContext.getLockType();
+            this.accessTimeout = methodContext.getAccessTimeout();
+            this.asynchronous = asynchronous;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * @return the method of the bean class called for this method
+         */
+        public Method getBeanMethod() {
+            return beanMethod;
+        }
+
+        public MethodContext getMethodContext() {
+            return methodContext;
+        }
+
+        public TransactionType getTransactionType(final InterfaceType interfaceType) {
+            if (interfaceType != null && !viewTransactionTypes.isEmpty()) {
+                final TransactionType viewType = viewTransactionTypes.get(interfaceType.getSpecName());
+                if (viewType != null) {
+                    return viewType;
+                }
+            }
+            return transactionType;
+        }
+
+        public LockType getLockType() {
+            return lockType;
+        }
+
+        public Duration getAccessTimeout() {
+            return accessTimeout;
+        }
+
+        public boolean isAsynchronous() {
+            return asynchronous;
+        }
+
+        public InterceptorChain getInterceptorChain(final Operation operation) {
+            return methodContext.getInterceptorChain(operation);
+        }
+
+        public MethodMetrics getMetrics() {
+            MethodMetrics current = metrics;
+            if (current == null) { // created on first call so unused methods don't show up
+                current = beanContext.getInvocationMetrics().get(beanMethod);
+                metrics = current;
+            }
+            return current;
+        }
+
+        public String toString() {
+            return "MethodTable.Entry(" + index + ", " + method + ")";
+        }
+    }
+}
@@ -110,6 +110,7 @@ import org.apache.openejb.loader.Options;
 import org.apache.openejb.loader.ProvisioningUtil;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.monitoring.DynamicMBeanWrapper;
+import org.apache.openejb.monitoring.InvocationMetrics;
 import org.apache.openejb.monitoring.LocalMBeanServer;
 import org.apache.openejb.monitoring.MBeanPojoWrapper;
 import org.apache.openejb.monitoring.ObjectNameBuilder;
@@ -253,6 +254,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
@@ -298,9 +300,9 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
     private TransactionManager transactionManager;
     private SecurityService securityService;
     protected OpenEjbConfigurationFactory configFactory;
-    private final Map<String, AppInfo> deployedApplications = new HashMap<>();
-    private final Map<ObjectName, CreationalContext> creationalContextForAppMbeans = new HashMap<>();
-    private final Set<ObjectName> containerObjectNames = new HashSet<>();
+    private final Map<String, AppInfo> deployedApplications = new ConcurrentHashMap<>();
+    private final Map<ObjectName, CreationalContext> creationalContextForAppMbeans = new ConcurrentHashMap<>();
+    private final Set<ObjectName> containerObjectNames = ConcurrentHashMap.newKeySet();
     private final RemoteResourceMonitor remoteResourceMonitor = new RemoteResourceMonitor();
 
     @Override
@@ -637,8 +639,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
 
         createJavaGlobal(); // before any deployment bind global to be able to share the same context
 
-        for (final AppInfo appInfo : containerSystemInfo.applications) {
-
+        DeploymentScheduler.create().deploy(containerSystemInfo.applications, appInfo -> {
             try {
                 createApplication(appInfo, appInfoClassLoaders.get(appInfo)); // use the classloader from the map above
             } catch (final DuplicateDeploymentIdException e) {
@@ -651,7 +652,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
                     exceptionManager.saveDeploymentException(appInfo, (Exception) e);
                 }
             }
-        }
+        });
 
         systemInstance.fireEvent(new ContainerSystemPostCreate());
     }
@@ -923,6 +924,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
                 // JPA - Persistence Units MUST be processed first since they will add ClassFileTransformers
                 // to the class loader which must be added before any classes are loaded
                 final Map<String, String> units = new HashMap<>();
+                final List<ReloadableEntityManagerFactory> factories = new ArrayList<>(appInfo.persistenceUnits.size());
                 final PersistenceBuilder persistenceBuilder = new PersistenceBuilder(persistenceClassLoaderHandler);
                 for (final PersistenceUnitInfo info : appInfo.persistenceUnits) {
                     final ReloadableEntityManagerFactory factory;
@@ -937,6 +939,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
                     }
 
                     factory.register();
+                    factories.add(factory);
                 }
 
                 logger.debug("Loaded persistence units: " + units);
@@ -1087,6 +1090,11 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
 
                 postConstructResources(appInfo.resourceIds, classLoader, containerSystemContext, appContext);
 
+                // the factories created in background (tomee.jpa.factory.async) fail the deployment as the others
+                for (final ReloadableEntityManagerFactory factory : factories) {
+                    factory.awaitBootstrap();
+                }
+
                 deployedApplications.put(appInfo.path, appInfo);
                 resumePersistentSchedulers(appContext);
 
@@ -1520,6 +1528,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
             final JaccPermissionsBuilder jaccPermissionsBuilder = new JaccPermissionsBuilder();
             final PolicyContext policyContext = jaccPermissionsBuilder.build(ejbJar, deployments);
             jaccPermissionsBuilder.install(policyContext);
+            jaccPermissionsBuilder.compile(policyContext, deployments);
 
             final TransactionPolicyFactory transactionPolicyFactory = createTransactionPolicyFactory(ejbJar, classLoader);
             for (final BeanContext beanContext : deployments.values()) {
@@ -1688,6 +1697,8 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
                     final Container container = deployment.getContainer();
                     if (container.getBeanContext(deployment.getDeploymentID()) == null) {
                         container.deploy(deployment);
+                        deployment.freeze();
+                        InvocationMetrics.register(deployment);
                         if (!((String) deployment.getDeploymentID()).endsWith(".Comp")
                             && !deployment.isHidden()) {
                             logger.info("createApplication.createdEjb", deployment.getDeploymentID(), deployment.getEjbName(), container.getContainerID());
@@ -2238,16 +2249,12 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
         try {
             //Ensure ResourceInfo for this resource is removed
             final OpenEjbConfiguration configuration = SystemInstance.get().getComponent(OpenEjbConfiguration.class);
-            final Iterator<ResourceInfo> iterator;
-            if (configuration != null) {
-                iterator = configuration.facilities.resources.iterator();
-            }else{
+            if (configuration == null) {
                 throw new Exception("OpenEjbConfiguration has not been initialized");
             }
-            while (iterator.hasNext()) {
-                final ResourceInfo info = iterator.next();
-                if (name.equals(info.id)) {
-                    iterator.remove();
+            // copy on write list, its iterators can't remove
+            for (final ResourceInfo info : configuration.facilities.resources) {
+                if (name.equals(info.id) && configuration.facilities.resources.remove(info)) {
                     return info;
                 }
             }
@@ -2279,7 +2286,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
         l.lock();
 
         try {
-            final AppInfo appInfo = deployedApplications.remove(filePath);
+            final AppInfo appInfo = filePath == null ? null : deployedApplications.remove(filePath);
             if (appInfo == null) {
                 throw new NoSuchApplicationException(filePath);
             }
@@ -2433,6 +2440,7 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
                         container.undeploy(bean);
                         bean.setContainer(null);
                     }
+                    InvocationMetrics.unregister(bean);
                 } catch (final Throwable t) {
                     undeployException.getCauses().add(new Exception("bean: " + deploymentID + ": " + t.getMessage(), t));
                 } finally {
@@ -2918,10 +2926,9 @@ public class Assembler extends AssemblerTool implements org.apache.openejb.spi.A
         containerSystem.removeContainer(containerId);
 
         // Update the config tree
-        for (final Iterator<ContainerInfo> iterator = config.containerSystem.containers.iterator(); iterator.hasNext(); ) {
-            final ContainerInfo containerInfo = iterator.next();
+        for (final ContainerInfo containerInfo : config.containerSystem.containers) {
             if (containerInfo.id.equals(containerId)) {
-                iterator.remove();
+                config.containerSystem.containers.remove(containerInfo);
                 try {
                     this.containerSystem.getJNDIContext().unbind(JAVA_OPENEJB_NAMING_CONTEXT + containerInfo.service + "/" + containerInfo.id);
                 } catch (final Exception e) {
@@ -19,10 +19,12 @@ package org.apache.openejb.assembler.classic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class ContainerSystemInfo extends InfoObject {
 
-    public final List<ContainerInfo> containers = new ArrayList<>();
+    // updated by the applications deployed in parallel (openejb.deployer.parallelism) while others iterate it
+    public final List<ContainerInfo> containers = new CopyOnWriteArrayList<>();
 
     public final List<AppInfo> applications = new ArrayList<>();
 
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.assembler.classic;
+
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Deploys the applications of the container system on a bounded fork join pool
+ * (openejb.deployer.parallelism, 1 - the default - deploys them one after the other).
+ *
+ * An application waits for the applications it depends on: the ones declaring a
+ * resource or an EJB one of its references is linked to, and the ones declaring a
+ * deployment id it declares too so the duplicate is still reported for the last
+ * one. When these dependencies have a cycle the applications are deployed one
+ * after the other in their declaration order.
+ *
+ * The start and duration of each deployment is logged once all are done.
+ */
+class DeploymentScheduler {
+    public static final String PARALLELISM = "openejb.deployer.parallelism";
+
+    private static final Logger LOGGER = Logger.getInstance(LogCategory.OPENEJB_STARTUP, DeploymentScheduler.class);
+
+    private final int parallelism;
+
+    DeploymentScheduler(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    static DeploymentScheduler create() {
+        final int configured = SystemInstance.get().getOptions().get(PARALLELISM, 1);
+        return new DeploymentScheduler(configured > 0 ? configured : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param deployer deploys an application, it handles its errors itself
+     * @return the deployments in the order they were started
+     */
+    List<Step> deploy(final List<AppInfo> applications, final Consumer<AppInfo> deployer) {
+        final long start = System.nanoTime();
+        final Map<AppInfo, Set<AppInfo>> dependencies = dependencies(applications);
+        int threads = Math.min(applications.size(), parallelism);
+        if (threads > 1 && hasCycle(applications, dependencies)) {
+            LOGGER.warning("The applications depend on each other, deploying them one after the other");
+            threads = 1;
+        }
+
+        final List<Step> steps;
+        if (threads <= 1) {
+            steps = sequential(applications, deployer, start);
+        } else {
+            steps = parallel(applications, dependencies, deployer, start, threads);
+        }
+
+        if (!steps.isEmpty()) {
+            final String timeline = timeline(steps, start, threads);
+            if (threads > 1) {
+                LOGGER.info(timeline);
+            } else {
+                LOGGER.debug(timeline);
+            }
+        }
+        return steps;
+    }
+
+    private static List<Step> sequential(final List<AppInfo> applications, final Consumer<AppInfo> deployer, final long start) {
+        final List<Step> steps = new ArrayList<>(applications.size());
+        for (final AppInfo appInfo : applications) {
+            steps.add(run(appInfo, deployer, start));
+        }
+        return steps;
+    }
+
+    private static List<Step> parallel(final List<AppInfo> applications, final Map<AppInfo, Set<AppInfo>> dependencies,
+                                       final Consumer<AppInfo> deployer, final long start, final int threads) {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final ForkJoinPool pool = new ForkJoinPool(threads, p -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("openejb-deployer-" + thread.getPoolIndex());
+            thread.setContextClassLoader(loader);
+            return thread;
+        }, null, false);
+
+        final Map<AppInfo, CompletableFuture<Step>> futures = new IdentityHashMap<>();
+        try {
+            for (final AppInfo appInfo : applications) { // no cycle so walking them in order with their dependencies is enough
+                schedule(appInfo, dependencies, futures, deployer, start, pool);
+            }
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        final List<Step> steps = new ArrayList<>(applications.size());
+        for (final AppInfo appInfo : applications) {
+            steps.add(futures.get(appInfo).join());
+        }
+        steps.sort((a, b) -> Long.compare(a.start, b.start));
+        return steps;
+    }
+
+    private static CompletableFuture<Step> schedule(final AppInfo appInfo, final Map<AppInfo, Set<AppInfo>> dependencies,
+                                                    final Map<AppInfo, CompletableFuture<Step>> futures,
+                                                    final Consumer<AppInfo> deployer, final long start, final ForkJoinPool pool) {
+        final CompletableFuture<Step> existing = futures.get(appInfo);
+        if (existing != null) {
+            return existing;
+        }
+
+        final Set<AppInfo> required = dependencies.get(appInfo);
+        final CompletableFuture<?>[] waited = new CompletableFuture<?>[required.size()];
+        int i = 0;
+        for (final AppInfo dependency : required) {
+            waited[i++] = schedule(dependency, dependencies, futures, deployer, start, pool);
+        }
+
+        final CompletableFuture<Step> future = CompletableFuture.allOf(waited).thenApplyAsync(ignored -> run(appInfo, deployer, start), pool);
+        futures.put(appInfo, future);
+        return future;
+    }
+
+    private static Step run(final AppInfo appInfo, final Consumer<AppInfo> deployer, final long origin) {
+        final long start = System.nanoTime();
+        try {
+            deployer.accept(appInfo);
+        } catch (final VirtualMachineError e) {
+            throw e;
+        } catch (final Throwable e) { // the deployer reports its errors, linkage errors included, don't block the applications after this one
+            LOGGER.error("Can't deploy " + appInfo.path, e);
+        }
+        return new Step(appInfo, Thread.currentThread().getName(), start - origin, System.nanoTime() - start);
+    }
+
+    static Map<AppInfo, Set<AppInfo>> dependencies(final List<AppInfo> applications) {
+        final Map<String, AppInfo> resources = new HashMap<>();
+        final Map<String, AppInfo> ejbs = new HashMap<>();
+        final Map<AppInfo, Set<AppInfo>> dependencies = new IdentityHashMap<>();
+
+        for (final AppInfo appInfo : applications) {
+            final Set<AppInfo> required = new LinkedHashSet<>();
+            dependencies.put(appInfo, required);
+
+            for (final String id : appInfo.resourceIds) {
+                resources.putIfAbsent(id, appInfo);
+            }
+            for (final EjbJarInfo ejbJar : appInfo.ejbJars) {
+                for (final EnterpriseBeanInfo bean : ejbJar.enterpriseBeans) {
+                    final AppInfo previous = ejbs.putIfAbsent(bean.ejbDeploymentId, appInfo);
+                    if (previous != null && previous != appInfo) {
+                        required.add(previous);
+                    }
+                }
+            }
+        }
+
+        for (final AppInfo appInfo : applications) {
+            final Set<AppInfo> required = dependencies.get(appInfo);
+            for (final JndiEncInfo jndiEnc : jndiEncs(appInfo)) {
+                for (final ResourceReferenceInfo ref : jndiEnc.resourceRefs) {
+                    add(required, resources.get(ref.resourceID), appInfo);
+                }
+                for (final ResourceEnvReferenceInfo ref : jndiEnc.resourceEnvRefs) {
+                    add(required, resources.get(ref.resourceID), appInfo);
+                }
+                for (final EjbReferenceInfo ref : jndiEnc.ejbReferences) {
+                    add(required, ejbs.get(ref.ejbDeploymentId), appInfo);
+                }
+                for (final EjbLocalReferenceInfo ref : jndiEnc.ejbLocalReferences) {
+                    add(required, ejbs.get(ref.ejbDeploymentId), appInfo);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private static void add(final Set<AppInfo> required, final AppInfo dependency, final AppInfo appInfo) {
+        if (dependency != null && dependency != appInfo) {
+            required.add(dependency);
+        }
+    }
+
+    private static Collection<JndiEncInfo> jndiEncs(final AppInfo appInfo) {
+        final List<JndiEncInfo> jndiEncs = new ArrayList<>();
+        jndiEncs.add(appInfo.globalJndiEnc);
+        jndiEncs.add(appInfo.appJndiEnc);
+        for (final EjbJarInfo ejbJar : appInfo.ejbJars) {
+            jndiEncs.add(ejbJar.moduleJndiEnc);
+            for (final EnterpriseBeanInfo bean : ejbJar.enterpriseBeans) {
+                jndiEncs.add(bean.jndiEnc);
+            }
+        }
+        for (final WebAppInfo webApp : appInfo.webApps) {
+            jndiEncs.add(webApp.jndiEnc);
+        }
+        for (final ClientInfo client : appInfo.clients) {
+            jndiEncs.add(client.jndiEnc);
+        }
+        return jndiEncs;
+    }
+
+    static boolean hasCycle(final List<AppInfo> applications, final Map<AppInfo, Set<AppInfo>> dependencies) {
+        final Map<AppInfo, Integer> remaining = new IdentityHashMap<>();
+        final Map<AppInfo, List<AppInfo>> dependents = new IdentityHashMap<>();
+        final List<AppInfo> ready = new ArrayList<>();
+        for (final AppInfo appInfo : applications) {
+            final Set<AppInfo> required = dependencies.get(appInfo);
+            remaining.put(appInfo, required.size());
+            for (final AppInfo dependency : required) {
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(appInfo);
+            }
+            if (required.isEmpty()) {
+                ready.add(appInfo);
+            }
+        }
+
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            final AppInfo appInfo = ready.remove(ready.size() - 1);
+            sorted++;
+            for (final AppInfo dependent : dependents.getOrDefault(appInfo, List.of())) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return sorted != applications.size();
+    }
+
+    private static String timeline(final List<Step> steps, final long start, final int threads) {
+        final StringBuilder builder = new StringBuilder("Deployed ").append(steps.size()).append(" applications in ")
+                .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).append("ms using ")
+                .append(threads).append(threads > 1 ? " threads" : " thread");
+        for (final Step step : steps) {
+            builder.append("\n    +").append(TimeUnit.NANOSECONDS.toMillis(step.start)).append("ms ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(step.duration)).append("ms [")
+                    .append(step.thread).append("] ").append(step.appInfo.path);
+        }
+        return builder.toString();
+    }
+
+    static final class Step {
+        private final AppInfo appInfo;
+        private final String thread;
+        private final long start;
+        private final long duration;
+
+        private Step(final AppInfo appInfo, final String thread, final long start, final long duration) {
+            this.appInfo = appInfo;
+            this.thread = thread;
+            this.start = start;
+            this.duration = duration;
+        }
+
+        AppInfo getAppInfo() {
+            return appInfo;
+        }
+
+        String getThread() {
+            return thread;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getDuration() {
+            return duration;
+        }
+    }
+}
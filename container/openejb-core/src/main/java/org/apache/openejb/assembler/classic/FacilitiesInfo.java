@@ -19,12 +19,14 @@ package org.apache.openejb.assembler.classic;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class FacilitiesInfo extends InfoObject {
 
     public ProxyFactoryInfo intraVmServer;
     public final List<JndiContextInfo> remoteJndiContexts = new ArrayList<>();
-    public final List<ResourceInfo> resources = new ArrayList<>();
+    // updated by the applications deployed in parallel (openejb.deployer.parallelism) while others iterate it
+    public final List<ResourceInfo> resources = new CopyOnWriteArrayList<>();
     public final List<ConnectionManagerInfo> connectionManagers = new ArrayList<>();
     public TransactionServiceInfo transactionService;
     public SecurityServiceInfo securityService;
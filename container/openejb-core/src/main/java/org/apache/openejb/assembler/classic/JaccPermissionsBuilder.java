@@ -20,6 +20,7 @@ package org.apache.openejb.assembler.classic;
 import org.apache.openejb.BeanContext;
 import org.apache.openejb.InterfaceType;
 import org.apache.openejb.OpenEJBException;
+import org.apache.openejb.core.security.MethodPermissionTable;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.util.JavaSecurityManagers;
 import org.apache.openejb.util.LogCategory;
@@ -82,6 +83,30 @@ public class JaccPermissionsBuilder {
         }
     }
 
+    /**
+     * Evaluates the permissions of the policy for the methods of each bean,
+     * the security service then checks the calls with these tables.
+     */
+    public void compile(final PolicyContext policyContext, final Map<String, BeanContext> deployments) {
+        final MethodPermissionTable.Roles roles = new MethodPermissionTable.Roles(policyContext.getRolePermissions().keySet());
+        for (final BeanContext beanContext : deployments.values()) {
+            final MethodPermissionTable table = new MethodPermissionTable(beanContext.getEjbName(), roles,
+                    policyContext.getExcludedPermissions(), policyContext.getUncheckedPermissions(), policyContext.getRolePermissions());
+
+            for (final InterfaceType type : InterfaceType.values()) {
+                if (type == InterfaceType.UNKNOWN) {
+                    continue;
+                }
+                for (final Class<?> interfce : beanContext.getInterfaces(type)) {
+                    table.compile(type, interfce);
+                }
+            }
+            table.compile(null, beanContext.getBeanClass());
+
+            beanContext.set(MethodPermissionTable.class, table);
+        }
+    }
+
     private static final Logger log = Logger.getInstance(LogCategory.OPENEJB_STARTUP.createChild("attributes"), JaccPermissionsBuilder.class);
 
     public PolicyContext build(final EjbJarInfo ejbJar, final HashMap<String, BeanContext> deployments) throws OpenEJBException {
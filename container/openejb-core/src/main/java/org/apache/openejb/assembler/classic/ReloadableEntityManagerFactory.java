@@ -38,6 +38,7 @@ import org.apache.openejb.monitoring.ObjectNameBuilder;
 import org.apache.openejb.persistence.PersistenceUnitInfoImpl;
 import org.apache.openejb.persistence.QueryLogEntityManager;
 import org.apache.openejb.spi.ContainerSystem;
+import org.apache.openejb.util.DaemonThreadFactory;
 import org.apache.openejb.util.LogCategory;
 import org.apache.openejb.util.Logger;
 
@@ -71,6 +72,11 @@ import java.net.URL;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -88,9 +94,14 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
     public static final String OPENEJB_JPA_CRITERIA_LOG_JPQL = "openejb.jpa.criteria.log.jpql";
     public static final String OPENEJB_JPA_CRITERIA_LOG_JPQL_LEVEL = "openejb.jpa.criteria.log.jpql.level";
 
+    public static final String TOMEE_JPA_FACTORY_ASYNC = "tomee.jpa.factory.async";
+    public static final String TOMEE_JPA_FACTORY_ASYNC_THREADS = "tomee.jpa.factory.async.threads";
+
     private final PersistenceUnitInfoImpl unitInfoImpl;
     private ClassLoader classLoader;
     private volatile EntityManagerFactory delegate;
+    private transient volatile CompletableFuture<Void> bootstrap; // creation of the delegate in background (tomee.jpa.factory.async)
+    private volatile long bootstrapTime = -1;
     private final EntityManagerFactoryCallable entityManagerFactoryCallable;
     private ObjectName objectName;
 
@@ -106,10 +117,56 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
         logCriteriaJpqlLevel = logCriteriaQueryJpqlLevel(properties);
 
         if (!callable.getUnitInfo().isLazilyInitialized()) {
-            createDelegate();
+            if (isAsync(properties)) {
+                bootstrap = CompletableFuture.runAsync(this::createDelegate, AsyncBootstrap.EXECUTOR);
+            } else {
+                createDelegate();
+            }
         }
     }
 
+    private static boolean isAsync(final Properties properties) {
+        return "true".equalsIgnoreCase(properties.getProperty(TOMEE_JPA_FACTORY_ASYNC,
+                SystemInstance.get().getProperty(TOMEE_JPA_FACTORY_ASYNC, "false")));
+    }
+
+    /**
+     * Waits for the delegate created in background (tomee.jpa.factory.async),
+     * returns immediately when it is not.
+     *
+     * @throws OpenEJBRuntimeException if the creation failed
+     */
+    public void awaitBootstrap() {
+        final CompletableFuture<Void> pending = bootstrap;
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new OpenEJBRuntimeException(cause);
+        }
+    }
+
+    private void awaitBootstrapQuietly() {
+        try {
+            awaitBootstrap();
+        } catch (final RuntimeException e) {
+            // reported by the deployment or the first use
+        }
+    }
+
+    /**
+     * @return the time the last creation of the delegate took in ms, -1 if it was not created yet
+     */
+    public long getBootstrapTime() {
+        return bootstrapTime;
+    }
+
     public void overrideClassLoader(final ClassLoader loader) {
         classLoader = loader;
         entityManagerFactoryCallable.overrideClassLoader(loader);
@@ -122,6 +179,7 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
 
     private EntityManagerFactory delegate() {
         if (delegate == null) {
+            awaitBootstrap();
             synchronized (this) {
                 if (delegate == null) {
                     createDelegate();
@@ -140,6 +198,7 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
             throw new OpenEJBRuntimeException(e);
         } finally {
             final long time = TimeUnit.MILLISECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            bootstrapTime = time;
             LOGGER.info("assembler.buildingPersistenceUnit", unitInfoImpl.getPersistenceUnitName(), unitInfoImpl.getPersistenceProviderClassName(), String.valueOf(time));
             if (LOGGER.isDebugEnabled()) {
                 for (final Map.Entry<Object, Object> entry : unitInfoImpl.getProperties().entrySet()) {
@@ -279,6 +338,7 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
 
     @Override
     public synchronized void close() {
+        awaitBootstrapQuietly();
         if (delegate != null) {
             delegate.close();
         }
@@ -381,6 +441,7 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
     //
     // Note: it uses the old unitInfo but properties can be modified (not managed classes, provider...)
     public synchronized void reload() {
+        awaitBootstrapQuietly(); // else it would replace the reloaded delegate
         try {
             createDelegate();
         } catch (final Exception e) {
@@ -681,6 +742,12 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
             }
         }
 
+        @ManagedAttribute
+        @Description("get the time the creation of the entity manager factory took in ms")
+        public long getBootstrapTime() {
+            return reloadableEntityManagerFactory.getBootstrapTime();
+        }
+
         @ManagedAttribute
         @Description("get exclude unlisted classes")
         public boolean getExcludeUnlistedClasses() {
@@ -783,4 +850,18 @@ public class ReloadableEntityManagerFactory implements EntityManagerFactory, Ser
             }
         }
     }
+
+    // created on the first async unit only
+    private static final class AsyncBootstrap {
+        private static final ExecutorService EXECUTOR = create();
+
+        private static ExecutorService create() {
+            final int configured = SystemInstance.get().getOptions().get(TOMEE_JPA_FACTORY_ASYNC_THREADS, -1);
+            final int threads = configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.MINUTES,
+                    new LinkedBlockingQueue<>(), new DaemonThreadFactory("openejb-jpa-bootstrap"));
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
 }
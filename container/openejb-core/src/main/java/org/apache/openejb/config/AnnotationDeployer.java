@@ -450,7 +450,13 @@ public class AnnotationDeployer implements DynamicDeployer {
 
     public static class DiscoverAnnotatedBeans implements DynamicDeployer {
         public AppModule deploy(AppModule appModule) throws OpenEJBException {
-            if (!appModule.isWebapp() && !appModule.getWebModules().isEmpty()) { // need to scan for jsf stuff at least
+            final boolean earLibs = !appModule.isWebapp() && !appModule.getWebModules().isEmpty(); // need to scan for jsf stuff at least
+
+            // scan the modules concurrently, the deployment below then reuses the finders
+            final IAnnotationFinder earLibFinder = FinderFactory.createFinders(appModule, earLibs);
+            if (earLibFinder != null) {
+                appModule.setEarLibFinder(earLibFinder);
+            } else if (earLibs) {
                 try {
                     appModule.setEarLibFinder(FinderFactory.createFinder(appModule));
                 } catch (final Exception e) {
@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.config;
+
+import org.apache.openejb.assembler.classic.AppInfo;
+import org.apache.openejb.assembler.classic.ContainerInfo;
+import org.apache.openejb.assembler.classic.ResourceInfo;
+import org.apache.openejb.assembler.classic.WebAppInfo;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+import org.apache.openejb.util.OpenEjbVersion;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary snapshots of the AppInfo of the declared applications, written in
+ * work/appinfo (openejb.configuration.snapshot.directory) when
+ * openejb.configuration.snapshot=true.
+ *
+ * A snapshot is reused instead of running the deployment loader, the
+ * deployers and the AppInfoBuilder as long as its fingerprint matches:
+ * OpenEJB version, content of the archive (or size and date of the files
+ * of an exploded application), content of the configuration file and the
+ * system properties (JVM ones excepted). The containers and resources
+ * auto-created while configuring the application are part of the snapshot
+ * and are added back to the configuration.
+ *
+ * Configuration events are not fired for an application restored from a
+ * snapshot, which is why it is not the default.
+ */
+public class AppInfoSnapshots {
+    public static final String ENABLED = "openejb.configuration.snapshot";
+    public static final String DIRECTORY = "openejb.configuration.snapshot.directory";
+
+    private static final Logger logger = Logger.getInstance(LogCategory.OPENEJB_STARTUP_CONFIG, AppInfoSnapshots.class);
+
+    private static final int MAGIC = 0x0E1BA991;
+    private static final int VERSION = 1;
+    private static final String[] JVM_PROPERTIES = {
+        "java.", "javax.", "jdk.", "sun.", "os.", "user.", "file.", "line.", "path.", "awt.", "native.", "stdout.", "stderr."
+    };
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+        "org.apache.openejb.assembler.classic.*;org.apache.openejb.config.AppInfoSnapshots$*;"
+            + "java.lang.*;java.util.*;java.net.URI;javax.xml.namespace.QName;!*");
+
+    private final File directory;
+
+    public AppInfoSnapshots(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the snapshots if enabled, null otherwise
+     */
+    public static AppInfoSnapshots get() {
+        final SystemInstance systemInstance = SystemInstance.get();
+        if (!systemInstance.getOptions().get(ENABLED, false)) {
+            return null;
+        }
+        final String configured = systemInstance.getOptions().get(DIRECTORY, (String) null);
+        if (configured != null) {
+            return new AppInfoSnapshots(new File(configured));
+        }
+        return new AppInfoSnapshots(new File(new File(systemInstance.getBase().getDirectory(), "work"), "appinfo"));
+    }
+
+    public String fingerprint(final File application, final String configuration) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        update(digest, Integer.toString(VERSION));
+        update(digest, OpenEjbVersion.get().getVersion());
+        update(digest, application.getAbsolutePath());
+        if (application.isDirectory()) {
+            final Path root = application.toPath();
+            try (final Stream<Path> files = Files.walk(root)) {
+                final Map<String, String> sorted = new TreeMap<>();
+                files.filter(Files::isRegularFile).forEach(file -> {
+                    final File f = file.toFile();
+                    sorted.put(root.relativize(file).toString(), f.length() + "@" + f.lastModified());
+                });
+                for (final Map.Entry<String, String> entry : sorted.entrySet()) {
+                    update(digest, entry.getKey());
+                    update(digest, entry.getValue());
+                }
+            }
+        } else {
+            content(digest, application);
+        }
+
+        if (configuration != null && new File(configuration).isFile()) {
+            content(digest, new File(configuration));
+        }
+
+        final Map<String, String> properties = new TreeMap<>();
+        for (final Map.Entry<Object, Object> entry : SystemInstance.get().getProperties().entrySet()) {
+            if (entry.getKey() instanceof String key && entry.getValue() instanceof String value && !isJvmProperty(key)) {
+                properties.put(key, value);
+            }
+        }
+        for (final Map.Entry<String, String> entry : properties.entrySet()) {
+            update(digest, entry.getKey());
+            update(digest, entry.getValue());
+        }
+
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return the snapshot of the application if there is one with this fingerprint, null otherwise
+     */
+    public Snapshot read(final File application, final String fingerprint) {
+        final File file = file(application);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !fingerprint.equals(in.readUTF())) {
+                return null;
+            }
+            try (final ObjectInputStream objects = new SnapshotInputStream(new InflaterInputStream(in))) {
+                return (Snapshot) objects.readObject();
+            }
+        } catch (final Exception e) { // stale or corrupted, will be written again
+            logger.debug("Ignoring the snapshot " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void write(final File application, final String fingerprint, final Snapshot snapshot) {
+        final File file = file(application);
+
+        // the finders pushed for the web scanning are not part of the configuration
+        final Map<Object, Object> transientProperties = new HashMap<>();
+        snapshot.appInfo.properties.entrySet().removeIf(entry -> {
+            if (entry.getKey() instanceof WebAppInfo || !(entry.getValue() instanceof Serializable)) {
+                transientProperties.put(entry.getKey(), entry.getValue());
+                return true;
+            }
+            return false;
+        });
+
+        File tmp = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Can't create " + directory);
+            }
+
+            tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeUTF(fingerprint);
+                final DeflaterOutputStream deflater = new DeflaterOutputStream(out);
+                final ObjectOutputStream objects = new ObjectOutputStream(deflater);
+                objects.writeObject(snapshot);
+                objects.flush();
+                deflater.finish();
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (final IOException e) { // NotSerializableException when a service carries an object
+            logger.warning("Can't write the configuration snapshot of " + application.getAbsolutePath() + ": " + e.getMessage());
+        } finally {
+            snapshot.appInfo.properties.putAll(transientProperties);
+            if (tmp != null) {
+                tmp.delete();
+            }
+        }
+    }
+
+    File file(final File application) {
+        final CRC32C crc = new CRC32C();
+        final byte[] path = application.getAbsolutePath().getBytes(StandardCharsets.UTF_8);
+        crc.update(path, 0, path.length);
+        return new File(directory, application.getName() + '-' + Long.toHexString(crc.getValue()) + ".snapshot");
+    }
+
+    private static boolean isJvmProperty(final String key) {
+        for (final String prefix : JVM_PROPERTIES) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void content(final MessageDigest digest, final File file) throws IOException {
+        final byte[] buffer = new byte[64 * 1024];
+        try (final InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void update(final MessageDigest digest, final String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    public static class Snapshot implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final AppInfo appInfo;
+        public final List<ContainerInfo> containers;
+        public final List<ResourceInfo> resources;
+
+        public Snapshot(final AppInfo appInfo, final List<ContainerInfo> containers, final List<ResourceInfo> resources) {
+            this.appInfo = appInfo;
+            this.containers = new ArrayList<>(containers);
+            this.resources = new ArrayList<>(resources);
+        }
+    }
+
+    private static class SnapshotInputStream extends ObjectInputStream {
+        private SnapshotInputStream(final InputStream in) throws IOException {
+            super(in);
+            setObjectInputFilter(FILTER);
+        }
+
+        @Override
+        protected Class<?> resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, AppInfoSnapshots.class.getClassLoader());
+            } catch (final ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
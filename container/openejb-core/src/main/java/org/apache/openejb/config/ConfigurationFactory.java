@@ -547,10 +547,11 @@ public class ConfigurationFactory implements OpenEjbConfigurationFactory {
 
         final List<File> declaredApps = getDeclaredApps();
 
+        final AppInfoSnapshots snapshots = AppInfoSnapshots.get();
         for (final File jarFile : declaredApps) {
             try {
 
-                final AppInfo appInfo = configureApplication(jarFile);
+                final AppInfo appInfo = snapshots == null ? configureApplication(jarFile) : configureApplication(jarFile, snapshots);
                 sys.containerSystem.applications.add(appInfo);
 
             } catch (final OpenEJBException alreadyHandled) {
@@ -883,6 +884,33 @@ public class ConfigurationFactory implements OpenEjbConfigurationFactory {
         }
     }
 
+    private AppInfo configureApplication(final File jarFile, final AppInfoSnapshots snapshots) throws OpenEJBException {
+        String fingerprint = null;
+        try {
+            fingerprint = snapshots.fingerprint(jarFile, configLocation);
+            final AppInfoSnapshots.Snapshot snapshot = snapshots.read(jarFile, fingerprint);
+            if (snapshot != null) {
+                logger.info("Using the configuration snapshot of " + jarFile.getAbsolutePath());
+                sys.containerSystem.containers.addAll(snapshot.containers);
+                sys.facilities.resources.addAll(snapshot.resources);
+                return snapshot.appInfo;
+            }
+        } catch (final IOException e) {
+            logger.warning("Can't fingerprint " + jarFile.getAbsolutePath() + ", ignoring the configuration snapshot: " + e.getMessage());
+        }
+
+        // what AutoConfig creates for the application ends in sys too
+        final int containers = sys.containerSystem.containers.size();
+        final int resources = sys.facilities.resources.size();
+        final AppInfo appInfo = configureApplication(jarFile);
+        if (fingerprint != null) {
+            snapshots.write(jarFile, fingerprint, new AppInfoSnapshots.Snapshot(appInfo,
+                sys.containerSystem.containers.subList(containers, sys.containerSystem.containers.size()),
+                sys.facilities.resources.subList(resources, sys.facilities.resources.size())));
+        }
+        return appInfo;
+    }
+
     /**
      * embedded usage
      *
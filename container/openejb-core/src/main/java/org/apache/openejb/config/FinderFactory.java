@@ -27,6 +27,8 @@ import org.apache.openejb.jee.Servlet;
 import org.apache.openejb.jee.SessionBean;
 import org.apache.openejb.jee.WebserviceDescription;
 import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
 import org.apache.xbean.finder.Annotated;
 import org.apache.xbean.finder.AnnotationFinder;
 import org.apache.xbean.finder.IAnnotationFinder;
@@ -51,6 +53,12 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static org.apache.openejb.util.Classes.ancestors;
 
@@ -58,6 +66,8 @@ public class FinderFactory {
 
     private static final FinderFactory factory = new FinderFactory();
     public static final String FORCE_LINK = "openejb.finder.force.link";
+    public static final String PARALLELISM = "openejb.finder.parallelism";
+    private static final Logger LOGGER = Logger.getInstance(LogCategory.OPENEJB_STARTUP_CONFIG, FinderFactory.class);
     private static volatile boolean MODULE_LIMITED = "true".equalsIgnoreCase(SystemInstance.get().getProperty("openejb.finder.module-scoped", "false"));
 
     private static FinderFactory get() {
@@ -73,6 +83,89 @@ public class FinderFactory {
         return newFinder(ClasspathArchive.archive(classLoader, url));
     }
 
+    /**
+     * Creates on a fork join pool the finders the annotation deployer will need for the modules
+     * of the application which don't have one yet (openejb.finder.parallelism, 1 to disable it).
+     * A finder which fails is just not set, the deployer will create it again and report the error.
+     *
+     * @param earLibs create the finder of the ear libraries too
+     * @return the finder of the ear libraries if requested and created, null otherwise
+     */
+    public static IAnnotationFinder createFinders(final AppModule appModule, final boolean earLibs) {
+        final List<Callable<Void>> tasks = new ArrayList<>();
+        final AtomicReference<IAnnotationFinder> earLibFinder = new AtomicReference<>();
+        if (earLibs) {
+            tasks.add(finderTask(appModule, earLibFinder::set));
+        }
+        for (final EjbModule ejbModule : appModule.getEjbModules()) {
+            if (ejbModule.getFinder() == null && (ejbModule.getEjbJar() == null || !Boolean.TRUE.equals(ejbModule.getEjbJar().isMetadataComplete()))) {
+                tasks.add(finderTask(ejbModule, ejbModule::setFinder));
+            }
+        }
+        for (final ConnectorModule connectorModule : appModule.getConnectorModules()) {
+            if (connectorModule.getFinder() == null && isScannable(connectorModule.getConnector())) {
+                tasks.add(finderTask(connectorModule, connectorModule::setFinder));
+            }
+        }
+        for (final WebModule webModule : appModule.getWebModules()) {
+            if (webModule.getFinder() == null && (webModule.getWebApp() == null || !Boolean.TRUE.equals(webModule.getWebApp().isMetadataComplete()))) {
+                tasks.add(finderTask(webModule, webModule::setFinder));
+            }
+        }
+
+        final int parallelism = Math.min(tasks.size(), parallelism());
+        if (parallelism <= 1) { // let the deployer do it as before
+            return null;
+        }
+
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(parallelism, p -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("openejb-finder-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            pool.invokeAll(tasks);
+        } finally {
+            pool.shutdown();
+        }
+        LOGGER.debug("Created " + tasks.size() + " finders for " + appModule.getModuleId() + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms using " + parallelism + " threads");
+        return earLibFinder.get();
+    }
+
+    private static int parallelism() {
+        final int configured = SystemInstance.get().getOptions().get(PARALLELISM, -1);
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static boolean isScannable(final org.apache.openejb.jee.Connector connector) {
+        if (connector == null || Boolean.TRUE.equals(connector.isMetadataComplete())) {
+            return false;
+        }
+        try { // JCA 1.6 - 18.3.1, same test as the deployer
+            return Float.parseFloat(connector.getVersion()) >= 1.6;
+        } catch (final Exception e) {
+            return false;
+        }
+    }
+
+    private static Callable<Void> finderTask(final DeploymentModule module, final Consumer<IAnnotationFinder> setter) {
+        return () -> {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader oldLoader = thread.getContextClassLoader();
+            thread.setContextClassLoader(module.getClassLoader());
+            try {
+                setter.accept(createFinder(module));
+            } catch (final Throwable e) {
+                LOGGER.debug("Can't create the finder of " + module.getModuleId() + " in parallel: " + e.getMessage());
+            } finally {
+                thread.setContextClassLoader(oldLoader);
+            }
+            return null;
+        };
+    }
+
     public IAnnotationFinder create(final DeploymentModule module) throws Exception {
         OpenEJBAnnotationFinder finder;
         if (module instanceof WebModule webModule) {
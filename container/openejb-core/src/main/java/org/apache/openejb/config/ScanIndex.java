@@ -0,0 +1,614 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.config;
+
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+import org.apache.xbean.finder.archive.Archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Persistent index of the classes of the scanned jars, stored in
+ * work/scan-index (openejb.finder.index.directory) when openejb.finder.index=true.
+ *
+ * The first scan of a jar records, for each class, whether its bytecode
+ * carries annotations and, if not, its header (access flags, super class and
+ * interfaces). As long as the jar is unchanged (same size and date or same
+ * CRC32C checksum) the next scans only read the annotated classes from the
+ * jar, the other ones are handed to the finder as header only class files,
+ * which is all it keeps from them to resolve subclasses and implementations.
+ */
+public final class ScanIndex {
+    public static final String ENABLED = "openejb.finder.index";
+    public static final String DIRECTORY = "openejb.finder.index.directory";
+
+    private static final Logger LOGGER = Logger.getInstance(LogCategory.OPENEJB_STARTUP_CONFIG, ScanIndex.class);
+
+    private static final int MAGIC = 0x0E1B5CA1;
+    private static final int VERSION = 1;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte ANNOTATED = 1;
+    private static final byte PLAIN = 2;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    private ScanIndex() {
+        // no-op
+    }
+
+    /**
+     * @return an archive backed by the index for a jar file, the archive itself if the index is disabled or doesn't apply
+     */
+    public static Archive archive(final URL location, final Archive archive) {
+        if (!SystemInstance.isInitialized() || !SystemInstance.get().getOptions().get(ENABLED, false)) {
+            return archive;
+        }
+
+        final File jar = jarFile(location);
+        if (jar == null) {
+            return archive;
+        }
+
+        try {
+            final File directory = directory();
+            final File indexFile = new File(directory, indexName(jar));
+            final Index index = Index.read(indexFile, jar);
+            if (index != null) {
+                HITS.incrementAndGet();
+                return new IndexedArchive(archive, index);
+            }
+            MISSES.incrementAndGet();
+            return new IndexingArchive(archive, jar, indexFile);
+        } catch (final IOException e) {
+            LOGGER.debug("Can't use the scan index for " + jar + ": " + e.getMessage());
+            return archive;
+        }
+    }
+
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    private static File directory() throws IOException {
+        final String configured = SystemInstance.get().getOptions().get(DIRECTORY, (String) null);
+        if (configured != null) {
+            return new File(configured);
+        }
+        return new File(new File(SystemInstance.get().getBase().getDirectory(), "work"), "scan-index");
+    }
+
+    private static File jarFile(final URL location) {
+        if (!"file".equals(location.getProtocol())) {
+            return null;
+        }
+        try {
+            final File file = new File(location.toURI());
+            // folders (WEB-INF/classes, target/classes) change too often to be worth it
+            return file.isFile() && file.getName().endsWith(".jar") ? file : null;
+        } catch (final Exception e) {
+            return null;
+        }
+    }
+
+    private static String indexName(final File jar) {
+        final CRC32C crc = new CRC32C();
+        final byte[] path = jar.getAbsolutePath().getBytes(StandardCharsets.UTF_8);
+        crc.update(path, 0, path.length);
+        return jar.getName() + '-' + Long.toHexString(crc.getValue()) + ".idx";
+    }
+
+    static long checksum(final File jar) throws IOException {
+        final Checksum crc = new CRC32C();
+        final byte[] buffer = new byte[64 * 1024];
+        try (final InputStream in = Files.newInputStream(jar.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static byte[] readAll(final InputStream stream) throws IOException {
+        try (final InputStream in = stream) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Replays a valid index: plain classes come from the index, annotated or unknown ones from the jar.
+     */
+    private static final class IndexedArchive implements Archive {
+        private final Archive delegate;
+        private final Index index;
+
+        private IndexedArchive(final Archive delegate, final Index index) {
+            this.delegate = delegate;
+            this.index = index;
+        }
+
+        @Override
+        public InputStream getBytecode(final String className) throws IOException, ClassNotFoundException {
+            return delegate.getBytecode(className);
+        }
+
+        @Override
+        public Class<?> loadClass(final String className) throws ClassNotFoundException {
+            return delegate.loadClass(className);
+        }
+
+        @Override
+        public Iterator<Entry> iterator() {
+            final Iterator<Map.Entry<String, ClassHeader>> classes = index.classes.entrySet().iterator();
+            return new Iterator<Entry>() {
+                @Override
+                public boolean hasNext() {
+                    return classes.hasNext();
+                }
+
+                @Override
+                public Entry next() {
+                    final Map.Entry<String, ClassHeader> next = classes.next();
+                    final String name = next.getKey();
+                    final ClassHeader header = next.getValue();
+                    return new Entry() {
+                        @Override
+                        public String getName() {
+                            return name;
+                        }
+
+                        @Override
+                        public InputStream getBytecode() throws IOException {
+                            if (header.isPlain()) {
+                                return new ByteArrayInputStream(header.toBytecode());
+                            }
+                            try {
+                                return delegate.getBytecode(name);
+                            } catch (final ClassNotFoundException e) {
+                                throw new IOException(e);
+                            }
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    /**
+     * Scans the jar as usual and writes the index once the finder iterated over all of it.
+     */
+    private static final class IndexingArchive implements Archive {
+        private final Archive delegate;
+        private final File jar;
+        private final File indexFile;
+        private final Map<String, ClassHeader> classes = new ConcurrentHashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        private IndexingArchive(final Archive delegate, final File jar, final File indexFile) {
+            this.delegate = delegate;
+            this.jar = jar;
+            this.indexFile = indexFile;
+        }
+
+        @Override
+        public InputStream getBytecode(final String className) throws IOException, ClassNotFoundException {
+            return delegate.getBytecode(className);
+        }
+
+        @Override
+        public Class<?> loadClass(final String className) throws ClassNotFoundException {
+            return delegate.loadClass(className);
+        }
+
+        @Override
+        public Iterator<Entry> iterator() {
+            final long size = jar.length();
+            final long lastModified = jar.lastModified();
+            final Iterator<Entry> entries = delegate.iterator();
+            return new Iterator<Entry>() {
+                private boolean written;
+
+                @Override
+                public boolean hasNext() {
+                    final boolean hasNext = entries.hasNext();
+                    if (!hasNext && !written) {
+                        written = true;
+                        write(size, lastModified);
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public Entry next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    final Entry entry = entries.next();
+                    final String name = entry.getName();
+                    synchronized (names) {
+                        names.add(name);
+                    }
+                    return new Entry() {
+                        @Override
+                        public String getName() {
+                            return name;
+                        }
+
+                        @Override
+                        public InputStream getBytecode() throws IOException {
+                            final byte[] bytecode = readAll(entry.getBytecode());
+                            ClassHeader header;
+                            try {
+                                header = ClassHeader.parse(bytecode);
+                            } catch (final RuntimeException e) { // let the finder deal with it, always from the jar
+                                header = ClassHeader.ANNOTATED_CLASS;
+                            }
+                            classes.put(name, header);
+                            return new ByteArrayInputStream(bytecode);
+                        }
+                    };
+                }
+            };
+        }
+
+        private void write(final long size, final long lastModified) {
+            try {
+                final Map<String, ClassHeader> index = new LinkedHashMap<>();
+                synchronized (names) {
+                    for (final String name : names) {
+                        index.put(name, classes.getOrDefault(name, ClassHeader.UNKNOWN_CLASS));
+                    }
+                }
+                new Index(size, lastModified, checksum(jar), index).write(indexFile);
+            } catch (final IOException e) {
+                LOGGER.debug("Can't write the scan index of " + jar + ": " + e.getMessage());
+            }
+        }
+    }
+
+    static final class Index {
+        private final long size;
+        private final long lastModified;
+        private final long checksum;
+        private final Map<String, ClassHeader> classes;
+
+        private Index(final long size, final long lastModified, final long checksum, final Map<String, ClassHeader> classes) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.classes = classes;
+        }
+
+        private static Index read(final File file, final File jar) throws IOException {
+            if (!file.isFile()) {
+                return null;
+            }
+
+            final Index index;
+            try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                final long size = in.readLong();
+                final long lastModified = in.readLong();
+                final long checksum = in.readLong();
+                final int count = in.readInt();
+                final Map<String, ClassHeader> classes = new LinkedHashMap<>(count * 4 / 3 + 1);
+                for (int i = 0; i < count; i++) {
+                    final String name = in.readUTF();
+                    classes.put(name, ClassHeader.read(in));
+                }
+                index = new Index(size, lastModified, checksum, classes);
+            } catch (final IOException | RuntimeException e) { // corrupted, rebuild it
+                return null;
+            }
+
+            if (index.size != jar.length()) {
+                return null;
+            }
+            if (index.lastModified != jar.lastModified() && index.checksum != checksum(jar)) {
+                return null;
+            }
+            return index;
+        }
+
+        private void write(final File file) throws IOException {
+            final File directory = file.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Can't create " + directory);
+            }
+
+            final File tmp = File.createTempFile(file.getName(), ".tmp", directory);
+            try {
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeLong(size);
+                    out.writeLong(lastModified);
+                    out.writeLong(checksum);
+                    out.writeInt(classes.size());
+                    for (final Map.Entry<String, ClassHeader> entry : classes.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        entry.getValue().write(out);
+                    }
+                }
+                try {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+    }
+
+    /**
+     * What the index knows about a class: nothing (never read by the finder),
+     * that it is annotated (read from the jar) or its header.
+     */
+    static final class ClassHeader {
+        private static final ClassHeader UNKNOWN_CLASS = new ClassHeader(UNKNOWN, 0, 0, null, null, null);
+        private static final ClassHeader ANNOTATED_CLASS = new ClassHeader(ANNOTATED, 0, 0, null, null, null);
+
+        private static final int ACC_ANNOTATION = 0x2000;
+        private static final String[] ANNOTATION_ATTRIBUTES = {
+            "RuntimeVisibleAnnotations", "RuntimeInvisibleAnnotations",
+            "RuntimeVisibleParameterAnnotations", "RuntimeInvisibleParameterAnnotations",
+            "RuntimeVisibleTypeAnnotations", "RuntimeInvisibleTypeAnnotations",
+            "AnnotationDefault"
+        };
+
+        private final byte kind;
+        private final int version;
+        private final int access;
+        private final String name;
+        private final String superName;
+        private final String[] interfaces;
+
+        private ClassHeader(final byte kind, final int version, final int access,
+                            final String name, final String superName, final String[] interfaces) {
+            this.kind = kind;
+            this.version = version;
+            this.access = access;
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+
+        boolean isPlain() {
+            return kind == PLAIN;
+        }
+
+        String getSuperName() {
+            return superName;
+        }
+
+        String[] getInterfaces() {
+            return interfaces;
+        }
+
+        /**
+         * Reads the constant pool and the header of a class file, without
+         * the fields, methods and attributes which are what the finder
+         * spends its time on.
+         */
+        static ClassHeader parse(final byte[] bytecode) {
+            if (bytecode.length < 10 || readInt(bytecode, 0) != 0xCAFEBABE) {
+                throw new IllegalArgumentException("Not a class file");
+            }
+            final int version = readUnsignedShort(bytecode, 6);
+            final int count = readUnsignedShort(bytecode, 8);
+            final int[] offsets = new int[count];
+            boolean annotated = false;
+            int offset = 10;
+            for (int i = 1; i < count; i++) {
+                offsets[i] = offset + 1;
+                final int tag = bytecode[offset];
+                switch (tag) {
+                    case 1: // utf8
+                        final int length = readUnsignedShort(bytecode, offset + 1);
+                        annotated = annotated || isAnnotationAttribute(bytecode, offset + 3, length);
+                        offset += 3 + length;
+                        break;
+                    case 3: // int
+                    case 4: // float
+                    case 9: // field ref
+                    case 10: // method ref
+                    case 11: // interface method ref
+                    case 12: // name and type
+                    case 17: // dynamic
+                    case 18: // invoke dynamic
+                        offset += 5;
+                        break;
+                    case 5: // long
+                    case 6: // double
+                        offset += 9;
+                        i++;
+                        break;
+                    case 15: // method handle
+                        offset += 4;
+                        break;
+                    case 7: // class
+                    case 8: // string
+                    case 16: // method type
+                    case 19: // module
+                    case 20: // package
+                        offset += 3;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+
+            final int access = readUnsignedShort(bytecode, offset);
+            final String name = className(bytecode, offsets, readUnsignedShort(bytecode, offset + 2));
+            if (annotated || (access & ACC_ANNOTATION) != 0 || name.endsWith("package-info") || name.endsWith("module-info")) {
+                return ANNOTATED_CLASS;
+            }
+
+            final int superIndex = readUnsignedShort(bytecode, offset + 4);
+            final String superName = superIndex == 0 ? null : className(bytecode, offsets, superIndex);
+            final String[] interfaces = new String[readUnsignedShort(bytecode, offset + 6)];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaces[i] = className(bytecode, offsets, readUnsignedShort(bytecode, offset + 8 + 2 * i));
+            }
+            return new ClassHeader(PLAIN, version, access, name, superName, interfaces);
+        }
+
+        /**
+         * @return a class file with the header only, no field, method or attribute
+         */
+        byte[] toBytecode() {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 32 * interfaces.length);
+            try (final DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(version);
+                out.writeShort(1 + 2 * (2 + interfaces.length)); // a utf8 and a class per type, super always reserved
+                writeClass(out, 1, name);
+                writeClass(out, 3, superName == null ? "java/lang/Object" : superName);
+                for (int i = 0; i < interfaces.length; i++) {
+                    writeClass(out, 5 + 2 * i, interfaces[i]);
+                }
+                out.writeShort(access);
+                out.writeShort(2); // this
+                out.writeShort(superName == null ? 0 : 4);
+                out.writeShort(interfaces.length);
+                for (int i = 0; i < interfaces.length; i++) {
+                    out.writeShort(6 + 2 * i);
+                }
+                out.writeShort(0); // fields
+                out.writeShort(0); // methods
+                out.writeShort(0); // attributes
+            } catch (final IOException e) {
+                throw new IllegalStateException(e); // can't happen, in memory
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void writeClass(final DataOutputStream out, final int utf8Index, final String type) throws IOException {
+            out.writeByte(1); // utf8
+            out.writeUTF(type);
+            out.writeByte(7); // class
+            out.writeShort(utf8Index);
+        }
+
+        private void write(final DataOutputStream out) throws IOException {
+            out.writeByte(kind);
+            if (kind != PLAIN) {
+                return;
+            }
+            out.writeShort(version);
+            out.writeShort(access);
+            out.writeUTF(name);
+            out.writeUTF(superName == null ? "" : superName);
+            out.writeShort(interfaces.length);
+            for (final String api : interfaces) {
+                out.writeUTF(api);
+            }
+        }
+
+        private static ClassHeader read(final DataInputStream in) throws IOException {
+            final byte kind = in.readByte();
+            switch (kind) {
+                case UNKNOWN:
+                    return UNKNOWN_CLASS;
+                case ANNOTATED:
+                    return ANNOTATED_CLASS;
+                case PLAIN:
+                    final int version = in.readUnsignedShort();
+                    final int access = in.readUnsignedShort();
+                    final String name = in.readUTF();
+                    final String superName = in.readUTF();
+                    final String[] interfaces = new String[in.readUnsignedShort()];
+                    for (int i = 0; i < interfaces.length; i++) {
+                        interfaces[i] = in.readUTF();
+                    }
+                    return new ClassHeader(PLAIN, version, access, name, superName.isEmpty() ? null : superName, interfaces);
+                default:
+                    throw new IOException("Unknown class kind " + kind);
+            }
+        }
+
+        private static boolean isAnnotationAttribute(final byte[] bytecode, final int offset, final int length) {
+            if (length < 17 || (bytecode[offset] != 'R' && bytecode[offset] != 'A')) {
+                return false;
+            }
+            for (final String attribute : ANNOTATION_ATTRIBUTES) {
+                if (attribute.length() == length) {
+                    boolean same = true;
+                    for (int i = 0; i < length && same; i++) {
+                        same = bytecode[offset + i] == attribute.charAt(i);
+                    }
+                    if (same) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static String className(final byte[] bytecode, final int[] offsets, final int classIndex) {
+            final int utf8 = offsets[readUnsignedShort(bytecode, offsets[classIndex])];
+            try {
+                return new DataInputStream(new ByteArrayInputStream(bytecode, utf8, bytecode.length - utf8)).readUTF();
+            } catch (final IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        private static int readUnsignedShort(final byte[] bytes, final int offset) {
+            return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+        }
+
+        private static int readInt(final byte[] bytes, final int offset) {
+            return (readUnsignedShort(bytes, offset) << 16) | readUnsignedShort(bytes, offset + 2);
+        }
+    }
+}
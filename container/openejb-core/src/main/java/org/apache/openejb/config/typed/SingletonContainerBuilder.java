@@ -37,6 +37,8 @@ public class SingletonContainerBuilder extends Container {
     @XmlJavaTypeAdapter(DurationAdapter.class)
     @XmlAttribute
     private Duration accessTimeout = Duration.parse("30 seconds");
+    @XmlAttribute
+    private boolean readerBiasedLocks;
 
     public SingletonContainerBuilder() {
         setClassName("org.apache.openejb.core.singleton.SingletonContainer");
@@ -74,6 +76,19 @@ public class SingletonContainerBuilder extends Container {
         setAccessTimeout(new Duration(time, unit));
     }
 
+    public SingletonContainerBuilder withReaderBiasedLocks(final boolean readerBiasedLocks) {
+        this.readerBiasedLocks = readerBiasedLocks;
+        return this;
+    }
+
+    public void setReaderBiasedLocks(final boolean readerBiasedLocks) {
+        this.readerBiasedLocks = readerBiasedLocks;
+    }
+
+    public boolean getReaderBiasedLocks() {
+        return readerBiasedLocks;
+    }
+
     public Properties getProperties() {
         return Builders.getProperties(this);
     }
@@ -22,19 +22,20 @@ import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.util.LogCategory;
 import org.apache.openejb.util.Logger;
 
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
 
 public class ThreadContext {
 
     private static final Logger log = Logger.getInstance(LogCategory.OPENEJB, "org.apache.openejb.util.resources");
     private static final ThreadLocal<ThreadContext> threadStorage = new ThreadLocal<>();
-    private static final CopyOnWriteArraySet<ThreadContextListener> listeners = new CopyOnWriteArraySet<>();
+    private static final ThreadContextListener[] NO_LISTENERS = new ThreadContextListener[0];
+    private static final Object LISTENERS_LOCK = new Object();
+
+    // copy on write, iterating an array doesn't allocate an iterator on each enter/exit
+    private static volatile ThreadContextListener[] listeners = NO_LISTENERS;
     private static final ThreadLocal<AtomicBoolean> asynchronousCancelled = new ThreadLocal<>();
+    private static final int INITIAL_SLOTS = 4;
 
     public static ThreadContext getThreadContext() {
         return threadStorage.get();
@@ -45,16 +46,20 @@ public class ThreadContext {
             throw new NullPointerException("newContext is null");
         }
 
-        if (newContext.entered.get()) {
+        if (newContext.entered) {
             throw new IllegalStateException("ThreadContext is already entered");
         }
 
-        newContext.entered.set(true);
+        newContext.entered = true;
 
         // set the thread context class loader
         final Thread thread = Thread.currentThread();
-        newContext.oldClassLoader = thread.getContextClassLoader();
-        thread.setContextClassLoader(newContext.beanContext.getClassLoader());
+        final ClassLoader oldClassLoader = thread.getContextClassLoader();
+        final ClassLoader classLoader = newContext.beanContext.getClassLoader();
+        newContext.oldClassLoader = oldClassLoader;
+        if (oldClassLoader != classLoader) {
+            thread.setContextClassLoader(classLoader);
+        }
 
         // update thread local
         final ThreadContext oldContext = threadStorage.get();
@@ -80,14 +85,17 @@ public class ThreadContext {
             throw new IllegalStateException("No existing context");
         }
 
-        if (!exitingContext.entered.get()) {
+        if (!exitingContext.entered) {
             throw new IllegalStateException("ThreadContext has not been entered, or has already been exited");
         }
 
-        exitingContext.entered.set(false);
+        exitingContext.entered = false;
 
         // set the thread context class loader back
-        Thread.currentThread().setContextClassLoader(exitingContext.oldClassLoader);
+        final Thread thread = Thread.currentThread();
+        if (thread.getContextClassLoader() != exitingContext.oldClassLoader) {
+            thread.setContextClassLoader(exitingContext.oldClassLoader);
+        }
         exitingContext.oldClassLoader = null;
 
         // update thread local
@@ -116,21 +124,52 @@ public class ThreadContext {
     }
 
     public static void addThreadContextListener(final ThreadContextListener listener) {
-        listeners.add(listener);
+        synchronized (LISTENERS_LOCK) {
+            final ThreadContextListener[] current = listeners;
+            for (final ThreadContextListener existing : current) {
+                if (existing.equals(listener)) {
+                    return;
+                }
+            }
+            final ThreadContextListener[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+            listeners = updated;
+        }
     }
 
     public static void removeThreadContextListener(final ThreadContextListener listener) {
-        listeners.remove(listener);
+        synchronized (LISTENERS_LOCK) {
+            final ThreadContextListener[] current = listeners;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(listener)) {
+                    final ThreadContextListener[] updated = new ThreadContextListener[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    listeners = updated.length == 0 ? NO_LISTENERS : updated;
+                    return;
+                }
+            }
+        }
     }
 
     private final BeanContext beanContext;
     private final Object primaryKey;
-    private final Map<Class, Object> data = Collections.synchronizedMap(new HashMap<>());
     private ClassLoader oldClassLoader;
     private Operation currentOperation;
     private Class invokedInterface;
     private TransactionPolicy transactionPolicy;
-    private AtomicBoolean entered = new AtomicBoolean(false);
+    private boolean entered;
+
+    /**
+     * Attributes keyed by type. A context holds a handful of entries (the
+     * invoked Method, the InvocationContext, a few CDI holders), so two
+     * parallel arrays scanned by identity beat a synchronized HashMap and its
+     * entry nodes. They are allocated on the first set() and guarded by this
+     * context: it can be copied by another thread while it is in use.
+     */
+    private Class[] keys;
+    private Object[] values;
+    private int size;
 
     /**
      * A boolean which keeps track of whether to discard the bean instance after the method invocation.
@@ -154,7 +193,13 @@ public class ThreadContext {
     public ThreadContext(final ThreadContext that) {
         this.beanContext = that.beanContext;
         this.primaryKey = that.primaryKey;
-        this.data.putAll(that.data);
+        synchronized (that) { // that context can be in use by its own thread
+            if (that.keys != null) {
+                this.keys = Arrays.copyOf(that.keys, Math.max(that.size, INITIAL_SLOTS));
+                this.values = Arrays.copyOf(that.values, this.keys.length);
+                this.size = that.size;
+            }
+        }
         this.oldClassLoader = that.oldClassLoader;
     }
 
@@ -199,18 +244,57 @@ public class ThreadContext {
     }
 
     @SuppressWarnings({"unchecked"})
-    public <T> T get(final Class<T> type) {
-        return (T) data.get(type);
+    public synchronized <T> T get(final Class<T> type) {
+        final int index = indexOf(type);
+        return index < 0 ? null : (T) values[index];
     }
 
     @SuppressWarnings({"unchecked"})
-    public <T> T set(final Class<T> type, final T value) {
-        return (T) data.put(type, value);
+    public synchronized <T> T set(final Class<T> type, final T value) {
+        final int index = indexOf(type);
+        if (index >= 0) {
+            final Object old = values[index];
+            values[index] = value;
+            return (T) old;
+        }
+
+        if (keys == null) {
+            keys = new Class[INITIAL_SLOTS];
+            values = new Object[INITIAL_SLOTS];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = type;
+        values[size] = value;
+        size++;
+        return null;
     }
 
     @SuppressWarnings({"unchecked"})
-    public <T> T remove(final Class<T> type) {
-        return (T) data.remove(type);
+    public synchronized <T> T remove(final Class<T> type) {
+        final int index = indexOf(type);
+        if (index < 0) {
+            return null;
+        }
+
+        final Object old = values[index];
+        final int last = --size;
+        keys[index] = keys[last];
+        values[index] = values[last];
+        keys[last] = null;
+        values[last] = null;
+        return (T) old;
+    }
+
+    private int indexOf(final Class<?> type) {
+        final Class[] k = keys;
+        for (int i = 0; i < size; i++) {
+            if (k[i] == type) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public boolean isDiscardInstance() {
@@ -226,8 +310,8 @@ public class ThreadContext {
         return "ThreadContext{" +
             "beanContext=" + beanContext.getId() +
             ", primaryKey=" + primaryKey +
-            ", data(" + data.size() +
-            ")=" + dataToString(data) +
+            ", data(" + size +
+            ")=" + dataToString() +
             ", oldClassLoader=" + oldClassLoader +
             ", currentOperation=" + currentOperation +
             ", invokedInterface=" + invokedInterface +
@@ -236,10 +320,14 @@ public class ThreadContext {
             '}';
     }
 
-    private String dataToString(final Map<Class, Object> data) {
-        return data.entrySet().stream()
-                .map(entry -> entry.getKey() + "=" + (entry.getValue() == null ? "null" : entry.getValue().hashCode()))
-                .collect(Collectors.joining(", "));
-
+    private synchronized String dataToString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys[i]).append('=').append(values[i] == null ? "null" : values[i].hashCode());
+        }
+        return builder.toString();
     }
 }
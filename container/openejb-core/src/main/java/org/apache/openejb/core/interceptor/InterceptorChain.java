@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.core.interceptor;
+
+import jakarta.interceptor.InvocationContext;
+import org.apache.openejb.core.Operation;
+import org.apache.openejb.core.ThreadContext;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.util.proxy.DynamicProxyImplFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The interceptors of one operation, resolved once instead of on each call
+ * as {@link InterceptorStack} does.
+ *
+ * Every interceptor method and the target method are unreflected to a
+ * {@link MethodHandle} adapted to a fixed shape, so walking the chain is an
+ * index increment and an invokeExact per step: no Interceptor list and no
+ * Invocation object per step, no Method.invoke argument checks.
+ * A method which can't be unreflected (not accessible from here, static)
+ * keeps the reflection path, openejb.interceptors.method-handles=false
+ * forces it for all of them.
+ *
+ * A chain only depends on the interceptor data so it is cached by
+ * {@link org.apache.openejb.MethodContext} for business methods and by
+ * {@link org.apache.openejb.BeanContext} for lifecycle callbacks, the bean
+ * and interceptor instances are given per invocation.
+ */
+public final class InterceptorChain {
+    public static final String METHOD_HANDLES = "openejb.interceptors.method-handles";
+
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final MethodType AROUND_INVOKE = MethodType.methodType(Object.class, Object.class, InvocationContext.class);
+    private static final MethodType SPREAD = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private final Operation operation;
+    private final Step[] steps;
+    private final boolean methodHandles;
+
+    // the last target, a chain nearly always sees a single one (the business method, ejbRemove...)
+    private volatile Target target;
+
+    public InterceptorChain(final Operation operation, final List<InterceptorData> interceptorData) {
+        this(operation, interceptorData, SystemInstance.get().getOptions().get(METHOD_HANDLES, true));
+    }
+
+    public InterceptorChain(final Operation operation, final List<InterceptorData> interceptorData, final boolean methodHandles) {
+        if (operation == null) {
+            throw new NullPointerException("operation is null");
+        }
+        if (interceptorData == null) {
+            throw new NullPointerException("interceptorData is null");
+        }
+        this.operation = operation;
+        this.methodHandles = methodHandles;
+
+        final List<Step> list = new ArrayList<>(interceptorData.size());
+        for (final InterceptorData data : interceptorData) {
+            final String key = data.getInterceptorClass().getName();
+            for (final Method method : data.getMethods(operation)) {
+                list.add(new Step(key, method, methodHandles));
+            }
+        }
+        steps = list.toArray(new Step[list.size()]);
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public int size() {
+        return steps.length;
+    }
+
+    public InvocationContext createInvocationContext(final Object beanInstance, final Method targetMethod,
+                                                     final Map<String, Object> interceptorInstances, final Object... parameters) {
+        if (interceptorInstances == null) {
+            throw new NullPointerException("interceptorInstances is null");
+        }
+
+        final Object[] instances = new Object[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            instances[i] = steps[i].instance(interceptorInstances);
+        }
+        return new ChainInvocationContext(this, instances, beanInstance, targetMethod, parameters);
+    }
+
+    public Object invoke(final Object beanInstance, final Method targetMethod,
+                         final Map<String, Object> interceptorInstances, final Object... parameters) throws Exception {
+        final InvocationContext invocationContext = createInvocationContext(beanInstance, targetMethod, interceptorInstances, parameters);
+        final ThreadContext threadContext = ThreadContext.getThreadContext();
+        if (threadContext == null) {
+            return invocationContext.proceed();
+        }
+
+        threadContext.set(InvocationContext.class, invocationContext);
+        try {
+            return invocationContext.proceed();
+        } finally {
+            threadContext.remove(InvocationContext.class);
+        }
+    }
+
+    private Target target(final Method method) {
+        Target current = target;
+        if (current == null || current.method != method) {
+            current = new Target(method, operation, methodHandles);
+            target = current;
+        }
+        return current;
+    }
+
+    public String toString() {
+        return "InterceptorChain(operation=" + operation + ", steps=" + steps.length + ")";
+    }
+
+    private static MethodHandle unreflect(final Method method, final MethodType type, final boolean spread) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (spread) {
+                handle = handle.asSpreader(Object[].class, method.getParameterCount());
+            }
+            return handle.asType(type);
+        } catch (final IllegalAccessException | RuntimeException e) {
+            return null; // keep Method.invoke
+        }
+    }
+
+    private static Object rethrow(final Throwable throwable) throws Exception {
+        if (throwable instanceof Exception) {
+            throw (Exception) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new AssertionError(throwable);
+    }
+
+    private static final class Step {
+        private final String key;
+        private final Method method;
+        private final boolean aroundInvoke;
+        private final boolean handlerMethod;
+        private final MethodHandle handle;
+
+        private Step(final String key, final Method method, final boolean methodHandles) {
+            this.key = key;
+            this.method = method;
+            this.aroundInvoke = method.getParameterCount() == 1 && method.getParameterTypes()[0] == InvocationContext.class;
+            this.handlerMethod = InvocationHandler.class.isAssignableFrom(method.getDeclaringClass());
+            this.handle = methodHandles ? unreflect(method, aroundInvoke ? AROUND_INVOKE : SPREAD, !aroundInvoke) : null;
+        }
+
+        private Object instance(final Map<String, Object> interceptorInstances) {
+            final Object instance = interceptorInstances.get(key);
+            if (instance == null) {
+                throw new IllegalArgumentException("No interceptor of type " + key);
+            }
+            if (handlerMethod) { // dynamic impl
+                final Object handler = DynamicProxyImplFactory.realHandler(instance);
+                if (handler != null && method.getDeclaringClass().equals(handler.getClass())) {
+                    return handler;
+                }
+            }
+            return instance;
+        }
+
+        private Object aroundInvoke(final Object instance, final InvocationContext invocationContext) throws Exception {
+            if (handle == null) {
+                return method.invoke(instance, invocationContext);
+            }
+            try {
+                return (Object) handle.invokeExact(instance, invocationContext);
+            } catch (final Throwable t) {
+                return rethrow(t);
+            }
+        }
+
+        private void callback(final Object instance, final Object[] parameters) throws Exception {
+            if (handle == null) {
+                method.invoke(instance, parameters);
+                return;
+            }
+            try {
+                final Object ignored = (Object) handle.invokeExact(instance, parameters);
+            } catch (final Throwable t) {
+                rethrow(t);
+            }
+        }
+
+        public String toString() {
+            return method.getDeclaringClass().getName() + "." + method.getName();
+        }
+    }
+
+    private static final class Target {
+        private final Method method;
+        private final MethodHandle handle;
+        private final boolean noArgs;
+
+        private Target(final Method method, final Operation operation, final boolean methodHandles) {
+            this.method = method;
+            //EJB 3.1, it is allowed that timeout method does not have parameter Timer.class,
+            //However, while invoking the timeout method, the timer value is passed, as it is also required by InnvocationContext.getTimer() method
+            this.noArgs = operation == Operation.TIMEOUT && method.getParameterCount() == 0;
+            this.handle = methodHandles ? unreflect(method, SPREAD, true) : null;
+        }
+
+        private Object invoke(final Object instance, final Object[] parameters) throws Exception {
+            final Object[] args = noArgs ? NO_ARGS : parameters;
+            if (handle == null) {
+                return method.invoke(instance, args);
+            }
+            try {
+                return (Object) handle.invokeExact(instance, args);
+            } catch (final Throwable t) {
+                return rethrow(t);
+            }
+        }
+    }
+
+    private static final class ChainInvocationContext extends ReflectionInvocationContext {
+        private final InterceptorChain chain;
+        private final Object[] instances;
+        private final Object target;
+        private final Method method;
+        private final Object[] parameters;
+        private int position;
+
+        private ChainInvocationContext(final InterceptorChain chain, final Object[] instances, final Object target,
+                                       final Method method, final Object[] parameters) {
+            super(chain.operation, Collections.<Interceptor>emptyList(), target, method, null, parameters);
+            this.chain = chain;
+            this.instances = instances;
+            this.target = target;
+            this.method = method;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public Object proceed() throws Exception {
+            try {
+                final int current = position++;
+                if (current < instances.length) {
+                    final Step step = chain.steps[current];
+                    if (step.aroundInvoke) {
+                        return step.aroundInvoke(instances[current], this);
+                    }
+
+                    // invoke the callback then proceed so callbacks in subclasses get invoked
+                    step.callback(instances[current], parameters);
+                    return proceed();
+                }
+                if (method != null) {
+                    return chain.target(method).invoke(target, parameters);
+                }
+                return null;
+            } catch (final InvocationTargetException e) {
+                throw unwrapInvocationTargetException(e);
+            }
+        }
+    }
+}
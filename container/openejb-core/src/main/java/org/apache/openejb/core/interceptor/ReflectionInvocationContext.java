@@ -38,8 +38,7 @@ public class ReflectionInvocationContext implements InvocationContext {
     private final Method method;
     private final Constructor constructor;
     private final Object[] parameters;
-    private final Map<String, Object> contextData = new TreeMap<>();
-    private final Class<?>[] parameterTypes;
+    private Map<String, Object> contextData;
     private final Operation operation;
 
     public ReflectionInvocationContext(final Operation operation, final List<Interceptor> interceptors,
@@ -61,12 +60,6 @@ public class ReflectionInvocationContext implements InvocationContext {
         this.method = method;
         this.constructor = constructor;
         this.parameters = parameters;
-
-        if (method == null) {
-            parameterTypes = new Class[0];
-        } else {
-            parameterTypes = method.getParameterTypes();
-        }
     }
 
     @Override
@@ -125,6 +118,7 @@ public class ReflectionInvocationContext implements InvocationContext {
         if (parameters.length != this.parameters.length) {
             throw new IllegalArgumentException("Expected " + this.parameters.length + " parameters, but only got " + parameters.length + " parameters");
         }
+        final Class<?>[] parameterTypes = method == null ? new Class<?>[0] : method.getParameterTypes();
         for (int i = 0; i < parameters.length; i++) {
             final Object parameter = parameters[i];
             final Class<?> parameterType = parameterTypes[i];
@@ -150,6 +144,9 @@ public class ReflectionInvocationContext implements InvocationContext {
 
     @Override
     public Map<String, Object> getContextData() {
+        if (contextData == null) { // most interceptors never look at it
+            contextData = new TreeMap<>();
+        }
         return contextData;
     }
 
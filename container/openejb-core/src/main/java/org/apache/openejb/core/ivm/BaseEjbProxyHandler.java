@@ -60,7 +60,6 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.math.BigDecimal;
 import java.rmi.AccessException;
 import java.rmi.NoSuchObjectException;
 import java.rmi.Remote;
@@ -130,6 +129,7 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
     private boolean doCrossClassLoaderCopy;
     private transient WeakHashMap<Class, Object> interfaces;
     private transient WeakReference<Class> mainInterface;
+    private transient volatile ConcurrentMap<Method, Dispatch> dispatches;
 
     public BaseEjbProxyHandler(final BeanContext beanContext, final Object pk, final InterfaceType interfaceType, List<Class> interfaces, Class mainInterface) {
         this.container = (RpcContainer) beanContext.getContainer();
@@ -170,6 +170,7 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
     }
 
     private void setStrategy() {
+        this.dispatches = null;
         if (!doIntraVmCopy) {
             strategy = NONE;
         } else if (doCrossClassLoaderCopy) {
@@ -302,8 +303,6 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
             return _invoke(proxy, BeanContext.Removable.class, method, args);
         }
 
-        Class interfce = getInvokedInterface(method);
-
         final ThreadContext callContext = ThreadContext.getThreadContext();
         final Object localClientIdentity = ClientSecurity.getIdentity();
         try {
@@ -311,21 +310,23 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
                 final SecurityService securityService = SystemInstance.get().getComponent(SecurityService.class);
                 securityService.associate(localClientIdentity);
             }
-            if (strategy == CLASSLOADER_COPY || getBeanContext().getInterfaceType(interfce) == InterfaceType.BUSINESS_REMOTE) {
+
+            final Dispatch dispatch = getDispatch(method);
+            final IntraVmCopyMonitor.State strategy = this.strategy;
+
+            if (dispatch.copyWithBeanClassLoader) {
 
                 IntraVmCopyMonitor.pre(strategy);
                 final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
                 Thread.currentThread().setContextClassLoader(getBeanContext().getClassLoader());
                 try {
                     args = copyArgs(args);
-                    method = copyMethod(method);
-                    interfce = copyObj(interfce);
                 } finally {
                     Thread.currentThread().setContextClassLoader(oldClassLoader);
                     IntraVmCopyMonitor.post();
                 }
 
-            } else if (strategy == COPY && args != null && args.length > 0) {
+            } else if (strategy == COPY && args.length > 0) {
 
                 IntraVmCopyMonitor.pre(strategy);
                 try {
@@ -335,20 +336,14 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
                 }
             }
 
-            final IntraVmCopyMonitor.State oldStrategy = strategy;
-            if (getBeanContext().isAsynchronous(method) || getBeanContext().getComponentType().equals(BeanType.MANAGED)) {
-                strategy = IntraVmCopyMonitor.State.NONE;
-            }
-
+            final IntraVmCopyMonitor.State resultStrategy = dispatch.copyResult ? strategy : NONE;
             try {
 
-                final Object returnValue = _invoke(proxy, interfce, method, args);
-                return copy(strategy, returnValue);
+                final Object returnValue = _invoke(proxy, dispatch.interfce, dispatch.method, args);
+                return copy(resultStrategy, returnValue);
             } catch (Throwable throwable) {
-                throwable = copy(strategy, throwable);
-                throw convertException(throwable, method, interfce);
-            } finally {
-                strategy = oldStrategy;
+                throwable = copy(resultStrategy, throwable);
+                throw convertException(throwable, dispatch.method, dispatch.interfce);
             }
         } finally {
 
@@ -359,6 +354,49 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
         }
     }
 
+    /**
+     * What an invocation of this method needs besides its arguments, computed
+     * on the first call: the invoked interface, and when calling through a remote
+     * business interface or across classloaders the method and interface as seen
+     * by the bean classloader.
+     */
+    private Dispatch getDispatch(final Method method) throws Exception {
+        ConcurrentMap<Method, Dispatch> cache = this.dispatches;
+        if (cache == null) {
+            cache = new ConcurrentHashMap<>();
+            this.dispatches = cache;
+        }
+
+        final Dispatch existing = cache.get(method);
+        if (existing != null) {
+            return existing;
+        }
+
+        final IntraVmCopyMonitor.State strategy = this.strategy;
+        Class interfce = getInvokedInterface(method);
+        Method target = method;
+
+        final boolean copyWithBeanClassLoader = strategy == CLASSLOADER_COPY || getBeanContext().getInterfaceType(interfce) == InterfaceType.BUSINESS_REMOTE;
+        if (copyWithBeanClassLoader) {
+            IntraVmCopyMonitor.pre(strategy);
+            final ClassLoader oldClassLoader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(getBeanContext().getClassLoader());
+            try {
+                target = copyMethod(method);
+                interfce = copyObj(interfce);
+            } finally {
+                Thread.currentThread().setContextClassLoader(oldClassLoader);
+                IntraVmCopyMonitor.post();
+            }
+        }
+
+        final boolean copyResult = !getBeanContext().isAsynchronous(target) && !getBeanContext().getComponentType().equals(BeanType.MANAGED);
+
+        final Dispatch dispatch = new Dispatch(interfce, target, copyWithBeanClassLoader, copyResult);
+        cache.putIfAbsent(method, dispatch);
+        return dispatch;
+    }
+
     private <T> T copy(final IntraVmCopyMonitor.State strategy, final T object) throws IOException, ClassNotFoundException {
         if (object == null || !strategy.isCopy()) {
             return object;
@@ -562,31 +600,12 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
 
     /* change dereference to copy */
     protected <T> T copyObj(final T object) throws IOException, ClassNotFoundException {
-        // Check for primitive and other known class types that are immutable.  If detected
-        // we can safely return them.
-        if (object == null) {
-            return null;
-        }
-        final Class ooc = object.getClass();
-        if (ooc == int.class ||
-            ooc == String.class ||
-            ooc == long.class ||
-            ooc == boolean.class ||
-            ooc == byte.class ||
-            ooc == float.class ||
-            ooc == double.class ||
-            ooc == short.class ||
-            ooc == Long.class ||
-            ooc == Boolean.class ||
-            ooc == Byte.class ||
-            ooc == Character.class ||
-            ooc == Float.class ||
-            ooc == Double.class ||
-            ooc == Short.class ||
-            ooc == BigDecimal.class) {
-            return object;
-        }
+        // Immutable types are shared, a few simple types are copied
+        // directly, everything else is serialized. See IntraVmCopier.
+        return IntraVmCopier.copy(object, strategy != CLASSLOADER_COPY, this::serializationCopy);
+    }
 
+    private Object serializationCopy(final Object object) throws IOException, ClassNotFoundException {
         final ByteArrayOutputStream baos = new ByteArrayOutputStream(128);
         try {
             final ObjectOutputStream out = new ObjectOutputStream(baos);
@@ -601,8 +620,7 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
 
         final ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
         final ObjectInputStream in = new EjbObjectInputStream(bais);
-        final Object obj = in.readObject();
-        return (T) obj;
+        return in.readObject();
     }
 
     public void invalidateReference() {
@@ -662,6 +680,7 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
 
     public void setBeanContext(final BeanContext beanContext) {
         this.beanContextRef = new WeakReference<>(beanContext);
+        this.dispatches = null;
     }
 
     public ConcurrentMap getLiveHandleRegistry() {
@@ -748,4 +767,17 @@ public abstract class BaseEjbProxyHandler implements InvocationHandler, Serializ
         protected final ConcurrentMap liveHandleRegistry = new ConcurrentHashMap();
     }
 
+    private static final class Dispatch {
+        private final Class interfce;
+        private final Method method;
+        private final boolean copyWithBeanClassLoader;
+        private final boolean copyResult;
+
+        private Dispatch(final Class interfce, final Method method, final boolean copyWithBeanClassLoader, final boolean copyResult) {
+            this.interfce = interfce;
+            this.method = method;
+            this.copyWithBeanClassLoader = copyWithBeanClassLoader;
+            this.copyResult = copyResult;
+        }
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.ivm;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.Period;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Pass-by-value copies for intra-vm calls that avoid serialization when the
+ * result is known to be equivalent.
+ *
+ * The copy strategy is computed once per class: immutable types (strings, boxed
+ * primitives, BigDecimal/BigInteger, java.time values, UUID, URI, Locale, enums and
+ * serializable records whose components are all immutable) are returned as is,
+ * primitive arrays and arrays of an immutable final type are cloned, and the plain JDK
+ * lists, sets and HashMap holding only immutable values are copied shallowly.
+ * Everything else goes through the serialization fallback.
+ *
+ * Application types (enums, records) are only shared when both sides use the same
+ * classloader, a cross classloader copy must resolve them in the target loader.
+ */
+public final class IntraVmCopier {
+
+    public interface Fallback {
+        Object copy(Object object) throws IOException, ClassNotFoundException;
+    }
+
+    private enum Kind {
+        IMMUTABLE, IMMUTABLE_APPLICATION, CLONE_ARRAY, LIST, SET, MAP, SERIALIZE
+    }
+
+    private static final Set<Class<?>> IMMUTABLES = new HashSet<>(Arrays.asList(
+        String.class, Integer.class, Long.class, Short.class, Byte.class, Character.class, Boolean.class,
+        Float.class, Double.class, BigDecimal.class, BigInteger.class, UUID.class, URI.class, Locale.class,
+        Instant.class, LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class,
+        OffsetTime.class, ZonedDateTime.class, Duration.class, Period.class, Year.class, YearMonth.class,
+        MonthDay.class));
+
+    private static final ThreadLocal<Set<Class<?>>> RESOLVING = ThreadLocal.withInitial(HashSet::new);
+
+    private static final ClassValue<Kind> KINDS = new ClassValue<>() {
+        @Override
+        protected Kind computeValue(final Class<?> type) {
+            return kind(type);
+        }
+    };
+
+    private IntraVmCopier() {
+        // no-op
+    }
+
+    /**
+     * @param sameClassLoader true if the copy is read by the same classloader,
+     *                        false for a cross classloader copy
+     * @param fallback        the serialization copy
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copy(final T object, final boolean sameClassLoader, final Fallback fallback) throws IOException, ClassNotFoundException {
+        if (object == null) {
+            return null;
+        }
+
+        switch (KINDS.get(object.getClass())) {
+            case IMMUTABLE:
+                return object;
+            case IMMUTABLE_APPLICATION:
+                return sameClassLoader ? object : (T) fallback.copy(object);
+            case CLONE_ARRAY:
+                return (T) cloneArray(object);
+            case LIST:
+                if (isShareable((Collection<?>) object, sameClassLoader)) {
+                    return (T) (object.getClass() == ArrayList.class ? new ArrayList<>((List<?>) object) : new LinkedList<>((List<?>) object));
+                }
+                return (T) fallback.copy(object);
+            case SET:
+                if (isShareable((Collection<?>) object, sameClassLoader)) {
+                    return (T) (object.getClass() == HashSet.class ? new HashSet<>((Set<?>) object) : new LinkedHashSet<>((Set<?>) object));
+                }
+                return (T) fallback.copy(object);
+            case MAP:
+                final Map<?, ?> map = (Map<?, ?>) object;
+                if (isShareable(map.keySet(), sameClassLoader) && isShareable(map.values(), sameClassLoader)) {
+                    return (T) new HashMap<>(map);
+                }
+                return (T) fallback.copy(object);
+            default:
+                return (T) fallback.copy(object);
+        }
+    }
+
+    /**
+     * @return true if the instances of this type can be shared instead of copied
+     */
+    public static boolean isImmutable(final Class<?> type, final boolean sameClassLoader) {
+        final Kind kind = KINDS.get(type);
+        return kind == Kind.IMMUTABLE || (sameClassLoader && kind == Kind.IMMUTABLE_APPLICATION);
+    }
+
+    private static boolean isShareable(final Collection<?> values, final boolean sameClassLoader) {
+        for (final Object value : values) {
+            if (value != null && !isImmutable(value.getClass(), sameClassLoader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object cloneArray(final Object array) {
+        if (array instanceof Object[]) {
+            return ((Object[]) array).clone();
+        } else if (array instanceof byte[]) {
+            return ((byte[]) array).clone();
+        } else if (array instanceof int[]) {
+            return ((int[]) array).clone();
+        } else if (array instanceof long[]) {
+            return ((long[]) array).clone();
+        } else if (array instanceof char[]) {
+            return ((char[]) array).clone();
+        } else if (array instanceof double[]) {
+            return ((double[]) array).clone();
+        } else if (array instanceof float[]) {
+            return ((float[]) array).clone();
+        } else if (array instanceof short[]) {
+            return ((short[]) array).clone();
+        }
+        return ((boolean[]) array).clone();
+    }
+
+    private static Kind kind(final Class<?> type) {
+        if (IMMUTABLES.contains(type) || (type.getClassLoader() == null && ZoneId.class.isAssignableFrom(type))) {
+            return Kind.IMMUTABLE;
+        }
+        if (type.isEnum() || (type.getSuperclass() != null && type.getSuperclass().isEnum())) { // constant bodies are subclasses
+            return type.getClassLoader() == null ? Kind.IMMUTABLE : Kind.IMMUTABLE_APPLICATION;
+        }
+        if (type.isArray()) {
+            final Class<?> component = type.getComponentType();
+            // a final component type means all elements have that exact type
+            if (component.isPrimitive() || (Modifier.isFinal(component.getModifiers()) && KINDS.get(component) == Kind.IMMUTABLE)) {
+                return Kind.CLONE_ARRAY;
+            }
+            return Kind.SERIALIZE;
+        }
+        if (type == ArrayList.class || type == LinkedList.class) {
+            return Kind.LIST;
+        }
+        if (type == HashSet.class || type == LinkedHashSet.class) {
+            return Kind.SET;
+        }
+        if (type == HashMap.class) {
+            return Kind.MAP;
+        }
+        if (type.isRecord() && Serializable.class.isAssignableFrom(type) && isImmutableRecord(type)) {
+            return type.getClassLoader() == null ? Kind.IMMUTABLE : Kind.IMMUTABLE_APPLICATION;
+        }
+        return Kind.SERIALIZE;
+    }
+
+    private static boolean isImmutableRecord(final Class<?> type) {
+        final Set<Class<?>> resolving = RESOLVING.get();
+        if (!resolving.add(type)) { // self referencing record
+            return false;
+        }
+        try {
+            for (final RecordComponent component : type.getRecordComponents()) {
+                final Class<?> componentType = component.getType();
+                if (componentType.isPrimitive()) {
+                    continue;
+                }
+                // the declared type must be final, else a mutable subclass could be passed
+                if (!Modifier.isFinal(componentType.getModifiers()) || resolving.contains(componentType)) {
+                    return false;
+                }
+                final Kind kind = KINDS.get(componentType);
+                if (kind != Kind.IMMUTABLE && kind != Kind.IMMUTABLE_APPLICATION) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            resolving.remove(type);
+        }
+    }
+}
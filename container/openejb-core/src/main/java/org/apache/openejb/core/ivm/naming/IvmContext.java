@@ -32,7 +32,6 @@ import javax.naming.CompositeName;
 import javax.naming.Context;
 import javax.naming.LinkRef;
 import javax.naming.Name;
-import javax.naming.NameAlreadyBoundException;
 import javax.naming.NameClassPair;
 import javax.naming.NameNotFoundException;
 import javax.naming.NameParser;
@@ -58,6 +57,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
 * This class wrappers a specific NameNode which is the data model for the JNDI
@@ -73,7 +73,14 @@ public class IvmContext implements Context, Serializable {
     Hashtable<String, Object> myEnv;
     boolean readOnly;
     Map<String, Object> fastCache = new ConcurrentHashMap<>();
+    final AtomicInteger cachedMisses = new AtomicInteger();
     static final String JNDI_EXCEPTION_ON_FAILED_WRITE = "openejb.jndiExceptionOnFailedWrite";
+    static final int MAX_CACHED_MISSES = 1024;
+    /**
+     * Cache the names not found even if a federated context (tomcat) was asked for them,
+     * only safe if these contexts don't get new names once the application started.
+     */
+    public static final String CACHE_FEDERATED_MISSES = "openejb.jndi.cache-federated-misses";
     public NameNode mynode;
 
     public static IvmContext createRootContext() {
@@ -113,55 +120,48 @@ public class IvmContext implements Context, Serializable {
             return this;
         }
 
-        final String compoundName;
         final int index = compositName.indexOf(':');
         if (index > -1) {
 
             final String prefix = compositName.substring(0, index);
 
-            String path = compositName.substring(index + 1);
-            final ParsedName name = new ParsedName(path);
+            final String path = normalize(compositName.substring(index + 1));
 
             if (prefix.equals("openejb")) {
-                path = name.path();
                 return openejbURLContextFactory.getContext().lookup(path);
             } else if (prefix.equals("java")) {
-                if (name.getComponent().equals("openejb")) {
-                    path = name.remaining().path();
-                    return openejbURLContextFactory.getContext().lookup(path);
+                if (path.equals("openejb")) {
+                    return openejbURLContextFactory.getContext().lookup("");
+                } else if (path.startsWith("openejb/")) {
+                    return openejbURLContextFactory.getContext().lookup(path.substring("openejb/".length()));
                 } else {
-                    path = name.path();
                     return javaURLContextFactory.getContext().lookup(path);
                 }
             } else {
                 // we don't know what the prefix means, throw an exception
                 throw new NamingException("Unknown JNDI name prefix '" + prefix + ":'");
             }
-        } else {
-            /*
-              the resolve method always starts with the comparison assuming that the first
-              component of the name is a context of a peer node or the same node, so we have
-              to prepend the current context name to the relative lookup path.
-            */
-            compoundName = mynode.getAtomicName() + '/' + compositName;
         }
 
         /*
            If the object has been resolved in the past from this context and the specified path (name)
            it will be in the fastCache which is significantly faster then peruse the Node graph.
            80 ms compared to 300 ms for a full node path search.
+           The cache is per context so the relative name is enough as key.
         */
-        Object obj = fastCache.get(compoundName);
-        if (obj == null) {
-            try {
-                obj = mynode.resolve(new ParsedName(compoundName), readOnly);
-            } catch (final NameNotFoundException nnfe) {
-                obj = federate(compositName);
+        Object obj = fastCache.get(compositName);
+        if (obj instanceof Miss) {
+            if (((Miss) obj).generation == NameNode.generation()) {
+                throw new NameNotFoundException("Name \"" + compositName + "\" not found.");
             }
+            obj = null; // something was bound or unbound since
+        }
+        if (obj == null) {
+            obj = resolve(compositName);
 
             // don't cache proxies
             if (!(obj instanceof IntraVmProxy) && !(obj instanceof ContextualJndiReference)) {
-                fastCache.put(compoundName, obj);
+                fastCache.put(compositName, obj);
             }
         }
 
@@ -191,6 +191,39 @@ public class IvmContext implements Context, Serializable {
         return obj;
     }
 
+    private Object resolve(final String compositName) throws NamingException {
+        final long generation = NameNode.generation();
+
+        /*
+          the resolve method always starts with the comparison assuming that the first
+          component of the name is a context of a peer node or the same node, so we have
+          to prepend the current context name to the relative lookup path.
+        */
+        final ParsedName name = new ParsedName(mynode.getAtomicName() + '/' + compositName);
+        try {
+            return mynode.resolve(name, readOnly);
+        } catch (final NameNotFoundException nnfe) {
+            try {
+                return federate(compositName);
+            } catch (final NameNotFoundException missing) {
+                // a federated context can get the name without us knowing it, by default only cache misses of our own tree
+                final boolean federated = name.isFederated() || getFederatedFactories().length > 0;
+                if ((!federated || SystemInstance.get().getOptions().get(CACHE_FEDERATED_MISSES, false))
+                        && cachedMisses.incrementAndGet() <= MAX_CACHED_MISSES) {
+                    fastCache.put(compositName, new Miss(generation));
+                }
+                throw missing;
+            }
+        }
+    }
+
+    private static String normalize(final String path) {
+        if (path.isEmpty() || path.charAt(0) == '/' || path.charAt(path.length() - 1) == '/' || path.contains("//")) {
+            return new ParsedName(path).path();
+        }
+        return path;
+    }
+
     protected Object federate(final String compositName) throws NamingException {
         final ObjectFactory[] factories = getFederatedFactories();
         for (final ObjectFactory factory : factories) {
@@ -315,12 +348,7 @@ public class IvmContext implements Context, Serializable {
             */
             name = name.substring(indx + 1);
         }
-        if (fastCache.containsKey(name)) {
-            throw new NameAlreadyBoundException();
-        } else {
-            final ParsedName parsedName = getParsedNameFor(name);
-            mynode.bind(parsedName, obj);
-        }
+        mynode.bind(getParsedNameFor(name), obj);
     }
 
     private ParsedName getParsedNameFor(String name){
@@ -356,7 +384,7 @@ public class IvmContext implements Context, Serializable {
             */
             name = name.substring(indx + 1);
         }
-        fastCache.clear();
+        clearCache();
         mynode.clearCache();
 
         mynode.unbind(getParsedNameFor(name));
@@ -366,6 +394,11 @@ public class IvmContext implements Context, Serializable {
         unbind(name.toString());
     }
 
+    void clearCache() {
+        fastCache.clear();
+        cachedMisses.set(0);
+    }
+
     public void prune(final String name) throws NamingException {
         final IvmContext ctx = (IvmContext) lookup(name);
         ctx.prune();
@@ -430,11 +463,7 @@ public class IvmContext implements Context, Serializable {
             */
             name = name.substring(indx + 1);
         }
-        if (fastCache.containsKey(name)) {
-            throw new NameAlreadyBoundException();
-        } else {
-            return mynode.createSubcontext(getParsedNameFor(name), readOnly);
-        }
+        return mynode.createSubcontext(getParsedNameFor(name), readOnly);
     }
 
     public Context createSubcontext(final Name name) throws NamingException {
@@ -673,6 +702,15 @@ public class IvmContext implements Context, Serializable {
                 '}';
     }
 
+    // a name not found in the tree of the context, valid until the next bind or unbind
+    private static final class Miss {
+        private final long generation;
+
+        private Miss(final long generation) {
+            this.generation = generation;
+        }
+    }
+
     protected Object writeReplace() throws ObjectStreamException {
         if (IntraVmCopyMonitor.isStatefulPassivationOperation()) {
             return new JndiEncArtifact(this);
@@ -26,8 +26,14 @@ import javax.naming.NamingException;
 import java.io.PrintStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class NameNode implements Serializable {
+    // changed by each bind and unbind, cached lookup misses are only valid for the generation they were made in
+    private static final AtomicLong GENERATION = new AtomicLong();
+    // the trees are modified in place, applications can be deployed in parallel (openejb.deployer.parallelism)
+    private static final Object WRITE_LOCK = new Object();
+
     private final String atomicName;
     private final int atomicHash;
     private NameNode lessTree;
@@ -55,6 +61,10 @@ public class NameNode implements Serializable {
         }
     }
 
+    static long generation() {
+        return GENERATION.get();
+    }
+
     void setMyContext(final IvmContext myContext) {
         this.myContext = myContext;
     }
@@ -120,6 +130,7 @@ public class NameNode implements Serializable {
             }
         }
         if (myObject instanceof Federation) {
+            name.federated();
             name.reset(pos);
             final String nameInContext = compareResult != ParsedName.IS_EQUAL ? name.path() : name.remaining().path();
             Federation f = null;
@@ -150,6 +161,16 @@ public class NameNode implements Serializable {
     }
 
     public void bind(final ParsedName name, final Object obj) throws NameAlreadyBoundException {
+        synchronized (WRITE_LOCK) {
+            try {
+                doBind(name, obj);
+            } finally {
+                GENERATION.incrementAndGet();
+            }
+        }
+    }
+
+    private void doBind(final ParsedName name, final Object obj) throws NameAlreadyBoundException {
         final int compareResult = name.compareTo(atomicHash);
         if (compareResult == ParsedName.IS_EQUAL && name.getComponent().equals(atomicName)) {
             if (name.next()) {
@@ -160,7 +181,7 @@ public class NameNode implements Serializable {
                     subTree = new NameNode(this, name, obj, this);
                     subTreeUnbound = false;
                 } else {
-                    subTree.bind(name, obj);
+                    subTree.doBind(name, obj);
                 }
             } else {
                 if (obj instanceof Context) {
@@ -187,14 +208,14 @@ public class NameNode implements Serializable {
             if (lessTree == null) {
                 lessTree = new NameNode(this.parent, name, obj, this);
             } else {
-                lessTree.bind(name, obj);
+                lessTree.doBind(name, obj);
             }
         } else {
             //ParsedName.IS_GREATER ...
             if (grtrTree == null) {
                 grtrTree = new NameNode(this.parent, name, obj, this);
             } else {
-                grtrTree.bind(name, obj);
+                grtrTree.doBind(name, obj);
             }
         }
     }
@@ -262,11 +283,21 @@ public class NameNode implements Serializable {
     }
 
     public void unbind(final ParsedName name) throws NameAlreadyBoundException {
+        synchronized (WRITE_LOCK) {
+            try {
+                doUnbind(name);
+            } finally {
+                GENERATION.incrementAndGet();
+            }
+        }
+    }
+
+    private void doUnbind(final ParsedName name) throws NameAlreadyBoundException {
         final int compareResult = name.compareTo(atomicHash);
         if (compareResult == ParsedName.IS_EQUAL && name.getComponent().equals(atomicName)) {
             if (name.next()) {
                 if (subTree != null) {
-                    subTree.unbind(name);
+                    subTree.doUnbind(name);
                 }
             } else {
                 unbound = true;
@@ -275,12 +306,12 @@ public class NameNode implements Serializable {
             }
         } else if (compareResult == ParsedName.IS_LESS) {
             if (lessTree != null) {
-                lessTree.unbind(name);
+                lessTree.doUnbind(name);
             }
         } else {//ParsedName.IS_GREATER ...
 
             if (grtrTree != null) {
-                grtrTree.unbind(name);
+                grtrTree.doUnbind(name);
             }
         }
     }
@@ -333,7 +364,13 @@ public class NameNode implements Serializable {
     }
 
     protected void prune() {
-        prune(this);
+        synchronized (WRITE_LOCK) {
+            try {
+                prune(this);
+            } finally {
+                GENERATION.incrementAndGet();
+            }
+        }
     }
 
     private void prune(final NameNode until) {
@@ -376,7 +413,7 @@ public class NameNode implements Serializable {
 
     protected void clearCache() {
         if (myContext != null) {
-            myContext.fastCache.clear();
+            myContext.clearCache();
         }
         if (grtrTree != null) {
             grtrTree.clearCache();
@@ -28,6 +28,7 @@ public class ParsedName implements Serializable {
     String[] components;
     int pos;
     int hashcode;
+    transient boolean federated;
 
     public ParsedName(String path) {
         path = normalize(path);
@@ -85,6 +86,17 @@ public class ParsedName implements Serializable {
         return Integer.compare(hashcode, otherHash);
     }
 
+    void federated() {
+        federated = true;
+    }
+
+    /**
+     * @return true if a federated context was asked for this name while resolving it
+     */
+    public boolean isFederated() {
+        return federated;
+    }
+
     public int getComponentHashCode() {
         return hashcode;
     }
@@ -22,6 +22,7 @@ import org.apache.openejb.BeanContext;
 import org.apache.openejb.ContainerType;
 import org.apache.openejb.InterfaceType;
 import org.apache.openejb.InvalidateReferenceException;
+import org.apache.openejb.MethodTable;
 import org.apache.openejb.OpenEJBException;
 import org.apache.openejb.OpenEJBRuntimeException;
 import org.apache.openejb.ProxyInfo;
@@ -31,7 +32,7 @@ import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.managed.Cache.CacheFilter;
 import org.apache.openejb.core.managed.Cache.CacheListener;
@@ -515,14 +516,13 @@ public class ManagedContainer implements RpcContainer {
                     }
 
                     // Initialize interceptor stack
-                    final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-                    final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, runMethod, Operation.REMOVE, interceptors, instance.interceptors);
+                    final InterceptorChain interceptorChain = beanContext.getMethodInterceptorChain(runMethod, Operation.REMOVE);
 
                     // Invoke
                     if (args == null) {
-                        returnValue = interceptorStack.invoke();
+                        returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors);
                     } else {
-                        returnValue = interceptorStack.invoke(args);
+                        returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
                     }
                 }
             } catch (final InvalidateReferenceException e) {
@@ -542,9 +542,8 @@ public class ManagedContainer implements RpcContainer {
                 if (!retain) {
                     try {
                         callContext.setCurrentOperation(Operation.PRE_DESTROY);
-                        final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                        final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
-                        interceptorStack.invoke();
+                        final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
+                        interceptorChain.invoke(instance.bean, null, instance.interceptors);
                     } catch (final Throwable callbackException) {
                         final String logMessage = "An unexpected exception occurred while invoking the preDestroy method on the removed Stateful SessionBean instance; " + callbackException.getClass().getName() + " " + callbackException.getMessage();
 
@@ -576,8 +575,10 @@ public class ManagedContainer implements RpcContainer {
             // Security check
             checkAuthorization(callMethod, interfaceType);
 
+            final MethodTable.Entry entry = beanContext.getMethodEntry(callMethod);
+
             // Start transaction
-            final TransactionPolicy txPolicy = EjbTransactionUtil.createTransactionPolicy(callContext.getBeanContext().getTransactionType(callMethod, interfaceType), callContext);
+            final TransactionPolicy txPolicy = EjbTransactionUtil.createTransactionPolicy(entry.getTransactionType(interfaceType), callContext);
 
             Object returnValue = null;
             Instance instance = null;
@@ -603,15 +604,14 @@ public class ManagedContainer implements RpcContainer {
                 callContext.setCurrentOperation(Operation.BUSINESS);
                 callContext.setCurrentAllowedStates(null);
                 callContext.setInvokedInterface(callInterface);
-                final Method runMethod = beanContext.getMatchingBeanMethod(callMethod);
+                final Method runMethod = entry.getBeanMethod();
                 callContext.set(Method.class, runMethod);
 
                 // Initialize interceptor stack
-                final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, runMethod, Operation.BUSINESS, interceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = entry.getInterceptorChain(Operation.BUSINESS);
 
                 // Invoke
-                returnValue = interceptorStack.invoke(args);
+                returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
             } catch (final Throwable e) {
                 handleException(callContext, txPolicy, e);
             } finally {
@@ -923,9 +923,8 @@ public class ManagedContainer implements RpcContainer {
             final ThreadContext oldCallContext = ThreadContext.enter(callContext);
             try {
 
-                final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.AFTER_BEGIN, interceptors, instance.interceptors);
-                interceptorStack.invoke();
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.AFTER_BEGIN);
+                interceptorChain.invoke(instance.bean, null, instance.interceptors);
 
             } catch (final Exception e) {
                 final String message = "An unexpected system exception occurred while invoking the afterBegin method on the SessionSynchronization object";
@@ -966,9 +965,8 @@ public class ManagedContainer implements RpcContainer {
                     instance.setInUse(true);
 
                     final BeanContext beanContext = instance.beanContext;
-                    final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                    final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.BEFORE_COMPLETION, interceptors, instance.interceptors);
-                    interceptorStack.invoke();
+                    final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.BEFORE_COMPLETION);
+                    interceptorChain.invoke(instance.bean, null, instance.interceptors);
 
                     instance.setInUse(false);
                 } catch (final InvalidateReferenceException e) {
@@ -1008,9 +1006,8 @@ public class ManagedContainer implements RpcContainer {
                     if (synchronization.isCallSessionSynchronization()) {
 
                         final BeanContext beanContext = instance.beanContext;
-                        final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                        final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.AFTER_COMPLETION, interceptors, instance.interceptors);
-                        interceptorStack.invoke(status == Status.COMMITTED);
+                        final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.AFTER_COMPLETION);
+                        interceptorChain.invoke(instance.bean, null, instance.interceptors, status == Status.COMMITTED);
                     }
                     instance.setTransaction(null);
                     releaseInstance(instance);
@@ -1053,10 +1050,9 @@ public class ManagedContainer implements RpcContainer {
             try {
                 final Method remove = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbActivate") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.ACTIVATE, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.ACTIVATE);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, remove, instance.interceptors);
             } catch (final Throwable callbackException) {
                 discardInstance(threadContext);
                 EjbTransactionUtil.handleSystemException(threadContext.getTransactionPolicy(), callbackException, threadContext);
@@ -1074,10 +1070,9 @@ public class ManagedContainer implements RpcContainer {
             try {
                 final Method passivate = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbPassivate") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, passivate, Operation.PASSIVATE, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PASSIVATE);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, passivate, instance.interceptors);
 
             } catch (final Throwable e) {
                 logger.error("An unexpected exception occurred while invoking the ejbPassivate method on the Stateful SessionBean instance", e);
@@ -1096,10 +1091,9 @@ public class ManagedContainer implements RpcContainer {
             try {
                 final Method remove = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbRemove") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, remove, instance.interceptors);
             } catch (final Throwable e) {
                 logger.error("An unexpected exception occurred while invoking the ejbRemove method on the timed-out Stateful SessionBean instance", e);
             } finally {
@@ -27,13 +27,13 @@ import org.apache.openejb.SystemException;
 import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
-import org.apache.openejb.core.interceptor.InterceptorStack;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.timer.EjbTimerService;
 import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.loader.Options;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.monitoring.*;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
 import org.apache.openejb.resource.XAResourceWrapper;
 import org.apache.openejb.spi.SecurityService;
 import org.apache.openejb.util.LogCategory;
@@ -505,6 +505,7 @@ public class MdbContainer implements RpcContainer, BaseMdbContainer {
             // determine the target method on the bean instance class
             final Method targetMethod = deployInfo.getMatchingBeanMethod(method);
             callContext.set(Method.class, targetMethod);
+            mdbCallContext.metrics = deployInfo.getInvocationMetrics().get(targetMethod);
 
             // invoke the target method
             returnValue = _invoke(instance, targetMethod, args, deployInfo, type, mdbCallContext);
@@ -528,14 +529,16 @@ public class MdbContainer implements RpcContainer, BaseMdbContainer {
 
     private Object _invoke(final Object instance, final Method runMethod, final Object[] args, final BeanContext beanContext, final InterfaceType interfaceType, final MdbCallContext mdbCallContext) throws SystemException,
             ApplicationException {
+        final MethodMetrics metrics = mdbCallContext.metrics;
+        final long start = System.nanoTime();
         final Object returnValue;
         try {
-            final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-            final InterceptorStack interceptorStack = new InterceptorStack(((Instance) instance).bean, runMethod, interfaceType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS,
-                    interceptors, ((Instance) instance).interceptors);
-            returnValue = interceptorStack.invoke(args);
+            final InterceptorChain interceptorChain = beanContext.getMethodInterceptorChain(runMethod, interfaceType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS);
+            returnValue = interceptorChain.invoke(((Instance) instance).bean, runMethod, ((Instance) instance).interceptors, args);
             return returnValue;
         } catch (Throwable e) {
+            metrics.failed();
+
             // unwrap invocation target exception
             if (e instanceof InvocationTargetException) {
                 e = ((InvocationTargetException) e).getTargetException();
@@ -557,6 +560,8 @@ public class MdbContainer implements RpcContainer, BaseMdbContainer {
                 // Application Exception ***********************
                 handleApplicationException(mdbCallContext.txPolicy, e, false);
             }
+        } finally {
+            metrics.invoked(System.nanoTime() - start);
         }
         throw new AssertionError("Should not get here");
     }
@@ -567,11 +572,15 @@ public class MdbContainer implements RpcContainer, BaseMdbContainer {
         final MdbCallContext mdbCallContext = callContext.get(MdbCallContext.class);
 
         // invoke the tx after method
+        final long start = System.nanoTime();
         try {
             afterInvoke(mdbCallContext.txPolicy, callContext);
         } catch (final ApplicationException e) {
             throw new SystemException("Should never get an Application exception", e);
         } finally {
+            if (mdbCallContext.metrics != null) {
+                mdbCallContext.metrics.completed(System.nanoTime() - start);
+            }
             ThreadContext.exit(mdbCallContext.oldCallContext);
         }
     }
@@ -643,6 +652,7 @@ public class MdbContainer implements RpcContainer, BaseMdbContainer {
         private Method deliveryMethod;
         private TransactionPolicy txPolicy;
         private ThreadContext oldCallContext;
+        private MethodMetrics metrics;
     }
 
     private static class MdbActivationContext {
@@ -193,6 +193,10 @@ public class MdbContainerFactory {
         poolBuilder.setMaxAgeOffset(maxAgeOffset);
     }
 
+    public void setStripes(final int stripes) {
+        poolBuilder.setStripes(stripes);
+    }
+
     public boolean isPool() {
         return pool;
     }
@@ -23,7 +23,7 @@ import org.apache.openejb.core.BaseContext;
 import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.timer.TimerServiceWrapper;
 import org.apache.openejb.spi.SecurityService;
@@ -39,7 +39,6 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 
 /**
  * A MdbInstanceFactory creates instances of message driven beans for a single instance. This class differs from other
@@ -167,9 +166,8 @@ public class MdbInstanceFactory {
                 callContext.setCurrentOperation(Operation.PRE_DESTROY);
             }
             final Method remove = instance.bean instanceof MessageDrivenBean ? MessageDrivenBean.class.getMethod("ejbRemove") : null;
-            final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-            final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
-            interceptorStack.invoke();
+            final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
+            interceptorChain.invoke(instance.bean, remove, instance.interceptors);
             if (instance.creationalContext != null) {
                 instance.creationalContext.release();
             }
@@ -26,8 +26,7 @@ import org.apache.openejb.core.BaseContext;
 import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
-import org.apache.openejb.core.interceptor.InterceptorStack;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.timer.TimerServiceWrapper;
 import org.apache.openejb.loader.Options;
 import org.apache.openejb.monitoring.LocalMBeanServer;
@@ -609,14 +608,13 @@ public class MdbInstanceManager {
 
             final Method remove = instance.bean instanceof SessionBean ? removeSessionBeanMethod : null;
 
-            final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-            final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
+            final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
 
             final CdiEjbBean<Object> bean = beanContext.get(CdiEjbBean.class);
             if (bean != null) { // TODO: see if it should be called before or after next call
                 bean.getInjectionTarget().preDestroy(instance.bean);
             }
-            interceptorStack.invoke();
+            interceptorChain.invoke(instance.bean, remove, instance.interceptors);
 
             if (instance.creationalContext != null) {
                 instance.creationalContext.release();
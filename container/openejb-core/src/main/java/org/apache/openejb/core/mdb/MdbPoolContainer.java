@@ -27,11 +27,11 @@ import org.apache.openejb.SystemException;
 import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
-import org.apache.openejb.core.interceptor.InterceptorStack;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.timer.EjbTimerService;
 import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
 import org.apache.openejb.resource.XAResourceWrapper;
 import org.apache.openejb.spi.SecurityService;
 import org.apache.openejb.util.DaemonThreadFactory;
@@ -52,7 +52,6 @@ import jakarta.validation.Validator;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -351,6 +350,7 @@ public class MdbPoolContainer implements RpcContainer, BaseMdbContainer {
             // determine the target method on the bean instance class
             final Method targetMethod = deployInfo.getMatchingBeanMethod(method);
             callContext.set(Method.class, targetMethod);
+            mdbCallContext.metrics = deployInfo.getInvocationMetrics().get(targetMethod);
 
             // invoke the target method
             returnValue = _invoke(instance, targetMethod, args, deployInfo, type, mdbCallContext, callContext);
@@ -377,14 +377,16 @@ public class MdbPoolContainer implements RpcContainer, BaseMdbContainer {
                            final MdbCallContext mdbCallContext,
                            final ThreadContext callContext) throws SystemException,
             ApplicationException {
+        final MethodMetrics metrics = mdbCallContext.metrics;
+        final long start = System.nanoTime();
         final Object returnValue;
         try {
-            final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-            final InterceptorStack interceptorStack = new InterceptorStack(((Instance) instance).bean, runMethod, interfaceType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS,
-                    interceptors, ((Instance) instance).interceptors);
-            returnValue = interceptorStack.invoke(args);
+            final InterceptorChain interceptorChain = beanContext.getMethodInterceptorChain(runMethod, interfaceType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS);
+            returnValue = interceptorChain.invoke(((Instance) instance).bean, runMethod, ((Instance) instance).interceptors, args);
             return returnValue;
         } catch (Throwable e) {
+            metrics.failed();
+
             // unwrap invocation target exception
             if (e instanceof InvocationTargetException) {
                 e = ((InvocationTargetException) e).getTargetException();
@@ -407,6 +409,8 @@ public class MdbPoolContainer implements RpcContainer, BaseMdbContainer {
                 // Application Exception ***********************
                 handleApplicationException(mdbCallContext.txPolicy, e, false);
             }
+        } finally {
+            metrics.invoked(System.nanoTime() - start);
         }
         throw new AssertionError("Should not get here");
     }
@@ -417,12 +421,17 @@ public class MdbPoolContainer implements RpcContainer, BaseMdbContainer {
         final MdbCallContext mdbCallContext = callContext.get(MdbCallContext.class);
 
         // invoke the tx after method
+        final long start = System.nanoTime();
         try {
             afterInvoke(mdbCallContext.txPolicy, callContext);
         } catch (final ApplicationException e) {
             callContext.setDiscardInstance(true);
             throw new SystemException("Should never get an Application exception", e);
         } finally {
+            if (mdbCallContext.metrics != null) {
+                mdbCallContext.metrics.completed(System.nanoTime() - start);
+            }
+
             if (instance != null) {
                 if (callContext.isDiscardInstance()) {
                     this.instanceManager.discardInstance(callContext, instance);
@@ -479,6 +488,7 @@ public class MdbPoolContainer implements RpcContainer, BaseMdbContainer {
         private Method deliveryMethod;
         private TransactionPolicy txPolicy;
         private ThreadContext oldCallContext;
+        private MethodMetrics metrics;
     }
 
     static class MdbActivationContext {
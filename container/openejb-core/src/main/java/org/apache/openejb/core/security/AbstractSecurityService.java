@@ -81,6 +81,10 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
     protected static final String KEY_PRINCIPAL_MAPPER = PolicyContext.PRINCIPAL_MAPPER;
     protected static final Set<String> KEYS = new HashSet<>(asList(KEY_REQUEST, KEY_SUBJECT, KEY_PRINCIPAL_MAPPER));
 
+    // check the EJB method permissions with the MethodPermissionTable of the beans instead of the java.security.Policy
+    public static final String COMPILED_PERMISSIONS = "openejb.security.compiled-permissions";
+    private static final boolean POLICY_SUPPORTED = System.getProperty("java.vm.specification.version").compareTo("21") < 0;
+
     private static final Map<Object, Identity> identities = new ConcurrentHashMap<>();
     protected static final ThreadLocal<Identity> clientIdentity = new ThreadLocal<>();
     protected String defaultUser = "guest";
@@ -89,6 +93,7 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
     protected SecurityContext defaultContext;
     private static final AtomicBoolean jaccWarningLogged = new AtomicBoolean(false);
     private final PrincipalMapper principalMapper = new DefaultPrincipalMapper();
+    private final boolean compiledPermissions;
 
     public AbstractSecurityService() {
         this(autoJaccProvider());
@@ -99,6 +104,9 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
 
         installJacc();
 
+        // a custom provider decides itself, unless asked otherwise
+        compiledPermissions = SystemInstance.get().getOptions().get(COMPILED_PERMISSIONS, BasicJaccProvider.class.getName().equals(jaccProvider));
+
         ThreadContext.addThreadContextListener(this);
 
         // set the default subject and the default context
@@ -377,9 +385,21 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
 
     @Override
     public boolean isCallerAuthorized(final Method method, final InterfaceType type) {
-        if (System.getProperty("java.vm.specification.version").compareTo("21") < 0) {
-            final ThreadContext threadContext = ThreadContext.getThreadContext();
-            final BeanContext beanContext = threadContext.getBeanContext();
+        final ThreadContext threadContext = ThreadContext.getThreadContext();
+        final BeanContext beanContext = threadContext.getBeanContext();
+        final MethodPermissionTable permissions = beanContext.get(MethodPermissionTable.class);
+        if (permissions != null && (compiledPermissions || !POLICY_SUPPORTED)) {
+            final Identity currentIdentity = clientIdentity.get();
+            final MethodPermissionTable.CallerRoles roles;
+            if (currentIdentity == null) {
+                roles = callerRoles(threadContext.get(SecurityContext.class));
+            } else {
+                roles = currentIdentity.callerRoles(this);
+            }
+            return permissions.isAuthorized(method, type, roles);
+        }
+
+        if (POLICY_SUPPORTED) {
             try {
 
                 final String ejbName = beanContext.getEjbName();
@@ -414,6 +434,13 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
         return true;
     }
 
+    private MethodPermissionTable.CallerRoles callerRoles(final SecurityContext securityContext) {
+        if (securityContext == null) {
+            return new MethodPermissionTable.CallerRoles(null, this);
+        }
+        return securityContext.callerRoles(this);
+    }
+
     protected static String autoJaccProvider() {
         return SystemInstance.isInitialized() ?
                 SystemInstance.get().getProperty(JaccProvider.class.getName(), BasicJaccProvider.class.getName()) :
@@ -610,6 +637,7 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
 
     public static final class SecurityContext implements Serializable {
         public final Subject subject;
+        private transient volatile MethodPermissionTable.CallerRoles callerRoles;
 
         @SuppressWarnings("unchecked")
         public SecurityContext(final Subject subject) {
@@ -619,11 +647,21 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
         public AccessControlContext getAccessControlContext() {
             return (AccessControlContext) Subject.doAsPrivileged(subject, (PrivilegedAction) AccessController::getContext, null);
         }
+
+        MethodPermissionTable.CallerRoles callerRoles(final BasicPolicyConfiguration.RoleResolver resolver) {
+            MethodPermissionTable.CallerRoles roles = callerRoles;
+            if (roles == null) { // a race only resolves the roles twice
+                roles = new MethodPermissionTable.CallerRoles(subject, resolver);
+                callerRoles = roles;
+            }
+            return roles;
+        }
     }
 
     protected static class Identity implements Serializable {
         private final Subject subject;
         private final UUID token;
+        private transient volatile MethodPermissionTable.CallerRoles callerRoles;
 
         public Identity(final Subject subject) {
             this.subject = subject;
@@ -642,6 +680,15 @@ public abstract class AbstractSecurityService implements DestroyableResource, Se
         public UUID getToken() {
             return token;
         }
+
+        MethodPermissionTable.CallerRoles callerRoles(final BasicPolicyConfiguration.RoleResolver resolver) {
+            MethodPermissionTable.CallerRoles roles = callerRoles;
+            if (roles == null) {
+                roles = new MethodPermissionTable.CallerRoles(subject, resolver);
+                callerRoles = roles;
+            }
+            return roles;
+        }
     }
 
     public static class Group implements java.security.Principal {
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.core.security;
+
+import org.apache.openejb.api.internal.Internal;
+import org.apache.openejb.api.jmx.Description;
+import org.apache.openejb.api.jmx.MBean;
+import org.apache.openejb.api.jmx.ManagedAttribute;
+import org.apache.openejb.api.jmx.ManagedOperation;
+import org.apache.openejb.loader.Options;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.monitoring.LocalMBeanServer;
+import org.apache.openejb.monitoring.ObjectNameBuilder;
+import org.apache.openejb.util.Duration;
+
+import javax.management.ObjectName;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The result of the successful logins of a realm by user name, so a user
+ * logging in again with the same password doesn't go through the login
+ * modules (and their database or LDAP queries) until the entry expires.
+ *
+ * Disabled by default (openejb.security.authentication-cache.size=0). The
+ * passwords are not kept, only their SHA-256 salted with a random value
+ * drawn when the cache is created. A failed login is never cached and a
+ * login with another password than the cached one goes through the login
+ * modules again.
+ *
+ * When a realm is full its expired entries are dropped, then the oldest
+ * one. A realm only exists once a login succeeded in it and there are at
+ * most openejb.security.authentication-cache.realms of them (100 by
+ * default), the logins of the other realms are not cached. Each realm is exposed through JMX (ObjectType=authentication-cache)
+ * with its hit and miss counts and operations to invalidate a user or the
+ * whole realm.
+ */
+public class AuthenticationCache<T> {
+    public static final String SIZE = "openejb.security.authentication-cache.size";
+    public static final String TTL = "openejb.security.authentication-cache.ttl";
+    public static final String REALMS = "openejb.security.authentication-cache.realms";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final String name;
+    private final int maxSize;
+    private final long ttl;
+    private final int maxRealms;
+    private final byte[] salt = new byte[16];
+    private final ConcurrentMap<String, Realm> realms = new ConcurrentHashMap<>();
+
+    public AuthenticationCache(final String name, final int maxSize, final long ttl, final TimeUnit unit) {
+        this(name, maxSize, ttl, unit, 100);
+    }
+
+    public AuthenticationCache(final String name, final int maxSize, final long ttl, final TimeUnit unit, final int maxRealms) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttl = unit.toMillis(ttl);
+        this.maxRealms = maxRealms;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * @param name the owner of the cache, used in the JMX names of its realms
+     */
+    public static <T> AuthenticationCache<T> create(final String name) {
+        final Options options = SystemInstance.get().getOptions();
+        final Duration ttl = new Duration(options.get(TTL, "5 minutes"));
+        if (ttl.getUnit() == null) {
+            ttl.setUnit(TimeUnit.SECONDS);
+        }
+        return new AuthenticationCache<>(name, options.get(SIZE, 0), ttl.getTime(), ttl.getUnit(), options.get(REALMS, 100));
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0 && ttl > 0;
+    }
+
+    /**
+     * @return the value cached for this user if its password is the one it logged in with, null otherwise
+     */
+    public T get(final String realmName, final String username, final String password) {
+        if (!isEnabled() || username == null || password == null) {
+            return null;
+        }
+
+        final Realm realm = realms.get(key(realmName)); // never created here, the realm name comes from the client
+        if (realm == null) {
+            return null;
+        }
+        final Entry<T> entry = realm.entries.get(username);
+        if (entry != null) {
+            if (System.currentTimeMillis() - entry.expiresAt < 0 && MessageDigest.isEqual(entry.credential, credential(username, password))) {
+                realm.hits.increment();
+                return entry.value;
+            }
+            realm.entries.remove(username, entry);
+        }
+        realm.misses.increment();
+        return null;
+    }
+
+    public void put(final String realmName, final String username, final String password, final T value) {
+        if (!isEnabled() || username == null || password == null || value == null) {
+            return;
+        }
+
+        final Realm realm = realm(realmName);
+        if (realm == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (realm.entries.size() >= maxSize && !realm.entries.containsKey(username)) {
+            realm.evict(now);
+        }
+        realm.entries.put(username, new Entry<>(credential(username, password), value, now + ttl));
+    }
+
+    public void invalidate(final String realmName, final String username) {
+        final Realm realm = realms.get(key(realmName));
+        if (realm != null) {
+            realm.entries.remove(username);
+        }
+    }
+
+    public void invalidate(final String realmName) {
+        final Realm realm = realms.get(key(realmName));
+        if (realm != null) {
+            realm.entries.clear();
+        }
+    }
+
+    public void invalidateAll() {
+        for (final Realm realm : realms.values()) {
+            realm.entries.clear();
+        }
+    }
+
+    public long getHits(final String realmName) {
+        final Realm realm = realms.get(key(realmName));
+        return realm == null ? 0 : realm.hits.sum();
+    }
+
+    public long getMisses(final String realmName) {
+        final Realm realm = realms.get(key(realmName));
+        return realm == null ? 0 : realm.misses.sum();
+    }
+
+    /**
+     * Empties the cache and unregisters its realms from JMX.
+     */
+    public void close() {
+        for (final Realm realm : realms.values()) {
+            realm.entries.clear();
+            if (realm.objectName != null) {
+                LocalMBeanServer.unregisterSilently(realm.objectName);
+            }
+        }
+        realms.clear();
+    }
+
+    // null when there are already too many realms
+    private Realm realm(final String realmName) {
+        final String key = key(realmName);
+        final Realm existing = realms.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (realms.size() >= maxRealms) {
+            return null;
+        }
+        return realms.computeIfAbsent(key, Realm::new);
+    }
+
+    private static String key(final String realmName) {
+        return realmName == null ? "" : realmName;
+    }
+
+    private byte[] credential(final String username, final String password) {
+        final MessageDigest digest = SHA_256.get();
+        digest.update(salt);
+        digest.update(username.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return digest.digest(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Entry<T> {
+        private final byte[] credential;
+        private final T value;
+        private final long expiresAt;
+
+        private Entry(final byte[] credential, final T value, final long expiresAt) {
+            this.credential = credential;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class Realm {
+        private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final ObjectName objectName;
+
+        private Realm(final String name) {
+            if (LocalMBeanServer.isJMXActive()) {
+                objectName = new ObjectNameBuilder("openejb.management")
+                        .set("ObjectType", "authentication-cache")
+                        .set("name", AuthenticationCache.this.name)
+                        .set("Realm", name)
+                        .build();
+                LocalMBeanServer.registerDynamicWrapperSilently(new JMXAuthenticationCache(this), objectName);
+            } else {
+                objectName = null;
+            }
+        }
+
+        // all the entries have the same ttl so the first to expire is the oldest
+        private void evict(final long now) {
+            entries.values().removeIf(e -> now - e.expiresAt >= 0);
+            while (entries.size() >= maxSize) {
+                Map.Entry<String, Entry<T>> oldest = null;
+                for (final Map.Entry<String, Entry<T>> candidate : entries.entrySet()) {
+                    if (oldest == null || candidate.getValue().expiresAt - oldest.getValue().expiresAt < 0) {
+                        oldest = candidate;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                entries.remove(oldest.getKey(), oldest.getValue());
+            }
+        }
+    }
+
+    @MBean
+    @Internal
+    @Description("cache of the successful logins of a realm")
+    public static final class JMXAuthenticationCache {
+        private final AuthenticationCache<?>.Realm realm;
+
+        private JMXAuthenticationCache(final AuthenticationCache<?>.Realm realm) {
+            this.realm = realm;
+        }
+
+        @ManagedAttribute
+        @Description("Number of logins served by the cache")
+        public long getHits() {
+            return realm.hits.sum();
+        }
+
+        @ManagedAttribute
+        @Description("Number of logins which went through the login modules")
+        public long getMisses() {
+            return realm.misses.sum();
+        }
+
+        @ManagedAttribute
+        @Description("Number of cached users")
+        public int getSize() {
+            return realm.entries.size();
+        }
+
+        @ManagedOperation
+        @Description("Forget the login of a user")
+        public void invalidate(final String username) {
+            realm.entries.remove(username);
+        }
+
+        @ManagedOperation
+        @Description("Forget the logins of all the users of the realm")
+        public void invalidateAll() {
+            realm.entries.clear();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.core.security;
+
+import org.apache.openejb.InterfaceType;
+import org.apache.openejb.core.security.jacc.BasicPolicyConfiguration;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import javax.security.auth.Subject;
+import java.lang.reflect.Method;
+import java.security.PermissionCollection;
+import java.security.Principal;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The EJB method permissions of a bean, the JACC policy of its module
+ * (excluded, unchecked and per role {@link EJBMethodPermission}s) evaluated
+ * once per method and interface when the bean is deployed.
+ *
+ * A check is then a lookup of the method and an intersection of the roles
+ * allowed to call it with the roles of the caller, resolved once per
+ * security context. It doesn't need a java.security.Policy so it also works
+ * on the JDKs without AccessControlContext support.
+ *
+ * A method not known at deployment time is evaluated against the policy on
+ * its first check and added to the table.
+ */
+public final class MethodPermissionTable {
+    private static final int NO_INTERFACE = InterfaceType.values().length;
+
+    private final String ejbName;
+    private final Roles roles;
+    private final PermissionCollection excluded;
+    private final PermissionCollection unchecked;
+    private final PermissionCollection[] rolePermissions;
+    private final ConcurrentMap<Method, Rule>[] rules;
+
+    @SuppressWarnings("unchecked")
+    public MethodPermissionTable(final String ejbName, final Roles roles, final PermissionCollection excluded,
+                                 final PermissionCollection unchecked, final Map<String, PermissionCollection> rolePermissions) {
+        this.ejbName = ejbName;
+        this.roles = roles;
+        this.excluded = excluded;
+        this.unchecked = unchecked;
+        this.rolePermissions = new PermissionCollection[roles.names.length];
+        for (int i = 0; i < roles.names.length; i++) {
+            this.rolePermissions[i] = rolePermissions.get(roles.names[i]);
+        }
+        this.rules = new ConcurrentMap[NO_INTERFACE + 1];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Evaluates the public methods of a view of the bean.
+     *
+     * @param type null for the bean class
+     */
+    public void compile(final InterfaceType type, final Class<?> view) {
+        if (view == null) {
+            return;
+        }
+        final int slot = slot(type);
+        final String methodInterface = slot == NO_INTERFACE ? null : type.getSpecName();
+        for (final Method method : view.getMethods()) {
+            rules[slot].computeIfAbsent(method, m -> evaluate(methodInterface, m));
+        }
+    }
+
+    public boolean isAuthorized(final Method method, final InterfaceType type, final CallerRoles caller) {
+        final int slot = slot(type);
+        Rule rule = rules[slot].get(method);
+        if (rule == null) {
+            final String methodInterface = slot == NO_INTERFACE ? null : type.getSpecName();
+            rule = rules[slot].computeIfAbsent(method, m -> evaluate(methodInterface, m));
+        }
+        if (rule.kind != Rule.ROLES) {
+            return rule.kind == Rule.PERMIT;
+        }
+        return rule.roles.intersects(caller.roles(this.roles));
+    }
+
+    public Roles getRoles() {
+        return roles;
+    }
+
+    int size() {
+        int size = 0;
+        for (final Map<Method, Rule> map : rules) {
+            size += map.size();
+        }
+        return size;
+    }
+
+    private static int slot(final InterfaceType type) {
+        if (type == null || type == InterfaceType.LOCALBEAN || type == InterfaceType.BUSINESS_LOCALBEAN_HOME) {
+            return NO_INTERFACE; // the policy path passes no interface for them either
+        }
+        return type.ordinal();
+    }
+
+    // same order as BasicPolicyConfiguration.implies
+    private Rule evaluate(final String methodInterface, final Method method) {
+        final EJBMethodPermission permission = new EJBMethodPermission(ejbName, methodInterface, method);
+        if (excluded != null && excluded.implies(permission)) {
+            return Rule.DENY_ALL;
+        }
+        if (unchecked != null && unchecked.implies(permission)) {
+            return Rule.PERMIT_ALL;
+        }
+        final BitSet allowed = new BitSet(rolePermissions.length);
+        for (int i = 0; i < rolePermissions.length; i++) {
+            if (rolePermissions[i] != null && rolePermissions[i].implies(permission)) {
+                allowed.set(i);
+            }
+        }
+        return allowed.isEmpty() ? Rule.DENY_ALL : new Rule(Rule.ROLES, allowed);
+    }
+
+    /**
+     * The role names of a module, a role is a bit of the role sets.
+     */
+    public static final class Roles {
+        private final String[] names;
+        private final Set<String> nameSet;
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        public Roles(final Set<String> names) {
+            this.names = names.toArray(new String[0]);
+            this.nameSet = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+            for (int i = 0; i < this.names.length; i++) {
+                indices.put(this.names[i], i);
+            }
+        }
+
+        BitSet resolve(final Subject subject, final BasicPolicyConfiguration.RoleResolver resolver) {
+            final BitSet set = new BitSet(names.length);
+            if (subject == null || names.length == 0) {
+                return set;
+            }
+            final Principal[] principals = subject.getPrincipals().toArray(new Principal[0]);
+            if (principals.length == 0) {
+                return set;
+            }
+            for (final String role : resolver.getLogicalRoles(principals, nameSet)) {
+                final Integer index = indices.get(role);
+                if (index != null) {
+                    set.set(index);
+                }
+            }
+            return set;
+        }
+    }
+
+    /**
+     * The roles of a caller for the last module it called, kept by its security context.
+     */
+    public static final class CallerRoles {
+        private final Subject subject;
+        private final BasicPolicyConfiguration.RoleResolver resolver;
+        private volatile Resolved resolved;
+
+        public CallerRoles(final Subject subject, final BasicPolicyConfiguration.RoleResolver resolver) {
+            this.subject = subject;
+            this.resolver = resolver;
+        }
+
+        BitSet roles(final Roles roles) {
+            final Resolved current = resolved;
+            if (current != null && current.roles == roles) {
+                return current.set;
+            }
+            final BitSet set = roles.resolve(subject, resolver);
+            resolved = new Resolved(roles, set);
+            return set;
+        }
+
+        private static final class Resolved {
+            private final Roles roles;
+            private final BitSet set; // never modified once published
+
+            private Resolved(final Roles roles, final BitSet set) {
+                this.roles = roles;
+                this.set = set;
+            }
+        }
+    }
+
+    private static final class Rule {
+        private static final int DENY = 0;
+        private static final int PERMIT = 1;
+        private static final int ROLES = 2;
+        private static final Rule DENY_ALL = new Rule(DENY, null);
+        private static final Rule PERMIT_ALL = new Rule(PERMIT, null);
+
+        private final int kind;
+        private final BitSet roles;
+
+        private Rule(final int kind, final BitSet roles) {
+            this.kind = kind;
+            this.roles = roles;
+        }
+    }
+}
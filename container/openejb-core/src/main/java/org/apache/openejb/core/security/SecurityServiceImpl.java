@@ -27,7 +27,9 @@ import javax.security.auth.Subject;
 import javax.security.auth.login.LoginContext;
 import javax.security.auth.login.LoginException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -38,6 +40,10 @@ public class SecurityServiceImpl extends AbstractSecurityService {
 
     private static final Map<Object, LoginContext> contexts = new ConcurrentHashMap<>();
 
+    // principals and public credentials of the subjects, the login modules remove them on logout
+    private final AuthenticationCache<Subject> authenticationCache = AuthenticationCache.create("SecurityService");
+    private final Set<Object> cachedLogins = ConcurrentHashMap.newKeySet();
+
     public SecurityServiceImpl() {
         this(autoJaccProvider());
     }
@@ -75,10 +81,20 @@ public class SecurityServiceImpl extends AbstractSecurityService {
         if (realmName == null) {
             realmName = getRealmName();
         }
+
+        final Subject cached = authenticationCache.get(realmName, username, password);
+        if (cached != null) {
+            final UUID token = registerSubject(new Subject(false, cached.getPrincipals(), cached.getPublicCredentials(), Collections.emptySet()));
+            cachedLogins.add(token);
+            return token;
+        }
+
         final LoginContext context = new LoginContext(realmName, new UsernamePasswordCallbackHandler(username, password));
         context.login();
 
         final Subject subject = context.getSubject();
+        authenticationCache.put(realmName, username, password,
+                new Subject(true, subject.getPrincipals(), subject.getPublicCredentials(), Collections.emptySet()));
 
         final UUID token = registerSubject(subject);
         contexts.put(token, context);
@@ -86,6 +102,10 @@ public class SecurityServiceImpl extends AbstractSecurityService {
         return token;
     }
 
+    public AuthenticationCache<Subject> getAuthenticationCache() {
+        return authenticationCache;
+    }
+
     /* (non-Javadoc)
      * @see org.apache.openejb.core.security.AbstractSecurityService#logout(java.util.UUID)
      */
@@ -93,10 +113,19 @@ public class SecurityServiceImpl extends AbstractSecurityService {
     public void logout(final UUID securityIdentity) throws LoginException {
         final LoginContext context = contexts.remove(securityIdentity);
         if (null == context) {
-            throw new IllegalStateException("Unable to logout. Can not recover LoginContext.");
+            if (!cachedLogins.remove(securityIdentity)) {
+                throw new IllegalStateException("Unable to logout. Can not recover LoginContext.");
+            }
+        } else {
+            context.logout();
         }
-        context.logout();
         super.logout(securityIdentity);
     }
 
+    @Override
+    public void destroyResource() {
+        authenticationCache.close();
+        super.destroyResource();
+    }
+
 }
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.core.singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link ReentrantReadWriteLock} with a reader fast path for singletons
+ * mostly called through @Lock(READ) methods.
+ *
+ * While no write lock is requested the readers only increment a counter in
+ * a stripe picked by their thread instead of all updating the state of the
+ * underlying lock, so concurrent readers don't fight over one cache line.
+ * A writer takes the underlying write lock, turns the bias off and waits
+ * for the stripes to drain, the readers then go through the underlying lock
+ * until one of them turns the bias back on. It only does so after 9 times
+ * the time the writer spent waiting for the stripes so write heavy beans
+ * stay on the underlying lock.
+ *
+ * Reentrance behaves as with the underlying lock: nested read locks of a
+ * thread follow the path of the first one, the write lock holder can take
+ * read locks, a read lock holder can't take the write lock.
+ */
+public class ReaderBiasedReadWriteLock implements ReadWriteLock {
+    private static final int STRIPES = stripes();
+    private static final int PADDING = 16; // 128 bytes between two stripes
+    private static final int INHIBIT_FACTOR = 9;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLongArray readers = new AtomicLongArray(STRIPES * PADDING);
+    private final ThreadLocal<Holder> holders = ThreadLocal.withInitial(Holder::new);
+    private final Lock readLock = new ReadLock();
+    private final Lock writeLock = new WriteLock();
+
+    private volatile boolean readBias = true;
+    private volatile long inhibitUntil = System.nanoTime();
+    private boolean drained = true; // guarded by the write lock
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    public boolean isReadBiased() {
+        return readBias;
+    }
+
+    private static int stripes() {
+        final int wanted = Math.min(64, Runtime.getRuntime().availableProcessors() * 2);
+        return Integer.highestOneBit(Math.max(1, wanted - 1)) << 1;
+    }
+
+    private boolean fastRead(final Holder holder) {
+        if (holder.fast > 0) { // reentrant, the writers wait for this stripe anyway
+            readers.incrementAndGet(holder.stripe);
+            holder.fast++;
+            return true;
+        }
+        if (holder.slow > 0 || !readBias) {
+            return false;
+        }
+
+        readers.incrementAndGet(holder.stripe);
+        if (readBias) {
+            holder.fast++;
+            return true;
+        }
+        readers.decrementAndGet(holder.stripe); // a writer came in between
+        return false;
+    }
+
+    private void slowReadAcquired(final Holder holder) {
+        holder.slow++;
+        // holding the read lock no writer is in, unless it is this thread
+        if (!readBias && !lock.isWriteLocked() && System.nanoTime() - inhibitUntil >= 0) {
+            readBias = true;
+        }
+    }
+
+    /**
+     * Called with the underlying write lock held.
+     *
+     * @return false if the readers are still there at the deadline
+     */
+    private boolean revoke(final long deadline, final boolean timed) {
+        if (!readBias && drained) {
+            return true;
+        }
+        readBias = false;
+        drained = false; // until then the next writer has to wait for the stripes too
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < STRIPES; i++) {
+            final int index = i * PADDING;
+            int spins = 0;
+            while (readers.get(index) != 0) {
+                if (timed && System.nanoTime() - deadline >= 0) {
+                    return false;
+                }
+                if (++spins < 64) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+        }
+        drained = true;
+        final long now = System.nanoTime();
+        inhibitUntil = now + (now - start) * INHIBIT_FACTOR;
+        return true;
+    }
+
+    private static final class Holder {
+        private final int stripe;
+        private int fast;
+        private int slow;
+
+        private Holder() {
+            long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            stripe = ((int) h & (STRIPES - 1)) * PADDING;
+        }
+    }
+
+    private final class ReadLock implements Lock {
+        @Override
+        public void lock() {
+            final Holder holder = holders.get();
+            if (fastRead(holder)) {
+                return;
+            }
+            lock.readLock().lock();
+            slowReadAcquired(holder);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            final Holder holder = holders.get();
+            if (fastRead(holder)) {
+                return;
+            }
+            lock.readLock().lockInterruptibly();
+            slowReadAcquired(holder);
+        }
+
+        @Override
+        public boolean tryLock() {
+            final Holder holder = holders.get();
+            if (fastRead(holder)) {
+                return true;
+            }
+            if (lock.readLock().tryLock()) {
+                slowReadAcquired(holder);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
+            final Holder holder = holders.get();
+            if (fastRead(holder)) {
+                return true;
+            }
+            if (lock.readLock().tryLock(time, unit)) {
+                slowReadAcquired(holder);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            final Holder holder = holders.get();
+            if (holder.fast > 0) {
+                holder.fast--;
+                readers.decrementAndGet(holder.stripe);
+            } else {
+                lock.readLock().unlock();
+                holder.slow--;
+            }
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("newCondition()");
+        }
+    }
+
+    private final class WriteLock implements Lock {
+        @Override
+        public void lock() {
+            lock.writeLock().lock();
+            revoke(0, false);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            lock.writeLock().lockInterruptibly();
+            revoke(0, false);
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (!lock.writeLock().tryLock()) {
+                return false;
+            }
+            return revoked(System.nanoTime());
+        }
+
+        @Override
+        public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(time);
+            if (!lock.writeLock().tryLock(time, unit)) {
+                return false;
+            }
+            return revoked(deadline);
+        }
+
+        private boolean revoked(final long deadline) {
+            if (revoke(deadline, true)) {
+                return true;
+            }
+            lock.writeLock().unlock();
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            lock.writeLock().unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            return lock.writeLock().newCondition();
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.openejb.core.singleton;
 import org.apache.openejb.BeanContext;
 import org.apache.openejb.ContainerType;
 import org.apache.openejb.InterfaceType;
+import org.apache.openejb.MethodTable;
 import org.apache.openejb.OpenEJBException;
 import org.apache.openejb.ProxyInfo;
 import org.apache.openejb.RpcContainer;
@@ -27,6 +28,7 @@ import org.apache.openejb.cdi.CurrentCreationalContext;
 import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorData;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.security.AbstractSecurityService;
@@ -34,6 +36,7 @@ import org.apache.openejb.core.timer.EjbTimerService;
 import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.core.webservices.AddressingSupport;
 import org.apache.openejb.core.webservices.NoAddressingSupport;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
 import org.apache.openejb.spi.SecurityService;
 import org.apache.openejb.util.Duration;
 import org.apache.xbean.finder.ClassFinder;
@@ -91,6 +94,10 @@ public class SingletonContainer implements RpcContainer {
         this.accessTimeout = duration;
     }
 
+    public void setReaderBiasedLocks(final boolean readerBiasedLocks) {
+        instanceManager.setReaderBiasedLocks(readerBiasedLocks);
+    }
+
     @Override
     public synchronized BeanContext[] getBeanContexts() {
         return deploymentRegistry.values().toArray(new BeanContext[deploymentRegistry.size()]);
@@ -175,7 +182,8 @@ public class SingletonContainer implements RpcContainer {
             type = beanContext.getInterfaceType(callInterface);
         }
 
-        final Method runMethod = beanContext.getMatchingBeanMethod(callMethod);
+        final MethodTable.Entry entry = beanContext.getMethodEntry(callMethod);
+        final Method runMethod = entry.getBeanMethod();
 
         final ThreadContext callContext = new ThreadContext(beanContext, primKey);
         final ThreadContext oldCallContext = ThreadContext.enter(callContext);
@@ -218,7 +226,7 @@ public class SingletonContainer implements RpcContainer {
                 currentCreationalContext.set(instance.creationalContext);
             }
 
-            return _invoke(callMethod, runMethod, args, instance, callContext, type);
+            return _invoke(entry, args, instance, callContext, type);
 
         } finally {
             if (runAs != null) {
@@ -239,39 +247,45 @@ public class SingletonContainer implements RpcContainer {
         return securityService;
     }
 
-    protected Object _invoke(final Method callMethod,
-                             final Method runMethod,
+    protected Object _invoke(final MethodTable.Entry entry,
                              final Object[] args,
                              final Instance instance,
                              final ThreadContext callContext,
                              final InterfaceType callType) throws OpenEJBException {
         final BeanContext beanContext = callContext.getBeanContext();
 
-        final Duration accessTimeout = getAccessTimeout(beanContext, runMethod);
-        final boolean read = jakarta.ejb.LockType.READ.equals(beanContext.getConcurrencyAttribute(runMethod));
+        final Method runMethod = entry.getBeanMethod();
+        final Duration accessTimeout = getAccessTimeout(beanContext, entry);
+        final boolean read = jakarta.ejb.LockType.READ.equals(entry.getLockType());
 
-        final Lock lock = acquireLock(read, accessTimeout, instance, runMethod);
+        final MethodMetrics metrics = entry.getMetrics();
+        final long waitStart = System.nanoTime();
+        final Lock lock;
+        try {
+            lock = acquireLock(read, accessTimeout, instance, runMethod);
+        } catch (final ConcurrentAccessTimeoutException e) {
+            metrics.waitTimedOut(System.nanoTime() - waitStart);
+            throw e;
+        }
+        metrics.waited(System.nanoTime() - waitStart);
 
         Object returnValue;
         try {
 
-            final TransactionPolicy txPolicy = createTransactionPolicy(beanContext.getTransactionType(callMethod, callType), callContext);
+            final TransactionPolicy txPolicy = createTransactionPolicy(entry.getTransactionType(callType), callContext);
 
             returnValue = null;
+            final long start = System.nanoTime();
             try {
                 if (callType == InterfaceType.SERVICE_ENDPOINT) {
                     callContext.setCurrentOperation(Operation.BUSINESS_WS);
                     returnValue = invokeWebService(args, beanContext, runMethod, instance);
                 } else {
-                    final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-                    final InterceptorStack interceptorStack = new InterceptorStack(instance.bean,
-                        runMethod,
-                        callType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS,
-                        interceptors,
-                        instance.interceptors);
-                    returnValue = interceptorStack.invoke(args);
+                    final InterceptorChain interceptorChain = entry.getInterceptorChain(callType == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS);
+                    returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
                 }
             } catch (final Throwable e) {// handle reflection exception
+                metrics.failed();
                 final ExceptionType type = beanContext.getExceptionType(e);
                 if (type == ExceptionType.SYSTEM) {
                     /* System Exception ****************************/
@@ -287,7 +301,13 @@ public class SingletonContainer implements RpcContainer {
                     handleApplicationException(txPolicy, e, type == ExceptionType.APPLICATION_ROLLBACK);
                 }
             } finally {
-                afterInvoke(txPolicy, callContext);
+                final long end = System.nanoTime();
+                metrics.invoked(end - start);
+                try {
+                    afterInvoke(txPolicy, callContext);
+                } finally {
+                    metrics.completed(System.nanoTime() - end);
+                }
             }
         } finally {
             lock.unlock();
@@ -296,8 +316,8 @@ public class SingletonContainer implements RpcContainer {
         return returnValue;
     }
 
-    private Duration getAccessTimeout(final BeanContext beanContext, final Method callMethod) {
-        Duration accessTimeout = beanContext.getAccessTimeout(callMethod);
+    private Duration getAccessTimeout(final BeanContext beanContext, final MethodTable.Entry entry) {
+        Duration accessTimeout = entry.getAccessTimeout();
         if (accessTimeout == null) {
             accessTimeout = beanContext.getAccessTimeout();
             if (accessTimeout == null) {
@@ -25,7 +25,7 @@ import org.apache.openejb.cdi.CdiEjbBean;
 import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.timer.TimerServiceWrapper;
 import org.apache.openejb.core.transaction.EjbTransactionUtil;
@@ -69,9 +69,15 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class SingletonInstanceManager {
     private static final Logger logger = Logger.getInstance(LogCategory.OPENEJB, "org.apache.openejb.util.resources");
 
+    /**
+     * Bean (or module, app, system) option overriding the ReaderBiasedLocks setting of the container.
+     */
+    public static final String READER_BIASED_LOCK = "openejb.singleton.reader-biased-lock";
+
     private final SecurityService securityService;
     private final SingletonContext sessionContext;
     private final WebServiceContext webServiceContext;
+    private boolean readerBiasedLocks;
 
     public SingletonInstanceManager(final SecurityService securityService) {
         this.securityService = securityService;
@@ -79,6 +85,10 @@ public class SingletonInstanceManager {
         webServiceContext = new EjbWsContext(sessionContext);
     }
 
+    public void setReaderBiasedLocks(final boolean readerBiasedLocks) {
+        this.readerBiasedLocks = readerBiasedLocks;
+    }
+
     protected void start(final BeanContext beanContext) throws OpenEJBException {
         if (beanContext.isLoadOnStartup()) {
             initialize(beanContext);
@@ -194,6 +204,9 @@ public class SingletonInstanceManager {
             if (beanContext.isBeanManagedConcurrency()) {
                 // Bean-Managed Concurrency
                 lock = new BeanManagedLock();
+            } else if (beanContext.getOptions().get(READER_BIASED_LOCK, readerBiasedLocks)) {
+                // Container-Managed Concurrency, mostly @Lock(READ) calls
+                lock = new ReaderBiasedReadWriteLock();
             } else {
                 // Container-Managed Concurrency
                 lock = new ReentrantReadWriteLock();
@@ -245,8 +258,7 @@ public class SingletonInstanceManager {
 
             final Method remove = instance.bean instanceof SessionBean ? beanContext.getCreateMethod() : null;
 
-            final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-            final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
+            final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
 
             //Transaction Demarcation for Singleton PostConstruct method
             TransactionType transactionType;
@@ -272,7 +284,7 @@ public class SingletonInstanceManager {
                     bean.getInjectionTarget().preDestroy(instance.bean);
                 }
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, remove, instance.interceptors);
                 if (instance.creationalContext != null) {
                     instance.creationalContext.release();
                 }
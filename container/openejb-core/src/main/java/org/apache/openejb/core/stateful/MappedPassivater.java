@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.stateful;
+
+import org.apache.openejb.SystemException;
+import org.apache.openejb.core.EnvProps;
+import org.apache.openejb.core.ivm.EjbObjectInputStream;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.spi.Serializer;
+import org.apache.openejb.util.JavaSecurityManagers;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appends passivated instances to memory mapped segment files and keeps an
+ * in memory index of where each instance is.
+ *
+ * Writers only serialize outside of the append lock, the lock is held to
+ * copy the bytes into the current segment. Activation is lock free: the
+ * index entry is removed and the bytes are read from the mapping, so
+ * several instances can be activated in parallel. A segment file is
+ * deleted once it is full and all its instances were activated again.
+ *
+ * Only the index stays on the heap, the serialized state lives in the page
+ * cache, which is what makes large numbers of idle sessions affordable.
+ */
+public class MappedPassivater implements PassivationStrategy {
+
+    public static final String SEGMENT_SIZE = "openejb.stateful.passivation.segment-size";
+
+    private static final Logger logger = Logger.getInstance(LogCategory.OPENEJB, "org.apache.openejb.util.resources");
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Map<Object, Pointer> index = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+    private File directory;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+    private Segment current;
+    private int nextSegment;
+
+    public MappedPassivater() throws SystemException {
+        init(null);
+    }
+
+    @Override
+    public void init(Properties props) throws SystemException {
+        if (props == null) {
+            props = new Properties();
+        }
+
+        final String dir = props.getProperty(EnvProps.IM_PASSIVATOR_PATH_PREFIX);
+        final String size = props.getProperty(SEGMENT_SIZE);
+        if (size != null) {
+            segmentSize = Integer.parseInt(size.trim());
+        } else if (SystemInstance.isInitialized()) {
+            segmentSize = SystemInstance.get().getOptions().get(SEGMENT_SIZE, DEFAULT_SEGMENT_SIZE);
+        }
+        if (segmentSize <= 0) {
+            throw new SystemException(SEGMENT_SIZE + " must be positive: " + segmentSize);
+        }
+
+        try {
+            final File base;
+            if (dir != null) {
+                base = SystemInstance.get().getBase().getDirectory(dir);
+            } else {
+                base = new File(JavaSecurityManagers.getSystemProperty("java.io.tmpdir", File.separator + "tmp"));
+            }
+            if (!base.exists() && !base.mkdirs()) {
+                throw new IOException("Failed to create session directory: " + base.getAbsolutePath());
+            }
+
+            // segment files are private to this passivator, several containers can share the base
+            directory = Files.createTempDirectory(base.toPath(), "passivation-").toFile();
+            // only the directory is registered, the shutdown hook deletes it with the segments left
+            org.apache.openejb.loader.Files.deleteOnExit(directory);
+
+            logger.info("Using directory " + directory + " for stateful session passivation");
+        } catch (final IOException e) {
+            throw new SystemException(getClass().getName() + ".init(): can't use directory prefix " + dir + ":" + e, e);
+        }
+    }
+
+    @Override
+    public void passivate(final Map stateTable) throws SystemException {
+        final List<Object> keys = new ArrayList<>(stateTable.size());
+        final List<byte[]> states = new ArrayList<>(stateTable.size());
+        Exception failure = null;
+        for (final Object o : stateTable.entrySet()) {
+            final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            try {
+                states.add(Serializer.serialize(entry.getValue()));
+                keys.add(entry.getKey());
+            } catch (final Exception e) {
+                logger.error("Passivation failed ", e);
+                failure = e;
+            }
+        }
+
+        final Pointer[] pointers = new Pointer[states.size()];
+        try {
+            synchronized (appendLock) {
+                for (int i = 0; i < pointers.length; i++) {
+                    pointers[i] = append(states.get(i));
+                }
+            }
+        } catch (final IOException e) {
+            logger.error("Passivation failed ", e);
+            throw new SystemException(e);
+        }
+
+        for (int i = 0; i < pointers.length; i++) {
+            final Pointer previous = index.put(keys.get(i), pointers[i]);
+            if (previous != null) {
+                previous.segment.release();
+            }
+        }
+
+        if (failure instanceof NotSerializableException) {
+            throw (SystemException) new SystemException("The type " + failure.getMessage() + " is not serializable as mandated by the EJB specification.").initCause(failure);
+        } else if (failure != null) {
+            throw new SystemException(failure);
+        }
+    }
+
+    @Override
+    public Object activate(final Object primaryKey) throws SystemException {
+        final Pointer pointer = index.remove(primaryKey);
+        if (pointer == null) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[pointer.length];
+        pointer.segment.buffer.get(pointer.offset, bytes);
+        pointer.segment.release();
+
+        try (final ObjectInputStream ois = new EjbObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (final Exception e) {
+            logger.info("Activation failed ", e);
+            throw new SystemException(e);
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getPassivated() {
+        return index.size();
+    }
+
+    // guarded by appendLock
+    private Pointer append(final byte[] bytes) throws IOException {
+        if (current == null || current.buffer.capacity() - current.position < bytes.length) {
+            if (current != null) {
+                current.seal();
+            }
+            current = new Segment(new File(directory, "segment" + nextSegment++ + ".ser"), Math.max(segmentSize, bytes.length));
+        }
+
+        final Pointer pointer = new Pointer(current, current.position, bytes.length);
+        current.buffer.put(current.position, bytes);
+        current.position += bytes.length;
+        current.live.incrementAndGet();
+        return pointer;
+    }
+
+    private static final class Pointer {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Pointer(final Segment segment, final int offset, final int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private int position;
+
+        private Segment(final File file, final int size) throws IOException {
+            this.file = file;
+            try (final FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // the mapping stays valid once the channel is closed
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private void seal() {
+            sealed = true;
+            if (live.get() == 0) {
+                delete();
+            }
+        }
+
+        private void release() {
+            if (live.decrementAndGet() == 0 && sealed) {
+                delete();
+            }
+        }
+
+        private void delete() {
+            if (deleted.compareAndSet(false, true) && !file.delete()) {
+                logger.debug("Can't delete " + file + ", it will be deleted with the passivation directory");
+            }
+        }
+    }
+}
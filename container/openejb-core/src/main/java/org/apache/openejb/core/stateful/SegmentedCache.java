@@ -0,0 +1,802 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.stateful;
+
+import org.apache.openejb.OpenEJBRuntimeException;
+import org.apache.openejb.util.Duration;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link Cache} with the same entry life cycle as {@link SimpleCache} but
+ * without its global structures: values not in use are kept in segments
+ * selected by key hash, each with its own lock and its own intrusive LRU
+ * lists, so checking an entry in or out is O(1) and only contends with
+ * keys of the same segment.
+ *
+ * Each segment is a segmented LRU: an entry checked in for the first time
+ * goes to the probation list, an entry checked in again is promoted to the
+ * protected list (80% of the segment). Eviction takes probation entries
+ * first so a burst of one-shot sessions doesn't push active conversations
+ * to disk.
+ *
+ * Concurrent activations of the same key are coalesced so the passivator
+ * is only asked once.
+ */
+public class SegmentedCache<K, V> implements Cache<K, V> {
+    public static final Logger logger = Logger.getInstance(LogCategory.OPENEJB, "org.apache.openejb.util.resources");
+
+    private static final int PROTECTED_PERCENT = 80;
+
+    /**
+     * Map of all known values by key
+     */
+    private final ConcurrentHashMap<K, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Activations in progress by key
+     */
+    private final ConcurrentHashMap<K, FutureTask<Entry>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Values not in use, partitioned by key hash
+     */
+    private volatile Segment[] segments;
+
+    private volatile CacheListener<V> listener;
+
+    private volatile PassivationStrategy passivator;
+
+    /**
+     * Maximum number of values that should be in the LRU, shared by the segments
+     */
+    private volatile int capacity;
+
+    /**
+     * When the LRU is exceeded, this is the is the number of beans stored.
+     */
+    private volatile int bulkPassivate;
+
+    /**
+     * A bean may be destroyed if it isn't used in this length of time (in
+     * milliseconds), -1 means never and 0 immediately.
+     */
+    private volatile long timeOut = -1;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Specifies how often the cache is checked for timed out beans.
+     */
+    private long frequency = 60 * 1000;
+
+    private ScheduledFuture<?> future;
+
+    public SegmentedCache() {
+        setSegments(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public SegmentedCache(final CacheListener<V> listener, final PassivationStrategy passivator, final int capacity, final int bulkPassivate, final Duration timeOut) {
+        this();
+        this.listener = listener;
+        this.passivator = passivator;
+        this.capacity = capacity;
+        this.bulkPassivate = bulkPassivate;
+        this.timeOut = timeOut.getTime(TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void init() {
+        if (frequency > 0 && future == null) {
+            if (executor == null) {
+                executor = Executors.newScheduledThreadPool(1, runnable -> {
+                    final Thread t = new Thread(runnable, "Stateful cache");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+
+            // start any thread in container loader to avoid leaks
+            final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(SegmentedCache.class.getClassLoader());
+            try {
+                future = executor.scheduleWithFixedDelay(this::processLRU, frequency, frequency, TimeUnit.MILLISECONDS);
+            } finally {
+                Thread.currentThread().setContextClassLoader(loader);
+            }
+        }
+    }
+
+    public synchronized void destroy() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    public CacheListener<V> getListener() {
+        return listener;
+    }
+
+    public void setListener(final CacheListener<V> listener) {
+        this.listener = listener;
+    }
+
+    public PassivationStrategy getPassivator() {
+        return passivator;
+    }
+
+    public void setPassivator(final PassivationStrategy passivator) {
+        this.passivator = passivator;
+    }
+
+    public void setPassivator(final Class<? extends PassivationStrategy> passivatorClass) throws Exception {
+        this.passivator = passivatorClass.newInstance();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Old configurations use "PoolSize" to configure max cache size
+    public void setPoolSize(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBulkPassivate() {
+        return bulkPassivate;
+    }
+
+    public void setBulkPassivate(final int bulkPassivate) {
+        this.bulkPassivate = bulkPassivate;
+    }
+
+    public long getTimeOut() {
+        return timeOut;
+    }
+
+    public void setTimeOut(final String timeOut) {
+        this.timeOut = ms(timeOut, TimeUnit.MINUTES);
+    }
+
+    public void setScheduledExecutorService(final ScheduledExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public ScheduledExecutorService getScheduledExecutorService() {
+        return executor;
+    }
+
+    public void setFrequency(final String frequency) {
+        this.frequency = ms(frequency, TimeUnit.SECONDS);
+    }
+
+    public long getFrequency() {
+        return frequency;
+    }
+
+    public int getSegments() {
+        return segments.length;
+    }
+
+    /**
+     * Number of LRU segments, only effective before the cache is used.
+     */
+    @SuppressWarnings("unchecked")
+    public void setSegments(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Segments must be greater than 0: " + count);
+        }
+        if (!cache.isEmpty()) {
+            throw new IllegalStateException("Segments can't be changed once the cache is in use");
+        }
+        final Segment[] newSegments = new SegmentedCache.Segment[count];
+        for (int i = 0; i < count; i++) {
+            newSegments[i] = new Segment();
+        }
+        this.segments = newSegments;
+    }
+
+    /**
+     * @return the number of values not in use, the ones which can be passivated
+     */
+    public int getIdle() {
+        int idle = 0;
+        for (final Segment segment : segments) {
+            idle += segment.size();
+        }
+        return idle;
+    }
+
+    public int getSize() {
+        return cache.size();
+    }
+
+    private static long ms(final String durationValue, final TimeUnit defaultTU) {
+        final Duration duration = new Duration(durationValue.trim());
+        // old configurations use a bare number in the default unit
+        if (duration.getUnit() == null) {
+            duration.setUnit(defaultTU);
+        }
+        return duration.getUnit().toMillis(duration.getTime());
+    }
+
+    public void add(final K key, final V value) {
+        // find the existing entry
+        Entry entry = cache.get(key);
+        if (entry != null) {
+            entry.lock.lock();
+            try {
+                if (entry.getState() != EntryState.REMOVED) {
+                    throw new IllegalStateException("An entry for the key " + key + " already exists");
+                }
+                // Entry has been removed between get and lock, simply remove the garbage entry
+                cache.remove(key, entry);
+                entry.segment.unlink(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+
+        entry = new Entry(key, value, EntryState.CHECKED_OUT);
+        cache.put(key, entry);
+    }
+
+    public V checkOut(final K key, final boolean loadEntryIfNotFound) throws Exception {
+        // attempt (up to 10 times) to obtain the entry from the cache
+        for (int i = 0; i < 10; i++) {
+            // find the entry
+            Entry entry = cache.get(key);
+            if (!loadEntryIfNotFound && entry == null) {
+                return null;
+            }
+            if (entry == null) {
+                entry = loadEntry(key);
+                if (entry == null) {
+                    return null;
+                }
+            }
+
+            entry.lock.lock();
+            try {
+                // verify state
+                switch (entry.getState()) {
+                    case AVAILABLE:
+                        break;
+                    case CHECKED_OUT:
+                        return entry.getValue();
+                    case PASSIVATED:
+                        // Entry was passivated between get and lock, we need to load the Entry again
+                        cache.remove(key, entry);
+                        continue;
+                    case REMOVED:
+                        // Entry has been removed between get and lock (most likely by undeploying the EJB), simply drop the instance
+                        return null;
+                }
+
+                // mark entry as in-use, it is not a passivation candidate anymore
+                entry.setState(EntryState.CHECKED_OUT);
+                entry.segment.unlink(entry);
+
+                return entry.getValue();
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+
+        // something is really messed up with this entry, try to cleanup before throwing an exception
+        final Entry entry = cache.remove(key);
+        if (entry != null) {
+            entry.segment.unlink(entry);
+        }
+        throw new OpenEJBRuntimeException("Cache is corrupted: the entry " + key + " in the Map 'cache' is in state PASSIVATED");
+    }
+
+    public void checkIn(final K key) {
+        // find the entry
+        final Entry entry = cache.get(key);
+        if (entry == null) {
+            return;
+        }
+
+        entry.lock.lock();
+        try {
+            // verify state
+            switch (entry.getState()) {
+                case AVAILABLE:
+                    if (entry.segment.contains(entry)) {
+                        entry.resetTimeOut();
+                        return;
+                    }
+                    throw new IllegalStateException("The entry " + key + " is not checked-out");
+                case PASSIVATED:
+                    // An entry in-use should not be passivated so we can only assume
+                    // that the caller never checked out the bean in the first place
+                    throw new IllegalStateException("The entry " + key + " is not checked-out");
+                case REMOVED:
+                    // Entry has been removed between get and lock (most likely by undeploying the EJB), simply drop the instance
+                    return;
+            }
+
+            // mark entry as available
+            entry.setState(EntryState.AVAILABLE);
+            entry.segment.touch(entry);
+            entry.resetTimeOut();
+        } finally {
+            entry.lock.unlock();
+        }
+
+        if (frequency == 0) {
+            processLRU();
+        }
+    }
+
+    public V remove(final K key) {
+        // find the entry
+        final Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        entry.lock.lock();
+        try {
+            cache.remove(key, entry);
+            entry.segment.unlink(entry);
+
+            // users of the cache are responsible for maintaining references to beans in use
+            entry.setState(EntryState.REMOVED);
+
+            return entry.getValue();
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    public void removeAll(final CacheFilter<V> filter) {
+        for (final Iterator<Entry> iterator = cache.values().iterator(); iterator.hasNext(); ) {
+            final Entry entry = iterator.next();
+
+            entry.lock.lock();
+            try {
+                if (filter.matches(entry.getValue())) {
+                    iterator.remove();
+                    entry.segment.unlink(entry);
+                    entry.setState(EntryState.REMOVED);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    public void processLRU() {
+        final Segment[] segments = this.segments;
+        final int segmentCapacity = Math.max(1, (getCapacity() + segments.length - 1) / segments.length);
+        final int segmentBulk = Math.max(1, (getBulkPassivate() + segments.length - 1) / segments.length);
+        for (final Segment segment : segments) {
+            removeTimedOut(segment);
+            if (segment.size() >= segmentCapacity) {
+                passivate(segment, segmentBulk);
+            }
+        }
+    }
+
+    private void removeTimedOut(final Segment segment) {
+        // entries of a segment are in least recently used order but they can have different timeouts
+        for (final Entry entry : segment.snapshot()) {
+            entry.lock.lock();
+            try {
+                if (entry.getState() != EntryState.AVAILABLE || !entry.isTimedOut()) {
+                    continue;
+                }
+
+                segment.unlink(entry);
+                cache.remove(entry.getKey(), entry);
+                entry.setState(EntryState.REMOVED);
+                timedOut(entry);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+
+    private void passivate(final Segment segment, final int max) {
+        // victims are unlinked and stay locked until they are written
+        final List<Entry> victims = segment.lockVictims(max);
+        final Map<K, V> valuesToStore = new LinkedHashMap<>();
+        final List<Entry> passivated = new ArrayList<>(victims.size());
+        for (final Entry entry : victims) {
+            if (entry.getState() != EntryState.AVAILABLE) {
+                entry.lock.unlock();
+                continue;
+            }
+
+            cache.remove(entry.getKey(), entry);
+
+            // if the entry is actually timed out we just destroy it; otherwise it is written to disk
+            if (entry.isTimedOut()) {
+                entry.setState(EntryState.REMOVED);
+                try {
+                    timedOut(entry);
+                } finally {
+                    entry.lock.unlock();
+                }
+            } else {
+                entry.setState(EntryState.PASSIVATED);
+                valuesToStore.put(entry.getKey(), entry.getValue());
+                passivated.add(entry);
+            }
+        }
+
+        if (!passivated.isEmpty()) {
+            try {
+                storeEntries(valuesToStore);
+            } finally {
+                for (final Entry entry : passivated) {
+                    entry.lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void timedOut(final Entry entry) {
+        final CacheListener<V> listener = getListener();
+        if (listener != null) {
+            try {
+                listener.timedOut(entry.getValue());
+            } catch (final Exception e) {
+                logger.error("An unexpected exception occurred from timedOut callback", e);
+            }
+        }
+    }
+
+    private Entry loadEntry(final K key) throws Exception {
+        if (getPassivator() == null) {
+            return null;
+        }
+
+        final FutureTask<Entry> task = new FutureTask<>(() -> activate(key));
+        final FutureTask<Entry> existing = loading.putIfAbsent(key, task);
+        try {
+            if (existing != null) {
+                return existing.get();
+            }
+            task.run();
+            return task.get();
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        } finally {
+            if (existing == null) {
+                loading.remove(key, task);
+            }
+        }
+    }
+
+    private Entry activate(final K key) throws Exception {
+        // an activation of the same key may have completed just before this one started
+        final Entry loaded = cache.get(key);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        V value = null;
+        try {
+            value = (V) getPassivator().activate(key);
+        } catch (final Exception e) {
+            logger.error("An unexpected exception occurred while reading entries from disk", e);
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        final CacheListener<V> listener = getListener();
+        if (listener != null) {
+            listener.afterLoad(value);
+        }
+        final Entry entry = new Entry(key, value, EntryState.AVAILABLE);
+        entry.lock.lock();
+        try { // publish it already linked
+            cache.put(key, entry);
+            entry.segment.touch(entry);
+        } finally {
+            entry.lock.unlock();
+        }
+        return entry;
+    }
+
+    private void storeEntries(final Map<K, V> entriesToStore) {
+        final CacheListener<V> listener = getListener();
+        if (listener != null) {
+            for (final Iterator<Map.Entry<K, V>> iterator = entriesToStore.entrySet().iterator(); iterator.hasNext(); ) {
+                final Map.Entry<K, V> entry = iterator.next();
+                try {
+                    listener.beforeStore(entry.getValue());
+                } catch (final Exception e) {
+                    iterator.remove();
+                    logger.error("An unexpected exception occurred from beforeStore callback", e);
+                }
+            }
+        }
+
+        final PassivationStrategy passivator = getPassivator();
+        if (passivator == null) {
+            return;
+        }
+
+        try {
+            passivator.passivate(entriesToStore);
+        } catch (final Exception e) {
+            logger.error("An unexpected exception occurred while writing the entries to disk", e);
+        }
+    }
+
+    private Segment segmentFor(final Object key) {
+        final Segment[] segments = this.segments;
+        final int h = key.hashCode();
+        return segments[Math.floorMod(h ^ (h >>> 16), segments.length)];
+    }
+
+    private enum EntryState {
+        AVAILABLE, CHECKED_OUT, PASSIVATED, REMOVED
+    }
+
+    /**
+     * Idle entries of one hash partition. Lock order is entry then segment,
+     * the segment only try-locks entries.
+     */
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Entries probation = new Entries();
+        private final Entries protectedEntries = new Entries();
+
+        private void touch(final Entry entry) {
+            lock.lock();
+            try {
+                if (entry.list != null) {
+                    entry.list.unlink(entry);
+                }
+                if (entry.hits++ == 0) {
+                    probation.add(entry);
+                    return;
+                }
+
+                protectedEntries.add(entry);
+                final int protectedCapacity = Math.max(1, getCapacity() / segments.length * PROTECTED_PERCENT / 100);
+                while (protectedEntries.size > protectedCapacity) {
+                    final Entry demoted = protectedEntries.head;
+                    protectedEntries.unlink(demoted);
+                    probation.add(demoted);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void unlink(final Entry entry) {
+            lock.lock();
+            try {
+                if (entry.list != null) {
+                    entry.list.unlink(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean contains(final Entry entry) {
+            lock.lock();
+            try {
+                return entry.list != null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return probation.size + protectedEntries.size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Entry> snapshot() {
+            lock.lock();
+            try {
+                final List<Entry> entries = new ArrayList<>(probation.size + protectedEntries.size);
+                probation.addTo(entries);
+                protectedEntries.addTo(entries);
+                return entries;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return up to max least recently used entries, unlinked and locked by the caller thread
+         */
+        private List<Entry> lockVictims(final int max) {
+            final List<Entry> victims = new ArrayList<>(max);
+            lock.lock();
+            try {
+                lockVictims(probation, max, victims);
+                lockVictims(protectedEntries, max, victims);
+            } finally {
+                lock.unlock();
+            }
+            return victims;
+        }
+
+        private void lockVictims(final Entries entries, final int max, final List<Entry> victims) {
+            Entry entry = entries.head;
+            while (entry != null && victims.size() < max) {
+                final Entry next = entry.next;
+                // entries in use are locked by their thread, skip them instead of waiting
+                if (entry.lock.tryLock()) {
+                    entries.unlink(entry);
+                    victims.add(entry);
+                }
+                entry = next;
+            }
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list guarded by its segment lock.
+     */
+    private final class Entries {
+        private Entry head;
+        private Entry tail;
+        private int size;
+
+        private void add(final Entry entry) {
+            entry.list = this;
+            entry.prev = tail;
+            entry.next = null;
+            if (tail == null) {
+                head = entry;
+            } else {
+                tail.next = entry;
+            }
+            tail = entry;
+            size++;
+        }
+
+        private void unlink(final Entry entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next == null) {
+                tail = entry.prev;
+            } else {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.list = null;
+            size--;
+        }
+
+        private void addTo(final List<Entry> entries) {
+            for (Entry entry = head; entry != null; entry = entry.next) {
+                entries.add(entry);
+            }
+        }
+    }
+
+    private final class Entry {
+        private final K key;
+        private final V value;
+        private final Segment segment;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long timeOut;
+        private EntryState state;
+        private long lastAccess;
+
+        // guarded by the segment lock
+        private Entries list;
+        private Entry prev;
+        private Entry next;
+        private int hits;
+
+        private Entry(final K key, final V value, final EntryState state) {
+            this.key = key;
+            this.value = value;
+            this.state = state;
+            this.segment = segmentFor(key);
+
+            if (value instanceof Cache.TimeOut) {
+                final Duration duration = ((Cache.TimeOut) value).getTimeOut();
+                this.timeOut = duration != null ? duration.getTime(TimeUnit.MILLISECONDS) : getTimeOut();
+            } else {
+                this.timeOut = getTimeOut();
+            }
+
+            lastAccess = System.currentTimeMillis();
+        }
+
+        private K getKey() {
+            assertLockHeld();
+            return key;
+        }
+
+        private V getValue() {
+            assertLockHeld();
+            return value;
+        }
+
+        private EntryState getState() {
+            assertLockHeld();
+            return state;
+        }
+
+        private void setState(final EntryState state) {
+            assertLockHeld();
+            this.state = state;
+        }
+
+        private boolean isTimedOut() {
+            assertLockHeld();
+
+            if (timeOut < 0) {
+                return false;
+            } else if (timeOut == 0) {
+                return true;
+            } else {
+                return System.currentTimeMillis() - lastAccess > timeOut;
+            }
+        }
+
+        private void resetTimeOut() {
+            assertLockHeld();
+
+            if (timeOut > 0) {
+                lastAccess = System.currentTimeMillis();
+            }
+        }
+
+        private void assertLockHeld() {
+            if (!lock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("Entry must be locked");
+            }
+        }
+    }
+}
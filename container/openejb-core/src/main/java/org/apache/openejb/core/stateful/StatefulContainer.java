@@ -22,6 +22,7 @@ import org.apache.openejb.BeanContext;
 import org.apache.openejb.ContainerType;
 import org.apache.openejb.InterfaceType;
 import org.apache.openejb.InvalidateReferenceException;
+import org.apache.openejb.MethodTable;
 import org.apache.openejb.OpenEJBException;
 import org.apache.openejb.OpenEJBRuntimeException;
 import org.apache.openejb.ProxyInfo;
@@ -33,7 +34,7 @@ import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.InstanceContext;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
-import org.apache.openejb.core.interceptor.InterceptorData;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.security.AbstractSecurityService;
 import org.apache.openejb.core.stateful.Cache.CacheFilter;
@@ -46,6 +47,7 @@ import org.apache.openejb.core.transaction.JtaTransactionPolicy;
 import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.core.transaction.TransactionPolicy.TransactionSynchronization;
 import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
 import org.apache.openejb.monitoring.LocalMBeanServer;
 import org.apache.openejb.monitoring.ManagedMBean;
 import org.apache.openejb.monitoring.ObjectNameBuilder;
@@ -589,8 +591,7 @@ public class StatefulContainer implements RpcContainer {
                     }
 
                     // Initialize interceptor stack
-                    final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-                    final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, runMethod, Operation.REMOVE, interceptors, instance.interceptors);
+                    final InterceptorChain interceptorChain = beanContext.getMethodInterceptorChain(runMethod, Operation.REMOVE);
 
                     // Invoke
                     final CdiEjbBean<Object> bean = beanContext.get(CdiEjbBean.class);
@@ -599,9 +600,9 @@ public class StatefulContainer implements RpcContainer {
                     }
 
                     if (args == null) {
-                        returnValue = interceptorStack.invoke();
+                        returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors);
                     } else {
-                        returnValue = interceptorStack.invoke(args);
+                        returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
                     }
                 }
             } catch (final InvalidateReferenceException e) {
@@ -628,10 +629,9 @@ public class StatefulContainer implements RpcContainer {
                 if (!retain) {
                     try {
                         callContext.setCurrentOperation(Operation.PRE_DESTROY);
-                        final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
+                        final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
                         if (instance != null) {
-                            final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
-                            interceptorStack.invoke();
+                            interceptorChain.invoke(instance.bean, null, instance.interceptors);
                         }
                     } catch (final Throwable t) {
                         final String logMessage = "An unexpected exception occurred while invoking the preDestroy method on the Stateful SessionBean instance: "
@@ -687,14 +687,23 @@ public class StatefulContainer implements RpcContainer {
             // Security check
             checkAuthorization(callMethod, interfaceType);
 
+            final MethodTable.Entry entry = beanContext.getMethodEntry(callMethod);
+
             // Start transaction
-            final TransactionPolicy txPolicy = EjbTransactionUtil.createTransactionPolicy(callContext.getBeanContext().getTransactionType(callMethod, interfaceType), callContext);
+            final TransactionPolicy txPolicy = EjbTransactionUtil.createTransactionPolicy(entry.getTransactionType(interfaceType), callContext);
+
+            final Method runMethod = entry.getBeanMethod();
+            final MethodMetrics metrics = entry.getMetrics();
 
             Object returnValue = null;
             Instance instance = null;
+            final long waitStart = System.nanoTime();
+            long start = 0;
             try {
                 // Obtain instance
                 instance = obtainInstance(primKey, callContext, callMethod, true);
+                start = System.nanoTime();
+                metrics.waited(start - waitStart);
 
                 // Resume previous Bean transaction if there was one
                 if (txPolicy instanceof BeanTransactionPolicy beanTxEnv) {
@@ -715,7 +724,6 @@ public class StatefulContainer implements RpcContainer {
                 callContext.setCurrentOperation(Operation.BUSINESS);
                 callContext.setCurrentAllowedStates(null);
                 callContext.setInvokedInterface(callInterface);
-                final Method runMethod = beanContext.getMatchingBeanMethod(callMethod);
                 callContext.set(Method.class, runMethod);
 
                 if (currentCreationalContext != null) {
@@ -723,19 +731,28 @@ public class StatefulContainer implements RpcContainer {
                 }
 
                 // Initialize interceptor stack
-                final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, runMethod, Operation.BUSINESS, interceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = entry.getInterceptorChain(Operation.BUSINESS);
 
                 // Invoke
-                returnValue = interceptorStack.invoke(args);
+                returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
             } catch (final Throwable e) {
+                metrics.failed();
                 handleException(callContext, txPolicy, e);
             } finally {
+                final long end = System.nanoTime();
+                if (instance != null) {
+                    metrics.invoked(end - start);
+                }
+
                 // un register EntityManager
                 unregisterEntityManagers(instance, callContext);
 
                 // Commit transaction
-                afterInvoke(callContext, txPolicy, instance);
+                try {
+                    afterInvoke(callContext, txPolicy, instance);
+                } finally {
+                    metrics.completed(System.nanoTime() - end);
+                }
             }
             return returnValue;
         } finally {
@@ -1101,9 +1118,8 @@ public class StatefulContainer implements RpcContainer {
             final ThreadContext oldCallContext = ThreadContext.enter(callContext);
             try {
 
-                final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.AFTER_BEGIN, interceptors, instance.interceptors);
-                interceptorStack.invoke();
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.AFTER_BEGIN);
+                interceptorChain.invoke(instance.bean, null, instance.interceptors);
 
             } catch (final Exception e) {
                 final String message = "An unexpected system exception occurred while invoking the afterBegin method on the SessionSynchronization object";
@@ -1144,9 +1160,8 @@ public class StatefulContainer implements RpcContainer {
                     instance.setInUse(true);
 
                     final BeanContext beanContext = instance.beanContext;
-                    final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                    final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.BEFORE_COMPLETION, interceptors, instance.interceptors);
-                    interceptorStack.invoke();
+                    final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.BEFORE_COMPLETION);
+                    interceptorChain.invoke(instance.bean, null, instance.interceptors);
 
                     instance.setInUse(false);
                 } catch (final InvalidateReferenceException e) {
@@ -1186,9 +1201,8 @@ public class StatefulContainer implements RpcContainer {
                     if (synchronization.isCallSessionSynchronization()) {
 
                         final BeanContext beanContext = instance.beanContext;
-                        final List<InterceptorData> interceptors = beanContext.getCallbackInterceptors();
-                        final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, null, Operation.AFTER_COMPLETION, interceptors, instance.interceptors);
-                        interceptorStack.invoke(status == Status.COMMITTED);
+                        final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.AFTER_COMPLETION);
+                        interceptorChain.invoke(instance.bean, null, instance.interceptors, status == Status.COMMITTED);
                     }
                     instance.setTransaction(null);
                     releaseInstance(instance);
@@ -1231,10 +1245,9 @@ public class StatefulContainer implements RpcContainer {
             try {
                 final Method remove = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbActivate") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.ACTIVATE, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.ACTIVATE);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, remove, instance.interceptors);
             } catch (final Throwable callbackException) {
                 discardInstance(threadContext.getPrimaryKey(), instance);
                 EjbTransactionUtil.handleSystemException(threadContext.getTransactionPolicy(), callbackException, threadContext);
@@ -1252,10 +1265,9 @@ public class StatefulContainer implements RpcContainer {
             try {
                 final Method passivate = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbPassivate") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, passivate, Operation.PASSIVATE, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PASSIVATE);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, passivate, instance.interceptors);
 
             } catch (final Throwable e) {
                 logger.error("An unexpected exception occurred while invoking the ejbPassivate method on the Stateful SessionBean instance", e);
@@ -1274,10 +1286,9 @@ public class StatefulContainer implements RpcContainer {
             try {
                 final Method remove = instance.bean instanceof SessionBean ? SessionBean.class.getMethod("ejbRemove") : null;
 
-                final List<InterceptorData> callbackInterceptors = beanContext.getCallbackInterceptors();
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, remove, Operation.PRE_DESTROY, callbackInterceptors, instance.interceptors);
+                final InterceptorChain interceptorChain = beanContext.getCallbackInterceptorChain(Operation.PRE_DESTROY);
 
-                interceptorStack.invoke();
+                interceptorChain.invoke(instance.bean, remove, instance.interceptors);
             } catch (final Throwable e) {
                 logger.error("An unexpected exception occurred while invoking the ejbRemove method on the timed-out Stateful SessionBean instance", e);
             } finally {
@@ -20,6 +20,7 @@ package org.apache.openejb.core.stateless;
 import org.apache.openejb.BeanContext;
 import org.apache.openejb.ContainerType;
 import org.apache.openejb.InterfaceType;
+import org.apache.openejb.MethodTable;
 import org.apache.openejb.OpenEJBException;
 import org.apache.openejb.ProxyInfo;
 import org.apache.openejb.SystemException;
@@ -28,6 +29,7 @@ import org.apache.openejb.cdi.CurrentCreationalContext;
 import org.apache.openejb.core.ExceptionType;
 import org.apache.openejb.core.Operation;
 import org.apache.openejb.core.ThreadContext;
+import org.apache.openejb.core.interceptor.InterceptorChain;
 import org.apache.openejb.core.interceptor.InterceptorData;
 import org.apache.openejb.core.interceptor.InterceptorStack;
 import org.apache.openejb.core.security.AbstractSecurityService;
@@ -35,6 +37,7 @@ import org.apache.openejb.core.timer.EjbTimerService;
 import org.apache.openejb.core.transaction.TransactionPolicy;
 import org.apache.openejb.core.webservices.AddressingSupport;
 import org.apache.openejb.core.webservices.NoAddressingSupport;
+import org.apache.openejb.monitoring.InvocationMetrics.MethodMetrics;
 import org.apache.openejb.monitoring.StatsInterceptor;
 import org.apache.openejb.spi.SecurityService;
 import org.apache.openejb.util.DaemonThreadFactory;
@@ -166,7 +169,8 @@ public class StatelessContainer implements org.apache.openejb.RpcContainer, Dest
             type = beanContext.getInterfaceType(callInterface);
         }
 
-        final Method runMethod = beanContext.getMatchingBeanMethod(callMethod);
+        final MethodTable.Entry entry = beanContext.getMethodEntry(callMethod);
+        final Method runMethod = entry.getBeanMethod();
         final ThreadContext callContext = new ThreadContext(beanContext, primKey);
         final ThreadContext oldCallContext = ThreadContext.enter(callContext);
 
@@ -201,7 +205,10 @@ public class StatelessContainer implements org.apache.openejb.RpcContainer, Dest
                 return null; // EJBObject.remove( ) and other EJBObject methods are not process by the container
             }
 
+            final MethodMetrics metrics = entry.getMetrics();
+            final long waitStart = System.nanoTime();
             bean = this.instanceManager.getInstance(callContext);
+            metrics.waited(System.nanoTime() - waitStart);
 
             callContext.setCurrentOperation(type == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS);
             callContext.set(Method.class, runMethod);
@@ -209,7 +216,7 @@ public class StatelessContainer implements org.apache.openejb.RpcContainer, Dest
             if (currentCreationalContext != null) {
                 currentCreationalContext.set(bean.creationalContext);
             }
-            return _invoke(callMethod, runMethod, args, bean, callContext, type);
+            return _invoke(entry, args, bean, callContext, type, metrics);
         } finally {
             if (runAs != null) {
                 try {
@@ -235,23 +242,26 @@ public class StatelessContainer implements org.apache.openejb.RpcContainer, Dest
     }
 
     @SuppressWarnings("ThrowFromFinallyBlock")
-    private Object _invoke(final Method callMethod, final Method runMethod, final Object[] args, final Instance instance, final ThreadContext callContext, final InterfaceType type)
+    private Object _invoke(final MethodTable.Entry entry, final Object[] args, final Instance instance, final ThreadContext callContext, final InterfaceType type,
+                           final MethodMetrics metrics)
         throws OpenEJBException {
         final BeanContext beanContext = callContext.getBeanContext();
-        final TransactionPolicy txPolicy = createTransactionPolicy(beanContext.getTransactionType(callMethod, type), callContext);
+        final Method runMethod = entry.getBeanMethod();
+        final TransactionPolicy txPolicy = createTransactionPolicy(entry.getTransactionType(type), callContext);
 
         Object returnValue = null;
+        final long start = System.nanoTime();
         try {
             if (type == InterfaceType.SERVICE_ENDPOINT) {
                 callContext.setCurrentOperation(Operation.BUSINESS_WS);
                 returnValue = invokeWebService(args, beanContext, runMethod, instance);
             } else {
-                final List<InterceptorData> interceptors = beanContext.getMethodInterceptors(runMethod);
                 final Operation operation = type == InterfaceType.TIMEOUT ? Operation.TIMEOUT : Operation.BUSINESS;
-                final InterceptorStack interceptorStack = new InterceptorStack(instance.bean, runMethod, operation, interceptors, instance.interceptors);
-                returnValue = interceptorStack.invoke(args);
+                final InterceptorChain interceptorChain = entry.getInterceptorChain(operation);
+                returnValue = interceptorChain.invoke(instance.bean, runMethod, instance.interceptors, args);
             }
         } catch (final Throwable re) {// handle reflection exception
+            metrics.failed();
             final ExceptionType exceptionType = beanContext.getExceptionType(re);
             if (exceptionType == ExceptionType.SYSTEM) {
                 /* System Exception ****************************/
@@ -267,11 +277,15 @@ public class StatelessContainer implements org.apache.openejb.RpcContainer, Dest
                 handleApplicationException(txPolicy, re, exceptionType == ExceptionType.APPLICATION_ROLLBACK);
             }
         } finally {
+            final long end = System.nanoTime();
+            metrics.invoked(end - start);
             try {
                 afterInvoke(txPolicy, callContext);
             } catch (final SystemException | RuntimeException e) {
                 callContext.setDiscardInstance(true);
                 throw e;
+            } finally {
+                metrics.completed(System.nanoTime() - end);
             }
         }
         return returnValue;
@@ -92,6 +92,8 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
     private transient BeanContext deployment;
     private transient TimerStore timerStore;
     private transient Scheduler scheduler;
+    private transient TimerWheel wheel;
+    private transient boolean persistentJobStore;
 
     public EjbTimerServiceImpl(final BeanContext deployment, final TimerStore timerStore) {
         this(deployment, getDefaultTransactionManager(), timerStore, -1);
@@ -362,6 +364,8 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
     }
 
     public static void shutdown() {
+        TimerWheel.shutdown();
+        JdbcTimerCluster.shutdown();
         shutdown(SystemInstance.get().getComponent(Scheduler.class));
     }
 
@@ -475,6 +479,14 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
         }
 
         scheduler = getDefaultScheduler(deployment);
+        wheel = TimerWheel.get();
+        if (wheel != null) {
+            try {
+                persistentJobStore = scheduler.getMetaData().isJobStoreSupportsPersistence();
+            } catch (final SchedulerException e) {
+                persistentJobStore = true;
+            }
+        }
 
         // load saved timers
         final Collection<TimerData> timerDatas = timerStore.loadTimers(this, (String) deployment.getDeploymentID());
@@ -503,7 +515,14 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
 
         timerData.setScheduler(scheduler);
 
-        final Trigger trigger = timerData.getTrigger();
+        // the store fires the timers it persists itself (JdbcTimerStore)
+        if (timerData.isPersistent() && timerStore.schedule(timerData)) {
+            return;
+        }
+
+        // nothing to persist, skip the quartz job store and its global lock
+        final boolean onWheel = wheel != null && (!timerData.isPersistent() || !persistentJobStore);
+        final Trigger trigger = onWheel ? timerData.trigger : timerData.getTrigger();
 
         if (null == trigger) {
 
@@ -525,6 +544,14 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
             throw new OpenEJBRuntimeException("the trigger was not an AbstractTrigger - Should not be possible: " + trigger);
         }
 
+        if (onWheel) {
+            final Date next = atrigger.getNextFireTime();
+            if (next != null) {
+                timerData.setWheelTimeout(wheel.schedule(timerData.getId(), next.getTime(), () -> fire(timerData, atrigger)));
+            }
+            return;
+        }
+
         final JobDataMap triggerDataMap = trigger.getJobDataMap();
         triggerDataMap.put(EjbTimeoutJob.EJB_TIMERS_SERVICE, this);
         triggerDataMap.put(EjbTimeoutJob.TIMER_DATA, timerData);
@@ -544,6 +571,17 @@ public class EjbTimerServiceImpl implements EjbTimerService, Serializable {
         }
     }
 
+    private long fire(final TimerData timerData, final AbstractTrigger<?> trigger) {
+        trigger.triggered(null); // what the job store does before firing, next timeout is the one after this call
+        ejbTimeout(timerData);
+
+        final Date next = trigger.getNextFireTime();
+        if (next == null || timerData.isCancelled() || timerData.isExpired()) {
+            return -1;
+        }
+        return next.getTime();
+    }
+
     /**
      * Call back from TimerData and ejbTimeout when a timer has been cancelled (or is complete) and should be removed from stores.
      *
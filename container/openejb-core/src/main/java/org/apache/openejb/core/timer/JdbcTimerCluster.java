@@ -0,0 +1,618 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.apache.openejb.loader.Options;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.quartz.SchedulerConfigException;
+import org.apache.openejb.quartz.spi.ThreadPool;
+import org.apache.openejb.spi.ContainerSystem;
+import org.apache.openejb.util.DaemonThreadFactory;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent timers shared by several nodes through a database.
+ *
+ * Timers are spread over a fixed number of partitions (id modulo the
+ * partition count). Each node heartbeats in the nodes table and leases its
+ * fair share of the partitions, renewing the leases every third of their
+ * duration. Partitions of a dead node are taken over once its leases expired
+ * and a node owning more than its share releases the extra ones, so adding a
+ * node spreads the load without any coordinator.
+ *
+ * A node only polls its own partitions: one query per poll interval returns
+ * the timers due before the next poll, they are fired at their time on the
+ * EJB timer executor. No row is locked, ownership is the lease. Once fired
+ * the next fire time (or the deletion) of the timers is written back in
+ * batches, in a single transaction per flush, and a timer is not polled again
+ * until its write back is committed.
+ *
+ * Delivery is at least once: a timer fired by a node losing its lease
+ * before the write back is fired again by the new owner.
+ */
+public class JdbcTimerCluster {
+    public static final String DATASOURCE = "openejb.timer.cluster.datasource";
+    public static final String NODE = "openejb.timer.cluster.node";
+    public static final String PARTITIONS = "openejb.timer.cluster.partitions";
+    public static final String LEASE = "openejb.timer.cluster.lease";
+    public static final String POLL = "openejb.timer.cluster.poll";
+    public static final String BATCH = "openejb.timer.cluster.batch";
+    public static final String TABLE_PREFIX = "openejb.timer.cluster.table-prefix";
+
+    private static final Logger log = Logger.getInstance(LogCategory.TIMER, "org.apache.openejb.util.resources");
+
+    private static final String ID_KEY = "timers";
+    private static final int ID_BLOCK = 1000;
+    private static final long COMMIT_INTERVAL = 20;
+
+    private final DataSource dataSource;
+    private final String node;
+    private final int partitions;
+    private final long lease;
+    private final long poll;
+    private final int batch;
+    private final ThreadPool executor;
+    private final String timers;
+    private final String leases;
+    private final String nodes;
+    private final String ids;
+
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Queue<long[]> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicLong fired = new AtomicLong();
+    private volatile int[] owned = new int[0];
+    private volatile long ownedUntil;
+    private ScheduledExecutorService scheduler;
+    private long nextId;
+    private long maxId;
+
+    /**
+     * @return the cluster configured by openejb.timer.cluster.datasource
+     * @throws TimerStoreException if it is not configured or can't start
+     */
+    public static synchronized JdbcTimerCluster get() throws TimerStoreException {
+        final SystemInstance systemInstance = SystemInstance.get();
+        JdbcTimerCluster cluster = systemInstance.getComponent(JdbcTimerCluster.class);
+        if (cluster != null) {
+            return cluster;
+        }
+
+        final Options options = systemInstance.getOptions();
+        final String name = options.get(DATASOURCE, (String) null);
+        if (name == null) {
+            throw new TimerStoreException(DATASOURCE + " is not set");
+        }
+
+        final DataSource dataSource;
+        try {
+            dataSource = DataSource.class.cast(systemInstance.getComponent(ContainerSystem.class).getJNDIContext().lookup("openejb:Resource/" + name));
+        } catch (final NamingException | ClassCastException e) {
+            throw new TimerStoreException("Can't find the timer datasource " + name, e);
+        }
+
+        final DefaultTimerThreadPoolAdapter executor = new DefaultTimerThreadPoolAdapter();
+        try {
+            executor.initialize();
+            cluster = new JdbcTimerCluster(dataSource, options, executor).start();
+        } catch (final SchedulerConfigException | SQLException e) {
+            executor.shutdown(false);
+            throw new TimerStoreException("Can't start the timer cluster", e);
+        }
+        systemInstance.setComponent(JdbcTimerCluster.class, cluster);
+        return cluster;
+    }
+
+    public static synchronized void shutdown() {
+        final JdbcTimerCluster cluster = SystemInstance.get().removeComponent(JdbcTimerCluster.class);
+        if (cluster != null) {
+            cluster.stop();
+        }
+    }
+
+    public JdbcTimerCluster(final DataSource dataSource, final Options options, final ThreadPool executor) {
+        this(dataSource, options.get(NODE, ManagementFactory.getRuntimeMXBean().getName()),
+            options.get(PARTITIONS, 64), options.get(LEASE, 30000L), options.get(POLL, 1000L), options.get(BATCH, 500),
+            options.get(TABLE_PREFIX, "OPENEJB_"), executor);
+    }
+
+    public JdbcTimerCluster(final DataSource dataSource, final String node, final int partitions, final long lease, final long poll,
+                            final int batch, final String tablePrefix, final ThreadPool executor) {
+        this.dataSource = dataSource;
+        this.node = node;
+        this.partitions = Math.max(1, partitions);
+        this.lease = Math.max(30, lease);
+        this.poll = Math.max(10, poll);
+        this.batch = Math.max(1, batch);
+        this.executor = executor;
+        this.timers = tablePrefix + "TIMERS";
+        this.leases = tablePrefix + "TIMER_LEASES";
+        this.nodes = tablePrefix + "TIMER_NODES";
+        this.ids = tablePrefix + "TIMER_IDS";
+    }
+
+    public JdbcTimerCluster start() throws SQLException {
+        createTables();
+        balance();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("OpenEJB-TimerCluster-" + node));
+        scheduler.scheduleWithFixedDelay(() -> run("balance", this::balance), lease / 3, lease / 3, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> run("poll", this::poll), 0, poll, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> run("flush", this::flush), COMMIT_INTERVAL, COMMIT_INTERVAL, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            try {
+                scheduler.awaitTermination(lease, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        executor.shutdown(true);
+        run("flush", this::flush);
+
+        owned = new int[0];
+        try (final Connection connection = dataSource.getConnection()) {
+            update(connection, "UPDATE " + leases + " SET LEASE_OWNER = NULL, LEASE_EXPIRES = 0 WHERE LEASE_OWNER = ?", node);
+            update(connection, "DELETE FROM " + nodes + " WHERE NODE_NAME = ?", node);
+        } catch (final SQLException e) {
+            log.warning("Can't release the timer leases of " + node + ", they will expire: " + e.getMessage());
+        }
+    }
+
+    public void register(final String deploymentId, final Target target) {
+        targets.put(deploymentId, target);
+    }
+
+    public void unregister(final String deploymentId, final Target target) {
+        targets.remove(deploymentId, target);
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public int[] getOwnedPartitions() {
+        return owned.clone();
+    }
+
+    public long getFired() {
+        return fired.get();
+    }
+
+    public int partition(final long id) {
+        return (int) Math.floorMod(id, (long) partitions);
+    }
+
+    public synchronized long nextId() throws SQLException {
+        if (nextId < maxId) {
+            return nextId++;
+        }
+
+        // allocated by the cluster thread to not be part of (and rolled back with) the caller transaction
+        try {
+            return scheduler.submit(this::allocateIds).get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (final ExecutionException e) {
+            throw e.getCause() instanceof SQLException sqle ? sqle : new SQLException(e.getCause());
+        }
+    }
+
+    private long allocateIds() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            while (true) { // optimistic, an other node can take the same block meanwhile
+                final long current;
+                try (final PreparedStatement select = connection.prepareStatement("SELECT NEXT_ID FROM " + ids + " WHERE ID_NAME = ?")) {
+                    select.setString(1, ID_KEY);
+                    try (final ResultSet rs = select.executeQuery()) {
+                        if (!rs.next()) {
+                            throw new SQLException("No " + ID_KEY + " row in " + ids);
+                        }
+                        current = rs.getLong(1);
+                    }
+                }
+                if (update(connection, "UPDATE " + ids + " SET NEXT_ID = ? WHERE ID_NAME = ? AND NEXT_ID = ?", current + ID_BLOCK, ID_KEY, current) == 1) {
+                    nextId = current + 1;
+                    maxId = current + ID_BLOCK;
+                    return current;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts or updates a timer, executed on the caller connection (and transaction).
+     */
+    public void save(final long id, final String deploymentId, final long nextFire, final byte[] data) throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            try (final PreparedStatement update = connection.prepareStatement("UPDATE " + timers + " SET NEXT_FIRE = ?, TIMER_DATA = ? WHERE ID = ?")) {
+                update.setLong(1, nextFire);
+                update.setBytes(2, data);
+                update.setLong(3, id);
+                if (update.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            try (final PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + timers + " (ID, DEPLOYMENT_ID, PARTITION_ID, NEXT_FIRE, TIMER_DATA) VALUES (?, ?, ?, ?, ?)")) {
+                insert.setLong(1, id);
+                insert.setString(2, deploymentId);
+                insert.setInt(3, partition(id));
+                insert.setLong(4, nextFire);
+                insert.setBytes(5, data);
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Called once a fired timer is done with its next fire time, written back with the next flush.
+     */
+    public void reschedule(final long id, final long nextFire) {
+        writes.add(new long[]{id, nextFire});
+    }
+
+    /**
+     * Deletes a timer, with the next flush if it is being fired, on the caller connection otherwise.
+     */
+    public void delete(final long id) throws SQLException {
+        if (inFlight.contains(id)) {
+            writes.add(new long[]{id, -1});
+            return;
+        }
+        try (final Connection connection = dataSource.getConnection()) {
+            update(connection, "DELETE FROM " + timers + " WHERE ID = ?", id);
+        }
+    }
+
+    /**
+     * Gives back a timer handed to a target without firing it, it will be polled again.
+     */
+    public void release(final long id) {
+        inFlight.remove(id);
+    }
+
+    public Row row(final long id) throws SQLException {
+        final List<Row> rows = select("SELECT ID, DEPLOYMENT_ID, NEXT_FIRE, TIMER_DATA FROM " + timers + " WHERE ID = ?", 0, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public List<Row> rows(final String deploymentId) throws SQLException {
+        return select("SELECT ID, DEPLOYMENT_ID, NEXT_FIRE, TIMER_DATA FROM " + timers + " WHERE DEPLOYMENT_ID = ?", 0, deploymentId);
+    }
+
+    private void createTables() throws SQLException {
+        try (final Connection connection = dataSource.getConnection()) {
+            final String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ENGLISH);
+            final String blob = product.contains("postgres") ? "BYTEA"
+                : product.contains("mysql") || product.contains("mariadb") ? "LONGBLOB"
+                : product.contains("hsql") ? "VARBINARY(16M)" // hsqldb blobs don't survive a concurrent delete of their row while being read
+                : "BLOB";
+
+            if (create(connection, timers, "ID BIGINT NOT NULL PRIMARY KEY, DEPLOYMENT_ID VARCHAR(255) NOT NULL, "
+                + "PARTITION_ID INTEGER NOT NULL, NEXT_FIRE BIGINT NOT NULL, TIMER_DATA " + blob)) {
+                execute(connection, "CREATE INDEX " + timers + "_DUE ON " + timers + " (PARTITION_ID, NEXT_FIRE)");
+            }
+            create(connection, leases, "PARTITION_ID INTEGER NOT NULL PRIMARY KEY, LEASE_OWNER VARCHAR(255), LEASE_EXPIRES BIGINT NOT NULL");
+            create(connection, nodes, "NODE_NAME VARCHAR(255) NOT NULL PRIMARY KEY, LEASE_EXPIRES BIGINT NOT NULL");
+            create(connection, ids, "ID_NAME VARCHAR(64) NOT NULL PRIMARY KEY, NEXT_ID BIGINT NOT NULL");
+
+            final Set<Integer> existing = new HashSet<>();
+            try (final Statement statement = connection.createStatement();
+                 final ResultSet rs = statement.executeQuery("SELECT PARTITION_ID FROM " + leases)) {
+                while (rs.next()) {
+                    existing.add(rs.getInt(1));
+                }
+            }
+            for (int partition = 0; partition < partitions; partition++) {
+                if (!existing.contains(partition)) {
+                    insertQuietly(connection, "INSERT INTO " + leases + " (PARTITION_ID, LEASE_OWNER, LEASE_EXPIRES) VALUES (?, NULL, 0)", partition);
+                }
+            }
+            insertQuietly(connection, "INSERT INTO " + ids + " (ID_NAME, NEXT_ID) VALUES (?, 1)", ID_KEY);
+        }
+    }
+
+    private void balance() throws SQLException {
+        final long now = System.currentTimeMillis();
+        try (final Connection connection = dataSource.getConnection()) {
+            if (update(connection, "UPDATE " + nodes + " SET LEASE_EXPIRES = ? WHERE NODE_NAME = ?", now + lease, node) == 0) {
+                insertQuietly(connection, "INSERT INTO " + nodes + " (NODE_NAME, LEASE_EXPIRES) VALUES (?, ?)", node, now + lease);
+            }
+            update(connection, "UPDATE " + leases + " SET LEASE_EXPIRES = ? WHERE LEASE_OWNER = ?", now + lease, node);
+
+            int live = 1;
+            try (final PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM " + nodes + " WHERE LEASE_EXPIRES >= ? AND NODE_NAME <> ?")) {
+                count.setLong(1, now);
+                count.setString(2, node);
+                try (final ResultSet rs = count.executeQuery()) {
+                    if (rs.next()) {
+                        live += rs.getInt(1);
+                    }
+                }
+            }
+            final int share = (partitions + live - 1) / live;
+
+            final List<Integer> mine = new ArrayList<>();
+            final List<Integer> free = new ArrayList<>();
+            try (final Statement statement = connection.createStatement();
+                 final ResultSet rs = statement.executeQuery("SELECT PARTITION_ID, LEASE_OWNER, LEASE_EXPIRES FROM " + leases)) {
+                while (rs.next()) {
+                    final int partition = rs.getInt(1);
+                    final String owner = rs.getString(2);
+                    if (partition >= partitions) {
+                        continue;
+                    }
+                    if (node.equals(owner)) {
+                        mine.add(partition);
+                    } else if (owner == null || rs.getLong(3) < now) {
+                        free.add(partition);
+                    }
+                }
+            }
+
+            while (mine.size() > share) { // a node joined, give it some partitions
+                final Integer partition = mine.remove(mine.size() - 1);
+                update(connection, "UPDATE " + leases + " SET LEASE_OWNER = NULL, LEASE_EXPIRES = 0 WHERE PARTITION_ID = ? AND LEASE_OWNER = ?", partition, node);
+            }
+            Collections.shuffle(free); // nodes starting together don't fight for the same partitions
+            for (final Integer partition : free) {
+                if (mine.size() >= share) {
+                    break;
+                }
+                if (update(connection, "UPDATE " + leases + " SET LEASE_OWNER = ?, LEASE_EXPIRES = ? WHERE PARTITION_ID = ? AND (LEASE_OWNER IS NULL OR LEASE_EXPIRES < ?)",
+                    node, now + lease, partition, now) == 1) {
+                    mine.add(partition);
+                }
+            }
+
+            update(connection, "DELETE FROM " + nodes + " WHERE LEASE_EXPIRES < ?", now - lease);
+
+            final int[] ownedPartitions = new int[mine.size()];
+            for (int i = 0; i < ownedPartitions.length; i++) {
+                ownedPartitions[i] = mine.get(i);
+            }
+            Arrays.sort(ownedPartitions);
+            owned = ownedPartitions;
+            ownedUntil = now + lease;
+        }
+    }
+
+    private void poll() throws SQLException {
+        final int[] ownedPartitions = owned;
+        final long now = System.currentTimeMillis();
+        if (ownedPartitions.length == 0 || now + poll >= ownedUntil) { // not renewed, an other node can take them
+            return;
+        }
+
+        final StringBuilder sql = new StringBuilder("SELECT ID, DEPLOYMENT_ID, NEXT_FIRE, TIMER_DATA FROM ").append(timers)
+            .append(" WHERE NEXT_FIRE <= ? AND PARTITION_ID IN (");
+        final Object[] parameters = new Object[ownedPartitions.length + 1];
+        parameters[0] = now + poll;
+        for (int i = 0; i < ownedPartitions.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            parameters[i + 1] = ownedPartitions[i];
+        }
+        sql.append(") ORDER BY NEXT_FIRE");
+
+        for (final Row row : select(sql.toString(), batch + inFlight.size(), parameters)) {
+            final Target target = targets.get(row.deploymentId);
+            if (target == null || !inFlight.add(row.id)) {
+                continue;
+            }
+            final long delay = row.nextFire - now;
+            if (delay <= 0) {
+                dispatch(target, row);
+            } else {
+                scheduler.schedule(() -> dispatch(target, row), delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void dispatch(final Target target, final Row row) {
+        if (!executor.runInThread(() -> {
+            fired.incrementAndGet();
+            try {
+                target.fire(row);
+            } catch (final RuntimeException e) {
+                log.warning("Can't fire timer " + row.id + " of " + row.deploymentId, e);
+                release(row.id);
+            }
+        })) {
+            release(row.id);
+        }
+    }
+
+    private void flush() throws SQLException {
+        final List<long[]> pending = new ArrayList<>();
+        long[] write;
+        while ((write = writes.poll()) != null) {
+            pending.add(write);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try (final Connection connection = dataSource.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (final PreparedStatement update = connection.prepareStatement("UPDATE " + timers + " SET NEXT_FIRE = ? WHERE ID = ?");
+                 final PreparedStatement delete = connection.prepareStatement("DELETE FROM " + timers + " WHERE ID = ?")) {
+                int updates = 0;
+                int deletes = 0;
+                for (final long[] w : pending) {
+                    if (w[1] < 0) {
+                        delete.setLong(1, w[0]);
+                        delete.addBatch();
+                        deletes++;
+                    } else {
+                        update.setLong(1, w[1]);
+                        update.setLong(2, w[0]);
+                        update.addBatch();
+                        updates++;
+                    }
+                }
+                if (updates > 0) {
+                    update.executeBatch();
+                }
+                if (deletes > 0) {
+                    delete.executeBatch();
+                }
+                connection.commit();
+            } catch (final SQLException e) {
+                connection.rollback();
+                writes.addAll(pending); // retried with the next flush
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        for (final long[] w : pending) {
+            inFlight.remove(w[0]);
+        }
+    }
+
+    private List<Row> select(final String sql, final int maxRows, final Object... parameters) throws SQLException {
+        final List<Row> rows = new ArrayList<>();
+        try (final Connection connection = dataSource.getConnection();
+             final PreparedStatement statement = prepare(connection, sql, parameters)) {
+            if (maxRows > 0) {
+                statement.setMaxRows(maxRows);
+                statement.setFetchSize(Math.min(maxRows, 1000));
+            }
+            try (final ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new Row(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBytes(4)));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static boolean create(final Connection connection, final String table, final String columns) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.executeQuery("SELECT COUNT(*) FROM " + table + " WHERE 1 = 0").close();
+            return false;
+        } catch (final SQLException missing) {
+            try {
+                execute(connection, "CREATE TABLE " + table + " (" + columns + ")");
+                return true;
+            } catch (final SQLException e) { // created by an other node meanwhile?
+                try (final Statement statement = connection.createStatement()) {
+                    statement.executeQuery("SELECT COUNT(*) FROM " + table + " WHERE 1 = 0").close();
+                    return false;
+                } catch (final SQLException stillMissing) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static void execute(final Connection connection, final String sql) throws SQLException {
+        try (final Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int update(final Connection connection, final String sql, final Object... parameters) throws SQLException {
+        try (final PreparedStatement statement = prepare(connection, sql, parameters)) {
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void insertQuietly(final Connection connection, final String sql, final Object... parameters) {
+        try {
+            update(connection, sql, parameters);
+        } catch (final SQLException e) {
+            // inserted by an other node
+        }
+    }
+
+    private static PreparedStatement prepare(final Connection connection, final String sql, final Object... parameters) throws SQLException {
+        final PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+
+    private static void run(final String name, final Task task) {
+        try {
+            task.run();
+        } catch (final SQLException | RuntimeException e) {
+            log.warning("Timer cluster " + name + " failed: " + e.getMessage());
+        }
+    }
+
+    private interface Task {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Receives the due timers of a deployment. The firing must end with
+     * reschedule() or delete(), or release() if the timer was not fired.
+     */
+    public interface Target {
+        void fire(Row row);
+    }
+
+    public static final class Row {
+        public final long id;
+        public final String deploymentId;
+        public final long nextFire;
+        public final byte[] data;
+
+        public Row(final long id, final String deploymentId, final long nextFire, final byte[] data) {
+            this.id = id;
+            this.deploymentId = deploymentId;
+            this.nextFire = nextFire;
+            this.data = data;
+        }
+    }
+}
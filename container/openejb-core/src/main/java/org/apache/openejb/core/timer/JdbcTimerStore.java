@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.apache.openejb.BeanContext;
+import org.apache.openejb.core.ivm.EjbObjectInputStream;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.spi.ContainerSystem;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import jakarta.ejb.ScheduleExpression;
+import jakarta.ejb.Timer;
+import jakarta.ejb.TimerConfig;
+import jakarta.transaction.TransactionManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TimerStore sharing the persistent timers between the nodes of a
+ * {@link JdbcTimerCluster}, activated with
+ * timerStore.class=org.apache.openejb.core.timer.JdbcTimerStore and
+ * openejb.timer.cluster.datasource=&lt;resource id&gt;.
+ *
+ * Persistent timers are written when their creation is committed and fired
+ * by the node owning their partition, the timer service doesn't schedule
+ * them. Non persistent timers stay local in a {@link MemoryTimerStore}.
+ */
+public class JdbcTimerStore implements TimerStore, JdbcTimerCluster.Target {
+    private static final Logger log = Logger.getInstance(LogCategory.TIMER, "org.apache.openejb.util.resources");
+
+    private final JdbcTimerCluster cluster;
+    private final MemoryTimerStore memory;
+    private final Map<Long, TimerData> timers = new ConcurrentHashMap<>();
+    private volatile EjbTimerServiceImpl timerService;
+
+    public JdbcTimerStore(final TransactionManager transactionManager) throws TimerStoreException {
+        this(transactionManager, JdbcTimerCluster.get());
+    }
+
+    public JdbcTimerStore(final TransactionManager transactionManager, final JdbcTimerCluster cluster) {
+        this.cluster = cluster;
+        this.memory = new MemoryTimerStore(transactionManager);
+    }
+
+    @Override
+    public TimerData getTimer(final String deploymentId, final long timerId) {
+        final TimerData known = timers.get(timerId);
+        if (known != null) {
+            return known;
+        }
+        final TimerData local = memory.getTimer(deploymentId, timerId);
+        if (local != null) {
+            return local;
+        }
+        try {
+            final JdbcTimerCluster.Row row = cluster.row(timerId);
+            return row == null || !row.deploymentId.equals(deploymentId) ? null : timer(row);
+        } catch (final SQLException e) {
+            log.warning("Can't load timer " + timerId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public Collection<TimerData> getTimers(final String deploymentId) {
+        final Collection<TimerData> all = new ArrayList<>(memory.getTimers(deploymentId));
+        try {
+            for (final JdbcTimerCluster.Row row : cluster.rows(deploymentId)) {
+                final TimerData timer = timer(row);
+                if (timer != null) {
+                    all.add(timer);
+                }
+            }
+        } catch (final SQLException e) {
+            log.warning("Can't load the timers of " + deploymentId + ": " + e.getMessage());
+        }
+        return all;
+    }
+
+    @Override
+    public Collection<TimerData> loadTimers(final EjbTimerServiceImpl timerService, final String deploymentId) throws TimerStoreException {
+        this.timerService = timerService;
+        cluster.register(deploymentId, this);
+        return memory.loadTimers(timerService, deploymentId); // persistent timers are fired by the cluster
+    }
+
+    @Override
+    public void addTimerData(final TimerData timerData) throws TimerStoreException {
+        if (timerData.isPersistent()) {
+            timers.put(timerData.getId(), timerData);
+        } else {
+            memory.addTimerData(timerData);
+        }
+    }
+
+    @Override
+    public TimerData createSingleActionTimer(final EjbTimerServiceImpl timerService, final String deploymentId, final Object primaryKey,
+                                             final Method timeoutMethod, final Date expiration, final TimerConfig timerConfig) throws TimerStoreException {
+        return add(new SingleActionTimerData(nextId(), timerService, deploymentId, primaryKey, timeoutMethod, timerConfig, expiration));
+    }
+
+    @Override
+    public TimerData createIntervalTimer(final EjbTimerServiceImpl timerService, final String deploymentId, final Object primaryKey,
+                                         final Method timeoutMethod, final Date initialExpiration, final long intervalDuration,
+                                         final TimerConfig timerConfig) throws TimerStoreException {
+        return add(new IntervalTimerData(nextId(), timerService, deploymentId, primaryKey, timeoutMethod, timerConfig, initialExpiration, intervalDuration));
+    }
+
+    @Override
+    public TimerData createCalendarTimer(final EjbTimerServiceImpl timerService, final String deploymentId, final Object primaryKey,
+                                         final Method timeoutMethod, final ScheduleExpression schedule, final TimerConfig timerConfig,
+                                         final boolean auto) throws TimerStoreException {
+        return add(new CalendarTimerData(nextId(), timerService, deploymentId, primaryKey, timeoutMethod, timerConfig, schedule, auto));
+    }
+
+    @Override
+    public void removeTimer(final long timerId) {
+        if (timers.remove(timerId) == null) {
+            memory.removeTimer(timerId);
+            return;
+        }
+        try {
+            cluster.delete(timerId);
+        } catch (final SQLException e) {
+            log.warning("Can't delete timer " + timerId + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateIntervalTimer(final TimerData timerData) {
+        if (!timerData.isPersistent()) {
+            memory.updateIntervalTimer(timerData);
+            return;
+        }
+
+        final Date next = timerData.trigger.getNextFireTime();
+        if (next != null) {
+            cluster.reschedule(timerData.getId(), next.getTime());
+        } else {
+            removeTimer(timerData.getId());
+        }
+    }
+
+    @Override
+    public boolean schedule(final TimerData timerData) throws TimerStoreException {
+        if (!timerData.isPersistent()) {
+            return false;
+        }
+
+        final Date next = timerData.trigger.getNextFireTime();
+        if (next == null) {
+            return true;
+        }
+        try {
+            timers.put(timerData.getId(), timerData);
+            cluster.save(timerData.getId(), timerData.getDeploymentId(), next.getTime(), serialize(timerData));
+        } catch (final SQLException | IOException e) {
+            throw new TimerStoreException("Can't save timer " + timerData.getId(), e);
+        }
+        return true;
+    }
+
+    @Override
+    public void fire(final JdbcTimerCluster.Row row) {
+        final EjbTimerServiceImpl service = timerService;
+        final BeanContext beanContext = SystemInstance.get().getComponent(ContainerSystem.class).getBeanContext(row.deploymentId);
+        if (service == null || beanContext == null || beanContext.getEjbTimerService() != service) { // undeployed
+            cluster.unregister(row.deploymentId, this);
+            cluster.release(row.id);
+            return;
+        }
+
+        final TimerData timerData = timer(row);
+        if (timerData == null || timerData.isCancelled()) {
+            cluster.release(row.id);
+            return;
+        }
+
+        // an other node may have fired it before this one got the partition
+        timerData.trigger.setNextFireTime(new Date(row.nextFire));
+        timerData.trigger.triggered(null);
+        service.ejbTimeout(timerData); // ends with removeTimer() or updateIntervalTimer()
+    }
+
+    private TimerData add(final TimerData timerData) throws TimerStoreException {
+        addTimerData(timerData);
+        return timerData;
+    }
+
+    private long nextId() throws TimerStoreException {
+        try {
+            return cluster.nextId();
+        } catch (final SQLException e) {
+            throw new TimerStoreException("Can't allocate a timer id", e);
+        }
+    }
+
+    private TimerData timer(final JdbcTimerCluster.Row row) {
+        final TimerData known = timers.get(row.id);
+        if (known != null) {
+            return known;
+        }
+
+        final EjbTimerServiceImpl service = timerService;
+        final BeanContext beanContext = SystemInstance.get().getComponent(ContainerSystem.class).getBeanContext(row.deploymentId);
+        if (service == null || beanContext == null) {
+            return null;
+        }
+
+        try {
+            final TimerData timerData = deserialize(row, service, beanContext);
+            final TimerData existing = timers.putIfAbsent(row.id, timerData);
+            return existing != null ? existing : timerData;
+        } catch (final IOException | ClassNotFoundException | NoSuchMethodException e) {
+            log.warning("Can't restore timer " + row.id + " of " + row.deploymentId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] serialize(final TimerData timerData) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeUTF(timerData.getType().name());
+            out.writeUTF(timerData.getTimeoutMethod().getName());
+            out.writeInt(timerData.getTimeoutMethod().getParameterCount());
+            out.writeObject(timerData.getPrimaryKey());
+            out.writeObject(timerData.getInfo());
+            switch (timerData.getType()) {
+                case SingleAction:
+                    out.writeLong(((SingleActionTimerData) timerData).getExpiration().getTime());
+                    break;
+                case Interval:
+                    out.writeLong(((IntervalTimerData) timerData).getInitialExpiration().getTime());
+                    out.writeLong(((IntervalTimerData) timerData).getIntervalDuration());
+                    break;
+                default:
+                    out.writeObject(((CalendarTimerData) timerData).getSchedule());
+                    out.writeBoolean(((CalendarTimerData) timerData).isAutoCreated());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static TimerData deserialize(final JdbcTimerCluster.Row row, final EjbTimerServiceImpl service, final BeanContext beanContext)
+        throws IOException, ClassNotFoundException, NoSuchMethodException {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader loader = thread.getContextClassLoader();
+        thread.setContextClassLoader(beanContext.getClassLoader());
+        try (final ObjectInputStream in = new EjbObjectInputStream(new ByteArrayInputStream(row.data))) {
+            final TimerType type = TimerType.valueOf(in.readUTF());
+            final Method method = timeoutMethod(beanContext.getBeanClass(), in.readUTF(), in.readInt());
+            final Object primaryKey = in.readObject();
+            final TimerConfig config = new TimerConfig(in.readObject(), true);
+
+            final TimerData timerData;
+            switch (type) {
+                case SingleAction:
+                    timerData = new SingleActionTimerData(row.id, service, row.deploymentId, primaryKey, method, config, new Date(in.readLong()));
+                    break;
+                case Interval:
+                    timerData = new IntervalTimerData(row.id, service, row.deploymentId, primaryKey, method, config, new Date(in.readLong()), in.readLong());
+                    break;
+                default:
+                    timerData = new CalendarTimerData(row.id, service, row.deploymentId, primaryKey, method, config, (ScheduleExpression) in.readObject(), in.readBoolean());
+            }
+            timerData.restoreTrigger(new Date(row.nextFire));
+            return timerData;
+        } finally {
+            thread.setContextClassLoader(loader);
+        }
+    }
+
+    private static Method timeoutMethod(final Class<?> beanClass, final String name, final int parameters) throws NoSuchMethodException {
+        for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (final Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == parameters
+                    && (parameters == 0 || method.getParameterTypes()[0] == Timer.class)) {
+                    return method;
+                }
+            }
+        }
+        throw new NoSuchMethodException(beanClass.getName() + "." + name);
+    }
+}
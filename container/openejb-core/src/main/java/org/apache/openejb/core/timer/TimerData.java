@@ -66,10 +66,27 @@ public abstract class TimerData implements Serializable {
 
     protected Scheduler scheduler;
 
+    // set when the timer is scheduled on the TimerWheel instead of quartz
+    private TimerWheel.Timeout wheelTimeout;
+
     public void setScheduler(final Scheduler scheduler) {
         this.scheduler = scheduler;
     }
 
+    void setWheelTimeout(final TimerWheel.Timeout wheelTimeout) {
+        this.wheelTimeout = wheelTimeout;
+    }
+
+    private boolean unscheduleFromWheel() {
+        final TimerWheel.Timeout timeout = wheelTimeout;
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancel();
+        wheelTimeout = null;
+        return true;
+    }
+
     // EJB Timer object given to user code
     private Timer timer;
 
@@ -174,7 +191,7 @@ public abstract class TimerData implements Serializable {
     }
 
     public void stop() {
-        if (trigger != null) {
+        if (!unscheduleFromWheel() && trigger != null) {
             try {
                 final Scheduler s = timerService.getScheduler();
 
@@ -237,6 +254,16 @@ public abstract class TimerData implements Serializable {
         }
     }
 
+    /**
+     * Creates the trigger of a timer loaded from a store without scheduling it.
+     */
+    void restoreTrigger(final Date nextTimeout) {
+        trigger = initializeTrigger();
+        trigger.setGroup(OPEN_EJB_TIMEOUT_TRIGGER_GROUP_NAME);
+        trigger.setName(OPEN_EJB_TIMEOUT_TRIGGER_NAME_PREFIX + deploymentId + "_" + id);
+        trigger.setNextFireTime(nextTimeout);
+    }
+
     public boolean isCancelled() {
         return cancelled;
     }
@@ -247,7 +274,7 @@ public abstract class TimerData implements Serializable {
         }
 
         timerService.cancelled(TimerData.this);
-        if (trigger != null) {
+        if (!unscheduleFromWheel() && trigger != null) {
             try {
                 final Scheduler s = timerService.getScheduler();
 
@@ -343,7 +370,7 @@ public abstract class TimerData implements Serializable {
 
     public Trigger getTrigger() {
 
-        if (scheduler != null) {
+        if (scheduler != null && wheelTimeout == null) {
             try {
                 final TriggerKey key = new TriggerKey(trigger.getName(), trigger.getGroup());
                 if (scheduler.checkExists(key)) {
@@ -45,4 +45,11 @@ public interface TimerStore {
     void removeTimer(long timerId);
 
     void updateIntervalTimer(TimerData timerData);
+
+    /**
+     * @return true if the store fires the timer itself, false to let the timer service schedule it
+     */
+    default boolean schedule(final TimerData timerData) throws TimerStoreException {
+        return false;
+    }
 }
@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.apache.openejb.loader.Options;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.quartz.SchedulerConfigException;
+import org.apache.openejb.quartz.spi.ThreadPool;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In memory scheduler for the timers which don't need the Quartz job store
+ * (non persistent timers, or all timers when the job store is the RAMJobStore).
+ *
+ * Timers are spread by id over shards, each shard being a hierarchical timing
+ * wheel (4 levels of 512 slots, the first one having a slot per tick) guarded by
+ * its own lock, so scheduling or cancelling a timer is O(1) and never contends
+ * on a global lock. A single ticker thread advances the shards, collects the
+ * expired timers of a shard under its lock and hands them to the EJB timer
+ * executor once the lock is released.
+ *
+ * Firing is done on the tick following the expiration, so the precision is
+ * the tick (openejb.timer.wheel.tick, 10ms by default).
+ */
+public class TimerWheel {
+    public static final String ENABLED = "openejb.timer.wheel";
+    public static final String SHARDS = "openejb.timer.wheel.shards";
+    public static final String TICK = "openejb.timer.wheel.tick";
+    public static final String BATCH = "openejb.timer.wheel.batch";
+
+    private static final Logger log = Logger.getInstance(LogCategory.TIMER, "org.apache.openejb.util.resources");
+
+    private static final int BITS = 9;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = 1L << (BITS * LEVELS);
+
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int CANCELLED = 2;
+
+    private final Shard[] shards;
+    private final long tick;
+    private final int batch;
+    private final ThreadPool executor;
+    private final Thread ticker;
+    private final AtomicLong fired = new AtomicLong();
+    private volatile boolean running = true;
+
+    /**
+     * @return the wheel shared by the EJB timer services, null if disabled
+     */
+    public static synchronized TimerWheel get() {
+        final SystemInstance systemInstance = SystemInstance.get();
+        TimerWheel wheel = systemInstance.getComponent(TimerWheel.class);
+        if (wheel == null && systemInstance.getOptions().get(ENABLED, true)) {
+            final DefaultTimerThreadPoolAdapter executor = new DefaultTimerThreadPoolAdapter();
+            try {
+                executor.initialize();
+            } catch (final SchedulerConfigException e) {
+                log.warning("Can't create the timer wheel executor, using Quartz: " + e.getMessage());
+                return null;
+            }
+            wheel = new TimerWheel(systemInstance.getOptions(), executor).start();
+            systemInstance.setComponent(TimerWheel.class, wheel);
+        }
+        return wheel;
+    }
+
+    public static synchronized void shutdown() {
+        final TimerWheel wheel = SystemInstance.get().removeComponent(TimerWheel.class);
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    public TimerWheel(final Options options, final ThreadPool executor) {
+        this(options.get(SHARDS, Runtime.getRuntime().availableProcessors()), options.get(TICK, 10L), options.get(BATCH, 1), executor);
+    }
+
+    public TimerWheel(final int shards, final long tick, final int batch, final ThreadPool executor) {
+        this.tick = Math.max(1, tick);
+        this.batch = Math.max(1, batch);
+        this.executor = executor;
+        this.shards = new Shard[shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1];
+        final long now = System.currentTimeMillis() / this.tick;
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new Shard(now);
+        }
+        this.ticker = new Thread(this::tick, "OpenEJB-TimerWheel");
+        this.ticker.setDaemon(true);
+    }
+
+    public TimerWheel start() {
+        ticker.start();
+        return this;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(ticker);
+        try {
+            ticker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (final Shard shard : shards) {
+            shard.clear();
+        }
+        executor.shutdown(true);
+    }
+
+    /**
+     * @param id       used to pick the shard
+     * @param deadline time in ms the task should be fired at
+     * @param task     the task to fire
+     * @return the handle to cancel the timer
+     */
+    public Timeout schedule(final long id, final long deadline, final Task task) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        final Timeout timeout = new Timeout(shards[(int) h & (shards.length - 1)], task);
+        timeout.shard.add(timeout, deadline);
+        return timeout;
+    }
+
+    public int getScheduled() {
+        int count = 0;
+        for (final Shard shard : shards) {
+            count += shard.size;
+        }
+        return count;
+    }
+
+    public long getFired() {
+        return fired.get();
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    private void tick() {
+        final List<Timeout> expired = new ArrayList<>();
+        while (running) {
+            final long now = System.currentTimeMillis();
+            final long current = now / tick;
+            for (final Shard shard : shards) {
+                shard.advance(current, expired);
+                if (!expired.isEmpty()) {
+                    dispatch(expired);
+                    expired.clear();
+                }
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos((current + 1) * tick - now));
+        }
+    }
+
+    private void dispatch(final List<Timeout> expired) {
+        for (int from = 0; from < expired.size(); from += batch) {
+            final Timeout[] timeouts = expired.subList(from, Math.min(expired.size(), from + batch)).toArray(new Timeout[0]);
+            if (!executor.runInThread(() -> {
+                for (final Timeout timeout : timeouts) {
+                    fire(timeout);
+                }
+            })) {
+                log.warning("Timer executor rejected " + timeouts.length + " timer(s), they will not fire anymore");
+                for (final Timeout timeout : timeouts) {
+                    timeout.state = CANCELLED;
+                }
+            }
+        }
+    }
+
+    private void fire(final Timeout timeout) {
+        if (timeout.state != RUNNING || !running) {
+            return;
+        }
+
+        fired.incrementAndGet();
+        long next = -1;
+        try {
+            next = timeout.task.fire();
+        } catch (final RuntimeException e) {
+            log.warning("Timer task failed", e);
+        } finally {
+            final boolean reschedule;
+            synchronized (timeout) {
+                reschedule = next >= 0 && timeout.state == RUNNING && running;
+                timeout.state = reschedule ? PENDING : CANCELLED;
+            }
+            if (reschedule) { // a cancel() meanwhile is seen by add()
+                timeout.shard.add(timeout, next);
+            }
+        }
+    }
+
+    public interface Task {
+        /**
+         * @return the next time in ms the task should be fired at, or a negative value when done
+         */
+        long fire();
+    }
+
+    public static final class Timeout {
+        private final Shard shard;
+        private final Task task;
+        private long deadline;
+        private Timeout previous;
+        private Timeout next;
+        private Bucket bucket;
+        private volatile int state = PENDING;
+
+        private Timeout(final Shard shard, final Task task) {
+            this.shard = shard;
+            this.task = task;
+        }
+
+        public void cancel() {
+            synchronized (this) {
+                if (state == CANCELLED) {
+                    return;
+                }
+                state = CANCELLED;
+            }
+            shard.remove(this);
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+
+        private void add(final Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = null;
+            timeout.next = head;
+            if (head != null) {
+                head.previous = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(final Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        private Timeout drain() {
+            final Timeout first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Bucket[][] levels = new Bucket[LEVELS][SLOTS];
+        private final Bucket due = new Bucket();
+        private long current;
+        private volatile int size;
+
+        private Shard(final long current) {
+            this.current = current;
+            for (final Bucket[] level : levels) {
+                for (int i = 0; i < SLOTS; i++) {
+                    level[i] = new Bucket();
+                }
+            }
+        }
+
+        private void add(final Timeout timeout, final long deadline) {
+            lock.lock();
+            try {
+                if (timeout.state != PENDING) {
+                    return;
+                }
+                timeout.deadline = (deadline + tick - 1) / tick;
+                place(timeout);
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(final Timeout timeout) {
+            lock.lock();
+            try {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                    size--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void place(final Timeout timeout) {
+            final long delta = timeout.deadline - current;
+            if (delta <= 0) {
+                due.add(timeout);
+                return;
+            }
+
+            final long position = delta < MAX_DELTA ? timeout.deadline : current + MAX_DELTA - 1;
+            int level = 0;
+            while (level < LEVELS - 1 && (position - current) >= 1L << (BITS * (level + 1))) {
+                level++;
+            }
+            levels[level][(int) (position >>> (BITS * level)) & MASK].add(timeout);
+        }
+
+        private void advance(final long now, final List<Timeout> expired) {
+            if (now <= current) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (size == 0) {
+                    current = now;
+                    return;
+                }
+
+                collect(due.drain(), expired);
+                while (current < now) {
+                    current++;
+                    for (int level = LEVELS - 1; level > 0; level--) { // cascade the slots reached by the lower levels
+                        if ((current & ((1L << (BITS * level)) - 1)) == 0) {
+                            Timeout timeout = levels[level][(int) (current >>> (BITS * level)) & MASK].drain();
+                            while (timeout != null) {
+                                final Timeout next = timeout.next;
+                                timeout.bucket = null;
+                                place(timeout);
+                                timeout = next;
+                            }
+                        }
+                    }
+                    collect(levels[0][(int) current & MASK].drain(), expired);
+                    collect(due.drain(), expired);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void collect(final Timeout first, final List<Timeout> expired) {
+            Timeout timeout = first;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                timeout.bucket = null;
+                timeout.previous = null;
+                timeout.next = null;
+                if (timeout.deadline > current) { // clamped far in the future
+                    place(timeout);
+                } else {
+                    size--;
+                    synchronized (timeout) {
+                        if (timeout.state == PENDING) {
+                            timeout.state = RUNNING;
+                            expired.add(timeout);
+                        }
+                    }
+                }
+                timeout = next;
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                for (final Bucket[] level : levels) {
+                    for (final Bucket bucket : level) {
+                        bucket.drain();
+                    }
+                }
+                due.drain();
+                size = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
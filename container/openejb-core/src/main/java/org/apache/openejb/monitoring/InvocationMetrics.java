@@ -0,0 +1,349 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.monitoring;
+
+import org.apache.openejb.BeanContext;
+import org.apache.openejb.loader.SystemInstance;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Always on per method metrics of a bean, recorded by the containers:
+ * time spent waiting for an instance (pool, singleton lock, stateful
+ * checkout), time in the business method and its interceptors, time to
+ * complete the transaction and number of exceptions.
+ *
+ * Unlike {@link StatsInterceptor} there is nothing to enable on the bean,
+ * it can be switched off globally with openejb.metrics.invocations=false.
+ * Values are exposed through JMX (j2eeType=Metrics) and as text by
+ * {@link #write(Iterable, Appendable)}.
+ */
+public class InvocationMetrics {
+    public static final String ENABLED = "openejb.metrics.invocations";
+
+    private static final MethodMetrics DISABLED = new MethodMetrics(null, false);
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final ConcurrentMap<Method, MethodMetrics> methods = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    public InvocationMetrics() {
+        this(!SystemInstance.isInitialized() || SystemInstance.get().getOptions().get(ENABLED, true));
+    }
+
+    public InvocationMetrics(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the metrics of this method, never null, a no-op instance when metrics are disabled
+     */
+    public MethodMetrics get(final Method method) {
+        if (!enabled || method == null) {
+            return DISABLED;
+        }
+        final MethodMetrics existing = methods.get(method);
+        if (existing != null) {
+            return existing;
+        }
+        return methods.computeIfAbsent(method, m -> new MethodMetrics(m, true));
+    }
+
+    @Managed
+    public long getInvocationCount() {
+        long count = 0;
+        for (final MethodMetrics metrics : methods.values()) {
+            count += metrics.getInvocations();
+        }
+        return count;
+    }
+
+    @Managed
+    public long getExceptionCount() {
+        long count = 0;
+        for (final MethodMetrics metrics : methods.values()) {
+            count += metrics.getExceptions();
+        }
+        return count;
+    }
+
+    @ManagedCollection(type = MethodMetrics.class, key = "method")
+    public Collection<MethodMetrics> methods() {
+        return methods.values();
+    }
+
+    public static ObjectName objectName(final BeanContext beanContext) {
+        final ObjectNameBuilder jmxName = new ObjectNameBuilder("openejb.management");
+        jmxName.set("J2EEServer", "openejb");
+        jmxName.set("J2EEApplication", null);
+        jmxName.set("EJBModule", beanContext.getModuleID());
+        jmxName.set(j2eeBeanType(beanContext), beanContext.getEjbName());
+        jmxName.set("j2eeType", "Metrics");
+        jmxName.set("name", beanContext.getEjbName());
+        return jmxName.build();
+    }
+
+    public static void register(final BeanContext beanContext) {
+        if (LocalMBeanServer.isJMXActive() && beanContext.getInvocationMetrics().isEnabled() && !beanContext.isHidden()) {
+            LocalMBeanServer.registerSilently(new ManagedMBean(beanContext.getInvocationMetrics()), objectName(beanContext));
+        }
+    }
+
+    public static void unregister(final BeanContext beanContext) {
+        if (LocalMBeanServer.isJMXActive() && beanContext.getInvocationMetrics().isEnabled() && !beanContext.isHidden()) {
+            final ObjectName name = objectName(beanContext);
+            if (LocalMBeanServer.get().isRegistered(name)) {
+                LocalMBeanServer.unregisterSilently(name);
+            }
+        }
+    }
+
+    /**
+     * Writes the metrics of the beans in the Prometheus text exposition
+     * format, times in seconds.
+     */
+    public static void write(final Iterable<BeanContext> beans, final Appendable out) throws IOException {
+        final Map<String, MethodMetrics> samples = new LinkedHashMap<>();
+        for (final BeanContext bean : beans) {
+            if (bean.isHidden()) {
+                continue;
+            }
+            for (final MethodMetrics metrics : bean.getInvocationMetrics().methods()) {
+                samples.put("bean=\"" + escape(String.valueOf(bean.getDeploymentID()))
+                        + "\",method=\"" + escape(metrics.method) + "\"", metrics);
+            }
+        }
+
+        // all the samples of a family have to be contiguous
+        write(out, "openejb_ejb_wait_seconds", samples, m -> m.wait);
+        write(out, "openejb_ejb_invocation_seconds", samples, m -> m.invocation);
+        write(out, "openejb_ejb_transaction_seconds", samples, m -> m.transaction);
+        out.append("# TYPE openejb_ejb_exceptions_total counter\n");
+        for (final Map.Entry<String, MethodMetrics> sample : samples.entrySet()) {
+            out.append("openejb_ejb_exceptions_total{").append(sample.getKey()).append("} ")
+                    .append(Long.toString(sample.getValue().exceptions.sum())).append('\n');
+        }
+        out.append("# TYPE openejb_ejb_wait_timeouts_total counter\n");
+        for (final Map.Entry<String, MethodMetrics> sample : samples.entrySet()) {
+            out.append("openejb_ejb_wait_timeouts_total{").append(sample.getKey()).append("} ")
+                    .append(Long.toString(sample.getValue().waitTimeouts.sum())).append('\n');
+        }
+    }
+
+    private static void write(final Appendable out, final String name, final Map<String, MethodMetrics> samples,
+                              final Function<MethodMetrics, LatencyHistogram> histograms) throws IOException {
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (final Map.Entry<String, MethodMetrics> sample : samples.entrySet()) {
+            final String labels = sample.getKey();
+            final LatencyHistogram histogram = histograms.apply(sample.getValue());
+            for (final double quantile : QUANTILES) {
+                out.append(name).append('{').append(labels).append(",quantile=\"").append(Double.toString(quantile)).append("\"} ")
+                        .append(Double.toString(seconds(histogram.getPercentile(quantile * 100)))).append('\n');
+            }
+            out.append(name).append("_count{").append(labels).append("} ").append(Long.toString(histogram.getCount())).append('\n');
+            out.append(name).append("_sum{").append(labels).append("} ").append(Double.toString(seconds(histogram.getTotal()))).append('\n');
+        }
+    }
+
+    private static double seconds(final long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String j2eeBeanType(final BeanContext beanContext) {
+        switch (beanContext.getComponentType()) {
+            case STATEFUL:
+                return "StatefulSessionBean";
+            case STATELESS:
+                return "StatelessSessionBean";
+            case SINGLETON:
+                return "SingletonSessionBean";
+            case MESSAGE_DRIVEN:
+                return "MessageDrivenBean";
+            case MANAGED:
+                return "ManagedBean";
+            default:
+                return "EntityBean";
+        }
+    }
+
+    public static final class MethodMetrics {
+        private final boolean enabled;
+        private final LongAdder exceptions = new LongAdder();
+        private final LongAdder waitTimeouts = new LongAdder();
+        private final LatencyHistogram wait;
+        private final LatencyHistogram invocation;
+        private final LatencyHistogram transaction;
+
+        // Used as the prefix for the MBeanAttributeInfo
+        private final String method;
+
+        private MethodMetrics(final Method method, final boolean enabled) {
+            this.enabled = enabled;
+            this.method = method == null ? "" : signature(method);
+            this.wait = enabled ? new LatencyHistogram() : null;
+            this.invocation = enabled ? new LatencyHistogram() : null;
+            this.transaction = enabled ? new LatencyHistogram() : null;
+        }
+
+        /**
+         * Time spent waiting for an instance: pool, singleton lock or stateful checkout.
+         */
+        public void waited(final long nanos) {
+            if (enabled) {
+                wait.record(nanos);
+            }
+        }
+
+        /**
+         * The call gave up waiting for an instance, the access timeout elapsed.
+         */
+        public void waitTimedOut(final long nanos) {
+            if (enabled) {
+                wait.record(nanos);
+                waitTimeouts.increment();
+            }
+        }
+
+        public void invoked(final long nanos) {
+            if (enabled) {
+                invocation.record(nanos);
+            }
+        }
+
+        public void completed(final long transactionNanos) {
+            if (enabled) {
+                transaction.record(transactionNanos);
+            }
+        }
+
+        public void failed() {
+            if (enabled) {
+                exceptions.increment();
+            }
+        }
+
+        @Managed
+        public long getInvocations() {
+            return enabled ? invocation.getCount() : 0;
+        }
+
+        @Managed
+        public long getExceptions() {
+            return exceptions.sum();
+        }
+
+        @Managed
+        public long getWaitTimeouts() {
+            return waitTimeouts.sum();
+        }
+
+        @Managed
+        public double getInvocationMean() {
+            return enabled ? millis(invocation.getMean()) : 0;
+        }
+
+        @Managed
+        public double getInvocationPercentile50() {
+            return percentile(invocation, 50);
+        }
+
+        @Managed
+        public double getInvocationPercentile99() {
+            return percentile(invocation, 99);
+        }
+
+        @Managed
+        public double getInvocationMax() {
+            return enabled ? millis(invocation.getMax()) : 0;
+        }
+
+        @Managed
+        public double getWaitPercentile50() {
+            return percentile(wait, 50);
+        }
+
+        @Managed
+        public double getWaitPercentile99() {
+            return percentile(wait, 99);
+        }
+
+        @Managed
+        public double getWaitMax() {
+            return enabled ? millis(wait.getMax()) : 0;
+        }
+
+        @Managed
+        public double getTransactionPercentile50() {
+            return percentile(transaction, 50);
+        }
+
+        @Managed
+        public double getTransactionPercentile99() {
+            return percentile(transaction, 99);
+        }
+
+        public LatencyHistogram getWait() {
+            return wait;
+        }
+
+        public LatencyHistogram getInvocation() {
+            return invocation;
+        }
+
+        public LatencyHistogram getTransaction() {
+            return transaction;
+        }
+
+        private double percentile(final LatencyHistogram histogram, final double percentile) {
+            return enabled ? millis(histogram.getPercentile(percentile)) : 0;
+        }
+
+        private static double millis(final double nanos) {
+            return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        private static String signature(final Method method) {
+            final StringBuilder sb = new StringBuilder(method.getName()).append('(');
+            final Class<?>[] params = method.getParameterTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(params[i].getSimpleName());
+            }
+            return sb.append(')').toString();
+        }
+    }
+}
@@ -68,7 +68,7 @@ public class RemoteResourceMonitor implements DynamicMBean {
         buildMBeanInfo();
     }
 
-    public void registerIfNot() { // do it lazily
+    public synchronized void registerIfNot() { // do it lazily
         if (objectName != null) {
             return;
         }
@@ -61,7 +61,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 @SuppressWarnings("StatementWithEmptyBody")
 public class Pool<T> {
 
-    private final LinkedList<Entry> pool = new LinkedList<>();
+    private final LinkedList<Entry> pool;
+    private final StripedStack<Entry> striped;
     private final Semaphore instances;
     private final Semaphore available;
     private final Semaphore minimum;
@@ -102,8 +103,17 @@ public class Pool<T> {
         this(max, min, strict, 0, 0, 0, null, null, false, -1, false, false);
     }
 
+    public Pool(final int max, final int min, final boolean strict, final long maxAge, final long idleTimeout, final long sweepInterval, final Executor executor, final Supplier<T> supplier, final boolean replaceAged, final double maxAgeOffset, final boolean garbageCollection, final boolean replaceFlushed) {
+        this(max, min, strict, maxAge, idleTimeout, sweepInterval, executor, supplier, replaceAged, maxAgeOffset, garbageCollection, replaceFlushed, 0);
+    }
+
+    /**
+     * @param stripes number of lock-free stacks used to hold the idle entries,
+     *                0 keeps the single synchronized list, a negative value
+     *                uses one stripe per available processor
+     */
     @SuppressWarnings("unchecked")
-    public Pool(final int max, final int min, final boolean strict, final long maxAge, final long idleTimeout, long sweepInterval, final Executor executor, final Supplier<T> supplier, final boolean replaceAged, final double maxAgeOffset, final boolean garbageCollection, final boolean replaceFlushed) {
+    public Pool(final int max, final int min, final boolean strict, final long maxAge, final long idleTimeout, long sweepInterval, final Executor executor, final Supplier<T> supplier, final boolean replaceAged, final double maxAgeOffset, final boolean garbageCollection, final boolean replaceFlushed, final int stripes) {
         if (min > max) {
             greater("max", max, "min", min);
         }
@@ -126,6 +136,13 @@ public class Pool<T> {
         this.sweeper = new Sweeper(idleTimeout, max);
         this.stats = new Stats(min, max, idleTimeout);
         this.garbageCollection = garbageCollection;
+        if (stripes == 0) {
+            this.pool = new LinkedList<>();
+            this.striped = null;
+        } else {
+            this.pool = null;
+            this.striped = stripes < 0 ? new StripedStack<>() : new StripedStack<>(stripes);
+        }
     }
 
     public Pool start() {
@@ -253,12 +270,9 @@ public class Pool<T> {
 
         Entry entry;
         do {
-            synchronized (pool) {
-                try {
-                    entry = pool.removeFirst();
-                } catch (final NoSuchElementException e) {
-                    return null;
-                }
+            entry = take();
+            if (entry == null) {
+                return null;
             }
 
             final Pool<T>.Entry.Instance instance = entry.soft.get();
@@ -401,9 +415,7 @@ public class Pool<T> {
                     entry.hard.set(obj);
                 }
 
-                synchronized (pool) {
-                    pool.addFirst(entry);
-                }
+                put(entry);
                 added = true;
             }
         } finally {
@@ -431,6 +443,29 @@ public class Pool<T> {
         return added;
     }
 
+    private Entry take() {
+        if (striped != null) {
+            return striped.pop();
+        }
+        synchronized (pool) {
+            try {
+                return pool.removeFirst();
+            } catch (final NoSuchElementException e) {
+                return null;
+            }
+        }
+    }
+
+    private void put(final Entry entry) {
+        if (striped != null) {
+            striped.push(entry);
+            return;
+        }
+        synchronized (pool) {
+            pool.addFirst(entry);
+        }
+    }
+
 //    private void println(String s) {
 //        Thread thread = Thread.currentThread();
 //        PrintStream out = System.out;
@@ -1072,6 +1107,11 @@ public class Pool<T> {
             this.idleTimeout = idleTimeout;
         }
 
+        @Managed
+        private int getStripes() {
+            return striped == null ? 0 : striped.stripes();
+        }
+
         @Managed
         private boolean getStrictPooling() {
             return !(available instanceof Overdraft);
@@ -1124,6 +1164,7 @@ public class Pool<T> {
         private boolean replaceAged;
         private boolean replaceFlushed;
         private boolean garbageCollection = true;
+        private int stripes;
 
         public Builder(final Builder<T> that) {
             this.max = that.max;
@@ -1138,6 +1179,7 @@ public class Pool<T> {
             this.replaceAged = that.replaceAged;
             this.replaceFlushed = that.replaceFlushed;
             this.garbageCollection = that.garbageCollection;
+            this.stripes = that.stripes;
         }
 
         public Builder() {
@@ -1155,6 +1197,22 @@ public class Pool<T> {
             this.garbageCollection = garbageCollection;
         }
 
+        public int getStripes() {
+            return stripes;
+        }
+
+        /**
+         * Number of lock-free stacks holding the idle instances.
+         *
+         * 0 (the default) keeps a single synchronized list, a negative
+         * value uses one stripe per available processor.
+         *
+         * @param stripes int
+         */
+        public void setStripes(final int stripes) {
+            this.stripes = stripes;
+        }
+
         public void setReplaceAged(final boolean replaceAged) {
             this.replaceAged = replaceAged;
         }
@@ -1239,7 +1297,7 @@ public class Pool<T> {
         @SuppressWarnings("unchecked")
         public Pool<T> build() {
             //noinspection unchecked
-            final Pool pool = new Pool(max, min, strict, maxAge.getTime(MILLISECONDS), idleTimeout.getTime(MILLISECONDS), interval.getTime(MILLISECONDS), executor, supplier, replaceAged, maxAgeOffset, this.garbageCollection, replaceFlushed);
+            final Pool pool = new Pool(max, min, strict, maxAge.getTime(MILLISECONDS), idleTimeout.getTime(MILLISECONDS), interval.getTime(MILLISECONDS), executor, supplier, replaceAged, maxAgeOffset, this.garbageCollection, replaceFlushed, stripes);
             if (scheduledExecutorService != null) {
                 pool.scheduler.set(scheduledExecutorService);
             }
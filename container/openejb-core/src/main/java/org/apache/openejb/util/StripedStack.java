@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.openejb.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A set of lock-free LIFO stacks (Treiber stacks) indexed by the calling thread.
+ *
+ * A thread pushes to and pops from its "home" stripe first so that under
+ * contention threads mostly CAS on different slots. When the home stripe
+ * is empty the other stripes are scanned and an element is stolen from
+ * the first non empty one.
+ *
+ * Ordering is only LIFO per stripe, callers must not rely on a global order.
+ *
+ * @version $Rev$ $Date$
+ */
+public class StripedStack<E> {
+
+    private final AtomicReferenceArray<Node<E>> stripes;
+    private final int mask;
+
+    public StripedStack() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedStack(final int concurrency) {
+        int size = 1;
+        while (size < concurrency) {
+            size <<= 1;
+        }
+        this.stripes = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public void push(final E element) {
+        if (element == null) {
+            throw new NullPointerException("element is null");
+        }
+
+        final int index = home();
+        final Node<E> node = new Node<>(element);
+        Node<E> head;
+        do {
+            head = stripes.get(index);
+            node.next = head;
+        } while (!stripes.compareAndSet(index, head, node));
+    }
+
+    /**
+     * @return the most recently pushed element of the home stripe, an element
+     * stolen from another stripe or null if all stripes are empty
+     */
+    public E pop() {
+        final int home = home();
+        for (int i = 0; i <= mask; i++) {
+            final E element = pop((home + i) & mask);
+            if (element != null) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        for (int i = 0; i <= mask; i++) {
+            if (stripes.get(i) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int stripes() {
+        return mask + 1;
+    }
+
+    private E pop(final int index) {
+        Node<E> head;
+        do {
+            head = stripes.get(index);
+            if (head == null) {
+                return null;
+            }
+        } while (!stripes.compareAndSet(index, head, head.next));
+        return head.element;
+    }
+
+    private int home() {
+        // spread the id bits, sequential thread ids would otherwise
+        // only differ in their low bits and collide once masked
+        final long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32));
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h & mask;
+    }
+
+    private static final class Node<E> {
+        private final E element;
+        private Node<E> next;
+
+        private Node(final E element) {
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb;
+
+import org.apache.openejb.core.transaction.TransactionType;
+import org.apache.openejb.loader.SystemInstance;
+import org.junit.Before;
+import org.junit.Test;
+
+import jakarta.ejb.LockType;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MethodTableTest {
+    private BeanContext beanContext;
+    private Method interfaceMethod;
+    private Method beanMethod;
+
+    @Before
+    public void init() throws Exception {
+        SystemInstance.init(new Properties());
+        final ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        beanContext = new BeanContext("foo", null, new ModuleContext("foo", null, "bar",
+                new AppContext("foo", SystemInstance.get(), loader, null, null, false), null, loader),
+                Bean.class, null, new HashMap<>());
+
+        interfaceMethod = Api.class.getMethod("hello");
+        beanMethod = Bean.class.getMethod("hello");
+        beanContext.mapMethods(interfaceMethod, beanMethod);
+        beanContext.getMethodContext(beanMethod).setTransactionType(TransactionType.Mandatory);
+    }
+
+    @Test
+    public void notFrozen() {
+        assertFalse(beanContext.isFrozen());
+
+        final MethodTable.Entry entry = beanContext.getMethodEntry(interfaceMethod);
+        assertEquals(-1, entry.getIndex());
+        assertSame(beanMethod, entry.getBeanMethod());
+        assertEquals(TransactionType.Mandatory, entry.getTransactionType(InterfaceType.BUSINESS_LOCAL));
+    }
+
+    @Test
+    public void frozen() {
+        beanContext.freeze();
+        assertTrue(beanContext.isFrozen());
+
+        final MethodTable.Entry entry = beanContext.getMethodEntry(interfaceMethod);
+        assertSame(entry, beanContext.getMethodEntry(interfaceMethod));
+        assertTrue(entry.getIndex() >= 0);
+        assertSame(beanMethod, entry.getBeanMethod());
+        assertSame(beanContext.getMethodContext(beanMethod), entry.getMethodContext());
+        assertSame(beanMethod, beanContext.getMatchingBeanMethod(interfaceMethod));
+        assertEquals(TransactionType.Mandatory, beanContext.getTransactionType(interfaceMethod, InterfaceType.BUSINESS_LOCAL));
+        assertEquals(LockType.WRITE, beanContext.getConcurrencyAttribute(beanMethod));
+    }
+
+    @Test
+    public void changeAfterFreeze() {
+        beanContext.freeze();
+        beanContext.getMethodContext(beanMethod).setLockType(LockType.READ);
+
+        assertTrue(beanContext.isFrozen());
+        final MethodTable.Entry entry = beanContext.getMethodEntry(interfaceMethod);
+        assertTrue(entry.getIndex() >= 0);
+        assertEquals(LockType.READ, entry.getLockType());
+        assertEquals(LockType.READ, beanContext.getConcurrencyAttribute(beanMethod));
+    }
+
+    public interface Api {
+        String hello();
+    }
+
+    public static class Bean implements Api {
+        @Override
+        public String hello() {
+            return "hello";
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.assembler.classic;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeploymentSchedulerTest {
+
+    @Test
+    public void resourceAndEjbLinks() {
+        final AppInfo resources = app("resources");
+        resources.resourceIds.add("jdbc/shared");
+        final AppInfo ejbs = app("ejbs");
+        bean(ejbs, "Shared");
+        final AppInfo client = app("client");
+        final ResourceReferenceInfo resourceRef = new ResourceReferenceInfo();
+        resourceRef.resourceID = "jdbc/shared";
+        client.appJndiEnc.resourceRefs.add(resourceRef);
+        final EjbLocalReferenceInfo ejbRef = new EjbLocalReferenceInfo();
+        ejbRef.ejbDeploymentId = "Shared";
+        bean(client, "Client").jndiEnc.ejbLocalReferences.add(ejbRef);
+
+        final List<AppInfo> apps = Arrays.asList(client, resources, ejbs);
+        final Map<AppInfo, Set<AppInfo>> dependencies = DeploymentScheduler.dependencies(apps);
+        assertEquals(Arrays.asList(resources, ejbs), new ArrayList<>(dependencies.get(client)));
+        assertTrue(dependencies.get(resources).isEmpty());
+        assertFalse(DeploymentScheduler.hasCycle(apps, dependencies));
+    }
+
+    @Test
+    public void duplicateDeploymentIdsAreSerialized() {
+        final AppInfo first = app("first");
+        bean(first, "Same");
+        final AppInfo second = app("second");
+        bean(second, "Same");
+
+        final Map<AppInfo, Set<AppInfo>> dependencies = DeploymentScheduler.dependencies(Arrays.asList(first, second));
+        assertEquals(Collections.singleton(first), dependencies.get(second));
+    }
+
+    @Test
+    public void dependenciesDeployedFirst() {
+        final AppInfo resources = app("resources");
+        resources.resourceIds.add("jms/queue");
+        final List<AppInfo> apps = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final AppInfo app = app("app" + i);
+            final ResourceEnvReferenceInfo ref = new ResourceEnvReferenceInfo();
+            ref.resourceID = "jms/queue";
+            app.globalJndiEnc.resourceEnvRefs.add(ref);
+            apps.add(app);
+        }
+        apps.add(resources); // declared last
+
+        final List<String> deployed = Collections.synchronizedList(new ArrayList<>());
+        final List<DeploymentScheduler.Step> steps = new DeploymentScheduler(4).deploy(apps, app -> deployed.add(app.path));
+
+        assertEquals(apps.size(), steps.size());
+        assertEquals(apps.size(), deployed.size());
+        assertEquals("resources", deployed.get(0));
+        for (final DeploymentScheduler.Step step : steps) {
+            assertTrue(step.getThread(), step.getThread().startsWith("openejb-deployer-"));
+        }
+    }
+
+    @Test
+    public void cycleDeploysInOrder() {
+        final AppInfo a = app("a");
+        a.resourceIds.add("a");
+        final AppInfo b = app("b");
+        b.resourceIds.add("b");
+        a.appJndiEnc.resourceRefs.add(ref("b"));
+        b.appJndiEnc.resourceRefs.add(ref("a"));
+
+        final List<AppInfo> apps = Arrays.asList(a, b);
+        assertTrue(DeploymentScheduler.hasCycle(apps, DeploymentScheduler.dependencies(apps)));
+
+        final List<String> deployed = new ArrayList<>();
+        final List<DeploymentScheduler.Step> steps = new DeploymentScheduler(4).deploy(apps, app -> deployed.add(app.path));
+        assertEquals(Arrays.asList("a", "b"), deployed);
+        assertEquals(Thread.currentThread().getName(), steps.get(0).getThread());
+    }
+
+    @Test
+    public void failureDoesNotBlockDependents() {
+        final AppInfo broken = app("broken");
+        broken.resourceIds.add("r");
+        final AppInfo dependent = app("dependent");
+        dependent.appJndiEnc.resourceRefs.add(ref("r"));
+
+        final List<String> deployed = Collections.synchronizedList(new ArrayList<>());
+        new DeploymentScheduler(2).deploy(Arrays.asList(broken, dependent), app -> {
+            if (app == broken) {
+                throw new IllegalStateException("test");
+            }
+            deployed.add(app.path);
+        });
+        assertEquals(Collections.singletonList("dependent"), deployed);
+    }
+
+    @Test
+    public void errorDoesNotBlockDependents() {
+        final AppInfo broken = app("broken");
+        broken.resourceIds.add("r");
+        final AppInfo dependent = app("dependent");
+        dependent.appJndiEnc.resourceRefs.add(ref("r"));
+
+        final List<String> deployed = Collections.synchronizedList(new ArrayList<>());
+        new DeploymentScheduler(2).deploy(Arrays.asList(broken, dependent), app -> {
+            if (app == broken) {
+                throw new NoClassDefFoundError("test");
+            }
+            deployed.add(app.path);
+        });
+        assertEquals(Collections.singletonList("dependent"), deployed);
+    }
+
+    private static AppInfo app(final String path) {
+        final AppInfo appInfo = new AppInfo();
+        appInfo.appId = path;
+        appInfo.path = path;
+        return appInfo;
+    }
+
+    private static EnterpriseBeanInfo bean(final AppInfo appInfo, final String id) {
+        final EjbJarInfo ejbJar = new EjbJarInfo();
+        final EnterpriseBeanInfo bean = new StatelessBeanInfo();
+        bean.ejbDeploymentId = id;
+        ejbJar.enterpriseBeans.add(bean);
+        appInfo.ejbJars.add(ejbJar);
+        return bean;
+    }
+
+    private static ResourceReferenceInfo ref(final String id) {
+        final ResourceReferenceInfo ref = new ResourceReferenceInfo();
+        ref.resourceID = id;
+        return ref;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.config;
+
+import org.apache.openejb.assembler.classic.AppInfo;
+import org.apache.openejb.assembler.classic.EjbJarInfo;
+import org.apache.openejb.assembler.classic.ResourceInfo;
+import org.apache.openejb.assembler.classic.StatelessBeanInfo;
+import org.apache.openejb.assembler.classic.WebAppInfo;
+import org.apache.openejb.loader.Files;
+import org.apache.openejb.loader.IO;
+import org.apache.openejb.loader.SystemInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AppInfoSnapshotsTest {
+    private File work;
+    private File app;
+    private AppInfoSnapshots snapshots;
+
+    @Before
+    public void init() throws Exception {
+        SystemInstance.init(new Properties());
+        work = Files.tmpdir();
+        app = new File(work, "app.jar");
+        IO.writeString(app, "v1");
+        snapshots = new AppInfoSnapshots(new File(work, "snapshots"));
+    }
+
+    @After
+    public void reset() {
+        SystemInstance.reset();
+        Files.delete(work);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        final AppInfo appInfo = new AppInfo();
+        appInfo.appId = "app";
+        appInfo.path = app.getAbsolutePath();
+        final EjbJarInfo ejbJar = new EjbJarInfo();
+        ejbJar.moduleName = "app";
+        final StatelessBeanInfo bean = new StatelessBeanInfo();
+        bean.ejbName = "Bean";
+        bean.ejbClass = "org.superbiz.Bean";
+        ejbJar.enterpriseBeans.add(bean);
+        appInfo.ejbJars.add(ejbJar);
+
+        final WebAppInfo webApp = new WebAppInfo();
+        appInfo.webApps.add(webApp);
+        final Object finder = new Object();
+        appInfo.properties.put(webApp, finder);
+
+        final ResourceInfo resource = new ResourceInfo();
+        resource.id = "app/Default JDBC Database";
+        resource.properties = new Properties();
+        resource.properties.setProperty("JdbcUrl", "jdbc:hsqldb:mem:app");
+
+        final String fingerprint = snapshots.fingerprint(app, null);
+        assertNull(snapshots.read(app, fingerprint));
+
+        snapshots.write(app, fingerprint, new AppInfoSnapshots.Snapshot(appInfo, Collections.emptyList(), Collections.singletonList(resource)));
+        assertSame(finder, appInfo.properties.get(webApp));
+
+        final AppInfoSnapshots.Snapshot snapshot = snapshots.read(app, fingerprint);
+        assertNotNull(snapshot);
+        assertEquals("app", snapshot.appInfo.appId);
+        assertEquals("org.superbiz.Bean", snapshot.appInfo.ejbJars.get(0).enterpriseBeans.get(0).ejbClass);
+        assertEquals(1, snapshot.appInfo.webApps.size());
+        assertFalse(snapshot.appInfo.properties.containsKey(snapshot.appInfo.webApps.get(0)));
+        assertEquals("jdbc:hsqldb:mem:app", snapshot.resources.get(0).properties.getProperty("JdbcUrl"));
+        assertEquals(0, snapshot.containers.size());
+
+        assertNull(snapshots.read(app, fingerprint.replace('0', '1').replace('a', 'b')));
+    }
+
+    @Test
+    public void fingerprint() throws Exception {
+        final String initial = snapshots.fingerprint(app, null);
+        assertEquals(initial, snapshots.fingerprint(app, null));
+
+        SystemInstance.get().setProperty("Bean.activation.foo", "bar");
+        final String withProperty = snapshots.fingerprint(app, null);
+        assertNotEquals(initial, withProperty);
+
+        IO.writeString(app, "v2");
+        assertNotEquals(withProperty, snapshots.fingerprint(app, null));
+
+        final File exploded = new File(work, "exploded");
+        IO.writeString(new File(exploded, "META-INF/ejb-jar.xml"), "<ejb-jar/>");
+        final String folder = snapshots.fingerprint(exploded, null);
+        IO.writeString(new File(exploded, "META-INF/beans.xml"), "<beans/>");
+        assertNotEquals(folder, snapshots.fingerprint(exploded, null));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.config;
+
+import org.apache.openejb.loader.Files;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.xbean.finder.archive.Archive;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ScanIndexTest {
+    private static final Class<?>[] CLASSES = {Annotated.class, Plain.class, Api.class, AnnotatedMethod.class};
+
+    private File work;
+    private File jar;
+
+    @Before
+    public void init() throws Exception {
+        work = Files.tmpdir();
+        jar = new File(work, "app.jar");
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (final Class<?> clazz : CLASSES) {
+                out.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+                out.write(bytecode(clazz));
+            }
+        }
+
+        final Properties properties = new Properties();
+        properties.setProperty(ScanIndex.ENABLED, "true");
+        properties.setProperty(ScanIndex.DIRECTORY, new File(work, "index").getAbsolutePath());
+        SystemInstance.init(properties);
+    }
+
+    @After
+    public void reset() {
+        SystemInstance.reset();
+        Files.delete(work);
+    }
+
+    @Test
+    public void headers() throws Exception {
+        for (final Class<?> clazz : new Class<?>[]{Annotated.class, AnnotatedMethod.class, AnnotatedParameter.class, Deprecated.class}) {
+            assertFalse(clazz.getName(), ScanIndex.ClassHeader.parse(bytecode(clazz)).isPlain());
+        }
+
+        for (final Class<?> clazz : new Class<?>[]{Plain.class, Api.class}) {
+            final ScanIndex.ClassHeader header = ScanIndex.ClassHeader.parse(bytecode(clazz));
+            assertTrue(header.isPlain());
+
+            // the header only class file is a valid class
+            final byte[] stub = header.toBytecode();
+            final Class<?> loaded = new ClassLoader(getClass().getClassLoader()) {
+                private Class<?> define() {
+                    return defineClass(clazz.getName(), stub, 0, stub.length);
+                }
+            }.define();
+            assertNotSame(clazz, loaded);
+            assertSame(clazz.getSuperclass(), loaded.getSuperclass());
+            assertArrayEquals(clazz.getInterfaces(), loaded.getInterfaces());
+        }
+    }
+
+    @Test
+    public void index() throws Exception {
+        final AtomicInteger reads = new AtomicInteger();
+        final Archive jarArchive = new JarArchive(reads);
+
+        final long misses = ScanIndex.getMisses();
+        assertEquals(4, scan(ScanIndex.archive(jar.toURI().toURL(), jarArchive), AnnotatedMethod.class.getName()));
+        assertEquals(misses + 1, ScanIndex.getMisses());
+        assertEquals(3, reads.get());
+
+        // only the annotated class and the one never read come from the jar
+        reads.set(0);
+        final long hits = ScanIndex.getHits();
+        assertEquals(4, scan(ScanIndex.archive(jar.toURI().toURL(), jarArchive), null));
+        assertEquals(hits + 1, ScanIndex.getHits());
+        assertEquals(2, reads.get());
+
+        // same content
+        assertTrue(jar.setLastModified(jar.lastModified() - 60000));
+        scan(ScanIndex.archive(jar.toURI().toURL(), jarArchive), null);
+        assertEquals(hits + 2, ScanIndex.getHits());
+
+        // updated jar
+        try (final FileOutputStream out = new FileOutputStream(jar, true)) {
+            out.write(0);
+        }
+        scan(ScanIndex.archive(jar.toURI().toURL(), jarArchive), null);
+        assertEquals(misses + 2, ScanIndex.getMisses());
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        SystemInstance.get().setProperty(ScanIndex.ENABLED, "false");
+        final Archive archive = new JarArchive(new AtomicInteger());
+        assertSame(archive, ScanIndex.archive(jar.toURI().toURL(), archive));
+        assertSame(archive, ScanIndex.archive(work.toURI().toURL(), archive));
+    }
+
+    private static int scan(final Archive archive, final String skipped) throws IOException {
+        int count = 0;
+        for (final Archive.Entry entry : archive) {
+            count++;
+            if (!entry.getName().equals(skipped)) {
+                try (final InputStream in = entry.getBytecode()) {
+                    assertTrue(in.readAllBytes().length > 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static byte[] bytecode(final Class<?> clazz) throws IOException {
+        try (final InputStream in = ClassLoader.getSystemResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static class JarArchive implements Archive {
+        private final AtomicInteger reads;
+
+        private JarArchive(final AtomicInteger reads) {
+            this.reads = reads;
+        }
+
+        @Override
+        public InputStream getBytecode(final String className) throws IOException {
+            reads.incrementAndGet();
+            for (final Class<?> clazz : CLASSES) {
+                if (clazz.getName().equals(className)) {
+                    return new ByteArrayInputStream(bytecode(clazz));
+                }
+            }
+            throw new IOException(className);
+        }
+
+        @Override
+        public Class<?> loadClass(final String className) throws ClassNotFoundException {
+            return Class.forName(className);
+        }
+
+        @Override
+        public Iterator<Entry> iterator() {
+            final List<Entry> entries = new ArrayList<>();
+            for (final Class<?> clazz : CLASSES) {
+                entries.add(new Entry() {
+                    @Override
+                    public String getName() {
+                        return clazz.getName();
+                    }
+
+                    @Override
+                    public InputStream getBytecode() throws IOException {
+                        return JarArchive.this.getBytecode(clazz.getName());
+                    }
+                });
+            }
+            return entries.iterator();
+        }
+    }
+
+    @Deprecated
+    public static class Annotated {
+    }
+
+    public static class Plain extends Thread implements Serializable, Comparable<Plain> {
+        private final long value = 1L;
+
+        @Override
+        public int compareTo(final Plain o) {
+            return Long.compare(value, o.value);
+        }
+    }
+
+    public interface Api extends Serializable, Runnable {
+    }
+
+    public static class AnnotatedMethod {
+        @Deprecated
+        public void method() {
+            // no-op
+        }
+    }
+
+    public static class AnnotatedParameter {
+        public void method(@Deprecated final String value) {
+            // no-op
+        }
+    }
+}
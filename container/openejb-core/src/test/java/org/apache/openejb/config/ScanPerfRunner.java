@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.config;
+
+import org.apache.openejb.jee.EjbJar;
+import org.apache.openejb.loader.Files;
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.xbean.asm9.ClassWriter;
+import org.apache.xbean.asm9.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Scans a generated application of 300 jars of 200 classes (1 in 10
+ * annotated) the way the annotation deployer does, sequentially or on
+ * the fork join pool (parallelism=0 is one thread per core), with or
+ * without the persistent scan index.
+ */
+@State(Scope.Benchmark)
+public class ScanPerfRunner {
+    private static final int JARS = 300;
+    private static final int CLASSES = 200;
+
+    @Param({"1", "0"})
+    private int parallelism;
+
+    @Param({"false", "true"})
+    private boolean index;
+
+    private File work;
+    private AppModule appModule;
+    private final List<EjbModule> modules = new ArrayList<>();
+
+    @Setup
+    public void setup() throws Exception {
+        work = Files.tmpdir();
+
+        final Properties properties = new Properties();
+        properties.setProperty(FinderFactory.PARALLELISM, Integer.toString(parallelism));
+        properties.setProperty(ScanIndex.ENABLED, Boolean.toString(index));
+        properties.setProperty(ScanIndex.DIRECTORY, new File(work, "scan-index").getAbsolutePath());
+        SystemInstance.init(properties);
+
+        final URL[] urls = new URL[JARS];
+        for (int i = 0; i < JARS; i++) {
+            urls[i] = generateJar(new File(work, "module" + i + ".jar"), "org.superbiz.module" + i).toURI().toURL();
+        }
+        final ClassLoader loader = new URLClassLoader(urls, ScanPerfRunner.class.getClassLoader());
+        appModule = new AppModule(loader, work.getAbsolutePath());
+        for (int i = 0; i < JARS; i++) {
+            final EjbModule module = new EjbModule(loader, "module" + i, new File(urls[i].toURI()).getAbsolutePath(), new EjbJar(), null);
+            modules.add(module);
+            appModule.getEjbModules().add(module);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SystemInstance.reset();
+        Files.delete(work);
+    }
+
+    @Benchmark
+    public void scan(final Blackhole blackhole) throws Exception {
+        for (final EjbModule module : modules) {
+            module.setFinder(null);
+        }
+
+        FinderFactory.createFinders(appModule, false);
+        for (final EjbModule module : modules) {
+            if (module.getFinder() == null) { // sequential
+                module.setFinder(FinderFactory.createFinder(module));
+            }
+            blackhole.consume(module.getFinder());
+        }
+    }
+
+    private static File generateJar(final File file, final String pkg) throws IOException {
+        final String base = pkg.replace('.', '/') + '/';
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < CLASSES; i++) {
+                final ClassWriter writer = new ClassWriter(0);
+                writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, base + "Type" + i, null,
+                        i == 0 ? "java/lang/Object" : base + "Type" + (i - 1), new String[]{"java/io/Serializable"});
+                if (i % 10 == 0) {
+                    writer.visitAnnotation("Ljava/lang/Deprecated;", true).visitEnd();
+                }
+                for (int m = 0; m < 10; m++) {
+                    writer.visitField(Opcodes.ACC_PRIVATE, "field" + m, "Ljava/lang/String;", null, null).visitEnd();
+                    writer.visitMethod(Opcodes.ACC_PUBLIC, "method" + m, "()Ljava/lang/String;", null, null).visitEnd();
+                }
+                writer.visitEnd();
+
+                out.putNextEntry(new JarEntry(base + "Type" + i + ".class"));
+                out.write(writer.toByteArray());
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ScanPerfRunner.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core;
+
+import org.apache.openejb.AppContext;
+import org.apache.openejb.BeanContext;
+import org.apache.openejb.ModuleContext;
+import org.apache.openejb.loader.SystemInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Properties;
+
+/**
+ * What a container does with a ThreadContext around a business method:
+ * create it, enter it, store the invoked method, read it back and exit.
+ *
+ * Run the main with the gc profiler to compare allocations per invocation,
+ * the listeners param mimics the CDI listeners registered in a server.
+ */
+@State(Scope.Benchmark)
+public class ThreadContextPerfRunner {
+
+    @Param({"0", "2"})
+    private int listeners;
+
+    private BeanContext beanContext;
+    private Method method;
+    private ThreadContextListener[] registered;
+
+    @Setup
+    public void setup() throws Exception {
+        SystemInstance.init(new Properties());
+        final ClassLoader loader = ThreadContextPerfRunner.class.getClassLoader();
+        beanContext = new BeanContext("perf", null, new ModuleContext("perf", null, "perf",
+                new AppContext("perf", SystemInstance.get(), loader, null, null, false), null, loader),
+                Object.class, null, new HashMap<>());
+        method = Object.class.getMethod("toString");
+
+        registered = new ThreadContextListener[listeners];
+        for (int i = 0; i < listeners; i++) {
+            registered[i] = new NoopListener();
+            ThreadContext.addThreadContextListener(registered[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final ThreadContextListener listener : registered) {
+            ThreadContext.removeThreadContextListener(listener);
+        }
+    }
+
+    @Benchmark
+    public Object enterExit() {
+        final ThreadContext callContext = new ThreadContext(beanContext, null, Operation.BUSINESS);
+        final ThreadContext oldCallContext = ThreadContext.enter(callContext);
+        try {
+            callContext.set(Method.class, method);
+            return callContext.get(Method.class);
+        } finally {
+            ThreadContext.exit(oldCallContext);
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ThreadContextPerfRunner.class.getSimpleName())
+                .addProfiler("gc")
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .build())
+                .run();
+    }
+
+    private static final class NoopListener implements ThreadContextListener {
+        @Override
+        public void contextEntered(final ThreadContext oldContext, final ThreadContext newContext) {
+            // no-op
+        }
+
+        @Override
+        public void contextExited(final ThreadContext exitedContext, final ThreadContext reenteredContext) {
+            // no-op
+        }
+    }
+}
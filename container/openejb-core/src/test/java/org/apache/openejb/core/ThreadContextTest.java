@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core;
+
+import org.apache.openejb.AppContext;
+import org.apache.openejb.BeanContext;
+import org.apache.openejb.ModuleContext;
+import org.apache.openejb.loader.SystemInstance;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ThreadContextTest {
+    private ClassLoader loader;
+    private BeanContext beanContext;
+
+    @Before
+    public void init() throws Exception {
+        SystemInstance.init(new Properties());
+        loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        beanContext = new BeanContext("foo", null, new ModuleContext("foo", null, "bar",
+                new AppContext("foo", SystemInstance.get(), loader, null, null, false), null, loader),
+                Object.class, null, new HashMap<>());
+    }
+
+    @Test
+    public void attributes() {
+        final ThreadContext context = new ThreadContext(beanContext, null);
+        assertNull(context.get(Method.class));
+        assertNull(context.remove(Method.class));
+
+        // more than the initial slots
+        final Class<?>[] types = {String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class};
+        for (final Class type : types) {
+            assertNull(context.set(type, type.getSimpleName()));
+        }
+        for (final Class<?> type : types) {
+            assertEquals(type.getSimpleName(), context.get(type));
+        }
+
+        assertEquals("Long", context.set((Class) Long.class, "other"));
+        assertEquals("other", context.get(Long.class));
+
+        assertEquals("String", context.remove((Class) String.class));
+        assertNull(context.get(String.class));
+        assertEquals("Float", context.get(Float.class));
+        assertEquals("other", context.get(Long.class));
+
+        final ThreadContext copy = new ThreadContext(context);
+        assertEquals("other", copy.get(Long.class));
+        copy.set((Class) Long.class, "copy");
+        assertEquals("other", context.get(Long.class));
+        assertNull(copy.get(String.class));
+    }
+
+    @Test
+    public void enterExit() {
+        final List<String> events = new ArrayList<>();
+        final ThreadContextListener listener = new ThreadContextListener() {
+            @Override
+            public void contextEntered(final ThreadContext oldContext, final ThreadContext newContext) {
+                events.add("entered");
+            }
+
+            @Override
+            public void contextExited(final ThreadContext exitedContext, final ThreadContext reenteredContext) {
+                events.add("exited");
+            }
+        };
+        ThreadContext.addThreadContextListener(listener);
+        ThreadContext.addThreadContextListener(listener);
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader original = thread.getContextClassLoader();
+        final ThreadContext context = new ThreadContext(beanContext, null);
+        try {
+            final ThreadContext old = ThreadContext.enter(context);
+            assertSame(context, ThreadContext.getThreadContext());
+            assertSame(loader, thread.getContextClassLoader());
+            ThreadContext.exit(old);
+            assertSame(old, ThreadContext.getThreadContext());
+            assertSame(original, thread.getContextClassLoader());
+        } finally {
+            ThreadContext.removeThreadContextListener(listener);
+        }
+
+        // reentering the same instance is fine once it exited
+        ThreadContext.exit(ThreadContext.enter(context));
+
+        assertEquals(2, events.size());
+        assertEquals("entered", events.get(0));
+        assertEquals("exited", events.get(1));
+    }
+}
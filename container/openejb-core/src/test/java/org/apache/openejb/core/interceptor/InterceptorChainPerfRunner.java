@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.interceptor;
+
+import jakarta.interceptor.InvocationContext;
+import org.apache.openejb.core.Operation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A business method call through 0, 3 or 10 around invoke interceptors:
+ * InterceptorStack as the containers did it (interceptor data list + stack
+ * per call) against the cached InterceptorChain, with method handles and
+ * with the reflection fallback.
+ *
+ * Run the main with the gc profiler to compare allocations per invocation.
+ */
+@State(Scope.Benchmark)
+public class InterceptorChainPerfRunner {
+
+    private static final Class<? extends Counting>[] TYPES = new Class[]{
+        I0.class, I1.class, I2.class, I3.class, I4.class, I5.class, I6.class, I7.class, I8.class, I9.class
+    };
+
+    @Param({"0", "3", "10"})
+    private int interceptors;
+
+    private List<InterceptorData> datas;
+    private Map<String, Object> instances;
+    private InterceptorChain methodHandles;
+    private InterceptorChain reflection;
+    private Bean bean;
+    private Method method;
+
+    @Setup
+    public void setup() throws Exception {
+        bean = new Bean();
+        method = Bean.class.getMethod("echo", Object.class);
+        datas = new ArrayList<>(interceptors);
+        instances = new HashMap<>();
+
+        final Method around = Counting.class.getMethod("around", InvocationContext.class);
+        for (int i = 0; i < interceptors; i++) {
+            // interceptor instances are looked up by class name so each one needs its own class
+            final Class<? extends Counting> type = TYPES[i];
+            final InterceptorData data = new InterceptorData(type);
+            data.getAroundInvoke().add(around);
+            datas.add(data);
+            instances.put(type.getName(), type.getConstructor().newInstance());
+        }
+
+        methodHandles = new InterceptorChain(Operation.BUSINESS, datas, true);
+        reflection = new InterceptorChain(Operation.BUSINESS, datas, false);
+    }
+
+    @Benchmark
+    public Object stack() throws Exception {
+        return new InterceptorStack(bean, method, Operation.BUSINESS, new ArrayList<>(datas), instances).invoke("payload");
+    }
+
+    @Benchmark
+    public Object chainMethodHandles() throws Exception {
+        return methodHandles.invoke(bean, method, instances, "payload");
+    }
+
+    @Benchmark
+    public Object chainReflection() throws Exception {
+        return reflection.invoke(bean, method, instances, "payload");
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(InterceptorChainPerfRunner.class.getSimpleName())
+                .addProfiler("gc")
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .build())
+                .run();
+    }
+
+    public static class Bean {
+        public Object echo(final Object value) {
+            return value;
+        }
+    }
+
+    public static class Counting {
+        public Object around(final InvocationContext context) throws Exception {
+            return context.proceed();
+        }
+    }
+
+    public static class I0 extends Counting {
+    }
+
+    public static class I1 extends Counting {
+    }
+
+    public static class I2 extends Counting {
+    }
+
+    public static class I3 extends Counting {
+    }
+
+    public static class I4 extends Counting {
+    }
+
+    public static class I5 extends Counting {
+    }
+
+    public static class I6 extends Counting {
+    }
+
+    public static class I7 extends Counting {
+    }
+
+    public static class I8 extends Counting {
+    }
+
+    public static class I9 extends Counting {
+    }
+}
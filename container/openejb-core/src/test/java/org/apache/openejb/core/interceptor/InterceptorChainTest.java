@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.interceptor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.AroundTimeout;
+import jakarta.interceptor.InvocationContext;
+import org.apache.openejb.core.Operation;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class InterceptorChainTest {
+    @Test
+    public void businessMethod() throws Exception {
+        for (final boolean methodHandles : new boolean[]{true, false}) {
+            final InterceptorChain chain = new InterceptorChain(Operation.BUSINESS, datas(First.class, Second.class, Bean.class), methodHandles);
+            assertEquals(3, chain.size());
+
+            final Bean bean = new Bean();
+            assertEquals("first(second(bean(hello 42)))", chain.invoke(bean, method("hello"), instances(bean), "hello", 21));
+        }
+    }
+
+    @Test
+    public void sameResultAsInterceptorStack() throws Exception {
+        final Bean bean = new Bean();
+        final List<InterceptorData> datas = datas(First.class, Second.class, Bean.class);
+        final Object stack = new InterceptorStack(bean, method("hello"), Operation.BUSINESS, datas, instances(bean)).invoke("hi", 1);
+        final Object chain = new InterceptorChain(Operation.BUSINESS, datas, true).invoke(bean, method("hello"), instances(bean), "hi", 1);
+        assertEquals(stack, chain);
+    }
+
+    @Test
+    public void exceptionsAreNotWrapped() throws Exception {
+        for (final boolean methodHandles : new boolean[]{true, false}) {
+            final InterceptorChain chain = new InterceptorChain(Operation.BUSINESS, datas(First.class), methodHandles);
+            final Bean bean = new Bean();
+            try {
+                chain.invoke(bean, Bean.class.getMethod("fail"), instances(bean));
+                fail();
+            } catch (final BeanException e) {
+                assertEquals("failed", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void lifecycleCallbacks() throws Exception {
+        for (final boolean methodHandles : new boolean[]{true, false}) {
+            final InterceptorChain chain = new InterceptorChain(Operation.POST_CONSTRUCT, datas(First.class, Bean.class), methodHandles);
+            final Bean bean = new Bean();
+            assertNull(chain.invoke(bean, null, instances(bean)));
+            assertEquals(Arrays.asList("first", "bean"), bean.callbacks);
+        }
+    }
+
+    @Test
+    public void timeoutWithoutTimerParameter() throws Exception {
+        final InterceptorChain chain = new InterceptorChain(Operation.TIMEOUT, datas(First.class), true);
+        final Bean bean = new Bean();
+        final Object timer = new Object();
+        assertEquals("timeout", chain.invoke(bean, Bean.class.getMethod("timeout"), instances(bean), timer));
+        assertSame(timer, bean.timer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingInterceptorInstance() throws Exception {
+        final Bean bean = new Bean();
+        new InterceptorChain(Operation.BUSINESS, datas(First.class), true)
+            .createInvocationContext(bean, method("hello"), Collections.<String, Object>emptyMap(), "a", 1);
+    }
+
+    private static Method method(final String name) throws NoSuchMethodException {
+        return Bean.class.getMethod(name, String.class, int.class);
+    }
+
+    private static List<InterceptorData> datas(final Class<?>... classes) {
+        final List<InterceptorData> datas = new ArrayList<>();
+        for (final Class<?> clazz : classes) {
+            datas.add(InterceptorData.scan(clazz));
+        }
+        return datas;
+    }
+
+    private static Map<String, Object> instances(final Bean bean) {
+        final Map<String, Object> instances = new HashMap<>();
+        instances.put(First.class.getName(), new First());
+        instances.put(Second.class.getName(), new Second());
+        instances.put(Bean.class.getName(), bean);
+        return instances;
+    }
+
+    public static class First {
+        @AroundInvoke
+        public Object around(final InvocationContext context) throws Exception {
+            return "first(" + context.proceed() + ")";
+        }
+
+        @AroundTimeout
+        public Object timeout(final InvocationContext context) throws Exception {
+            ((Bean) context.getTarget()).timer = context.getTimer();
+            return context.proceed();
+        }
+
+        @PostConstruct
+        public void init(final InvocationContext context) throws Exception {
+            ((Bean) context.getTarget()).callbacks.add("first");
+            context.proceed();
+        }
+    }
+
+    // not public and a private method, can't be called through a public lookup
+    static class Second {
+        @AroundInvoke
+        private Object around(final InvocationContext context) throws Exception {
+            final Object[] parameters = context.getParameters();
+            context.setParameters(new Object[]{parameters[0], ((Integer) parameters[1]) * 2});
+            return "second(" + context.proceed() + ")";
+        }
+    }
+
+    public static class Bean {
+        private final List<String> callbacks = new ArrayList<>();
+        private Object timer;
+
+        public String hello(final String text, final int value) {
+            return text + " " + value;
+        }
+
+        public String timeout() {
+            return "timeout";
+        }
+
+        public void fail() throws BeanException {
+            throw new BeanException("failed");
+        }
+
+        @AroundInvoke
+        public Object self(final InvocationContext context) throws Exception {
+            return "bean(" + context.proceed() + ")";
+        }
+
+        @PostConstruct
+        private void init() {
+            callbacks.add("bean");
+        }
+    }
+
+    public static class BeanException extends Exception {
+        public BeanException(final String message) {
+            super(message);
+        }
+    }
+}
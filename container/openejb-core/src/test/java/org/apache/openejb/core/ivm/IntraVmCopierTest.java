@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.ivm;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IntraVmCopierTest {
+
+    private final AtomicInteger serialized = new AtomicInteger();
+
+    @Test
+    public void immutablesAreShared() throws Exception {
+        for (final Object value : new Object[]{"s", 1, 2L, 3.0d, 'c', true, BigDecimal.ONE, LocalDate.now(), ZoneId.of("Europe/Paris"), TimeUnit.SECONDS}) {
+            assertSame(value, copy(value, false));
+        }
+        assertEquals(0, serialized.get());
+    }
+
+    @Test
+    public void records() throws Exception {
+        final Point point = new Point(1, "a");
+        assertSame(point, copy(point, true));
+        assertNotSame("application types are copied across classloaders", point, copy(point, false));
+
+        final Holder holder = new Holder(new ArrayList<>());
+        final Holder copy = copy(holder, true);
+        assertNotSame("mutable component", holder, copy);
+        assertEquals(2, serialized.get());
+    }
+
+    @Test
+    public void enums() throws Exception {
+        assertSame(Color.RED, copy(Color.RED, true));
+        assertSame(Color.BLUE, copy(Color.BLUE, true));
+    }
+
+    @Test
+    public void arrays() throws Exception {
+        final int[] ints = {1, 2};
+        final int[] intsCopy = copy(ints, true);
+        assertNotSame(ints, intsCopy);
+        assertArrayEquals(ints, intsCopy);
+
+        final String[] strings = {"a", "b"};
+        final String[] stringsCopy = copy(strings, true);
+        assertNotSame(strings, stringsCopy);
+        assertArrayEquals(strings, stringsCopy);
+
+        final Object[] objects = {new Date()};
+        copy(objects, true);
+        assertEquals(1, serialized.get());
+    }
+
+    @Test
+    public void collections() throws Exception {
+        final List<Object> list = new ArrayList<>(Arrays.asList("a", 1, null));
+        final List<Object> listCopy = copy(list, true);
+        assertNotSame(list, listCopy);
+        assertEquals(list, listCopy);
+
+        final Map<String, Object> map = new HashMap<>();
+        map.put("a", 1L);
+        final Map<String, Object> mapCopy = copy(map, true);
+        assertNotSame(map, mapCopy);
+        assertEquals(map, mapCopy);
+        assertEquals(0, serialized.get());
+
+        final List<Object> mutable = new ArrayList<>();
+        mutable.add(new Date(0));
+        final List<Object> mutableCopy = copy(mutable, true);
+        assertNotSame(mutable.get(0), mutableCopy.get(0));
+        assertEquals(1, serialized.get());
+    }
+
+    @Test
+    public void immutableTypes() {
+        assertTrue(IntraVmCopier.isImmutable(String.class, false));
+        assertTrue(IntraVmCopier.isImmutable(Point.class, true));
+        assertFalse(IntraVmCopier.isImmutable(Point.class, false));
+        assertFalse(IntraVmCopier.isImmutable(Holder.class, true));
+        assertFalse(IntraVmCopier.isImmutable(Node.class, true));
+        assertFalse(IntraVmCopier.isImmutable(Date.class, true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T copy(final T object, final boolean sameClassLoader) throws IOException, ClassNotFoundException {
+        return IntraVmCopier.copy(object, sameClassLoader, o -> {
+            serialized.incrementAndGet();
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+                out.writeObject(o);
+            }
+            try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+                return in.readObject();
+            }
+        });
+    }
+
+    public record Point(int x, String label) implements Serializable {
+    }
+
+    public record Holder(List<String> values) implements Serializable {
+    }
+
+    public record Node(String value, Node next) implements Serializable {
+    }
+
+    public enum Color {
+        RED,
+        BLUE {
+            @Override
+            public String toString() {
+                return "blue";
+            }
+        }
+    }
+}
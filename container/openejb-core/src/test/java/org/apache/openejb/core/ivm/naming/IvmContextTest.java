@@ -382,6 +382,41 @@ public class IvmContextTest extends TestCase {
         assertTrue(subFound);
      }
 
+    public void testMissIsForgottenOnBind() throws NamingException {
+        final IvmContext context = new IvmContext();
+        context.bind("comp/env/early", 1);
+        try {
+            context.lookup("comp/env/late");
+            fail();
+        } catch (final javax.naming.NameNotFoundException e) {
+            // ok
+        }
+        try {
+            context.lookup("comp/env/late");
+            fail();
+        } catch (final javax.naming.NameNotFoundException e) {
+            // ok, from the cache unless federated factories are configured
+        }
+
+        context.bind("comp/env/late", 2);
+        assertEquals(2, context.lookup("comp/env/late"));
+    }
+
+    public void testMissInFederatedContextIsNotCached() throws NamingException {
+        final IvmContext compContext = new IvmContext();
+        final IvmContext moduleContext = new IvmContext();
+        moduleContext.bind("module/env/test", "test");
+        compContext.bind("module", moduleContext.lookup("module"));
+
+        try {
+            compContext.lookup("module/env/missing");
+            fail();
+        } catch (final javax.naming.NameNotFoundException e) {
+            // ok
+        }
+        assertFalse(compContext.fastCache.containsKey("module/env/missing"));
+    }
+
     private void assertContextEntry(final Context context, final String s, final Object expected) throws javax.naming.NamingException {
         assertLookup(context, s, expected);
     }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.security;
+
+import org.apache.openejb.core.security.jaas.GroupPrincipal;
+import org.apache.openejb.loader.SystemInstance;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.openejb.util.URLs.toFilePath;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class AuthenticationCacheTest {
+
+    @Test
+    public void samePassword() {
+        final AuthenticationCache<String> cache = new AuthenticationCache<>("test", 10, 1, TimeUnit.MINUTES);
+        try {
+            assertNull(cache.get("realm", "jonathan", "secret"));
+            cache.put("realm", "jonathan", "secret", "subject");
+
+            assertEquals("subject", cache.get("realm", "jonathan", "secret"));
+            assertNull(cache.get("realm", "jonathan", "other"));
+            assertNull(cache.get("realm", "jonathan", "secret")); // a wrong password drops the entry
+            assertNull(cache.get("other", "jonathan", "secret"));
+
+            assertEquals(1, cache.getHits("realm"));
+            assertEquals(2, cache.getMisses("realm"));
+            assertEquals(0, cache.getMisses("other")); // a lookup doesn't create the realm
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void invalidate() {
+        final AuthenticationCache<String> cache = new AuthenticationCache<>("test", 10, 1, TimeUnit.MINUTES);
+        try {
+            cache.put("realm", "jonathan", "secret", "jonathan");
+            cache.put("realm", "daniel", "secret", "daniel");
+
+            cache.invalidate("realm", "jonathan");
+            assertNull(cache.get("realm", "jonathan", "secret"));
+            assertEquals("daniel", cache.get("realm", "daniel", "secret"));
+
+            cache.invalidate("realm");
+            assertNull(cache.get("realm", "daniel", "secret"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void oldestEvicted() throws InterruptedException {
+        final AuthenticationCache<String> cache = new AuthenticationCache<>("test", 2, 1, TimeUnit.MINUTES);
+        try {
+            cache.put("realm", "a", "secret", "a");
+            Thread.sleep(5);
+            cache.put("realm", "b", "secret", "b");
+            Thread.sleep(5);
+            cache.put("realm", "c", "secret", "c");
+
+            assertNull(cache.get("realm", "a", "secret"));
+            assertEquals("b", cache.get("realm", "b", "secret"));
+            assertEquals("c", cache.get("realm", "c", "secret"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void boundedRealms() {
+        final AuthenticationCache<String> cache = new AuthenticationCache<>("test", 10, 1, TimeUnit.MINUTES, 2);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertNull(cache.get("unknown" + i, "jonathan", "secret"));
+            }
+            cache.put("a", "jonathan", "secret", "a");
+            cache.put("b", "jonathan", "secret", "b");
+            cache.put("c", "jonathan", "secret", "c");
+
+            assertEquals("a", cache.get("a", "jonathan", "secret"));
+            assertEquals("b", cache.get("b", "jonathan", "secret"));
+            assertNull(cache.get("c", "jonathan", "secret"));
+        } finally {
+            cache.close();
+        }
+    }
+
+    @Test
+    public void disabled() {
+        final AuthenticationCache<String> cache = new AuthenticationCache<>("test", 0, 1, TimeUnit.MINUTES);
+        assertFalse(cache.isEnabled());
+        cache.put("realm", "jonathan", "secret", "subject");
+        assertNull(cache.get("realm", "jonathan", "secret"));
+    }
+
+    @Test
+    public void securityService() throws Exception {
+        if (System.getProperty("java.security.auth.login.config") == null) {
+            final URL resource = AuthenticationCacheTest.class.getClassLoader().getResource("login.config");
+            System.setProperty("java.security.auth.login.config", toFilePath(resource));
+        }
+        SystemInstance.get().setProperty(AuthenticationCache.SIZE, "10");
+        try {
+            final SecurityServiceImpl securityService = new SecurityServiceImpl();
+            try {
+                // the login modules empty the subject on logout, the cached one is a copy
+                securityService.logout(securityService.login("PropertiesLogin", "jonathan", "secret"));
+
+                final UUID token = securityService.login("PropertiesLogin", "jonathan", "secret");
+                assertEquals(1, securityService.getAuthenticationCache().getHits("PropertiesLogin"));
+
+                securityService.associate(token);
+                try {
+                    assertEquals(2, securityService.getPrincipalsByType(GroupPrincipal.class).size());
+                } finally {
+                    securityService.disassociate();
+                }
+                securityService.logout(token);
+            } finally {
+                securityService.destroyResource();
+            }
+        } finally {
+            SystemInstance.reset();
+        }
+    }
+}
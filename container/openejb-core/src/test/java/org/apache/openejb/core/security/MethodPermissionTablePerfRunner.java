@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.security;
+
+import org.apache.openejb.InterfaceType;
+import org.apache.openejb.core.security.jacc.BasicPolicyConfiguration;
+import org.apache.openejb.loader.SystemInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import javax.security.auth.Subject;
+import java.lang.reflect.Method;
+import java.security.CodeSource;
+import java.security.PermissionCollection;
+import java.security.Principal;
+import java.security.ProtectionDomain;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A role secured business method checked by the JACC policy configuration
+ * (a new EJBMethodPermission evaluated against the role permissions per call,
+ * what the AccessControlContext path ends up doing) against the compiled
+ * MethodPermissionTable of the bean.
+ */
+@State(Scope.Benchmark)
+public class MethodPermissionTablePerfRunner {
+    private static final String[] ROLES = {"admin", "manager", "user", "auditor", "guest"};
+
+    private BasicPolicyConfiguration policy;
+    private ProtectionDomain domain;
+    private MethodPermissionTable table;
+    private MethodPermissionTable.CallerRoles caller;
+    private Method method;
+
+    @Setup
+    public void setup() throws Exception {
+        SystemInstance.init(new Properties());
+        final BasicPolicyConfiguration.RoleResolver resolver = (principals, logicalRoles) -> {
+            final Set<String> roles = new HashSet<>();
+            for (final Principal principal : principals) {
+                if (logicalRoles.contains(principal.getName())) {
+                    roles.add(principal.getName());
+                }
+            }
+            return roles;
+        };
+        SystemInstance.get().setComponent(BasicPolicyConfiguration.RoleResolver.class, resolver);
+
+        method = Api.class.getMethod("call", String.class);
+        policy = new BasicPolicyConfiguration("perf") {
+        };
+        for (final String role : ROLES) {
+            for (final Method m : Api.class.getMethods()) {
+                if (!"guest".equals(role) || !m.equals(method)) {
+                    policy.addToRole(role, new EJBMethodPermission("Bean", "Local", m));
+                }
+            }
+        }
+        policy.addToUncheckedPolicy(new EJBMethodPermission("Bean", "ping", "Local", null));
+        policy.commit();
+
+        final Set<Principal> principals = new HashSet<>();
+        principals.add(new AbstractSecurityService.User("bob"));
+        principals.add(new AbstractSecurityService.Group("user"));
+        final Subject subject = new Subject(true, principals, new HashSet<>(), new HashSet<>());
+        domain = new ProtectionDomain(new CodeSource(null, (java.security.cert.Certificate[]) null), null, null,
+                principals.toArray(new Principal[0]));
+
+        final PermissionCollection unchecked = policy.getUncheckedPermissions();
+        table = new MethodPermissionTable("Bean", new MethodPermissionTable.Roles(policy.getPerRolePermissions().keySet()),
+                null, unchecked, policy.getPerRolePermissions());
+        table.compile(InterfaceType.BUSINESS_LOCAL, Api.class);
+        caller = new MethodPermissionTable.CallerRoles(subject, resolver);
+    }
+
+    @Benchmark
+    public boolean policy() {
+        return policy.implies(domain, new EJBMethodPermission("Bean", "Local", method));
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return table.isAuthorized(method, InterfaceType.BUSINESS_LOCAL, caller);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MethodPermissionTablePerfRunner.class.getSimpleName())
+                .addProfiler("gc")
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .build())
+                .run();
+    }
+
+    public interface Api {
+        String call(String value);
+
+        String read(long id);
+
+        void write(long id, String value);
+
+        void ping();
+    }
+}
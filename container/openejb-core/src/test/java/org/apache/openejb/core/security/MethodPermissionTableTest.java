@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.security;
+
+import org.apache.openejb.InterfaceType;
+import org.apache.openejb.core.security.jacc.BasicPolicyConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import jakarta.security.jacc.EJBMethodPermission;
+import javax.security.auth.Subject;
+import java.lang.reflect.Method;
+import java.security.PermissionCollection;
+import java.security.Permissions;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MethodPermissionTableTest {
+    private final AtomicInteger resolutions = new AtomicInteger();
+    private final BasicPolicyConfiguration.RoleResolver resolver = (principals, logicalRoles) -> {
+        resolutions.incrementAndGet();
+        final Set<String> roles = new LinkedHashSet<>();
+        for (final Principal principal : principals) {
+            if (logicalRoles.contains(principal.getName())) {
+                roles.add(principal.getName());
+            }
+        }
+        return roles;
+    };
+
+    private MethodPermissionTable table;
+
+    @Before
+    public void compile() {
+        final PermissionCollection excluded = new Permissions();
+        excluded.add(new EJBMethodPermission("Bean", "excluded", null, null));
+        final PermissionCollection unchecked = new Permissions();
+        unchecked.add(new EJBMethodPermission("Bean", "open", null, null));
+
+        final Map<String, PermissionCollection> roles = new HashMap<>();
+        final PermissionCollection admin = new Permissions();
+        admin.add(new EJBMethodPermission("Bean", "secured", null, null));
+        admin.add(new EJBMethodPermission("Bean", "localOnly", "Local", null));
+        roles.put("admin", admin);
+        final PermissionCollection user = new Permissions();
+        user.add(new EJBMethodPermission("Bean", "secured", null, null));
+        roles.put("user", user);
+        roles.put("other", new Permissions());
+
+        table = new MethodPermissionTable("Bean", new MethodPermissionTable.Roles(roles.keySet()), excluded, unchecked, roles);
+        table.compile(InterfaceType.BUSINESS_LOCAL, Api.class);
+        table.compile(null, Bean.class);
+    }
+
+    @Test
+    public void excludedAndUnchecked() throws Exception {
+        final MethodPermissionTable.CallerRoles admin = caller("admin");
+        assertFalse(table.isAuthorized(Api.class.getMethod("excluded"), InterfaceType.BUSINESS_LOCAL, admin));
+        assertTrue(table.isAuthorized(Api.class.getMethod("open"), InterfaceType.BUSINESS_LOCAL, caller()));
+    }
+
+    @Test
+    public void roles() throws Exception {
+        final Method secured = Api.class.getMethod("secured");
+        assertTrue(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, caller("admin")));
+        assertTrue(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, caller("user", "guest")));
+        assertFalse(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, caller("other")));
+        assertFalse(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, caller()));
+        assertFalse(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, new MethodPermissionTable.CallerRoles(null, resolver)));
+    }
+
+    @Test
+    public void methodInterface() throws Exception {
+        final MethodPermissionTable.CallerRoles admin = caller("admin");
+        assertTrue(table.isAuthorized(Api.class.getMethod("localOnly"), InterfaceType.BUSINESS_LOCAL, admin));
+        // no interface for a no-interface view, the permission is only granted to the Local one
+        assertFalse(table.isAuthorized(Bean.class.getMethod("localOnly"), InterfaceType.LOCALBEAN, admin));
+        assertFalse(table.isAuthorized(Api.class.getMethod("localOnly"), InterfaceType.BUSINESS_REMOTE, admin));
+    }
+
+    @Test
+    public void rolesResolvedOnce() throws Exception {
+        final MethodPermissionTable.CallerRoles admin = caller("admin");
+        final Method secured = Api.class.getMethod("secured");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(table.isAuthorized(secured, InterfaceType.BUSINESS_LOCAL, admin));
+        }
+        assertEquals(1, resolutions.get());
+    }
+
+    @Test
+    public void unknownMethodEvaluatedOnFirstCall() throws Exception {
+        final int size = table.size();
+        assertTrue(table.isAuthorized(Other.class.getMethod("secured"), InterfaceType.BUSINESS_REMOTE, caller("user")));
+        assertEquals(size + 1, table.size());
+    }
+
+    private MethodPermissionTable.CallerRoles caller(final String... roles) {
+        final Set<Principal> principals = new HashSet<>();
+        for (final String role : asList(roles)) {
+            principals.add(new AbstractSecurityService.Group(role));
+        }
+        return new MethodPermissionTable.CallerRoles(new Subject(true, principals, new HashSet<>(), new HashSet<>()), resolver);
+    }
+
+    public interface Api {
+        void excluded();
+
+        void open();
+
+        void secured();
+
+        void localOnly();
+    }
+
+    public interface Other {
+        void secured();
+    }
+
+    public static class Bean implements Api {
+        @Override
+        public void excluded() {
+            // no-op
+        }
+
+        @Override
+        public void open() {
+            // no-op
+        }
+
+        @Override
+        public void secured() {
+            // no-op
+        }
+
+        @Override
+        public void localOnly() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.singleton;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The read lock taken by a @Lock(READ) singleton call (30 seconds access
+ * timeout) with the default lock and the reader biased one.
+ *
+ * Run the main, the difference shows with the number of threads.
+ */
+@State(Scope.Benchmark)
+public class ReaderBiasedReadWriteLockPerfRunner {
+    private final Lock reentrant = new ReentrantReadWriteLock().readLock();
+    private final Lock readerBiased = new ReaderBiasedReadWriteLock().readLock();
+
+    @Benchmark
+    public boolean reentrant() throws InterruptedException {
+        return read(reentrant);
+    }
+
+    @Benchmark
+    public boolean readerBiased() throws InterruptedException {
+        return read(readerBiased);
+    }
+
+    private static boolean read(final Lock lock) throws InterruptedException {
+        final boolean locked = lock.tryLock(30, TimeUnit.SECONDS);
+        lock.unlock();
+        return locked;
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ReaderBiasedReadWriteLockPerfRunner.class.getSimpleName())
+                .addProfiler("gc")
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .build())
+                .run();
+    }
+}
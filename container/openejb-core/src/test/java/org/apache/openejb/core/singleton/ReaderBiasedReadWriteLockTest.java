@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.singleton;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReaderBiasedReadWriteLockTest {
+    @Test
+    public void readersShareTheLock() throws Exception {
+        final ReaderBiasedReadWriteLock lock = new ReaderBiasedReadWriteLock();
+        lock.readLock().lock();
+        try {
+            final ExecutorService es = Executors.newSingleThreadExecutor();
+            try {
+                assertTrue(es.submit(() -> {
+                    final boolean locked = lock.readLock().tryLock();
+                    lock.readLock().unlock();
+                    return locked;
+                }).get());
+            } finally {
+                es.shutdownNow();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        assertTrue(lock.isReadBiased());
+    }
+
+    @Test
+    public void writerWaitsForTheReaders() throws Exception {
+        final ReaderBiasedReadWriteLock lock = new ReaderBiasedReadWriteLock();
+        lock.readLock().lock();
+
+        final ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            assertFalse(es.submit(() -> lock.writeLock().tryLock(50, TimeUnit.MILLISECONDS)).get());
+
+            final Future<Boolean> writer = es.submit(() -> {
+                final boolean locked = lock.writeLock().tryLock(10, TimeUnit.SECONDS);
+                lock.writeLock().unlock();
+                return locked;
+            });
+            Thread.sleep(50);
+            assertFalse(writer.isDone());
+            lock.readLock().unlock();
+            assertTrue(writer.get(10, TimeUnit.SECONDS));
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readersWaitForTheWriter() throws Exception {
+        final ReaderBiasedReadWriteLock lock = new ReaderBiasedReadWriteLock();
+        lock.writeLock().lock();
+        assertFalse(lock.isReadBiased());
+
+        final ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            assertFalse(es.submit(() -> lock.readLock().tryLock(50, TimeUnit.MILLISECONDS)).get());
+        } finally {
+            lock.writeLock().unlock();
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void reentrance() throws Exception {
+        final ReaderBiasedReadWriteLock lock = new ReaderBiasedReadWriteLock();
+
+        lock.readLock().lock();
+        lock.readLock().lock();
+        lock.readLock().unlock();
+        lock.readLock().unlock();
+
+        lock.writeLock().lock();
+        lock.writeLock().lock();
+        assertTrue(lock.readLock().tryLock());
+        lock.readLock().unlock();
+        lock.writeLock().unlock();
+        lock.writeLock().unlock();
+
+        // nothing left held
+        final ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(es.submit(() -> {
+                final boolean locked = lock.writeLock().tryLock();
+                lock.writeLock().unlock();
+                return locked;
+            }).get());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void mutualExclusion() throws Exception {
+        final ReaderBiasedReadWriteLock lock = new ReaderBiasedReadWriteLock();
+        final AtomicInteger readers = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+        final AtomicInteger violations = new AtomicInteger();
+        final int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        final ExecutorService es = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                final boolean writer = t == 0;
+                es.submit(() -> {
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            if (writer && i % 10 == 0) {
+                                lock.writeLock().lock();
+                                try {
+                                    if (writers.incrementAndGet() != 1 || readers.get() != 0) {
+                                        violations.incrementAndGet();
+                                    }
+                                    writers.decrementAndGet();
+                                } finally {
+                                    lock.writeLock().unlock();
+                                }
+                            } else {
+                                lock.readLock().lock();
+                                try {
+                                    readers.incrementAndGet();
+                                    if (writers.get() != 0) {
+                                        violations.incrementAndGet();
+                                    }
+                                    readers.decrementAndGet();
+                                } finally {
+                                    lock.readLock().unlock();
+                                }
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue(done.await(1, TimeUnit.MINUTES));
+        } finally {
+            es.shutdownNow();
+        }
+        assertEquals(0, violations.get());
+    }
+}
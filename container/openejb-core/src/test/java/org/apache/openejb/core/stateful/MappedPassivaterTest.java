@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.stateful;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MappedPassivaterTest {
+
+    @Test
+    public void roundTrip() throws Exception {
+        final MappedPassivater passivater = new MappedPassivater();
+        final Map<Object, Object> state = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            state.put("key" + i, "value" + i);
+        }
+        passivater.passivate(state);
+        assertEquals(100, passivater.getPassivated());
+
+        final ExecutorService es = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Object>> values = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final String key = "key" + i;
+                values.add(es.submit(() -> passivater.activate(key)));
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals("value" + i, values.get(i).get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            es.shutdownNow();
+        }
+
+        assertEquals(0, passivater.getPassivated());
+        assertNull(passivater.activate("key0"));
+    }
+
+    @Test
+    public void segmentsAreDeletedOnceActivated() throws Exception {
+        final MappedPassivater passivater = new MappedPassivater();
+        final Properties properties = new Properties();
+        properties.setProperty(MappedPassivater.SEGMENT_SIZE, "128");
+        passivater.init(properties);
+
+        final Map<Object, Object> state = new LinkedHashMap<>();
+        for (int i = 0; i < 10; i++) {
+            state.put(i, new byte[100]); // one segment each
+        }
+        passivater.passivate(state);
+        assertEquals(10, segments(passivater.getDirectory()));
+
+        for (int i = 0; i < 9; i++) {
+            assertEquals(100, ((byte[]) passivater.activate(i)).length);
+        }
+        // the last one is still the segment appended to
+        assertEquals(1, segments(passivater.getDirectory()));
+    }
+
+    private static int segments(final File directory) {
+        final File[] files = directory.listFiles();
+        return files == null ? 0 : files.length;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.stateful;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SegmentedCacheTest {
+
+    @Test
+    public void checkOutCheckIn() throws Exception {
+        final SegmentedCache<String, String> cache = newCache(new MemoryPassivater(), 10, 1);
+        cache.add("a", "A");
+        assertEquals(0, cache.getIdle());
+
+        cache.checkIn("a");
+        assertEquals(1, cache.getIdle());
+        try {
+            cache.checkIn("a");
+            cache.checkOut("a", false);
+            cache.checkIn("a");
+        } catch (final IllegalStateException e) {
+            fail(e.getMessage());
+        }
+
+        try {
+            cache.add("a", "other");
+            fail("duplicated key");
+        } catch (final IllegalStateException e) {
+            // ok
+        }
+
+        assertEquals("A", cache.checkOut("a", true));
+        assertEquals(0, cache.getIdle());
+        assertEquals("A", cache.remove("a"));
+        assertNull(cache.checkOut("a", true));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void passivateAndActivate() throws Exception {
+        final MemoryPassivater passivater = new MemoryPassivater();
+        final SegmentedCache<String, String> cache = newCache(passivater, 4, 2);
+        final Listener listener = new Listener();
+        cache.setListener(listener);
+
+        for (int i = 0; i < 10; i++) {
+            cache.add("k" + i, "v" + i);
+            cache.checkIn("k" + i);
+            cache.processLRU();
+        }
+
+        assertTrue(cache.getIdle() < 4);
+        assertEquals(10, cache.getIdle() + passivater.store.size());
+        assertEquals(passivater.store.size(), listener.stored.get());
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("v" + i, cache.checkOut("k" + i, true));
+        }
+        assertEquals(0, passivater.store.size());
+        assertEquals(listener.stored.get(), listener.loaded.get());
+    }
+
+    @Test
+    public void protectedEntriesAreEvictedLast() throws Exception {
+        final MemoryPassivater passivater = new MemoryPassivater();
+        final SegmentedCache<String, String> cache = newCache(passivater, 10, 1);
+        for (final String key : new String[]{"hot", "cold1", "cold2"}) {
+            cache.add(key, key);
+            cache.checkIn(key);
+        }
+        // second use promotes it even if it is now the most recently used one
+        cache.checkOut("hot", false);
+        cache.checkIn("hot");
+        cache.add("cold3", "cold3");
+        cache.checkIn("cold3");
+
+        cache.setCapacity(3);
+        cache.processLRU();
+        cache.processLRU();
+        cache.processLRU();
+
+        assertTrue(passivater.store.containsKey("cold1"));
+        assertTrue(passivater.store.containsKey("cold2"));
+        assertFalse(passivater.store.containsKey("hot"));
+    }
+
+    @Test
+    public void timeOut() throws Exception {
+        final SegmentedCache<String, String> cache = newCache(new MemoryPassivater(), 10, 1);
+        cache.setTimeOut("0");
+        final Listener listener = new Listener();
+        cache.setListener(listener);
+
+        cache.add("a", "A");
+        cache.checkIn("a");
+        cache.processLRU();
+
+        assertEquals(1, listener.timedOut.get());
+        assertNull(cache.checkOut("a", true));
+    }
+
+    @Test
+    public void concurrentActivationsAreCoalesced() throws Exception {
+        final CountDownLatch activating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger activations = new AtomicInteger();
+        final MemoryPassivater passivater = new MemoryPassivater() {
+            @Override
+            public Object activate(final Object primaryKey) {
+                activations.incrementAndGet();
+                activating.countDown();
+                try {
+                    release.await(1, TimeUnit.MINUTES);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.activate(primaryKey);
+            }
+        };
+        passivater.store.put("a", "A");
+
+        final SegmentedCache<String, String> cache = newCache(passivater, 10, 1);
+        final ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(es.submit(() -> cache.checkOut("a", true)));
+            }
+            assertTrue(activating.await(1, TimeUnit.MINUTES));
+            Thread.sleep(100);
+            release.countDown();
+            for (final Future<String> result : results) {
+                assertEquals("A", result.get(1, TimeUnit.MINUTES));
+            }
+            assertEquals(1, activations.get());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    private static SegmentedCache<String, String> newCache(final PassivationStrategy passivater, final int capacity, final int bulk) {
+        final SegmentedCache<String, String> cache = new SegmentedCache<>();
+        cache.setSegments(1);
+        cache.setPassivator(passivater);
+        cache.setCapacity(capacity);
+        cache.setBulkPassivate(bulk);
+        cache.setTimeOut("-1");
+        return cache;
+    }
+
+    private static class MemoryPassivater implements PassivationStrategy {
+        private final Map<Object, Object> store = new ConcurrentHashMap<>();
+
+        @Override
+        public void init(final Properties props) {
+            // no-op
+        }
+
+        @Override
+        public void passivate(final Map stateTable) {
+            store.putAll(stateTable);
+        }
+
+        @Override
+        public Object activate(final Object primaryKey) {
+            return store.remove(primaryKey);
+        }
+    }
+
+    private static class Listener implements Cache.CacheListener<String> {
+        private final AtomicInteger loaded = new AtomicInteger();
+        private final AtomicInteger stored = new AtomicInteger();
+        private final AtomicInteger timedOut = new AtomicInteger();
+
+        @Override
+        public void afterLoad(final String value) {
+            loaded.incrementAndGet();
+        }
+
+        @Override
+        public void beforeStore(final String value) {
+            stored.incrementAndGet();
+        }
+
+        @Override
+        public void timedOut(final String value) {
+            timedOut.incrementAndGet();
+        }
+    }
+}
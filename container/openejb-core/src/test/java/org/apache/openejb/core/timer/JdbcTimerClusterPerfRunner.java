@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.hsqldb.jdbc.JDBCDataSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timer throughput of a JdbcTimerCluster of 1, 2, 4 and 8 in-JVM nodes
+ * sharing an HSQLDB database, each timer taking 1ms to run on a 4 threads
+ * executor per node.
+ */
+public class JdbcTimerClusterPerfRunner {
+    private static final int TIMERS = 20000;
+
+    public static void main(final String[] args) throws Exception {
+        for (final int nodes : new int[]{1, 2, 4, 8}) {
+            run(nodes);
+        }
+    }
+
+    private static void run(final int count) throws SQLException, InterruptedException {
+        final JDBCDataSource dataSource = new JDBCDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:timers-perf-" + count);
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+
+        final CountDownLatch latch = new CountDownLatch(TIMERS);
+        final List<JdbcTimerCluster> nodes = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                final JdbcTimerCluster node = new JdbcTimerCluster(dataSource, "node-" + i, 64, 3000, 100, 500, "PERF_",
+                    new TimerWheelTest.ExecutorThreadPool(Executors.newFixedThreadPool(4))).start();
+                node.register("bean", row -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    try {
+                        node.delete(row.id);
+                    } catch (final SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    latch.countDown();
+                });
+                nodes.add(node);
+            }
+            Thread.sleep(3000); // let the partitions spread
+
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < TIMERS; i++) {
+                nodes.get(0).save(nodes.get(0).nextId(), "bean", start, new byte[]{1});
+            }
+            if (!latch.await(10, TimeUnit.MINUTES)) {
+                throw new IllegalStateException(latch.getCount() + " timers didn't fire");
+            }
+            final long duration = System.currentTimeMillis() - start;
+            System.out.printf("%d node(s): %d timers in %dms, %.0f timers/s%n", count, TIMERS, duration, TIMERS * 1000. / duration);
+        } finally {
+            for (final JdbcTimerCluster node : nodes) {
+                node.stop();
+            }
+        }
+    }
+}
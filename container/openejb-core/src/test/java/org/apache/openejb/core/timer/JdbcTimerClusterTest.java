@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.hsqldb.jdbc.JDBCDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JdbcTimerClusterTest {
+    private static final int PARTITIONS = 12;
+
+    private final List<JdbcTimerCluster> nodes = new ArrayList<>();
+    private final Map<Long, AtomicInteger> fired = new ConcurrentHashMap<>();
+    private JDBCDataSource dataSource;
+
+    @Before
+    public void createDatabase() {
+        dataSource = new JDBCDataSource();
+        dataSource.setUrl("jdbc:hsqldb:mem:timers" + System.nanoTime());
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+    }
+
+    @After
+    public void stopNodes() {
+        for (final JdbcTimerCluster node : nodes) {
+            node.stop();
+        }
+    }
+
+    @Test
+    public void partitionsAreShared() throws Exception {
+        final JdbcTimerCluster first = node("first");
+        assertEquals(PARTITIONS, first.getOwnedPartitions().length);
+
+        final JdbcTimerCluster second = node("second");
+        final JdbcTimerCluster third = node("third");
+        await(() -> first.getOwnedPartitions().length == 4 && second.getOwnedPartitions().length == 4 && third.getOwnedPartitions().length == 4);
+    }
+
+    @Test
+    public void timersAreFiredOnce() throws Exception {
+        final JdbcTimerCluster first = node("first");
+        final JdbcTimerCluster second = node("second");
+        final JdbcTimerCluster third = node("third");
+        await(() -> first.getOwnedPartitions().length + second.getOwnedPartitions().length + third.getOwnedPartitions().length == PARTITIONS
+            && first.getOwnedPartitions().length <= 4 && second.getOwnedPartitions().length <= 4 && third.getOwnedPartitions().length <= 4);
+
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 300; i++) {
+            final long id = nodes.get(i % 3).nextId();
+            first.save(id, "bean", now + (i % 200), new byte[]{1});
+        }
+
+        await(() -> fired.size() == 300);
+        Thread.sleep(200);
+        for (final Map.Entry<Long, AtomicInteger> entry : fired.entrySet()) {
+            assertEquals("timer " + entry.getKey(), 1, entry.getValue().get());
+        }
+        assertTrue(first.rows("bean").isEmpty());
+        assertEquals(300, first.getFired() + second.getFired() + third.getFired());
+        assertNotEquals(0, first.getFired());
+        assertNotEquals(0, second.getFired());
+        assertNotEquals(0, third.getFired());
+    }
+
+    @Test
+    public void reschedule() throws Exception {
+        final JdbcTimerCluster node = new JdbcTimerCluster(dataSource, "node", PARTITIONS, 300, 50, 100, "T_", pool()).start();
+        nodes.add(node);
+        final AtomicInteger count = new AtomicInteger();
+        node.register("bean", row -> {
+            if (count.incrementAndGet() < 3) {
+                node.reschedule(row.id, System.currentTimeMillis() + 10);
+            } else {
+                try {
+                    node.delete(row.id);
+                } catch (final SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        final long id = node.nextId();
+        node.save(id, "bean", System.currentTimeMillis(), new byte[]{1});
+        await(() -> count.get() == 3);
+        await(() -> {
+            try {
+                return node.row(id) == null;
+            } catch (final SQLException e) {
+                return false;
+            }
+        });
+        Thread.sleep(200);
+        assertEquals(3, count.get());
+    }
+
+    @Test
+    public void failover() throws Exception {
+        final JdbcTimerCluster first = node("first");
+        final JdbcTimerCluster second = node("second");
+        await(() -> first.getOwnedPartitions().length == 6 && second.getOwnedPartitions().length == 6);
+
+        nodes.remove(first);
+        first.stop();
+        await(() -> second.getOwnedPartitions().length == PARTITIONS);
+
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < PARTITIONS; i++) {
+            second.save(second.nextId(), "bean", now, new byte[]{1});
+        }
+        await(() -> fired.size() == PARTITIONS);
+    }
+
+    @Test
+    public void idsAreUnique() throws Exception {
+        final JdbcTimerCluster first = node("first");
+        final JdbcTimerCluster second = node("second");
+        final Map<Long, Boolean> ids = new ConcurrentHashMap<>();
+        for (int i = 0; i < 2500; i++) {
+            assertNull(ids.put(first.nextId(), true));
+            assertNull(ids.put(second.nextId(), true));
+        }
+    }
+
+    private JdbcTimerCluster node(final String name) throws SQLException {
+        final JdbcTimerCluster node = new JdbcTimerCluster(dataSource, name, PARTITIONS, 300, 50, 100, "T_", pool()).start();
+        node.register("bean", row -> {
+            fired.computeIfAbsent(row.id, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                node.delete(row.id);
+            } catch (final SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        nodes.add(node);
+        return node;
+    }
+
+    private static TimerWheelTest.ExecutorThreadPool pool() {
+        return new TimerWheelTest.ExecutorThreadPool(Executors.newFixedThreadPool(4));
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long end = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (!condition.getAsBoolean()) {
+            assertTrue("timeout", System.currentTimeMillis() < end);
+            Thread.sleep(20);
+        }
+    }
+}
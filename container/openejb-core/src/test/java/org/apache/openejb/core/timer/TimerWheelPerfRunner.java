@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.apache.openejb.monitoring.LatencyHistogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedule/cancel throughput of the timer wheel with one shard (a single
+ * lock as the RAMJobStore) and one shard per core.
+ *
+ * The main runs the benchmark from 1 to 32 threads then fires 1M timers
+ * spread over 10 seconds and reports the fire rate and the jitter
+ * (firing time - expiration time).
+ */
+@State(Scope.Benchmark)
+public class TimerWheelPerfRunner {
+
+    @Param({"1", "-1"})
+    private int shards;
+
+    private TimerWheel wheel;
+    private final AtomicLong ids = new AtomicLong();
+
+    @Setup
+    public void setup() {
+        wheel = new TimerWheel(shards < 0 ? Runtime.getRuntime().availableProcessors() : shards, 10, 1,
+            new TimerWheelTest.ExecutorThreadPool(Executors.newFixedThreadPool(4))).start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Benchmark
+    public void scheduleCancel() {
+        final long deadline = System.currentTimeMillis() + 60000 + ThreadLocalRandom.current().nextInt(60000);
+        wheel.schedule(ids.incrementAndGet(), deadline, () -> -1).cancel();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        for (final int threads : new int[]{1, 4, 16, 32}) {
+            new Runner(new OptionsBuilder()
+                .include(TimerWheelPerfRunner.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(threads)
+                .build())
+                .run();
+        }
+        fire(1_000_000, 10_000);
+    }
+
+    private static void fire(final int timers, final int spreadMs) throws InterruptedException {
+        final int cores = Runtime.getRuntime().availableProcessors();
+        final TimerWheel wheel = new TimerWheel(cores, 1, 64, new TimerWheelTest.ExecutorThreadPool(Executors.newFixedThreadPool(cores))).start();
+        try {
+            final LatencyHistogram jitter = new LatencyHistogram();
+            final CountDownLatch latch = new CountDownLatch(timers);
+            final long start = System.currentTimeMillis() + 1000;
+            for (int i = 0; i < timers; i++) {
+                final long deadline = start + ThreadLocalRandom.current().nextInt(spreadMs);
+                wheel.schedule(i, deadline, () -> {
+                    jitter.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - deadline));
+                    latch.countDown();
+                    return -1;
+                });
+            }
+            if (!latch.await(spreadMs * 10L, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(latch.getCount() + " timers didn't fire");
+            }
+            final long duration = System.currentTimeMillis() - start;
+            System.out.printf("%d timers fired in %dms (%.0f/s), jitter p50=%dms p99=%dms p999=%dms max=%dms%n",
+                timers, duration, timers * 1000. / duration,
+                TimeUnit.NANOSECONDS.toMillis(jitter.getPercentile(50)), TimeUnit.NANOSECONDS.toMillis(jitter.getPercentile(99)),
+                TimeUnit.NANOSECONDS.toMillis(jitter.getPercentile(99.9)), TimeUnit.NANOSECONDS.toMillis(jitter.getMax()));
+        } finally {
+            wheel.stop();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.core.timer;
+
+import org.apache.openejb.quartz.spi.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest {
+    private TimerWheel wheel;
+
+    @Before
+    public void start() {
+        wheel = new TimerWheel(4, 1, 1, new ExecutorThreadPool(Executors.newFixedThreadPool(4))).start();
+    }
+
+    @After
+    public void stop() {
+        wheel.stop();
+    }
+
+    @Test
+    public void fireOnce() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long deadline = System.currentTimeMillis() + 50;
+        final AtomicLong firedAt = new AtomicLong();
+        wheel.schedule(1, deadline, () -> {
+            firedAt.set(System.currentTimeMillis());
+            latch.countDown();
+            return -1;
+        });
+        assertEquals(1, wheel.getScheduled());
+        assertTrue(latch.await(1, TimeUnit.MINUTES));
+        assertTrue(firedAt.get() >= deadline);
+        assertEquals(0, wheel.getScheduled());
+    }
+
+    @Test
+    public void cascade() throws Exception { // more than 512 ticks, goes through the second level
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long deadline = System.currentTimeMillis() + 700;
+        final AtomicLong firedAt = new AtomicLong();
+        wheel.schedule(2, deadline, () -> {
+            firedAt.set(System.currentTimeMillis());
+            latch.countDown();
+            return -1;
+        });
+        assertTrue(latch.await(1, TimeUnit.MINUTES));
+        assertTrue(firedAt.get() >= deadline);
+    }
+
+    @Test
+    public void reschedule() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        final TimerWheel.Timeout timeout = wheel.schedule(3, System.currentTimeMillis() + 10, () -> {
+            count.incrementAndGet();
+            latch.countDown();
+            return System.currentTimeMillis() + 10;
+        });
+        assertTrue(latch.await(1, TimeUnit.MINUTES));
+        timeout.cancel();
+        assertTrue(timeout.isCancelled());
+
+        final int fired = count.get();
+        Thread.sleep(100);
+        assertTrue(count.get() <= fired + 1); // one can be running while cancelling
+        assertEquals(0, wheel.getScheduled());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        final TimerWheel.Timeout timeout = wheel.schedule(4, System.currentTimeMillis() + 50, () -> {
+            count.incrementAndGet();
+            return -1;
+        });
+        timeout.cancel();
+        assertEquals(0, wheel.getScheduled());
+        Thread.sleep(150);
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    public void manyTimers() throws Exception {
+        final int timers = 20000;
+        final CountDownLatch latch = new CountDownLatch(timers);
+        final AtomicInteger early = new AtomicInteger();
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < timers; i++) {
+            final long deadline = now + (i % 1500);
+            wheel.schedule(i, deadline, () -> {
+                if (System.currentTimeMillis() < deadline) {
+                    early.incrementAndGet();
+                }
+                latch.countDown();
+                return -1;
+            });
+        }
+        assertTrue(latch.await(1, TimeUnit.MINUTES));
+        assertEquals(0, early.get());
+        assertEquals(timers, wheel.getFired());
+        assertEquals(0, wheel.getScheduled());
+    }
+
+    @Test
+    public void stopDropsPendingTimers() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        wheel.schedule(5, System.currentTimeMillis() + 100, () -> {
+            count.incrementAndGet();
+            return -1;
+        });
+        wheel.stop();
+        assertEquals(0, wheel.getScheduled());
+        Thread.sleep(200);
+        assertFalse(count.get() > 0);
+    }
+
+    static class ExecutorThreadPool implements ThreadPool {
+        private final ExecutorService executor;
+
+        ExecutorThreadPool(final ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean runInThread(final Runnable runnable) {
+            if (executor.isShutdown()) {
+                return false;
+            }
+            executor.execute(runnable);
+            return true;
+        }
+
+        @Override
+        public int blockForAvailableThreads() {
+            return 1;
+        }
+
+        @Override
+        public void initialize() {
+            // no-op
+        }
+
+        @Override
+        public void shutdown(final boolean waitForJobsToComplete) {
+            executor.shutdownNow();
+        }
+
+        @Override
+        public int getPoolSize() {
+            return 1;
+        }
+
+        @Override
+        public void setInstanceId(final String schedInstId) {
+            // no-op
+        }
+
+        @Override
+        public void setInstanceName(final String schedName) {
+            // no-op
+        }
+    }
+}
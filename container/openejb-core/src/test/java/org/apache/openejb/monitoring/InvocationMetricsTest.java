@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.monitoring;
+
+import org.apache.openejb.AppContext;
+import org.apache.openejb.BeanContext;
+import org.apache.openejb.ModuleContext;
+import org.apache.openejb.loader.SystemInstance;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InvocationMetricsTest {
+    @Test
+    public void record() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics(true);
+        final Method method = Object.class.getMethod("hashCode");
+        final InvocationMetrics.MethodMetrics hashCode = metrics.get(method);
+        assertSame(hashCode, metrics.get(method));
+
+        hashCode.waited(1000);
+        hashCode.invoked(2_000_000);
+        hashCode.completed(500);
+        hashCode.invoked(4_000_000);
+        hashCode.failed();
+
+        assertEquals(2, metrics.getInvocationCount());
+        assertEquals(1, metrics.getExceptionCount());
+        assertEquals(3., hashCode.getInvocationMean(), 0.01);
+        assertEquals(4., hashCode.getInvocationMax(), 0.01);
+        assertEquals(1, hashCode.getWait().getCount());
+        assertEquals(1, hashCode.getTransaction().getCount());
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        final InvocationMetrics metrics = new InvocationMetrics(false);
+        final InvocationMetrics.MethodMetrics hashCode = metrics.get(Object.class.getMethod("hashCode"));
+        hashCode.invoked(1000);
+        hashCode.failed();
+
+        assertFalse(metrics.isEnabled());
+        assertEquals(0, hashCode.getInvocations());
+        assertEquals(0, hashCode.getExceptions());
+        assertTrue(metrics.methods().isEmpty());
+    }
+
+    @Test
+    public void text() throws Exception {
+        SystemInstance.init(new Properties());
+        final ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        final BeanContext beanContext = new BeanContext("foo", null, new ModuleContext("foo", null, "bar",
+                new AppContext("foo", SystemInstance.get(), loader, null, null, false), null, loader),
+                Object.class, null, new HashMap<>());
+        final InvocationMetrics.MethodMetrics equals = beanContext.getInvocationMetrics().get(Object.class.getMethod("equals", Object.class));
+        equals.invoked(1_500_000_000);
+        equals.failed();
+
+        final StringBuilder text = new StringBuilder();
+        InvocationMetrics.write(Collections.singletonList(beanContext), text);
+
+        final String output = text.toString();
+        assertTrue(output, output.contains("# TYPE openejb_ejb_invocation_seconds summary\n"));
+        assertTrue(output, output.contains("openejb_ejb_invocation_seconds_count{bean=\"foo\",method=\"equals(Object)\"} 1\n"));
+        assertTrue(output, output.contains("openejb_ejb_invocation_seconds_sum{bean=\"foo\",method=\"equals(Object)\"} 1.5\n"));
+        assertTrue(output, output.contains("openejb_ejb_exceptions_total{bean=\"foo\",method=\"equals(Object)\"} 1\n"));
+        assertTrue(output, output.indexOf("openejb_ejb_wait_seconds_count") < output.indexOf("# TYPE openejb_ejb_invocation_seconds"));
+    }
+}
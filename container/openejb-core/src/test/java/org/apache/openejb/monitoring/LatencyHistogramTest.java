@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.monitoring;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    public void buckets() {
+        for (long value = 0; value < 1_000_000; value += 7) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(value + " in bucket " + index, LatencyHistogram.lowestEquivalentValue(index) <= value);
+            assertTrue(value + " in bucket " + index, LatencyHistogram.highestEquivalentValue(index) >= value);
+        }
+        assertEquals(LatencyHistogram.index(Long.MAX_VALUE), LatencyHistogram.index(TimeUnit.DAYS.toNanos(1)));
+    }
+
+    @Test
+    public void percentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), histogram.getMax());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(500500), histogram.getTotal());
+
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(500), histogram.getPercentile(50));
+        assertWithin(TimeUnit.MICROSECONDS.toNanos(990), histogram.getPercentile(99));
+        assertEquals(histogram.getMax(), histogram.getPercentile(100));
+    }
+
+    @Test
+    public void negativeValues() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        // 8 sub buckets per power of two
+        assertTrue(expected + " ~ " + actual, actual >= expected && actual <= expected * 1.125);
+    }
+}
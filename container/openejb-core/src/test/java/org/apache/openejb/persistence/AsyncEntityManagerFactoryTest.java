@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.apache.openejb.persistence;
+
+import org.apache.openejb.assembler.classic.ReloadableEntityManagerFactory;
+import org.apache.openejb.jee.jpa.unit.Persistence;
+import org.apache.openejb.jee.jpa.unit.PersistenceUnit;
+import org.apache.openejb.junit.ApplicationComposer;
+import org.apache.openejb.testing.Configuration;
+import org.apache.openejb.testing.Module;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(ApplicationComposer.class)
+public class AsyncEntityManagerFactoryTest {
+    @jakarta.persistence.PersistenceUnit
+    private EntityManagerFactory emf;
+
+    @Module
+    public Persistence persistence() throws Exception {
+        final PersistenceUnit unit = new PersistenceUnit("async-unit");
+        unit.addClass(MyEntity.class);
+        unit.setProperty("openjpa.jdbc.SynchronizeMappings", "buildSchema(ForeignKeys=true)");
+        unit.setProperty("openjpa.RuntimeUnenhancedClasses", "supported");
+        unit.setProperty(ReloadableEntityManagerFactory.TOMEE_JPA_FACTORY_ASYNC, "true");
+        unit.setExcludeUnlistedClasses(true);
+
+        final Persistence persistence = new Persistence(unit);
+        persistence.setVersion("2.0");
+        return persistence;
+    }
+
+    @Configuration
+    public Properties config() {
+        final Properties p = new Properties();
+        p.put("AsyncEntityManagerFactoryTest", "new://Resource?type=DataSource");
+        p.put("AsyncEntityManagerFactoryTest.JdbcDriver", "org.hsqldb.jdbcDriver");
+        p.put("AsyncEntityManagerFactoryTest.JdbcUrl", "jdbc:hsqldb:mem:async-emf");
+        return p;
+    }
+
+    @Test
+    public void createdBeforeTheDeploymentEnds() {
+        final ReloadableEntityManagerFactory factory = (ReloadableEntityManagerFactory) emf;
+        assertTrue(factory.getBootstrapTime() >= 0); // the deployment waited for it
+        assertNotNull(factory.getDelegate());
+
+        final EntityManager em = emf.createEntityManager();
+        try {
+            assertEquals(0, em.createQuery("select m from AsyncEntityManagerFactoryTest$MyEntity m").getResultList().size());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Entity
+    public static class MyEntity {
+        @Id
+        @GeneratedValue
+        private long id;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(final long id) {
+            this.id = id;
+        }
+    }
+}
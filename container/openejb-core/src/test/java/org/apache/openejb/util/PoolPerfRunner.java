@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compares the single synchronized list (stripes=0) with the striped
+ * lock-free stacks (stripes=-1, one per core) for a pop/push cycle,
+ * which is what a stateless invocation does on its bean pool.
+ *
+ * Run the main to get the 1 to 128 threads matrix.
+ */
+@State(Scope.Benchmark)
+public class PoolPerfRunner {
+
+    @Param({"0", "-1"})
+    private int stripes;
+
+    private Pool<Object> pool;
+
+    @Setup
+    public void setup() {
+        final Pool.Builder<Object> builder = new Pool.Builder<>();
+        builder.setMaxSize(256);
+        builder.setMinSize(0);
+        builder.setStrictPooling(true);
+        builder.setStripes(stripes);
+        pool = builder.build();
+        for (int i = 0; i < 256; i++) {
+            pool.add(new Object());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        pool.close(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void popPush(final Blackhole blackhole) throws InterruptedException, TimeoutException {
+        final Pool<Object>.Entry entry = pool.pop(1, TimeUnit.MINUTES);
+        if (entry == null) { // permit to create an instance
+            pool.push(new Object());
+            return;
+        }
+        blackhole.consume(entry.get());
+        pool.push(entry);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        for (final int threads : new int[]{1, 2, 4, 8, 16, 32, 64, 128}) {
+            new Runner(new OptionsBuilder()
+                    .include(PoolPerfRunner.class.getSimpleName())
+                    .forks(1)
+                    .warmupIterations(5)
+                    .measurementIterations(5)
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StripedStackTest {
+
+    @Test
+    public void stripesArePowerOfTwo() {
+        assertEquals(1, new StripedStack<>(1).stripes());
+        assertEquals(4, new StripedStack<>(3).stripes());
+        assertEquals(8, new StripedStack<>(8).stripes());
+    }
+
+    @Test
+    public void lifoOnTheSameThread() {
+        final StripedStack<Integer> stack = new StripedStack<>(4);
+        assertTrue(stack.isEmpty());
+        assertNull(stack.pop());
+
+        stack.push(1);
+        stack.push(2);
+        stack.push(3);
+        assertFalse(stack.isEmpty());
+
+        assertEquals(3, stack.pop().intValue());
+        assertEquals(2, stack.pop().intValue());
+        assertEquals(1, stack.pop().intValue());
+        assertNull(stack.pop());
+        assertTrue(stack.isEmpty());
+    }
+
+    @Test
+    public void stealsFromOtherStripes() throws Exception {
+        final StripedStack<String> stack = new StripedStack<>(16);
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final String value = "v" + i;
+            producers.add(new Thread(() -> stack.push(value)));
+        }
+        for (final Thread producer : producers) {
+            producer.start();
+            producer.join();
+        }
+
+        final Set<String> popped = new HashSet<>();
+        String value;
+        while ((value = stack.pop()) != null) {
+            popped.add(value);
+        }
+        assertEquals(8, popped.size());
+    }
+
+    @Test
+    public void noLossUnderContention() throws Exception {
+        final int threads = 16;
+        final int elements = 64;
+        final StripedStack<Integer> stack = new StripedStack<>(4);
+        for (int i = 0; i < elements; i++) {
+            stack.push(i);
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 10000; i++) {
+                        final Integer value = stack.pop();
+                        if (value != null) {
+                            stack.push(value);
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        assertTrue(done.await(1, TimeUnit.MINUTES));
+
+        final Set<Integer> remaining = new HashSet<>();
+        Integer value;
+        while ((value = stack.pop()) != null) {
+            assertTrue("duplicate " + value, remaining.add(value));
+        }
+        assertEquals(elements, remaining.size());
+    }
+
+    @Test
+    public void stripedPool() throws Exception {
+        final Pool.Builder<String> builder = new Pool.Builder<>();
+        builder.setMaxSize(4);
+        builder.setMinSize(2);
+        builder.setStripes(-1);
+        final Pool<String> pool = builder.build();
+
+        final List<Pool<String>.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            assertNull(pool.pop(0, MILLISECONDS));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertTrue(pool.push("bean" + i));
+        }
+        for (int i = 0; i < 4; i++) {
+            entries.add(pool.pop(0, MILLISECONDS));
+        }
+        final Set<String> beans = new HashSet<>();
+        int min = 0;
+        for (final Pool<String>.Entry entry : entries) {
+            beans.add(entry.get());
+            if (entry.hasHardReference()) {
+                min++;
+            }
+        }
+        assertEquals(4, beans.size());
+        assertEquals(2, min);
+
+        for (final Pool<String>.Entry entry : entries) {
+            pool.push(entry);
+        }
+        assertTrue(pool.close(10, TimeUnit.SECONDS));
+    }
+}
@@ -16,10 +16,46 @@
  */
 package org.apache.openejb.jpa.integration;
 
+import java.util.AbstractMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
-// use to store info while creating the EMF
+// use to store info while creating the EMF, per thread since the EMF can be created in parallel (tomee.jpa.factory.async)
 public class JPAThreadContext {
-    public static final Map<String, Object> infos = new HashMap<>();
+    public static final Map<String, Object> infos = new ThreadMap();
+
+    private static final class ThreadMap extends AbstractMap<String, Object> {
+        private final ThreadLocal<Map<String, Object>> values = ThreadLocal.withInitial(HashMap::new);
+
+        @Override
+        public Object get(final Object key) {
+            return values.get().get(key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return values.get().containsKey(key);
+        }
+
+        @Override
+        public Object put(final String key, final Object value) {
+            return values.get().put(key, value);
+        }
+
+        @Override
+        public Object remove(final Object key) {
+            return values.get().remove(key);
+        }
+
+        @Override
+        public void clear() {
+            values.remove();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return values.get().entrySet();
+        }
+    }
 }
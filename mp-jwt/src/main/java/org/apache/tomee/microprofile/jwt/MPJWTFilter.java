@@ -34,28 +34,14 @@ import jakarta.ws.rs.ext.ExceptionMapper;
 import jakarta.ws.rs.ext.Provider;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.spi.SecurityService;
-import org.apache.openejb.util.Logger;
 import org.apache.tomee.catalina.OpenEJBSecurityListener;
 import org.apache.tomee.catalina.TomcatSecurityService;
 import org.apache.tomee.microprofile.jwt.bval.ValidationInterceptor;
 import org.apache.tomee.microprofile.jwt.config.JWTAuthConfiguration;
 import org.apache.tomee.microprofile.jwt.config.JWTAuthConfigurationProperties;
 import org.apache.tomee.microprofile.jwt.principal.JWTCallerPrincipal;
-import org.eclipse.microprofile.jwt.Claims;
 import org.eclipse.microprofile.jwt.JsonWebToken;
-import org.jose4j.jwa.AlgorithmConstraints;
-import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
 import org.jose4j.jwk.JsonWebKey;
-import org.jose4j.jws.AlgorithmIdentifiers;
-import org.jose4j.jwt.JwtClaims;
-import org.jose4j.jwt.MalformedClaimException;
-import org.jose4j.jwt.NumericDate;
-import org.jose4j.jwt.consumer.InvalidJwtException;
-import org.jose4j.jwt.consumer.JwtConsumer;
-import org.jose4j.jwt.consumer.JwtConsumerBuilder;
-import org.jose4j.jwt.consumer.JwtContext;
-import org.jose4j.keys.resolvers.JwksDecryptionKeyResolver;
-import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
 import org.jose4j.lang.JoseException;
 
 import javax.security.auth.Subject;
@@ -79,8 +65,6 @@ import java.util.stream.Stream;
 //@WebFilter(asyncSupported = true, urlPatterns = "/*")
 public class MPJWTFilter implements Filter {
 
-    private static final Logger VALIDATION = Logger.getInstance(JWTLogCategories.VALIDATION, MPJWTFilter.class);
-
     @Override
     public void init(final FilterConfig filterConfig) throws ServletException {
     }
@@ -198,7 +182,7 @@ public class MPJWTFilter implements Filter {
 
     }
 
-    private abstract static class MPJWTException extends RuntimeException {
+    abstract static class MPJWTException extends RuntimeException {
 
         public MPJWTException() {
             super();
@@ -373,133 +357,7 @@ public class MPJWTFilter implements Filter {
         }
 
         public static JWTCallerPrincipal parse(final String token, final JWTAuthConfiguration authContextInfo) throws ParseException {
-            JWTCallerPrincipal principal;
-
-            try {
-                final JwtConsumerBuilder builder = new JwtConsumerBuilder()
-                        .setRelaxVerificationKeyValidation()
-                        .setRelaxDecryptionKeyValidation()
-                        .setRequireSubject();
-
-                if (authContextInfo.getSignatureAlgorithm() != null) {
-                    builder.setJwsAlgorithmConstraints(
-                            new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
-                                    authContextInfo.getSignatureAlgorithm()
-                            ));
-                } else {
-                    builder.setJwsAlgorithmConstraints(
-                            new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
-                                    AlgorithmIdentifiers.RSA_USING_SHA256,
-                                    AlgorithmIdentifiers.RSA_USING_SHA384,
-                                    AlgorithmIdentifiers.RSA_USING_SHA512,
-                                    AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
-                                    AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384,
-                                    AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512
-                            ));
-                }
-
-                if (authContextInfo.getDecryptAlgorithm() != null) {
-                    builder.setJweAlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
-                            authContextInfo.getDecryptAlgorithm()
-                    );
-                } else {
-                    builder.setJweAlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
-                            KeyManagementAlgorithmIdentifiers.RSA_OAEP,
-                            KeyManagementAlgorithmIdentifiers.RSA_OAEP_256,
-                            KeyManagementAlgorithmIdentifiers.ECDH_ES,
-                            KeyManagementAlgorithmIdentifiers.ECDH_ES_A128KW,
-                            KeyManagementAlgorithmIdentifiers.ECDH_ES_A192KW,
-                            KeyManagementAlgorithmIdentifiers.ECDH_ES_A256KW
-                    );
-                }
-
-                if (authContextInfo.getAudiences().length > 0) {
-                    builder.setExpectedAudience(true, authContextInfo.getAudiences());
-                } else {
-                    builder.setSkipDefaultAudienceValidation();
-                }
-
-                if (!authContextInfo.isAllowNoExpiryClaim()) {
-                    builder.setRequireExpirationTime();
-                }
-                if (authContextInfo.getIssuer() != null) {
-                    builder.setExpectedIssuer(authContextInfo.getIssuer());
-                }
-                if (authContextInfo.getClockSkew()>= 0) {
-                    builder.setAllowedClockSkewInSeconds(authContextInfo.getClockSkew());
-                } else {
-                    builder.setEvaluationTime(NumericDate.fromSeconds(0));
-                }
-
-                final Map<String, Key> publicKeys;
-                try {
-                    publicKeys = authContextInfo.getPublicKeys();
-                } catch (Exception e) {
-                    throw new NoPublicKeysException(e);
-                }
-
-                if (publicKeys.size() == 1) {
-                    final Key key = publicKeys.values().iterator().next();
-                    builder.setVerificationKey(key);
-                } else if (publicKeys.size() > 1) {
-                    builder.setVerificationKeyResolver(new JwksVerificationKeyResolver(asJwks(publicKeys)));
-                }
-
-                final Map<String, Key> decryptKeys;
-                try {
-                    decryptKeys = authContextInfo.getDecryptKeys();
-                } catch (Exception e) {
-                    throw new NoPrivateKeysException(e);
-                }
-                if (decryptKeys.size() == 1) {
-                    final Key key = decryptKeys.values().iterator().next();
-                    builder.setDecryptionKey(key);
-                    builder.setEnableRequireEncryption();
-                } else if (decryptKeys.size() > 1) {
-                    builder.setDecryptionKeyResolver(new JwksDecryptionKeyResolver(asJwks(decryptKeys)));
-                    builder.setEnableRequireEncryption();
-                }
-
-                if (authContextInfo.getTokenAge() != null){
-                    builder.setRequireIssuedAt();
-                    builder.setIssuedAtRestrictions(authContextInfo.getTokenAge(), authContextInfo.getTokenAge());
-                }
-                
-                final JwtConsumer jwtConsumer = builder.build();
-                final JwtContext jwtContext = jwtConsumer.process(token);
-                final String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
-                //  Validate the JWT and process it to the Claims
-                jwtConsumer.processContext(jwtContext);
-                JwtClaims claimsSet = jwtContext.getJwtClaims();
-
-                // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
-                String principalName = claimsSet.getClaimValue("upn", String.class);
-                if (principalName == null) {
-                    principalName = claimsSet.getClaimValue("preferred_username", String.class);
-                    if (principalName == null) {
-                        principalName = claimsSet.getSubject();
-                    }
-                }
-                claimsSet.setClaim(Claims.raw_token.name(), token);
-                principal = new JWTCallerPrincipal(token, type, claimsSet, principalName);
-            } catch (final InvalidJwtException e) {
-                VALIDATION.warning(e.getMessage());
-                throw new ParseException("Failed to verify token", e);
-
-            } catch (final MalformedClaimException e) {
-                VALIDATION.warning(e.getMessage());
-                throw new ParseException("Failed to verify token claims", e);
-
-            } catch (final NoPublicKeysException e) {
-                VALIDATION.error(e.getMessage());
-                throw e;
-
-            } catch (final NoPrivateKeysException e) {
-                VALIDATION.error(e.getMessage());
-                throw e;
-            }
-
-            return principal;
+            return authContextInfo.getTokenVerifier().verify(token);
         }
 
         public static List<JsonWebKey> asJwks(final Map<String, Key> keys) {
@@ -515,7 +373,7 @@ public class MPJWTFilter implements Filter {
         }
     }
 
-    private static class NoPublicKeysException extends MPJWTException {
+    static class NoPublicKeysException extends MPJWTException {
 
         public NoPublicKeysException(final Throwable cause) {
             super(cause);
@@ -532,7 +390,7 @@ public class MPJWTFilter implements Filter {
         }
     }
 
-    private static class NoPrivateKeysException extends MPJWTException {
+    static class NoPrivateKeysException extends MPJWTException {
 
         public NoPrivateKeysException(final Throwable cause) {
             super(cause);
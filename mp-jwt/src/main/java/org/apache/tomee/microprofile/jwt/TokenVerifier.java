@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.microprofile.jwt;
+
+import org.apache.openejb.util.Logger;
+import org.apache.tomee.microprofile.jwt.config.JWTAuthConfiguration;
+import org.apache.tomee.microprofile.jwt.keys.KeyIdVerificationKeyResolver;
+import org.apache.tomee.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.eclipse.microprofile.jwt.Claims;
+import org.jose4j.jwa.AlgorithmConstraints;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.jwt.consumer.JwtContext;
+import org.jose4j.keys.resolvers.JwksDecryptionKeyResolver;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.apache.tomee.microprofile.jwt.MPJWTFilter.ValidateJSonWebToken.asJwks;
+
+/**
+ * Verifies the tokens of a {@link JWTAuthConfiguration}.
+ *
+ * The jose4j consumer is built once for the current keys and built again when
+ * the key suppliers return other keys, after the refresh of a cached location
+ * for instance.
+ *
+ * The verified tokens are kept by the SHA-256 of the token until they expire,
+ * their max age is reached or the keys change. A token coming again is then
+ * neither parsed nor its signature checked. When the cache is full the expired
+ * tokens are dropped and if it is still full it is emptied.
+ */
+public class TokenVerifier {
+    private static final Logger VALIDATION = Logger.getInstance(JWTLogCategories.VALIDATION, TokenVerifier.class);
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JWTAuthConfiguration configuration;
+    private final ConcurrentMap<ByteBuffer, Verified> verified = new ConcurrentHashMap<>();
+    private volatile Consumer consumer;
+
+    public TokenVerifier(final JWTAuthConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public JWTCallerPrincipal verify(final String token) throws ParseException {
+        final Consumer current;
+        try {
+            current = consumer();
+        } catch (final MPJWTFilter.NoPublicKeysException | MPJWTFilter.NoPrivateKeysException e) {
+            VALIDATION.error(e.getMessage());
+            throw e;
+        }
+
+        final int cacheSize = configuration.getTokenCacheSize();
+        final long now = System.currentTimeMillis();
+        if (cacheSize <= 0) {
+            return process(current, token, now).principal;
+        }
+
+        final ByteBuffer key = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        final Verified cached = verified.get(key);
+        if (cached != null) {
+            if (cached.consumer == current && now < cached.expiresAt && cached.token.equals(token)) {
+                return cached.principal;
+            }
+            verified.remove(key, cached);
+        }
+
+        final Verified processed = process(current, token, now);
+        if (processed.expiresAt > now) {
+            if (verified.size() >= cacheSize) {
+                verified.values().removeIf(v -> v.expiresAt <= now);
+                if (verified.size() >= cacheSize) {
+                    verified.clear();
+                }
+            }
+            verified.put(key, processed);
+        }
+        return processed.principal;
+    }
+
+    int size() {
+        return verified.size();
+    }
+
+    private Consumer consumer() {
+        final Map<String, Key> publicKeys;
+        try {
+            publicKeys = configuration.getPublicKeys();
+        } catch (final Exception e) {
+            throw new MPJWTFilter.NoPublicKeysException(e);
+        }
+
+        final Map<String, Key> decryptKeys;
+        try {
+            decryptKeys = configuration.getDecryptKeys();
+        } catch (final Exception e) {
+            throw new MPJWTFilter.NoPrivateKeysException(e);
+        }
+
+        final Consumer current = consumer;
+        if (current != null && current.uses(publicKeys, decryptKeys)) {
+            return current;
+        }
+
+        final Consumer built = new Consumer(publicKeys, decryptKeys, build(publicKeys, decryptKeys));
+        consumer = built;
+        verified.clear(); // signed with keys which may be gone
+        return built;
+    }
+
+    private JwtConsumer build(final Map<String, Key> publicKeys, final Map<String, Key> decryptKeys) {
+        final JwtConsumerBuilder builder = new JwtConsumerBuilder()
+                .setRelaxVerificationKeyValidation()
+                .setRelaxDecryptionKeyValidation()
+                .setRequireSubject();
+
+        if (configuration.getSignatureAlgorithm() != null) {
+            builder.setJwsAlgorithmConstraints(
+                    new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
+                            configuration.getSignatureAlgorithm()
+                    ));
+        } else {
+            builder.setJwsAlgorithmConstraints(
+                    new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
+                            AlgorithmIdentifiers.RSA_USING_SHA256,
+                            AlgorithmIdentifiers.RSA_USING_SHA384,
+                            AlgorithmIdentifiers.RSA_USING_SHA512,
+                            AlgorithmIdentifiers.ECDSA_USING_P256_CURVE_AND_SHA256,
+                            AlgorithmIdentifiers.ECDSA_USING_P384_CURVE_AND_SHA384,
+                            AlgorithmIdentifiers.ECDSA_USING_P521_CURVE_AND_SHA512
+                    ));
+        }
+
+        if (configuration.getDecryptAlgorithm() != null) {
+            builder.setJweAlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
+                    configuration.getDecryptAlgorithm()
+            );
+        } else {
+            builder.setJweAlgorithmConstraints(AlgorithmConstraints.ConstraintType.PERMIT,
+                    KeyManagementAlgorithmIdentifiers.RSA_OAEP,
+                    KeyManagementAlgorithmIdentifiers.RSA_OAEP_256,
+                    KeyManagementAlgorithmIdentifiers.ECDH_ES,
+                    KeyManagementAlgorithmIdentifiers.ECDH_ES_A128KW,
+                    KeyManagementAlgorithmIdentifiers.ECDH_ES_A192KW,
+                    KeyManagementAlgorithmIdentifiers.ECDH_ES_A256KW
+            );
+        }
+
+        if (configuration.getAudiences().length > 0) {
+            builder.setExpectedAudience(true, configuration.getAudiences());
+        } else {
+            builder.setSkipDefaultAudienceValidation();
+        }
+
+        if (!configuration.isAllowNoExpiryClaim()) {
+            builder.setRequireExpirationTime();
+        }
+        if (configuration.getIssuer() != null) {
+            builder.setExpectedIssuer(configuration.getIssuer());
+        }
+        if (configuration.getClockSkew() >= 0) {
+            builder.setAllowedClockSkewInSeconds(configuration.getClockSkew());
+        } else {
+            builder.setEvaluationTime(NumericDate.fromSeconds(0));
+        }
+
+        if (publicKeys.size() == 1) {
+            builder.setVerificationKey(publicKeys.values().iterator().next());
+        } else if (publicKeys.size() > 1) {
+            builder.setVerificationKeyResolver(
+                    new KeyIdVerificationKeyResolver(publicKeys, new JwksVerificationKeyResolver(asJwks(publicKeys))));
+        }
+
+        if (decryptKeys.size() == 1) {
+            builder.setDecryptionKey(decryptKeys.values().iterator().next());
+            builder.setEnableRequireEncryption();
+        } else if (decryptKeys.size() > 1) {
+            builder.setDecryptionKeyResolver(new JwksDecryptionKeyResolver(asJwks(decryptKeys)));
+            builder.setEnableRequireEncryption();
+        }
+
+        if (configuration.getTokenAge() != null) {
+            builder.setRequireIssuedAt();
+            builder.setIssuedAtRestrictions(configuration.getTokenAge(), configuration.getTokenAge());
+        }
+
+        return builder.build();
+    }
+
+    private Verified process(final Consumer consumer, final String token, final long now) throws ParseException {
+        try {
+            // validates the JWT and processes it to the claims
+            final JwtContext jwtContext = consumer.jwtConsumer.process(token);
+            final String type = jwtContext.getJoseObjects().get(0).getHeader("typ");
+            final JwtClaims claimsSet = jwtContext.getJwtClaims();
+
+            // We have to determine the unique name to use as the principal name. It comes from upn, preferred_username, sub in that order
+            String principalName = claimsSet.getClaimValue("upn", String.class);
+            if (principalName == null) {
+                principalName = claimsSet.getClaimValue("preferred_username", String.class);
+                if (principalName == null) {
+                    principalName = claimsSet.getSubject();
+                }
+            }
+
+            // read before the principal converts the claims to JSON-P types
+            final long expiresAt = expiresAt(claimsSet, now);
+
+            claimsSet.setClaim(Claims.raw_token.name(), token);
+            return new Verified(token, new JWTCallerPrincipal(token, type, claimsSet, principalName), consumer, expiresAt);
+        } catch (final InvalidJwtException e) {
+            VALIDATION.warning(e.getMessage());
+            throw new ParseException("Failed to verify token", e);
+
+        } catch (final MalformedClaimException e) {
+            VALIDATION.warning(e.getMessage());
+            throw new ParseException("Failed to verify token claims", e);
+        }
+    }
+
+    /**
+     * The clock skew is ignored so a token in it is verified again.
+     */
+    private long expiresAt(final JwtClaims claimsSet, final long now) throws MalformedClaimException {
+        long expiresAt = now + configuration.getTokenCacheMaxAge();
+        if (configuration.getClockSkew() < 0) { // the time claims are evaluated at the epoch, they never expire
+            return expiresAt;
+        }
+
+        final NumericDate expirationTime = claimsSet.getExpirationTime();
+        if (expirationTime != null) {
+            expiresAt = Math.min(expiresAt, expirationTime.getValueInMillis());
+        }
+        final NumericDate issuedAt = claimsSet.getIssuedAt();
+        if (configuration.getTokenAge() != null && issuedAt != null) {
+            expiresAt = Math.min(expiresAt, issuedAt.getValueInMillis() + configuration.getTokenAge() * 1000L);
+        }
+        return expiresAt;
+    }
+
+    private static final class Consumer {
+        private final Map<String, Key> publicKeys;
+        private final Map<String, Key> decryptKeys;
+        private final JwtConsumer jwtConsumer;
+
+        private Consumer(final Map<String, Key> publicKeys, final Map<String, Key> decryptKeys, final JwtConsumer jwtConsumer) {
+            this.publicKeys = publicKeys;
+            this.decryptKeys = decryptKeys;
+            this.jwtConsumer = jwtConsumer;
+        }
+
+        private boolean uses(final Map<String, Key> publicKeys, final Map<String, Key> decryptKeys) {
+            // the cached and fixed suppliers return the same maps until the keys change
+            return (this.publicKeys == publicKeys || this.publicKeys.equals(publicKeys))
+                    && (this.decryptKeys == decryptKeys || this.decryptKeys.equals(decryptKeys));
+        }
+    }
+
+    private static final class Verified {
+        private final String token;
+        private final JWTCallerPrincipal principal;
+        private final Consumer consumer;
+        private final long expiresAt;
+
+        private Verified(final String token, final JWTCallerPrincipal principal, final Consumer consumer, final long expiresAt) {
+            this.token = token;
+            this.principal = principal;
+            this.consumer = consumer;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
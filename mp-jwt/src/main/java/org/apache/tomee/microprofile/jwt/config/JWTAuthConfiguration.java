@@ -16,8 +16,11 @@
  */
 package org.apache.tomee.microprofile.jwt.config;
 
+import org.apache.tomee.microprofile.jwt.TokenVerifier;
+
 import java.security.Key;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -25,6 +28,8 @@ import java.util.function.Supplier;
  */
 public class JWTAuthConfiguration {
     public static final String DEFAULT_KEY = "DEFAULT";
+    public static final int DEFAULT_TOKEN_CACHE_SIZE = 1000;
+    public static final long DEFAULT_TOKEN_CACHE_MAX_AGE = TimeUnit.MINUTES.toMillis(5);
 
     private final Supplier<Map<String, Key>> publicKeys;
     private final Supplier<Map<String, Key>> decryptKeys;
@@ -37,6 +42,9 @@ public class JWTAuthConfiguration {
     private final String cookieName;
     private final Integer tokenAge;
     private final Integer clockSkew;
+    private final int tokenCacheSize;
+    private final long tokenCacheMaxAge;
+    private volatile TokenVerifier tokenVerifier;
 
     /**
      * mp.jwt.verify.publickey.algorithm
@@ -56,6 +64,16 @@ public class JWTAuthConfiguration {
     private String decryptAlgorithm;
 
     public JWTAuthConfiguration(final Supplier<Map<String, Key>> publicKeys, final String issuer, final boolean allowNoExpiryClaim, final String[] audiences, final Supplier<Map<String, Key>> decryptKeys, final String header, final String cookie, final String decryptAlgorithm, final String signatureAlgorithm, final Integer tokenAge, final Integer clockSkew) {
+        this(publicKeys, issuer, allowNoExpiryClaim, audiences, decryptKeys, header, cookie, decryptAlgorithm, signatureAlgorithm, tokenAge, clockSkew,
+                DEFAULT_TOKEN_CACHE_SIZE, DEFAULT_TOKEN_CACHE_MAX_AGE);
+    }
+
+    /**
+     * @param tokenCacheSize   the number of verified tokens kept to skip their verification when they come again, 0 to disable it
+     * @param tokenCacheMaxAge how long in milliseconds a verified token is kept at most, it is also dropped when it expires
+     */
+    public JWTAuthConfiguration(final Supplier<Map<String, Key>> publicKeys, final String issuer, final boolean allowNoExpiryClaim, final String[] audiences, final Supplier<Map<String, Key>> decryptKeys, final String header, final String cookie, final String decryptAlgorithm, final String signatureAlgorithm, final Integer tokenAge, final Integer clockSkew,
+                                final int tokenCacheSize, final long tokenCacheMaxAge) {
         this.publicKeys = publicKeys;
         this.decryptKeys = decryptKeys;
         this.issuer = issuer;
@@ -67,6 +85,8 @@ public class JWTAuthConfiguration {
         this.signatureAlgorithm = signatureAlgorithm;
         this.tokenAge = tokenAge;
         this.clockSkew = clockSkew;
+        this.tokenCacheSize = tokenCacheSize;
+        this.tokenCacheMaxAge = tokenCacheMaxAge;
     }
 
     public String getCookieName() {
@@ -120,4 +140,29 @@ public class JWTAuthConfiguration {
     public Integer getClockSkew() {
         return clockSkew;
     }
+
+    public int getTokenCacheSize() {
+        return tokenCacheSize;
+    }
+
+    public long getTokenCacheMaxAge() {
+        return tokenCacheMaxAge;
+    }
+
+    /**
+     * @return the token consumer built for this configuration, created on first use
+     */
+    public TokenVerifier getTokenVerifier() {
+        TokenVerifier verifier = tokenVerifier;
+        if (verifier == null) {
+            synchronized (this) {
+                verifier = tokenVerifier;
+                if (verifier == null) {
+                    verifier = new TokenVerifier(this);
+                    tokenVerifier = verifier;
+                }
+            }
+        }
+        return verifier;
+    }
 }
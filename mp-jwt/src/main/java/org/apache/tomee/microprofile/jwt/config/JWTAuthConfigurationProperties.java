@@ -120,7 +120,12 @@ public class JWTAuthConfigurationProperties {
                 config.getOptionalValue("mp.jwt.decrypt.key.algorithm", String.class).orElse(null),
                 config.getOptionalValue("mp.jwt.verify.publickey.algorithm", String.class).orElse(null),
                 config.getOptionalValue(TOKEN_AGE, Integer.class).orElse(null),
-                config.getOptionalValue(CLOCK_SKEW, Integer.class).orElse(0));
+                config.getOptionalValue(CLOCK_SKEW, Integer.class).orElse(0),
+                config.getOptionalValue("tomee.jwt.verify.token.cache.size", Integer.class)
+                        .orElse(JWTAuthConfiguration.DEFAULT_TOKEN_CACHE_SIZE),
+                config.getOptionalValue("tomee.jwt.verify.token.cache.maxAge", Duration.class)
+                        .map(maxAge -> maxAge.getTime(TimeUnit.MILLISECONDS))
+                        .orElse(JWTAuthConfiguration.DEFAULT_TOKEN_CACHE_MAX_AGE));
     }
   
     private Boolean queryAllowExp(){
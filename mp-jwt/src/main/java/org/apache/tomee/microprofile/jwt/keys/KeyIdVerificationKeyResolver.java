@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.microprofile.jwt.keys;
+
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwx.JsonWebStructure;
+import org.jose4j.keys.resolvers.VerificationKeyResolver;
+import org.jose4j.lang.UnresolvableKeyException;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the verification key of a token by its kid header in the configured keys,
+ * the tokens without kid or with an unknown one go through the given resolver.
+ *
+ * The signature check still validates the key against the algorithm of the token.
+ */
+public class KeyIdVerificationKeyResolver implements VerificationKeyResolver {
+    private final Map<String, Key> keys;
+    private final VerificationKeyResolver fallback;
+
+    public KeyIdVerificationKeyResolver(final Map<String, Key> keys, final VerificationKeyResolver fallback) {
+        this.keys = new HashMap<>(keys);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Key resolveKey(final JsonWebSignature jws, final List<JsonWebStructure> nestingContext) throws UnresolvableKeyException {
+        final String kid = jws.getKeyIdHeaderValue();
+        if (kid != null) {
+            final Key key = keys.get(kid);
+            if (key != null) {
+                return key;
+            }
+        }
+        return fallback.resolveKey(jws, nestingContext);
+    }
+}
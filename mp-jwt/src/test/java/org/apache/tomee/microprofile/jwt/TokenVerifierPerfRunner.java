@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.microprofile.jwt;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.interfaces.ECPrivateKey;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of the same RS256 or ES256 token with the verified tokens
+ * cache (cacheSize=1000) and without it (cacheSize=0), the consumer is
+ * built once in both cases.
+ */
+@State(Scope.Benchmark)
+public class TokenVerifierPerfRunner {
+
+    @Param({"RS256", "ES256"})
+    private String algorithm;
+
+    @Param({"0", "1000"})
+    private int cacheSize;
+
+    private TokenVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setup() throws Exception {
+        final Map<String, Key> keys;
+        if ("RS256".equals(algorithm)) {
+            final KeyPair rsa = TokenVerifierTest.rsa();
+            keys = Collections.singletonMap("key", rsa.getPublic());
+            token = TokenVerifierTest.token(JWSAlgorithm.RS256, "key", new RSASSASigner(rsa.getPrivate()), "perf");
+        } else {
+            final KeyPair ec = TokenVerifierTest.ec();
+            keys = Collections.singletonMap("key", ec.getPublic());
+            token = TokenVerifierTest.token(JWSAlgorithm.ES256, "key", new ECDSASigner((ECPrivateKey) ec.getPrivate()), "perf");
+        }
+        verifier = TokenVerifierTest.verifier(() -> keys, cacheSize, TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @Benchmark
+    public Object verify() throws ParseException {
+        return verifier.verify(token);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenVerifierPerfRunner.class.getSimpleName())
+                .addProfiler("gc")
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .threads(4)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.microprofile.jwt;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.tomee.microprofile.jwt.config.JWTAuthConfiguration;
+import org.apache.tomee.microprofile.jwt.principal.JWTCallerPrincipal;
+import org.junit.Test;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class TokenVerifierTest {
+
+    @Test
+    public void verifiedTokenIsReused() throws Exception {
+        final KeyPair rsa = rsa();
+        final TokenVerifier verifier = verifier(() -> Collections.singletonMap("rsa", rsa.getPublic()), 10, TimeUnit.MINUTES.toMillis(5));
+
+        final String token = token(JWSAlgorithm.RS256, "rsa", new RSASSASigner(rsa.getPrivate()), "alice");
+        final JWTCallerPrincipal first = verifier.verify(token);
+        assertEquals("alice", first.getName());
+        assertSame(first, verifier.verify(token));
+        assertEquals(1, verifier.size());
+
+        assertEquals("bob", verifier.verify(token(JWSAlgorithm.RS256, "rsa", new RSASSASigner(rsa.getPrivate()), "bob")).getName());
+        assertEquals(2, verifier.size());
+    }
+
+    @Test
+    public void disabledCache() throws Exception {
+        final KeyPair rsa = rsa();
+        final TokenVerifier verifier = verifier(() -> Collections.singletonMap("rsa", rsa.getPublic()), 0, TimeUnit.MINUTES.toMillis(5));
+
+        final String token = token(JWSAlgorithm.RS256, "rsa", new RSASSASigner(rsa.getPrivate()), "alice");
+        assertNotSame(verifier.verify(token), verifier.verify(token));
+        assertEquals(0, verifier.size());
+    }
+
+    @Test
+    public void keyChangeDropsVerifiedTokens() throws Exception {
+        final KeyPair rsa = rsa();
+        final AtomicReference<Map<String, Key>> keys = new AtomicReference<>(Collections.singletonMap("rsa", rsa.getPublic()));
+        final TokenVerifier verifier = verifier(keys::get, 10, TimeUnit.MINUTES.toMillis(5));
+
+        final String token = token(JWSAlgorithm.RS256, "rsa", new RSASSASigner(rsa.getPrivate()), "alice");
+        verifier.verify(token);
+
+        keys.set(Collections.singletonMap("rsa", rsa().getPublic())); // refreshed location
+        try {
+            verifier.verify(token);
+            fail("the key of the token is gone");
+        } catch (final ParseException e) {
+            assertEquals(0, verifier.size());
+        }
+    }
+
+    @Test
+    public void keyId() throws Exception {
+        final KeyPair rsa = rsa();
+        final KeyPair ec = ec();
+        final Map<String, Key> keys = new HashMap<>();
+        keys.put("rsa", rsa.getPublic());
+        keys.put("ec", ec.getPublic());
+        final TokenVerifier verifier = verifier(() -> keys, 10, TimeUnit.MINUTES.toMillis(5));
+
+        assertEquals("alice", verifier.verify(token(JWSAlgorithm.RS256, "rsa", new RSASSASigner(rsa.getPrivate()), "alice")).getName());
+        assertEquals("bob", verifier.verify(token(JWSAlgorithm.ES256, "ec", new ECDSASigner((ECPrivateKey) ec.getPrivate()), "bob")).getName());
+        try {
+            verifier.verify(token(JWSAlgorithm.ES256, "rsa", new ECDSASigner((ECPrivateKey) ec.getPrivate()), "eve"));
+            fail("signed with another key than the one of its kid");
+        } catch (final ParseException e) {
+            // ok
+        }
+    }
+
+    static TokenVerifier verifier(final Supplier<Map<String, Key>> publicKeys, final int cacheSize, final long maxAge) {
+        return new JWTAuthConfiguration(publicKeys, null, false, new String[0], Collections::emptyMap,
+                "authorization", "bearer", null, null, null, 0, cacheSize, maxAge).getTokenVerifier();
+    }
+
+    static String token(final JWSAlgorithm algorithm, final String kid, final JWSSigner signer, final String subject) throws Exception {
+        final long now = System.currentTimeMillis();
+        final SignedJWT jwt = new SignedJWT(
+                new JWSHeader.Builder(algorithm).type(JOSEObjectType.JWT).keyID(kid).build(),
+                new JWTClaimsSet.Builder()
+                        .subject(subject)
+                        .issueTime(new Date(now))
+                        .expirationTime(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                        .build());
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+
+    static KeyPair rsa() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    static KeyPair ec() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.openejb.client;
 
+import org.apache.openejb.client.serializer.CompactCodec;
 import org.apache.openejb.client.serializer.EJBDSerializer;
 import org.apache.openejb.client.serializer.SerializationWrapper;
 
@@ -334,6 +335,10 @@ public class EJBRequest implements ClusterableRequest {
             return version;
         }
 
+        private boolean isCompactCodec() {
+            return null != metaData && metaData.isCompactCodec();
+        }
+
         public void setAuthentication(final JNDIContext.AuthenticationInfo authentication) {
             this.authentication = authentication;
         }
@@ -500,6 +505,8 @@ public class EJBRequest implements ClusterableRequest {
 
             out.writeByte(types.length);
 
+            final CompactCodec codec = isCompactCodec() ? new CompactCodec() : null;
+
             for (int i = 0; i < types.length; i++) {
                 final Class clazz = types[i];
                 Object obj = args[i];
@@ -548,6 +555,10 @@ public class EJBRequest implements ClusterableRequest {
                     } else {
                         throw new IOException("Unkown primitive type: " + clazz);
                     }
+                } else if (codec != null) {
+                    out.write(OBJECT);
+                    codec.writeClass(out, clazz);
+                    codec.writeValue(out, obj);
                 } else {
                     out.write(OBJECT);
                     out.writeObject(clazz);
@@ -574,6 +585,8 @@ public class EJBRequest implements ClusterableRequest {
             final Class[] types = new Class[length];
             final Object[] args = new Object[length];
 
+            final CompactCodec codec = isCompactCodec() ? new CompactCodec() : null;
+
             for (int i = 0; i < types.length; i++) {
                 final Class clazz;
                 final Object obj;
@@ -622,9 +635,13 @@ public class EJBRequest implements ClusterableRequest {
                         break;
 
                     case OBJECT:
-                        clazz = (Class) in.readObject();
-                        final Object read = in.readObject();
-                        obj = read;
+                        if (codec != null) {
+                            clazz = codec.readClass(in);
+                            obj = codec.readValue(in);
+                        } else {
+                            clazz = (Class) in.readObject();
+                            obj = in.readObject();
+                        }
                         break;
                     default:
                         throw new IOException("Unkown data type: " + type);
@@ -16,6 +16,8 @@
  */
 package org.apache.openejb.client;
 
+import org.apache.openejb.client.serializer.CompactCodec;
+
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -47,6 +49,10 @@ public class EJBResponse implements ClusterableResponse {
         this.metaData = metaData;
     }
 
+    private boolean isCompactCodec() {
+        return null != metaData && metaData.isCompactCodec();
+    }
+
     public EJBRequest getRequest() {
         return request;
     }
@@ -123,7 +129,11 @@ public class EJBResponse implements ClusterableResponse {
 
         responseCode = in.readByte();
 
-        result = in.readObject();
+        if (isCompactCodec()) {
+            result = new CompactCodec().readValue(in);
+        } else {
+            result = in.readObject();
+        }
 
         if (version >= 2) {
 
@@ -162,7 +172,11 @@ public class EJBResponse implements ClusterableResponse {
         }
 
         start(Time.SERIALIZATION);
-        out.writeObject(result);
+        if (isCompactCodec()) {
+            new CompactCodec().writeValue(out, result);
+        } else {
+            out.writeObject(result);
+        }
         stop(Time.SERIALIZATION);
         stop(Time.TOTAL);
 
@@ -41,8 +41,20 @@ public class EjbObjectInputStream extends ObjectInputStream {
 
     @Override
     protected Class<?> resolveClass(final ObjectStreamClass classDesc) throws IOException, ClassNotFoundException {
-        final String n = RESOLVER_ATOMIC_REFERENCE.get().check(classDesc.getName());
-        final ClassLoader classloader = getClassloader();
+        return loadClass(classDesc.getName(), getClassloader());
+    }
+
+    /**
+     * Resolves a class name read from the wire applying the same
+     * blacklist/whitelist than the serialization path.
+     *
+     * @param name        class name as returned by {@link Class#getName()}
+     * @param classloader loader to use, primitives and bootstrap classes are also resolved
+     * @return the class
+     * @throws ClassNotFoundException if the class can't be found
+     */
+    public static Class<?> loadClass(final String name, final ClassLoader classloader) throws ClassNotFoundException {
+        final String n = RESOLVER_ATOMIC_REFERENCE.get().check(name);
         try {
             return Class.forName(n, false, classloader);
         } catch (ClassNotFoundException e) {
@@ -22,5 +22,12 @@ package org.apache.openejb.client;
 public enum KeepAliveStyle {
     PING,
     PING_PONG,
-    PING_PING
+    PING_PING,
+
+    /**
+     * Sent once when the connection is opened, every request and response
+     * that follows is framed with a correlation id (see {@link MultiplexedChannel})
+     * so concurrent calls share the connection and may complete out of order.
+     */
+    MULTIPLEX
 }
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single ejbd socket shared by concurrent calls.
+ *
+ * After the {@link KeepAliveStyle#MULTIPLEX} byte, each request and each response is a frame:
+ *
+ * Frame = correlation-id (int) length (int) payload (length bytes)
+ *
+ * The payload is exactly what a non multiplexed connection carries for one call
+ * (protocol version, object stream), the server answers with the id of the request,
+ * in whatever order the calls complete. A reader thread dispatches the responses
+ * to the waiting callers.
+ *
+ * Frames longer than the maximum frame length are a protocol error and close the connection.
+ */
+public class MultiplexedChannel implements Runnable {
+
+    public static final int DEFAULT_MAX_FRAME = 64 * 1024 * 1024;
+
+    private static final int CHUNK = 8192;
+
+    private final URI uri;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Lock writeLock = new ReentrantLock();
+    private final Semaphore inFlight;
+    private final long timeout;
+    private final int maxFrame;
+    private final Map<Integer, CompletableFuture<byte[]>> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private volatile IOException failure;
+
+    /**
+     * @param maxInFlight maximum concurrent calls on this channel
+     * @param timeout     maximum time to wait for a response in milliseconds
+     * @param maxFrame    maximum length of a response
+     */
+    public MultiplexedChannel(final URI uri, final Socket socket, final InputStream in, final OutputStream out,
+                              final int maxInFlight, final long timeout, final int maxFrame) throws IOException {
+        this.uri = uri;
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = new DataOutputStream(out);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.timeout = timeout;
+        this.maxFrame = maxFrame;
+
+        // the reader waits for responses forever, calls time out on their own
+        this.socket.setSoTimeout(0);
+
+        this.out.write(KeepAliveStyle.MULTIPLEX.ordinal());
+        this.out.flush();
+
+        final Thread reader = new Thread(this, "OpenEJB.client.multiplex." + uri.getHost() + ":" + uri.getPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public URI getURI() {
+        return uri;
+    }
+
+    public boolean isOpen() {
+        return failure == null;
+    }
+
+    public int getInFlight() {
+        return calls.size();
+    }
+
+    public boolean tryAcquire() {
+        return inFlight.tryAcquire();
+    }
+
+    public boolean tryAcquire(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return inFlight.tryAcquire(timeout, unit);
+    }
+
+    public void release() {
+        inFlight.release();
+    }
+
+    /**
+     * Sends one request and waits for its response.
+     *
+     * @return the response payload
+     * @throws SocketTimeoutException if the response didn't come in time, the channel stays usable
+     * @throws IOException            if the channel failed, pending calls fail with it
+     */
+    public byte[] call(final byte[] request, final int length) throws IOException {
+        final IOException failed = this.failure;
+        if (failed != null) {
+            throw new IOException("Connection to " + uri + " failed", failed);
+        }
+
+        final int id = ids.incrementAndGet();
+        final CompletableFuture<byte[]> response = new CompletableFuture<>();
+        calls.put(id, response);
+
+        if (this.failure != null) { // reader died meanwhile and may have missed our call
+            calls.remove(id);
+            throw new IOException("Connection to " + uri + " failed", this.failure);
+        }
+
+        // a lock rather than a monitor, callers may be virtual threads
+        writeLock.lock();
+        try {
+            writeFrame(out, id, request, length);
+            out.flush();
+        } catch (final IOException e) {
+            calls.remove(id);
+            fail(e);
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            return response.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            calls.remove(id);
+            throw new SocketTimeoutException("No response from " + uri + " after " + timeout + "ms");
+        } catch (final InterruptedException e) {
+            calls.remove(id);
+            Thread.interrupted();
+            throw new IOException("Interrupted while waiting for a response from " + uri, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            throw IOException.class.isInstance(cause) ? IOException.class.cast(cause) : new IOException(cause);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                final int id = in.readInt();
+                final byte[] payload = readPayload(in, maxFrame);
+                final CompletableFuture<byte[]> call = calls.remove(id);
+                if (call != null) { // else the caller gave up waiting
+                    call.complete(payload);
+                }
+            }
+        } catch (final IOException e) {
+            fail(e);
+        } catch (final Throwable e) {
+            fail(new IOException(e));
+        }
+    }
+
+    public void close() {
+        fail(new IOException("Connection to " + uri + " closed"));
+    }
+
+    private void fail(final IOException e) {
+        if (this.failure == null) {
+            this.failure = e;
+        }
+
+        try {
+            socket.close();
+        } catch (final Throwable t) {
+            //Ignore
+        }
+
+        for (final Integer id : calls.keySet()) {
+            final CompletableFuture<byte[]> call = calls.remove(id);
+            if (call != null) {
+                call.completeExceptionally(e);
+            }
+        }
+    }
+
+    public static void writeFrame(final DataOutputStream out, final int id, final byte[] payload, final int length) throws IOException {
+        out.writeInt(id);
+        out.writeInt(length);
+        out.write(payload, 0, length);
+    }
+
+    /**
+     * Reads the length and the payload of a frame. The payload buffer grows
+     * with the bytes actually received, not with the announced length.
+     */
+    public static byte[] readPayload(final DataInputStream in, final int maxFrame) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > maxFrame) {
+            throw new StreamCorruptedException("Invalid frame length " + length + ", maximum is " + maxFrame);
+        }
+
+        byte[] payload = new byte[Math.min(length, CHUNK)];
+        int read = 0;
+        while (read < length) {
+            if (read == payload.length) {
+                payload = Arrays.copyOf(payload, (int) Math.min(length, payload.length * 2L));
+            }
+            final int n = in.read(payload, read, payload.length - read);
+            if (n < 0) {
+                throw new EOFException("Expected " + length + " bytes, got " + read);
+            }
+            read += n;
+        }
+        return payload;
+    }
+
+    /**
+     * Gives access to the written bytes without copying them.
+     */
+    public static class Buffer extends ByteArrayOutputStream {
+
+        public Buffer(final int size) {
+            super(size);
+        }
+
+        public byte[] array() {
+            return buf;
+        }
+    }
+}
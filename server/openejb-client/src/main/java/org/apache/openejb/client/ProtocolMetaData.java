@@ -39,6 +39,14 @@ public class ProtocolMetaData {
 
     public static final String VERSION = "4.6";
 
+    /**
+     * First version streaming method parameters and results with the
+     * {@link org.apache.openejb.client.serializer.CompactCodec}.
+     * Clients opt in with -Dopenejb.client.protocol.version=4.7 once the servers are upgraded,
+     * the server always answers with the version the client requested.
+     */
+    public static final String COMPACT_CODEC_VERSION = "4.7";
+
     private static final String OEJB = "OEJP";
     private transient String id;
     private transient int major;
@@ -70,6 +78,10 @@ public class ProtocolMetaData {
         return this.major >= major && (this.major != major || this.minor >= minor);
     }
 
+    public boolean isCompactCodec() {
+        return isAtLeast(4, 7);
+    }
+
     public String getId() {
         return id;
     }
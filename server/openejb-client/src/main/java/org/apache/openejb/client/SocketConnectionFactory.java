@@ -23,6 +23,7 @@ import org.apache.openejb.client.event.ConnectionPoolTimeout;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +39,9 @@ import java.util.Stack;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.GZIPInputStream;
@@ -54,14 +58,21 @@ public class SocketConnectionFactory implements ConnectionFactory {
     private static final String PROPERTY_POOL_SIZE2 = "openejb.client.connectionpool.size";
     public static final String PROPERTY_KEEPALIVE = "openejb.client.keepalive";
     public static final String ENABLED_CIPHER_SUITES = "openejb.client.enabledCipherSuites";
+    public static final String PROPERTY_MULTIPLEX = "openejb.client.connection.multiplex";
+    public static final String PROPERTY_MULTIPLEX_IN_FLIGHT = "openejb.client.connection.multiplex.inflight";
+    public static final String PROPERTY_MULTIPLEX_MAX_FRAME = "openejb.client.connection.multiplex.maxframe";
 
     private static final Map<URI, Pool> connections = new ConcurrentHashMap<>();
+    private static final Map<URI, Channels> channels = new ConcurrentHashMap<>();
     private int size = 5;
     private long timeoutPool = 1000;
     private int timeoutConnect = 1000;
     private int timeoutRead = 14400000;
     private int timeoutLinger;
     private String[] enabledCipherSuites;
+    private int multiplex;
+    private int multiplexInFlight = 100;
+    private int multiplexMaxFrame = MultiplexedChannel.DEFAULT_MAX_FRAME;
 
     public SocketConnectionFactory() {
 
@@ -71,6 +82,9 @@ public class SocketConnectionFactory implements ConnectionFactory {
         this.timeoutLinger = this.getTimeoutLinger();
         this.timeoutRead = this.getTimeoutRead();
         this.enabledCipherSuites = this.getEnabledCipherSuites();
+        this.multiplex = getInt(System.getProperties(), PROPERTY_MULTIPLEX, this.multiplex);
+        this.multiplexInFlight = getInt(System.getProperties(), PROPERTY_MULTIPLEX_IN_FLIGHT, this.multiplexInFlight);
+        this.multiplexMaxFrame = getInt(System.getProperties(), PROPERTY_MULTIPLEX_MAX_FRAME, this.multiplexMaxFrame);
 
         try {
             String property = System.getProperty(PROPERTY_KEEPALIVE);
@@ -153,6 +167,10 @@ public class SocketConnectionFactory implements ConnectionFactory {
     @Override
     public Connection getConnection(final URI uri) throws java.io.IOException {
 
+        if (this.multiplex > 0) {
+            return this.getChannels(uri).getConnection();
+        }
+
         final Pool pool = this.getPool(uri);
 
         SocketConnection conn = pool.get();
@@ -218,6 +236,163 @@ public class SocketConnectionFactory implements ConnectionFactory {
         return pool;
     }
 
+    private Channels getChannels(final URI uri) {
+        Channels multiplexed = channels.get(uri);
+        if (multiplexed == null) {
+            multiplexed = new Channels(uri, this.multiplex);
+            final Channels existing = channels.putIfAbsent(uri, multiplexed);
+            if (existing != null) {
+                multiplexed = existing;
+            }
+        }
+        return multiplexed;
+    }
+
+    /**
+     * The shared sockets of one server when multiplexing is enabled, a call
+     * goes to the first channel with a free in-flight slot starting from a
+     * rotating index, and waits on one of them if all are busy.
+     */
+    private class Channels {
+
+        private final URI uri;
+        private final AtomicReferenceArray<MultiplexedChannel> slots;
+        private final Lock[] locks;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private Channels(final URI uri, final int size) {
+            this.uri = uri;
+            this.slots = new AtomicReferenceArray<>(size);
+            this.locks = new Lock[size];
+            for (int i = 0; i < size; i++) {
+                this.locks[i] = new ReentrantLock();
+            }
+        }
+
+        private Connection getConnection() throws IOException {
+            final int start = (this.next.getAndIncrement() & Integer.MAX_VALUE) % this.locks.length;
+            for (int i = 0; i < this.locks.length; i++) {
+                final MultiplexedChannel channel = this.channel((start + i) % this.locks.length);
+                if (channel.tryAcquire()) {
+                    return new MultiplexedConnection(channel);
+                }
+            }
+
+            final MultiplexedChannel channel = this.channel(start);
+            try {
+                if (channel.tryAcquire(SocketConnectionFactory.this.timeoutPool, TimeUnit.MILLISECONDS)) {
+                    return new MultiplexedConnection(channel);
+                }
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+            }
+
+            final ConnectionPoolTimeoutException exception = new ConnectionPoolTimeoutException("No multiplexed connection available (" +
+                this.locks.length + " connections, " + SocketConnectionFactory.this.multiplexInFlight + " calls each).  Waited for " +
+                SocketConnectionFactory.this.timeoutPool + " milliseconds for a connection.");
+            exception.fillInStackTrace();
+            Client.fireEvent(new ConnectionPoolTimeout(this.uri, this.locks.length, SocketConnectionFactory.this.timeoutPool, TimeUnit.MILLISECONDS, exception));
+            throw exception;
+        }
+
+        /**
+         * Open channels are read without locking, only the callers of a slot
+         * which needs a new connection wait for it.
+         */
+        private MultiplexedChannel channel(final int index) throws IOException {
+            MultiplexedChannel channel = this.slots.get(index);
+            if (channel != null && channel.isOpen()) {
+                return channel;
+            }
+
+            final Lock lock = this.locks[index];
+            lock.lock();
+            try {
+                channel = this.slots.get(index);
+                if (channel == null || !channel.isOpen()) {
+                    final SocketConnection conn = new SocketConnection(this.uri, null);
+                    conn.open(this.uri);
+                    try {
+                        channel = new MultiplexedChannel(this.uri, conn.socket, conn.getInputStream(), conn.getOutputStream(),
+                            SocketConnectionFactory.this.multiplexInFlight, SocketConnectionFactory.this.timeoutRead,
+                            SocketConnectionFactory.this.multiplexMaxFrame);
+                    } catch (IOException e) {
+                        conn.cleanUp();
+                        throw e;
+                    }
+                    this.slots.set(index, channel);
+                }
+                return channel;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * One call on a {@link MultiplexedChannel}: the request is buffered and
+     * sent as a frame when the response is asked for.
+     */
+    private static class MultiplexedConnection implements Connection {
+
+        private final MultiplexedChannel channel;
+        private final MultiplexedChannel.Buffer request = new MultiplexedChannel.Buffer(1024);
+        private final Lock lock = new ReentrantLock(); // not a monitor, call() can wait up to the read timeout
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile InputStream response;
+
+        private MultiplexedConnection(final MultiplexedChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public URI getURI() {
+            return this.channel.getURI();
+        }
+
+        @Override
+        public void discard() {
+            // a failed call doesn't mean the channel failed, the reader thread knows
+            this.release();
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.release();
+        }
+
+        private void release() {
+            if (this.released.compareAndSet(false, true)) {
+                this.channel.release();
+            }
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            InputStream in = this.response;
+            if (in != null) {
+                return in;
+            }
+
+            this.lock.lock();
+            try {
+                in = this.response;
+                if (in == null) {
+                    in = new ByteArrayInputStream(this.channel.call(this.request.array(), this.request.size()));
+                    this.response = in;
+                }
+                return in;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return this.request;
+        }
+    }
+
     class SocketConnection implements Connection {
 
         private Socket socket = null;
@@ -337,7 +512,9 @@ public class SocketConnectionFactory implements ConnectionFactory {
         @Override
         public void discard() {
             try {
-                this.pool.put(null);
+                if (this.pool != null) {
+                    this.pool.put(null);
+                }
             } finally {
                 this.discarded = true;
                 this.cleanUp();
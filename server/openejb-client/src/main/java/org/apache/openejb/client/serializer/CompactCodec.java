@@ -0,0 +1,510 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.client.serializer;
+
+import org.apache.openejb.client.EjbObjectInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary encoding of the values carried by an ejbd invocation
+ * (method parameters and results), used when both sides speak
+ * {@link org.apache.openejb.client.ProtocolMetaData#COMPACT_CODEC_VERSION} or later.
+ *
+ * Primitives, strings, a few common value types and the plain JDK collections
+ * are streamed directly with variable length integers. Classes registered with
+ * {@link #register(Class, Externalizer)} (application DTOs) are written through
+ * their externalizer. Anything else falls back to {@link ObjectOutput#writeObject(Object)}.
+ *
+ * Class names are only written the first time a class is seen by a codec instance,
+ * later occurrences are a small index. An instance is stateful and must be used for
+ * a single stream and on a single thread, the writer and the reader of a stream
+ * must each use their own instance.
+ *
+ * Values streamed directly are copied by value: shared references between them
+ * are not preserved and self referencing collections are not supported, stay on
+ * plain serialization (4.6) if an API relies on it.
+ *
+ * Lengths and sizes read from the stream are checked against {@link #MAX_BYTES},
+ * {@link #MAX_ELEMENTS} and {@link #MAX_DEPTH} as well as against the serialization
+ * filter of the underlying {@link ObjectInputStream}, and buffers only grow with
+ * the bytes actually received.
+ */
+public class CompactCodec {
+
+    /**
+     * Maximum length of a string, byte array or big integer read from a stream, 64MB by default.
+     */
+    public static final String MAX_BYTES = "openejb.client.compact-codec.max-bytes";
+
+    /**
+     * Maximum number of elements (or entries) of a collection read from a stream, 1048576 by default.
+     */
+    public static final String MAX_ELEMENTS = "openejb.client.compact-codec.max-elements";
+
+    /**
+     * Maximum nesting of the collections read from a stream, 64 by default.
+     */
+    public static final String MAX_DEPTH = "openejb.client.compact-codec.max-depth";
+
+    private static final int MAX_BYTES_VALUE = Integer.getInteger(MAX_BYTES, 64 * 1024 * 1024);
+    private static final int MAX_ELEMENTS_VALUE = Integer.getInteger(MAX_ELEMENTS, 1024 * 1024);
+    private static final int MAX_DEPTH_VALUE = Integer.getInteger(MAX_DEPTH, 64);
+    private static final int CHUNK = 8192;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int TRUE = 4;
+    private static final int FALSE = 5;
+    private static final int DOUBLE = 6;
+    private static final int FLOAT = 7;
+    private static final int SHORT = 8;
+    private static final int BYTE = 9;
+    private static final int CHAR = 10;
+    private static final int BYTES = 11;
+    private static final int ARRAY_LIST = 12;
+    private static final int HASH_SET = 13;
+    private static final int LINKED_HASH_SET = 14;
+    private static final int HASH_MAP = 15;
+    private static final int LINKED_HASH_MAP = 16;
+    private static final int DATE = 17;
+    private static final int BIG_DECIMAL = 18;
+    private static final int BIG_INTEGER = 19;
+    private static final int UUID_VALUE = 20;
+    private static final int EXTERNALIZED = 21;
+    private static final int OBJECT = 22;
+
+    private static final int NEW_CLASS = 0;
+
+    private static final Map<Class<?>, Externalizer<?>> EXTERNALIZERS = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Integer> writtenClasses = new IdentityHashMap<>();
+    private final List<Class<?>> readClasses = new ArrayList<>();
+    private int depth;
+
+    /**
+     * Registers a DTO type, the same registration must exist on both sides.
+     * Only exact class matches are externalized, subclasses are not.
+     *
+     * @param type         the DTO class
+     * @param externalizer writes and reads the DTO state
+     * @param <T>          the DTO type
+     */
+    public static <T> void register(final Class<T> type, final Externalizer<T> externalizer) {
+        EXTERNALIZERS.put(type, externalizer);
+    }
+
+    public static void unregister(final Class<?> type) {
+        EXTERNALIZERS.remove(type);
+    }
+
+    public void writeClass(final ObjectOutput out, final Class<?> type) throws IOException {
+        final Integer index = writtenClasses.get(type);
+        if (index != null) {
+            writeVarInt(out, index);
+            return;
+        }
+        writtenClasses.put(type, writtenClasses.size() + 1);
+        writeVarInt(out, NEW_CLASS);
+        writeString(out, type.getName());
+    }
+
+    public Class<?> readClass(final ObjectInput in) throws IOException, ClassNotFoundException {
+        final int index = readVarInt(in);
+        if (index != NEW_CLASS) {
+            if (index < 0 || index > readClasses.size()) {
+                throw new StreamCorruptedException("Unknown class index " + index);
+            }
+            return readClasses.get(index - 1);
+        }
+        final Class<?> type = EjbObjectInputStream.loadClass(readString(in), Thread.currentThread().getContextClassLoader());
+        readClasses.add(type);
+        return type;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void writeValue(final ObjectOutput out, final Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+            return;
+        }
+
+        final Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.write(STRING);
+            writeString(out, (String) value);
+        } else if (type == Integer.class) {
+            out.write(INT);
+            writeVarLong(out, zigzag((Integer) value));
+        } else if (type == Long.class) {
+            out.write(LONG);
+            writeVarLong(out, zigzag((Long) value));
+        } else if (type == Boolean.class) {
+            out.write((Boolean) value ? TRUE : FALSE);
+        } else if (type == Double.class) {
+            out.write(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.write(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.write(SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.write(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.write(CHAR);
+            out.writeChar((Character) value);
+        } else if (type == byte[].class) {
+            final byte[] bytes = (byte[]) value;
+            out.write(BYTES);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        } else if (type == ArrayList.class) {
+            out.write(ARRAY_LIST);
+            writeElements(out, (Collection<?>) value);
+        } else if (type == HashSet.class) {
+            out.write(HASH_SET);
+            writeElements(out, (Collection<?>) value);
+        } else if (type == LinkedHashSet.class) {
+            out.write(LINKED_HASH_SET);
+            writeElements(out, (Collection<?>) value);
+        } else if (type == HashMap.class) {
+            out.write(HASH_MAP);
+            writeEntries(out, (Map<?, ?>) value);
+        } else if (type == LinkedHashMap.class) {
+            out.write(LINKED_HASH_MAP);
+            writeEntries(out, (Map<?, ?>) value);
+        } else if (type == Date.class) {
+            out.write(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (type == BigDecimal.class) {
+            final BigDecimal decimal = (BigDecimal) value;
+            out.write(BIG_DECIMAL);
+            writeVarInt(out, decimal.scale());
+            writeBigInteger(out, decimal.unscaledValue());
+        } else if (type == BigInteger.class) {
+            out.write(BIG_INTEGER);
+            writeBigInteger(out, (BigInteger) value);
+        } else if (type == UUID.class) {
+            final UUID uuid = (UUID) value;
+            out.write(UUID_VALUE);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            final Externalizer<Object> externalizer = (Externalizer<Object>) EXTERNALIZERS.get(type);
+            if (externalizer != null) {
+                out.write(EXTERNALIZED);
+                writeClass(out, type);
+                externalizer.write(this, out, value);
+            } else {
+                out.write(OBJECT);
+                out.writeObject(value);
+            }
+        }
+    }
+
+    public Object readValue(final ObjectInput in) throws IOException, ClassNotFoundException {
+        final int tag = in.read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INT:
+                return (int) unzigzag(readVarLong(in));
+            case LONG:
+                return unzigzag(readVarLong(in));
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case SHORT:
+                return in.readShort();
+            case BYTE:
+                return in.readByte();
+            case CHAR:
+                return in.readChar();
+            case BYTES:
+                return readBytes(in);
+            case ARRAY_LIST:
+                return readElements(in, new ArrayList<>());
+            case HASH_SET:
+                return readElements(in, new HashSet<>());
+            case LINKED_HASH_SET:
+                return readElements(in, new LinkedHashSet<>());
+            case HASH_MAP:
+                return readEntries(in, new HashMap<>());
+            case LINKED_HASH_MAP:
+                return readEntries(in, new LinkedHashMap<>());
+            case DATE:
+                return new Date(in.readLong());
+            case BIG_DECIMAL: {
+                final int scale = readVarInt(in);
+                return new BigDecimal(readBigInteger(in), scale);
+            }
+            case BIG_INTEGER:
+                return readBigInteger(in);
+            case UUID_VALUE:
+                return new UUID(in.readLong(), in.readLong());
+            case EXTERNALIZED: {
+                final Class<?> type = readClass(in);
+                final Externalizer<?> externalizer = EXTERNALIZERS.get(type);
+                if (externalizer == null) {
+                    throw new StreamCorruptedException("No externalizer registered for " + type.getName());
+                }
+                return externalizer.read(this, in);
+            }
+            case OBJECT:
+                return in.readObject();
+            default:
+                throw new StreamCorruptedException("Unknown value tag " + tag);
+        }
+    }
+
+    private void writeElements(final ObjectOutput out, final Collection<?> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (final Object value : values) {
+            writeValue(out, value);
+        }
+    }
+
+    private Collection<Object> readElements(final ObjectInput in, final Collection<Object> values) throws IOException, ClassNotFoundException {
+        final int size = readSize(in);
+        depth++;
+        try {
+            for (int i = 0; i < size; i++) {
+                values.add(readValue(in));
+            }
+        } finally {
+            depth--;
+        }
+        return values;
+    }
+
+    private void writeEntries(final ObjectOutput out, final Map<?, ?> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (final Map.Entry<?, ?> entry : values.entrySet()) {
+            writeValue(out, entry.getKey());
+            writeValue(out, entry.getValue());
+        }
+    }
+
+    private Map<Object, Object> readEntries(final ObjectInput in, final Map<Object, Object> values) throws IOException, ClassNotFoundException {
+        final int size = readSize(in);
+        depth++;
+        try {
+            for (int i = 0; i < size; i++) {
+                final Object key = readValue(in);
+                values.put(key, readValue(in));
+            }
+        } finally {
+            depth--;
+        }
+        return values;
+    }
+
+    private int readSize(final ObjectInput in) throws IOException {
+        if (depth >= MAX_DEPTH_VALUE) {
+            throw new StreamCorruptedException("Collections nested deeper than " + MAX_DEPTH_VALUE);
+        }
+        final int size = readLength(in, MAX_ELEMENTS_VALUE);
+        checkFilter(in, Object[].class, size, depth + 1);
+        return size;
+    }
+
+    public static void writeString(final ObjectOutput out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(final ObjectInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBigInteger(final ObjectOutput out, final BigInteger value) throws IOException {
+        final byte[] bytes = value.toByteArray();
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readBigInteger(final ObjectInput in) throws IOException {
+        final byte[] bytes = readBytes(in);
+        if (bytes.length == 0) {
+            throw new StreamCorruptedException("Empty big integer");
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * Reads a length prefixed byte array. The length comes from the peer so the array
+     * is grown chunk by chunk as the bytes arrive instead of being allocated upfront.
+     */
+    private static byte[] readBytes(final ObjectInput in) throws IOException {
+        final int length = readLength(in, MAX_BYTES_VALUE);
+        checkFilter(in, byte[].class, length, 1);
+
+        byte[] bytes = new byte[Math.min(length, CHUNK)];
+        int read = 0;
+        while (read < length) {
+            if (read == bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+            }
+            final int n = in.read(bytes, read, bytes.length - read);
+            if (n < 0) {
+                throw new EOFException("Expected " + length + " bytes, got " + read);
+            }
+            read += n;
+        }
+        return bytes;
+    }
+
+    private static int readLength(final ObjectInput in, final int max) throws IOException {
+        final long length = readVarLong(in);
+        if (length < 0 || length > max) {
+            throw new StreamCorruptedException("Invalid length " + length + ", maximum is " + max);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Applies the serialization filter of the stream (jdk.serialFilter by default)
+     * to the arrays and collections streamed directly, as writeObject would do.
+     */
+    private static void checkFilter(final ObjectInput in, final Class<?> type, final int length, final int depth) throws IOException {
+        if (!(in instanceof ObjectInputStream)) {
+            return;
+        }
+        final ObjectInputFilter filter = ((ObjectInputStream) in).getObjectInputFilter();
+        if (filter == null) {
+            return;
+        }
+        final ObjectInputFilter.Status status = filter.checkInput(new ObjectInputFilter.FilterInfo() {
+            @Override
+            public Class<?> serialClass() {
+                return type;
+            }
+
+            @Override
+            public long arrayLength() {
+                return length;
+            }
+
+            @Override
+            public long depth() {
+                return depth;
+            }
+
+            @Override
+            public long references() {
+                return 0;
+            }
+
+            @Override
+            public long streamBytes() {
+                return 0;
+            }
+        });
+        if (status == ObjectInputFilter.Status.REJECTED) {
+            throw new InvalidClassException(type.getName(), "filter status: REJECTED");
+        }
+    }
+
+    public static void writeVarInt(final ObjectOutput out, final int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    public static int readVarInt(final ObjectInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    private static void writeVarLong(final ObjectOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(final ObjectInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new StreamCorruptedException("Unexpected end of stream in variable length number");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable length number");
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Streams the state of a registered DTO. Nested values can be written
+     * with {@link CompactCodec#writeValue(ObjectOutput, Object)} to benefit
+     * from the same encoding.
+     *
+     * @param <T> the DTO type
+     */
+    public interface Externalizer<T> {
+
+        void write(CompactCodec codec, ObjectOutput out, T value) throws IOException;
+
+        T read(CompactCodec codec, ObjectInput in) throws IOException, ClassNotFoundException;
+    }
+}
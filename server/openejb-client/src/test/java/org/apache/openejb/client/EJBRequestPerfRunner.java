@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.client;
+
+import jakarta.ejb.EJBObject;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads back a business method request and its response with
+ * plain serialization (4.6) and with the compact codec (4.7).
+ *
+ * Reports ns/op and, through the bytes counter, the payload size per op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EJBRequestPerfRunner {
+
+    public interface Orders extends EJBObject {
+
+        List<Object> find(String customer, int page, Map<String, Object> filters);
+    }
+
+    @Param({"4.6", "4.7"})
+    private String protocol;
+
+    private ProtocolMetaData metaData;
+    private EJBMetaDataImpl ejb;
+    private Method method;
+    private Object[] args;
+    private List<Object> result;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Payload {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        metaData = new ProtocolMetaData(protocol);
+        ejb = new EJBMetaDataImpl(null, Orders.class, Integer.class, "STATELESS", "OrdersBean", InterfaceType.EJB_OBJECT, null, null);
+        method = Orders.class.getMethod("find", String.class, int.class, Map.class);
+
+        final Map<String, Object> filters = new HashMap<>();
+        filters.put("status", "OPEN");
+        filters.put("minAmount", 100L);
+        filters.put("express", true);
+        args = new Object[]{"ACME", 3, filters};
+
+        result = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final Map<String, Object> row = new HashMap<>();
+            row.put("id", (long) i);
+            row.put("label", "order-" + i);
+            row.put("amount", i * 10.5d);
+            result.add(row);
+        }
+    }
+
+    @Benchmark
+    public Object request(final Payload payload) throws Exception {
+        final EJBRequest request = new EJBRequest(RequestMethodCode.EJB_OBJECT_BUSINESS_METHOD, ejb, method, args, null, null);
+        request.setMetaData(metaData);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(512);
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            request.writeExternal(out);
+        }
+        payload.bytes += baos.size();
+
+        final EJBRequest read = new EJBRequest();
+        read.setMetaData(metaData);
+        try (final EjbObjectInputStream in = new EjbObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            read.readExternal(in);
+            read.getBody().readExternal(in);
+        }
+        return read.getMethodParameters();
+    }
+
+    @Benchmark
+    public Object response(final Payload payload) throws Exception {
+        final EJBResponse response = new EJBResponse();
+        response.setMetaData(metaData);
+        response.setResponse(EJBResponse.VERSION, ResponseCodes.EJB_OK, result);
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            response.writeExternal(out);
+        }
+        payload.bytes += baos.size();
+
+        final EJBResponse read = new EJBResponse();
+        read.setMetaData(metaData);
+        try (final EjbObjectInputStream in = new EjbObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            read.readExternal(in);
+        }
+        return read.getResult();
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EJBRequestPerfRunner.class.getSimpleName())
+                .forks(1)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .build())
+                .run();
+    }
+}
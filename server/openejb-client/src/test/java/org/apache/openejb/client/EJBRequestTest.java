@@ -145,12 +145,34 @@ public class EJBRequestTest extends TestCase {
         invoke(requestMethod, method, args);
     }
 
+    public void testBusinessMethodCompactCodec() throws Exception {
+        final RequestMethodCode requestMethod = RequestMethodCode.EJB_OBJECT_BUSINESS_METHOD;
+        final Method method = FooObject.class.getMethod("businessMethod", new Class[]{String.class});
+        final Object[] args = new Object[]{"hola mundo"};
+
+        invoke(requestMethod, method, args, new ProtocolMetaData(ProtocolMetaData.COMPACT_CODEC_VERSION));
+    }
+
+    public void testEJBHomeFindCompactCodec() throws Exception {
+        final RequestMethodCode requestMethod = RequestMethodCode.EJB_HOME_FIND;
+        final Method method = FooHome.class.getMethod("findByPrimaryKey", new Class[]{Integer.class});
+        final Object[] args = new Object[]{4};
+
+        invoke(requestMethod, method, args, new ProtocolMetaData(ProtocolMetaData.COMPACT_CODEC_VERSION));
+    }
+
     private void invoke(final RequestMethodCode requestMethod, final Method method, final Object[] args) throws IOException, ClassNotFoundException {
+        invoke(requestMethod, method, args, null);
+    }
+
+    private void invoke(final RequestMethodCode requestMethod, final Method method, final Object[] args, final ProtocolMetaData metaData) throws IOException, ClassNotFoundException {
 
         final EJBRequest expected = new EJBRequest(requestMethod, ejb, method, args, null, null);
         expected.getBody().setAuthentication(new JNDIContext.AuthenticationInfo("realm", "user", new char[]{'p', 'w'}));
+        expected.setMetaData(metaData);
 
         final EJBRequest actual = new EJBRequest();
+        actual.setMetaData(metaData);
 
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
         final ObjectOutputStream out = new ObjectOutputStream(baos);
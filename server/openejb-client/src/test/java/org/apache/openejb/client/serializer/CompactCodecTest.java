@@ -0,0 +1,239 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.client.serializer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInput;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class CompactCodecTest extends TestCase {
+
+    public void testValues() throws Exception {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("a", 1);
+        map.put("b", Arrays.asList("x", "y"));
+        final List<Object> list = new ArrayList<>();
+        list.add(null);
+        list.add("\u00e9t\u00e9");
+        list.add(new HashSet<>(Arrays.asList(1L, 2L)));
+
+        final Object[] values = {
+            null, "", "hello", 0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, 42L,
+            true, false, 1.5d, 2.5f, (short) -3, (byte) 7, 'c',
+            new Date(123456789L), new BigDecimal("-12.345"), new BigInteger("123456789012345678901234567890"),
+            UUID.randomUUID(), map, list, new HashMap<>(), new Pojo("serializable", 1)
+        };
+
+        final Object[] read = roundTrip(values);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals("value " + i, values[i], read[i]);
+        }
+    }
+
+    public void testBytes() throws Exception {
+        final byte[] bytes = {1, 2, 3, -1};
+        assertTrue(Arrays.equals(bytes, (byte[]) roundTrip(new Object[]{bytes})[0]));
+    }
+
+    public void testClassTable() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final CompactCodec writer = new CompactCodec();
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            writer.writeClass(out, Pojo.class);
+            writer.writeClass(out, Pojo.class);
+            writer.writeClass(out, String.class);
+            writer.writeClass(out, int.class);
+        }
+
+        final String raw = new String(baos.toByteArray(), StandardCharsets.ISO_8859_1);
+        assertEquals("class names are written once", raw.indexOf(Pojo.class.getName()), raw.lastIndexOf(Pojo.class.getName()));
+
+        final CompactCodec reader = new CompactCodec();
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            assertEquals(Pojo.class, reader.readClass(in));
+            assertEquals(Pojo.class, reader.readClass(in));
+            assertEquals(String.class, reader.readClass(in));
+            assertEquals(int.class, reader.readClass(in));
+        }
+    }
+
+    public void testExternalizer() throws Exception {
+        CompactCodec.register(Pojo.class, new PojoExternalizer());
+        try {
+            final Object[] read = roundTrip(new Object[]{new Pojo("dto", 5), new Pojo("dto2", 6)});
+            assertEquals(new Pojo("dto", 5), read[0]);
+            assertEquals(new Pojo("dto2", 6), read[1]);
+            assertEquals(2, PojoExternalizer.reads);
+        } finally {
+            CompactCodec.unregister(Pojo.class);
+        }
+    }
+
+    public void testSmallerThanSerialization() throws Exception {
+        final List<Object> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+            list.add("item" + i);
+        }
+
+        final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(list);
+        }
+
+        final ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(compact)) {
+            new CompactCodec().writeValue(out, list);
+        }
+
+        assertTrue(compact.size() + " < " + serialized.size(), compact.size() < serialized.size());
+    }
+
+    public void testLengthsAreValidated() throws Exception {
+        // BYTES tag with a negative length
+        assertRejected(new byte[]{11, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, StreamCorruptedException.class);
+        // STRING tag with a length above the maximum
+        assertRejected(new byte[]{1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07}, StreamCorruptedException.class);
+        // ARRAY_LIST tag with a size above the maximum
+        assertRejected(new byte[]{12, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F}, StreamCorruptedException.class);
+        // BYTES tag announcing 1MB but carrying three bytes
+        assertRejected(new byte[]{11, (byte) 0x80, (byte) 0x80, 0x40, 1, 2, 3}, EOFException.class);
+        // unknown class index
+        assertRejected(new byte[]{21, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, StreamCorruptedException.class);
+    }
+
+    public void testNestingIsBounded() throws Exception {
+        final byte[] nested = new byte[200];
+        for (int i = 0; i < nested.length; i += 2) {
+            nested[i] = 12; // ARRAY_LIST
+            nested[i + 1] = 1; // of one element
+        }
+        assertRejected(nested, StreamCorruptedException.class);
+    }
+
+    public void testSerialFilter() throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            new CompactCodec().writeValue(out, new ArrayList<>(Arrays.asList(1, 2, 3)));
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            in.setObjectInputFilter(ObjectInputFilter.Config.createFilter("maxarray=2"));
+            new CompactCodec().readValue(in);
+            fail("the filter should reject the list");
+        } catch (final InvalidClassException expected) {
+            // ok
+        }
+    }
+
+    private static void assertRejected(final byte[] raw, final Class<? extends IOException> expected) throws Exception {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.write(raw);
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            new CompactCodec().readValue(in);
+            fail("should be rejected");
+        } catch (final IOException e) {
+            assertTrue(e.toString(), expected.isInstance(e));
+        }
+    }
+
+    private static Object[] roundTrip(final Object[] values) throws IOException, ClassNotFoundException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final CompactCodec writer = new CompactCodec();
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            for (final Object value : values) {
+                writer.writeValue(out, value);
+            }
+        }
+
+        final Object[] read = new Object[values.length];
+        final CompactCodec reader = new CompactCodec();
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            for (int i = 0; i < read.length; i++) {
+                read[i] = reader.readValue(in);
+            }
+        }
+        return read;
+    }
+
+    public static class Pojo implements Serializable {
+        private final String name;
+        private final int value;
+
+        public Pojo(final String name, final int value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Pojo pojo = (Pojo) o;
+            return value == pojo.value && name.equals(pojo.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + value;
+        }
+    }
+
+    private static class PojoExternalizer implements CompactCodec.Externalizer<Pojo> {
+        private static int reads;
+
+        @Override
+        public void write(final CompactCodec codec, final ObjectOutput out, final Pojo value) throws IOException {
+            CompactCodec.writeString(out, value.name);
+            CompactCodec.writeVarInt(out, value.value);
+        }
+
+        @Override
+        public Pojo read(final CompactCodec codec, final ObjectInput in) throws IOException {
+            reads++;
+            return new Pojo(CompactCodec.readString(in), CompactCodec.readVarInt(in));
+        }
+    }
+}
@@ -25,7 +25,6 @@ import org.apache.cxf.endpoint.ManagedEndpoint;
 import org.apache.cxf.endpoint.Server;
 import org.apache.cxf.endpoint.ServerImpl;
 import org.apache.cxf.feature.Feature;
-import org.apache.cxf.helpers.IOUtils;
 import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
 import org.apache.cxf.jaxrs.JAXRSServiceImpl;
@@ -105,7 +104,6 @@ import javax.management.ObjectName;
 import javax.management.openmbean.TabularData;
 import javax.naming.Context;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
@@ -140,7 +138,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
@@ -171,7 +168,6 @@ public class CxfRsHttpListener implements RsHttpListener {
     public static final boolean TRY_STATIC_RESOURCES = "true".equalsIgnoreCase(SystemInstance.get().getProperty("openejb.jaxrs.static-first", "true"));
     private static final boolean FAIL_ON_CONSTRAINED_TO = "true".equalsIgnoreCase(SystemInstance.get().getProperty("openejb.jaxrs.fail-on-constrainedto", "true"));
 
-    private static final Map<String, String> STATIC_CONTENT_TYPES;
     private static final String[] DEFAULT_WELCOME_FILES = new String[]{"/index.html", "/index.htm"};
 
     // we have proxies etc so we can't really give it to cxf properly,
@@ -186,26 +182,12 @@ public class CxfRsHttpListener implements RsHttpListener {
     private String context = "";
     private String servlet = "";
     private final Collection<Pattern> staticResourcesList = new CopyOnWriteArrayList<>();
+    private volatile Pattern staticResourcesPattern; // all the patterns in one when they can be merged
+    private final StaticResources staticResources = new StaticResources();
     private final List<ObjectName> jmxNames = new ArrayList<>();
     private final Collection<CreationalContext<?>> toRelease = new LinkedHashSet<>();
     private final Collection<CdiSingletonResourceProvider> singletons = new LinkedHashSet<>();
 
-    private static final char[] URL_SEP = new char[]{'?', '#', ';'};
-
-    static {
-        STATIC_CONTENT_TYPES = new HashMap<>();
-        STATIC_CONTENT_TYPES.put("html", "text/html");
-        STATIC_CONTENT_TYPES.put("htm", "text/html");
-        STATIC_CONTENT_TYPES.put("xhtml", "text/html");
-        STATIC_CONTENT_TYPES.put("txt", "text/plain");
-        STATIC_CONTENT_TYPES.put("css", "text/css");
-        STATIC_CONTENT_TYPES.put("jpg", "image/jpg");
-        STATIC_CONTENT_TYPES.put("png", "image/png");
-        STATIC_CONTENT_TYPES.put("ico", "image/ico");
-        STATIC_CONTENT_TYPES.put("pdf", "application/pdf");
-        STATIC_CONTENT_TYPES.put("xsd", "application/xml");
-    }
-
     private String pattern;
 
     public CxfRsHttpListener(final DestinationFactory destinationFactory, final String star, final CxfRSService cxfRSService) {
@@ -281,6 +263,10 @@ public class CxfRsHttpListener implements RsHttpListener {
         if (path.isEmpty()) {
             path = "/";
         }
+        final Pattern union = staticResourcesPattern;
+        if (union != null) {
+            return union.matcher(path).matches();
+        }
         for (final Pattern pattern : staticResourcesList) {
             if (pattern.matcher(path).matches()) {
                 return true;
@@ -290,13 +276,7 @@ public class CxfRsHttpListener implements RsHttpListener {
     }
 
     public InputStream findStaticContent(final HttpServletRequest request, final String[] welcomeFiles) throws ServletException {
-        String pathInfo = request.getRequestURI().substring(request.getContextPath().length());
-        for (final char c : URL_SEP) {
-            final int indexOf = pathInfo.indexOf(c);
-            if (indexOf > 0) {
-                pathInfo = pathInfo.substring(0, indexOf);
-            }
-        }
+        String pathInfo = StaticResources.path(request);
         if (pathInfo.endsWith("/") || pathInfo.isEmpty()) { // root of path is redirected to welcomefiles
             if (pathInfo.endsWith("/")) {
                 pathInfo = pathInfo.substring(0, pathInfo.length() - 1);
@@ -315,27 +295,11 @@ public class CxfRsHttpListener implements RsHttpListener {
     public boolean serveStaticContent(final HttpServletRequest request,
                                       final HttpServletResponse response,
                                       final String pathInfo) throws ServletException {
-        final InputStream is = findStaticContent(request, DEFAULT_WELCOME_FILES);
-        if (is == null) {
-            return false;
-        }
-        try (is) {
-            final int ind = pathInfo.lastIndexOf(".");
-            if (ind != -1 && ind < pathInfo.length()) {
-                final String type = STATIC_CONTENT_TYPES.get(pathInfo.substring(ind + 1));
-                if (type != null) {
-                    response.setContentType(type);
-                }
-            }
-
-            final ServletOutputStream os = response.getOutputStream();
-            IOUtils.copy(is, os);
-            os.flush();
-            response.setStatus(HttpURLConnection.HTTP_OK);
+        try {
+            return staticResources.serve(request, response, DEFAULT_WELCOME_FILES);
         } catch (final IOException ex) {
-            throw new ServletException("Static resource " + pathInfo + " can not be written to the output stream");
+            throw new ServletException("Static resource " + pathInfo + " can not be written to the output stream", ex);
         }
-        return true;
     }
 
     private Application findApplication() {
@@ -600,6 +564,7 @@ public class CxfRsHttpListener implements RsHttpListener {
         for (final ObjectName objectName : jmxNames) {
             LocalMBeanServer.unregisterSilently(objectName);
         }
+        staticResources.clear();
 
         for (final CreationalContext<?> cc : toRelease) {
             try {
@@ -1268,6 +1233,7 @@ public class CxfRsHttpListener implements RsHttpListener {
                     staticResourcesList.add(Pattern.compile(trimmed));
                 }
             }
+            staticResourcesPattern = StaticResources.union(staticResourcesList);
         }
 
         // providers
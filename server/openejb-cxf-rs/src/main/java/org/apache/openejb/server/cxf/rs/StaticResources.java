@@ -0,0 +1,592 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.cxf.rs;
+
+import org.apache.openejb.loader.IO;
+import org.apache.openejb.loader.Options;
+import org.apache.openejb.loader.SystemInstance;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The static resources served by a JAX-RS endpoint (openejb.jaxrs.static-first
+ * or cxf.jaxrs.static-resources-list).
+ *
+ * A resource is looked up once by request path and kept with its content type,
+ * ETag and Last-Modified date, the lookups which found nothing are kept too so
+ * the JAX-RS requests don't ask the servlet context for a resource each time.
+ * The resources up to openejb.jaxrs.static-resources.cache.max-file-size are
+ * held on heap with their gzip version when they are text and it is smaller,
+ * the bigger ones are sent from their file (the container sendfile when it
+ * supports it) or streamed from the servlet context. When the heap used by the
+ * cache goes over openejb.jaxrs.static-resources.cache.size the least recently
+ * served resources are dropped, openejb.jaxrs.static-resources.cache.size=0
+ * disables the cache.
+ *
+ * The resources backed by a file are checked against its last modification date
+ * and length at most every openejb.jaxrs.static-resources.cache.ttl milliseconds,
+ * the ones sent from their file on each request since their length is the
+ * Content-Length of the response. The lookups which found nothing are retried
+ * after the same delay. The resources of a packed archive are considered
+ * immutable, a redeployment creates a new cache.
+ */
+final class StaticResources {
+    static final String CACHE_SIZE = "openejb.jaxrs.static-resources.cache.size";
+    static final String MAX_FILE_SIZE = "openejb.jaxrs.static-resources.cache.max-file-size";
+    static final String TTL = "openejb.jaxrs.static-resources.cache.ttl";
+
+    private static final int MAX_MISSING = 10000;
+    private static final int MIN_GZIP_SIZE = 1024;
+    private static final char[] URL_SEP = new char[]{'?', '#', ';'};
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("html", "text/html");
+        CONTENT_TYPES.put("htm", "text/html");
+        CONTENT_TYPES.put("xhtml", "text/html");
+        CONTENT_TYPES.put("txt", "text/plain");
+        CONTENT_TYPES.put("css", "text/css");
+        CONTENT_TYPES.put("js", "application/javascript");
+        CONTENT_TYPES.put("json", "application/json");
+        CONTENT_TYPES.put("svg", "image/svg+xml");
+        CONTENT_TYPES.put("jpg", "image/jpg");
+        CONTENT_TYPES.put("png", "image/png");
+        CONTENT_TYPES.put("ico", "image/ico");
+        CONTENT_TYPES.put("pdf", "application/pdf");
+        CONTENT_TYPES.put("xsd", "application/xml");
+    }
+
+    private final long maxSize;
+    private final long maxFileSize;
+    private final long ttl;
+    private final ConcurrentMap<String, Resource> resources = new ConcurrentHashMap<>();
+    private final AtomicLong missing = new AtomicLong();
+
+    // the resources kept on heap in access order, guarded by lock
+    private final Map<String, Resource> onHeap = new LinkedHashMap<>(16, 0.75f, true);
+    private final Lock lock = new ReentrantLock();
+    private long size;
+
+    StaticResources() {
+        this(SystemInstance.get().getOptions());
+    }
+
+    private StaticResources(final Options options) {
+        this(options.get(CACHE_SIZE, 8L * 1024 * 1024), options.get(MAX_FILE_SIZE, 256L * 1024), options.get(TTL, 5000L));
+    }
+
+    StaticResources(final long maxSize, final long maxFileSize, final long ttl) {
+        this.maxSize = maxSize;
+        this.maxFileSize = maxSize > 0 ? Math.min(maxFileSize, maxSize) : maxFileSize;
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttl));
+    }
+
+    /**
+     * @return the patterns as a single one or null if they can't be merged (back references)
+     */
+    static Pattern union(final Collection<Pattern> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        if (patterns.size() == 1) {
+            return patterns.iterator().next();
+        }
+        final StringBuilder union = new StringBuilder();
+        for (final Pattern pattern : patterns) {
+            if (pattern.flags() != 0 || BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+                return null;
+            }
+            if (union.length() > 0) {
+                union.append('|');
+            }
+            union.append("(?:").append(pattern.pattern()).append(')');
+        }
+        try {
+            return Pattern.compile(union.toString());
+        } catch (final PatternSyntaxException pse) { // duplicated group names for instance
+            return null;
+        }
+    }
+
+    /**
+     * @return the path of the request in its web application, without its parameters
+     */
+    static String path(final HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (final char c : URL_SEP) {
+            final int indexOf = path.indexOf(c);
+            if (indexOf > 0) {
+                path = path.substring(0, indexOf);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return false if the request doesn't match any static resource
+     */
+    boolean serve(final HttpServletRequest request, final HttpServletResponse response,
+                  final String[] welcomeFiles) throws IOException {
+        final Resource resource = find(request.getServletContext(), path(request), welcomeFiles);
+        if (resource == null) {
+            return false;
+        }
+
+        final boolean gzip = resource.gzip != null && acceptsGzip(request.getHeader("Accept-Encoding"));
+        final String etag = gzip ? resource.gzipEtag : resource.etag;
+        if (resource.contentType != null) {
+            response.setContentType(resource.contentType);
+        }
+        if (resource.gzip != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        if (etag != null) {
+            response.setHeader("ETag", etag);
+        }
+        if (resource.lastModified > 0) {
+            response.setDateHeader("Last-Modified", resource.lastModified);
+        }
+
+        final String method = request.getMethod();
+        final boolean head = "HEAD".equals(method);
+        if ((head || "GET".equals(method)) && notModified(request, etag, resource.lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            response.setContentLengthLong(resource.gzip.length);
+        } else if (resource.length >= 0) {
+            response.setContentLengthLong(resource.length);
+        }
+        if (head) {
+            return true;
+        }
+
+        if (gzip) {
+            write(response, resource.gzip);
+        } else if (resource.content != null) {
+            write(response, resource.content);
+        } else if (resource.file != null) {
+            transfer(request, response, resource);
+        } else {
+            try (final InputStream is = request.getServletContext().getResourceAsStream(resource.path)) {
+                if (is == null) { // undeployed in between
+                    throw new IOException("Static resource " + resource.path + " is no more available");
+                }
+                final ServletOutputStream os = response.getOutputStream();
+                IO.copy(is, os);
+                os.flush();
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            resources.clear();
+            onHeap.clear();
+            size = 0;
+            missing.set(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int size() {
+        return resources.size();
+    }
+
+    private Resource find(final ServletContext context, final String path, final String[] welcomeFiles) throws IOException {
+        final Resource cached = resources.get(path);
+        if (cached != null) {
+            if (valid(cached)) {
+                if (cached.isMissing()) {
+                    return null;
+                }
+                touch(path);
+                return cached;
+            }
+            drop(path, cached);
+        }
+
+        Resource resource = null;
+        if (path.endsWith("/") || path.isEmpty()) { // root of path is redirected to welcomefiles
+            final String root = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+            for (final String n : welcomeFiles) {
+                resource = load(context, root + n);
+                if (resource != null) {
+                    break;
+                }
+            }
+        } else {
+            resource = load(context, path);
+        }
+
+        if (maxSize > 0) {
+            cache(path, resource == null ? Resource.missing() : resource);
+        }
+        return resource;
+    }
+
+    private boolean valid(final Resource resource) {
+        if (resource.content == null && resource.file != null) { // sent from its file, its length must be the current one
+            return resource.unchanged();
+        }
+        final long now = System.nanoTime();
+        if (now - resource.checked < ttl) {
+            return true;
+        }
+        if (resource.isMissing() || resource.file != null && !resource.unchanged()) {
+            return false;
+        }
+        resource.checked = now;
+        return true;
+    }
+
+    private void touch(final String path) {
+        if (lock.tryLock()) { // the order is only a hint, don't wait for it
+            try {
+                onHeap.get(path);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void cache(final String path, final Resource resource) {
+        final long weight = resource.weight();
+        if (weight == 0) {
+            if (resource.isMissing() && missing.incrementAndGet() > MAX_MISSING) { // mainly REST paths, drop them all
+                resources.values().removeIf(Resource::isMissing);
+                missing.set(1);
+            }
+            if (resources.putIfAbsent(path, resource) != null && resource.isMissing()) {
+                missing.decrementAndGet();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (resources.putIfAbsent(path, resource) != null) {
+                return;
+            }
+            onHeap.put(path, resource);
+            size += weight;
+
+            final Iterator<Map.Entry<String, Resource>> eldest = onHeap.entrySet().iterator();
+            while (size > maxSize && eldest.hasNext()) {
+                final Map.Entry<String, Resource> entry = eldest.next();
+                if (entry.getValue() == resource) {
+                    continue;
+                }
+                eldest.remove();
+                resources.remove(entry.getKey(), entry.getValue());
+                size -= entry.getValue().weight();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drop(final String path, final Resource resource) {
+        final long weight = resource.weight();
+        if (weight == 0) {
+            if (resources.remove(path, resource) && resource.isMissing()) {
+                missing.decrementAndGet();
+            }
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (resources.remove(path, resource)) {
+                onHeap.remove(path);
+                size -= weight;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Resource load(final ServletContext context, final String path) throws IOException {
+        final InputStream is = context.getResourceAsStream(path);
+        if (is == null) {
+            return null;
+        }
+        try (is) {
+            final String contentType = contentType(context, path);
+            final File file = file(context, path);
+            final long fileLength = file != null ? file.length() : -1;
+            final long lastModified = file != null ? file.lastModified() : lastModified(context, path);
+            if (fileLength > maxFileSize) {
+                return new Resource(path, contentType, fileLength, lastModified, null, null, file, fileLength);
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                if (out.size() > maxFileSize) { // not a file, or it grew, and too big to be kept
+                    return new Resource(path, contentType, -1, lastModified, null, null, null, -1);
+                }
+            }
+
+            final byte[] content = out.toByteArray();
+            return new Resource(path, contentType, content.length, lastModified, content,
+                    maxSize > 0 && content.length >= MIN_GZIP_SIZE && compressible(contentType) ? gzip(content) : null,
+                    file, fileLength);
+        }
+    }
+
+    private static String contentType(final ServletContext context, final String path) {
+        final int ind = path.lastIndexOf('.');
+        if (ind != -1 && ind > path.lastIndexOf('/')) {
+            final String type = CONTENT_TYPES.get(path.substring(ind + 1));
+            if (type != null) {
+                return type;
+            }
+        }
+        return context.getMimeType(path);
+    }
+
+    private static boolean compressible(final String contentType) {
+        return contentType != null && (contentType.startsWith("text/")
+                || contentType.contains("xml") || contentType.contains("json") || contentType.contains("javascript"));
+    }
+
+    private static byte[] gzip(final byte[] content) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2);
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(content);
+        }
+        return out.size() < content.length ? out.toByteArray() : null;
+    }
+
+    private static File file(final ServletContext context, final String path) {
+        final String realPath = context.getRealPath(path);
+        if (realPath == null) {
+            return null;
+        }
+        final File file = new File(realPath);
+        return file.isFile() ? file : null;
+    }
+
+    private static long lastModified(final ServletContext context, final String path) {
+        try {
+            final URL url = context.getResource(path);
+            if (url == null) {
+                return -1;
+            }
+            final URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            final long lastModified = connection.getLastModified();
+            try { // jar connections keep their file opened otherwise
+                connection.getInputStream().close();
+            } catch (final IOException e) {
+                // no-op
+            }
+            return lastModified > 0 ? lastModified : -1;
+        } catch (final IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // RFC 7232, If-None-Match wins over If-Modified-Since and uses the weak comparison
+    private static boolean notModified(final HttpServletRequest request, final String etag, final long lastModified) {
+        final String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            if (etag == null) {
+                return false;
+            }
+            final String opaque = opaque(etag);
+            for (final String candidate : ifNoneMatch.split(",")) {
+                final String trimmed = candidate.trim();
+                if ("*".equals(trimmed) || opaque.equals(opaque(trimmed))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (lastModified <= 0) {
+            return false;
+        }
+        final long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        } catch (final IllegalArgumentException iae) { // not a date, ignored
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private static String opaque(final String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean star = false;
+        for (final String coding : acceptEncoding.split(",")) {
+            final int params = coding.indexOf(';');
+            final String name = (params < 0 ? coding : coding.substring(0, params)).trim();
+            final boolean gzip = "gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name);
+            if (gzip || "*".equals(name)) {
+                final boolean accepted = params < 0 || !isZero(coding.substring(params + 1));
+                if (gzip) {
+                    return accepted;
+                }
+                star = accepted;
+            }
+        }
+        return star;
+    }
+
+    private static boolean isZero(final String params) {
+        for (final String param : params.split(";")) {
+            final String trimmed = param.trim();
+            if (trimmed.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim()) == 0;
+                } catch (final NumberFormatException nfe) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void write(final HttpServletResponse response, final byte[] content) throws IOException {
+        final ServletOutputStream os = response.getOutputStream();
+        os.write(content);
+        os.flush();
+    }
+
+    private static void transfer(final HttpServletRequest request, final HttpServletResponse response,
+                                 final Resource resource) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", resource.file.getAbsolutePath());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", resource.length);
+            return;
+        }
+
+        final ServletOutputStream os = response.getOutputStream();
+        try (final FileChannel channel = FileChannel.open(resource.file.toPath(), StandardOpenOption.READ)) {
+            final WritableByteChannel out = Channels.newChannel(os);
+            long position = 0;
+            while (position < resource.length) {
+                final long written = channel.transferTo(position, resource.length - position, out);
+                if (written <= 0) {
+                    break;
+                }
+                position += written;
+            }
+        }
+        os.flush();
+    }
+
+    private static final class Resource {
+        private final String path;
+        private final String contentType;
+        private final long length; // -1 if unknown
+        private final long lastModified;
+        private final byte[] content;
+        private final byte[] gzip;
+        private final File file; // the file it was read from if any
+        private final long fileLength;
+        private final String etag;
+        private final String gzipEtag;
+        private volatile long checked = System.nanoTime();
+
+        private Resource(final String path, final String contentType, final long length, final long lastModified,
+                         final byte[] content, final byte[] gzip, final File file, final long fileLength) {
+            this.path = path;
+            this.contentType = contentType;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.content = content;
+            this.gzip = gzip;
+            this.file = file;
+            this.fileLength = fileLength;
+
+            if (content != null) {
+                final CRC32 crc = new CRC32();
+                crc.update(content);
+                etag = "\"" + Integer.toHexString(content.length) + '-' + Long.toHexString(crc.getValue()) + '"';
+            } else if (length >= 0 && lastModified > 0) {
+                etag = "W/\"" + length + '-' + lastModified + '"';
+            } else {
+                etag = null;
+            }
+            gzipEtag = gzip != null ? etag.substring(0, etag.length() - 1) + "-gzip\"" : null;
+        }
+
+        private static Resource missing() {
+            return new Resource(null, null, -1, -1, null, null, null, -1);
+        }
+
+        private boolean isMissing() {
+            return path == null;
+        }
+
+        private boolean unchanged() {
+            return file.lastModified() == lastModified && file.length() == fileLength;
+        }
+
+        private long weight() {
+            return (content == null ? 0 : content.length) + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.cxf.rs;
+
+import org.apache.openejb.loader.IO;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StaticResourcesTest {
+    private static final byte[] INDEX = repeat("<p>static</p>", 200).getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, byte[]> resources = new HashMap<>();
+    private final Map<String, File> files = new HashMap<>();
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    public void union() {
+        final Pattern union = StaticResources.union(Arrays.asList(Pattern.compile("/css/.*"), Pattern.compile(".*\\.js")));
+        assertTrue(union.matcher("/css/app.css").matches());
+        assertTrue(union.matcher("/lib/app.js").matches());
+        assertFalse(union.matcher("/api/css/app").matches());
+
+        assertNull(StaticResources.union(Arrays.asList(Pattern.compile("/(a)\\1"), Pattern.compile("/b"))));
+    }
+
+    @Test
+    public void conditionalAndCompressed() throws IOException {
+        resources.put("/index.html", INDEX);
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 64 * 1024, 60000);
+
+        final Exchange plain = serve(staticResources, "GET", "/", Collections.emptyMap());
+        assertEquals(HttpServletResponse.SC_OK, plain.status);
+        assertEquals("text/html", plain.contentType);
+        assertEquals("Accept-Encoding", plain.headers.get("Vary"));
+        assertArrayEquals(INDEX, plain.body.toByteArray());
+
+        final Exchange notModified = serve(staticResources, "GET", "/", Collections.singletonMap("If-None-Match", plain.headers.get("ETag")));
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, notModified.status);
+        assertEquals(0, notModified.body.size());
+
+        final Exchange gzip = serve(staticResources, "GET", "/", Collections.singletonMap("Accept-Encoding", "gzip, deflate"));
+        assertEquals("gzip", gzip.headers.get("Content-Encoding"));
+        assertNotEquals(plain.headers.get("ETag"), gzip.headers.get("ETag"));
+        assertTrue(gzip.body.size() < INDEX.length);
+        assertArrayEquals(INDEX, IO.readBytes(new GZIPInputStream(new ByteArrayInputStream(gzip.body.toByteArray()))));
+
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    public void missingResourcesAreCached() throws IOException {
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 64 * 1024, 60000);
+        assertFalse(serve(staticResources, "GET", "/api/users;jsessionid=1", Collections.emptyMap()).served);
+        assertFalse(serve(staticResources, "GET", "/api/users;jsessionid=2", Collections.emptyMap()).served);
+        assertEquals(1, lookups.get());
+        assertEquals(1, staticResources.size());
+    }
+
+    @Test
+    public void disabledCache() throws IOException {
+        resources.put("/index.html", INDEX);
+        final StaticResources staticResources = new StaticResources(0, 64 * 1024, 60000);
+        assertArrayEquals(INDEX, serve(staticResources, "GET", "/index.html", Collections.emptyMap()).body.toByteArray());
+        assertArrayEquals(INDEX, serve(staticResources, "GET", "/index.html", Collections.emptyMap()).body.toByteArray());
+        assertEquals(2, lookups.get());
+        assertEquals(0, staticResources.size());
+    }
+
+    @Test
+    public void bigFileIsNotKeptOnHeap() throws IOException {
+        final byte[] content = repeat("0123456789", 1000).getBytes(StandardCharsets.UTF_8);
+        final File file = folder.newFile("big.txt");
+        IO.copy(content, file);
+        resources.put("/big.txt", content);
+        files.put("/big.txt", file);
+
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 1024, 60000);
+        final Exchange exchange = serve(staticResources, "GET", "/big.txt", Collections.singletonMap("Accept-Encoding", "gzip"));
+        assertNull(exchange.headers.get("Content-Encoding"));
+        assertEquals(content.length, exchange.contentLength);
+        assertArrayEquals(content, exchange.body.toByteArray());
+        assertTrue(exchange.headers.get("ETag").startsWith("W/"));
+    }
+
+    @Test
+    public void modifiedFilesAreReloaded() throws IOException {
+        final File file = folder.newFile("index.html");
+        IO.copy(INDEX, file);
+        resources.put("/index.html", INDEX);
+        files.put("/index.html", file);
+
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 64 * 1024, 0);
+        assertArrayEquals(INDEX, serve(staticResources, "GET", "/index.html", Collections.emptyMap()).body.toByteArray());
+        assertArrayEquals(INDEX, serve(staticResources, "GET", "/index.html", Collections.emptyMap()).body.toByteArray());
+        assertEquals(1, lookups.get());
+
+        final byte[] updated = "<p>updated</p>".getBytes(StandardCharsets.UTF_8);
+        IO.copy(updated, file);
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        resources.put("/index.html", updated);
+        assertArrayEquals(updated, serve(staticResources, "GET", "/index.html", Collections.emptyMap()).body.toByteArray());
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void bigFileLengthIsCurrent() throws IOException {
+        final File file = folder.newFile("big.txt");
+        IO.copy(repeat("0123456789", 1000).getBytes(StandardCharsets.UTF_8), file);
+        resources.put("/big.txt", new byte[0]);
+        files.put("/big.txt", file);
+
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 1024, 60000);
+        assertEquals(10000, serve(staticResources, "GET", "/big.txt", Collections.emptyMap()).contentLength);
+
+        final byte[] longer = repeat("0123456789", 2000).getBytes(StandardCharsets.UTF_8);
+        IO.copy(longer, file);
+        final Exchange exchange = serve(staticResources, "GET", "/big.txt", Collections.emptyMap());
+        assertEquals(longer.length, exchange.contentLength);
+        assertArrayEquals(longer, exchange.body.toByteArray());
+    }
+
+    @Test
+    public void missingResourcesAreRetried() throws IOException {
+        final StaticResources staticResources = new StaticResources(1024 * 1024, 64 * 1024, 0);
+        assertFalse(serve(staticResources, "GET", "/index.html", Collections.emptyMap()).served);
+        resources.put("/index.html", INDEX);
+        assertTrue(serve(staticResources, "GET", "/index.html", Collections.emptyMap()).served);
+        assertEquals(2, lookups.get());
+        assertEquals(1, staticResources.size());
+    }
+
+    @Test
+    public void leastRecentlyServedAreEvicted() throws IOException {
+        final byte[] content = new byte[400];
+        resources.put("/a.bin", content);
+        resources.put("/b.bin", content);
+        resources.put("/c.bin", content);
+
+        final StaticResources staticResources = new StaticResources(1000, 1000, 60000);
+        serve(staticResources, "GET", "/a.bin", Collections.emptyMap());
+        serve(staticResources, "GET", "/b.bin", Collections.emptyMap());
+        serve(staticResources, "GET", "/a.bin", Collections.emptyMap());
+        serve(staticResources, "GET", "/c.bin", Collections.emptyMap()); // evicts b
+        assertEquals(3, lookups.get());
+
+        serve(staticResources, "GET", "/a.bin", Collections.emptyMap());
+        assertEquals(3, lookups.get());
+        serve(staticResources, "GET", "/b.bin", Collections.emptyMap());
+        assertEquals(4, lookups.get());
+    }
+
+    @Test
+    public void acceptsGzip() {
+        assertTrue(StaticResources.acceptsGzip("gzip"));
+        assertTrue(StaticResources.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(StaticResources.acceptsGzip("*"));
+        assertFalse(StaticResources.acceptsGzip("gzip;q=0"));
+        assertFalse(StaticResources.acceptsGzip("*, gzip;q=0.0"));
+        assertFalse(StaticResources.acceptsGzip("identity"));
+        assertFalse(StaticResources.acceptsGzip(null));
+    }
+
+    private Exchange serve(final StaticResources staticResources, final String method, final String uri,
+                           final Map<String, String> headers) throws IOException {
+        final ServletContext context = proxy(ServletContext.class, (name, args) -> {
+            switch (name) {
+                case "getResourceAsStream":
+                    lookups.incrementAndGet();
+                    final byte[] content = resources.get(args[0]);
+                    return content == null ? null : new ByteArrayInputStream(content);
+                case "getRealPath":
+                    final File file = files.get(args[0]);
+                    return file == null ? null : file.getAbsolutePath();
+                default:
+                    return null;
+            }
+        });
+        final HttpServletRequest request = proxy(HttpServletRequest.class, (name, args) -> {
+            switch (name) {
+                case "getServletContext":
+                    return context;
+                case "getRequestURI":
+                    return uri;
+                case "getContextPath":
+                    return "";
+                case "getMethod":
+                    return method;
+                case "getHeader":
+                    return headers.get(args[0]);
+                case "getDateHeader":
+                    return -1L;
+                default:
+                    return null;
+            }
+        });
+
+        final Exchange exchange = new Exchange();
+        final ServletOutputStream out = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+                // no-op
+            }
+
+            @Override
+            public void write(final int b) {
+                exchange.body.write(b);
+            }
+        };
+        final HttpServletResponse response = proxy(HttpServletResponse.class, (name, args) -> {
+            switch (name) {
+                case "setStatus":
+                    exchange.status = (Integer) args[0];
+                    return null;
+                case "setContentType":
+                    exchange.contentType = (String) args[0];
+                    return null;
+                case "setContentLengthLong":
+                    exchange.contentLength = (Long) args[0];
+                    return null;
+                case "setHeader":
+                    exchange.headers.put((String) args[0], (String) args[1]);
+                    return null;
+                case "getOutputStream":
+                    return out;
+                default:
+                    return null;
+            }
+        });
+
+        exchange.served = staticResources.serve(request, response, new String[]{"/index.html"});
+        return exchange;
+    }
+
+    private static <T> T proxy(final Class<T> api, final Handler handler) {
+        return api.cast(Proxy.newProxyInstance(StaticResourcesTest.class.getClassLoader(), new Class<?>[]{api},
+                (proxy, method, args) -> handler.handle(method.getName(), args)));
+    }
+
+    private static String repeat(final String value, final int times) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private interface Handler {
+        Object handle(String name, Object[] args) throws IOException;
+    }
+
+    private static final class Exchange {
+        private final Map<String, String> headers = new HashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private boolean served;
+        private int status;
+        private String contentType;
+        private long contentLength = -1;
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.openejb.server.ejbd;
 
 import org.apache.openejb.ProxyInfo;
+import org.apache.openejb.client.MultiplexedChannel;
 import org.apache.openejb.core.ServerFederation;
 import org.apache.openejb.server.ServiceException;
 
@@ -49,7 +50,9 @@ public class EjbServer implements org.apache.openejb.server.ServerService, org.a
             props.setProperty("name", getName());
         }
         server.init(props);
-        keepAlive = new KeepAliveServer(this, server.isGzip());
+        keepAlive = new KeepAliveServer(this, server.isGzip(), "true".equalsIgnoreCase(props.getProperty("nio", "false")),
+            Integer.parseInt(props.getProperty("multiplexInFlight", Integer.toString(MultiplexedSession.DEFAULT_MAX_IN_FLIGHT))),
+            Integer.parseInt(props.getProperty("multiplexMaxFrame", Integer.toString(MultiplexedChannel.DEFAULT_MAX_FRAME))));
     }
 
     @Override
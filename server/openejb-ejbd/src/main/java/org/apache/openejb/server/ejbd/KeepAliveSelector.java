@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.ejbd;
+
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.io.IOException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds idle keep-alive connections on a single {@link Selector} thread.
+ *
+ * Between two requests a session parks its channel here instead of
+ * blocking a worker thread in read(). As soon as the client starts
+ * writing the next request the key is cancelled, the channel is
+ * deregistered and the resume task is handed to the worker executor,
+ * which switches the channel back to blocking mode and reads the request.
+ *
+ * The ejbd protocol is not length prefixed, so the first readable byte of
+ * a request is what triggers the dispatch, the rest of it is read by the
+ * worker as before.
+ *
+ * The executor must reject rather than block or run the task in the calling
+ * thread. A rejected session is retried every {@link #RETRY} milliseconds and
+ * closed after {@link #BUSY_TIMEOUT}. Channels parked for longer than the idle
+ * timeout are closed like inactive blocking sessions.
+ */
+public class KeepAliveSelector implements Runnable {
+
+    private static final Logger logger = Logger.getInstance(LogCategory.OPENEJB_SERVER.createChild("keepalive"), KeepAliveSelector.class);
+
+    public static final long RETRY = 10;
+    public static final long BUSY_TIMEOUT = 10000;
+
+    private final Selector selector;
+    private final Executor executor;
+    private final long idleTimeout;
+    private final Queue<Parked> pending = new ConcurrentLinkedQueue<>();
+    private final List<Parked> rejected = new ArrayList<>(); // selector thread only
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final Thread thread;
+
+    /**
+     * @param executor    resumes the sessions, throws RejectedExecutionException when busy
+     * @param idleTimeout milliseconds after which a parked channel is closed
+     */
+    public KeepAliveSelector(final String name, final Executor executor, final long idleTimeout) throws IOException {
+        this.selector = Selector.open();
+        this.executor = executor;
+        this.idleTimeout = idleTimeout;
+        this.thread = new Thread(this, "KeepAliveSelector." + name);
+        this.thread.setDaemon(true);
+    }
+
+    public KeepAliveSelector start() {
+        thread.start();
+        return this;
+    }
+
+    /**
+     * @param channel connected channel, switched to non blocking mode here
+     * @param resume  task to run on the executor once the channel is readable
+     * @throws IOException if the channel can't be switched to non blocking mode
+     */
+    public void park(final SocketChannel channel, final Runnable resume) throws IOException {
+        if (!running.get()) {
+            throw new IOException("KeepAliveSelector stopped");
+        }
+        channel.configureBlocking(false);
+        pending.add(new Parked(channel, resume));
+        selector.wakeup();
+        if (!running.get()) { // stopped meanwhile, close() may already have drained the queue
+            Parked parked;
+            while ((parked = pending.poll()) != null) {
+                closeQuietly(parked.channel);
+            }
+        }
+    }
+
+    public int getParked() {
+        try {
+            return selector.keys().size() + pending.size();
+        } catch (final ClosedSelectorException e) {
+            return 0;
+        }
+    }
+
+    public void stop() {
+        if (!running.getAndSet(false)) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join(10000);
+        } catch (final InterruptedException e) {
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<Parked> ready = new ArrayList<>();
+        long nextSweep = System.currentTimeMillis() + idleTimeout / 2;
+        try {
+            while (running.get()) {
+                register();
+
+                final long now = System.currentTimeMillis();
+                if (now >= nextSweep) {
+                    closeIdle(now);
+                    nextSweep = now + idleTimeout / 2;
+                }
+
+                final long wait = rejected.isEmpty() ? Math.max(1, nextSweep - now) : RETRY;
+                if (selector.select(wait) > 0) {
+                    final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        final SelectionKey key = keys.next();
+                        keys.remove();
+                        key.cancel();
+                        ready.add((Parked) key.attachment());
+                    }
+                }
+
+                if (!ready.isEmpty()) {
+                    // flush the cancelled keys, a channel can't go back
+                    // to blocking mode while it is still registered
+                    selector.selectNow();
+                }
+
+                if (!rejected.isEmpty()) {
+                    // older ones first
+                    ready.addAll(0, rejected);
+                    rejected.clear();
+                }
+
+                for (final Parked parked : ready) {
+                    dispatch(parked);
+                }
+                ready.clear();
+            }
+        } catch (final IOException | ClosedSelectorException e) {
+            if (running.get()) {
+                logger.error("KeepAliveSelector failed, closing idle connections", e);
+            }
+        } finally {
+            close();
+        }
+    }
+
+    private void register() {
+        Parked parked;
+        while ((parked = pending.poll()) != null) {
+            try {
+                parked.channel.register(selector, SelectionKey.OP_READ, parked);
+            } catch (final IOException e) {
+                closeQuietly(parked.channel);
+            }
+        }
+    }
+
+    private void dispatch(final Parked parked) {
+        try {
+            executor.execute(parked.resume);
+        } catch (final RejectedExecutionException e) {
+            if (parked.rejectedAt == 0) {
+                parked.rejectedAt = System.currentTimeMillis();
+            }
+            if (System.currentTimeMillis() - parked.rejectedAt < BUSY_TIMEOUT) {
+                rejected.add(parked);
+            } else {
+                logger.warning("No thread available to resume a keep-alive session after " + BUSY_TIMEOUT + "ms, closing connection: "
+                    + e.getMessage());
+                closeQuietly(parked.channel);
+            }
+        }
+    }
+
+    private void closeIdle(final long now) {
+        for (final SelectionKey key : selector.keys()) {
+            final Parked parked = (Parked) key.attachment();
+            if (key.isValid() && now - parked.since > idleTimeout) {
+                key.cancel();
+                closeQuietly(parked.channel);
+            }
+        }
+    }
+
+    private void close() {
+        running.set(false);
+        try {
+            for (final SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+        } catch (final ClosedSelectorException e) {
+            // no-op
+        }
+        for (final Parked parked : rejected) {
+            closeQuietly(parked.channel);
+        }
+        rejected.clear();
+        Parked parked;
+        while ((parked = pending.poll()) != null) {
+            closeQuietly(parked.channel);
+        }
+        try {
+            selector.close();
+        } catch (final IOException e) {
+            // no-op
+        }
+    }
+
+    private static void closeQuietly(final Channel channel) {
+        try {
+            channel.close();
+        } catch (final Throwable e) {
+            //Ignore
+        }
+    }
+
+    private static final class Parked {
+        private final SocketChannel channel;
+        private final Runnable resume;
+        private final long since = System.currentTimeMillis();
+        private long rejectedAt;
+
+        private Parked(final SocketChannel channel, final Runnable resume) {
+            this.channel = channel;
+            this.resume = resume;
+        }
+    }
+}
@@ -18,6 +18,8 @@ package org.apache.openejb.server.ejbd;
 
 import org.apache.openejb.client.FlushableGZIPOutputStream;
 import org.apache.openejb.client.KeepAliveStyle;
+import org.apache.openejb.client.MultiplexedChannel;
+import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.server.ServerService;
 import org.apache.openejb.server.ServiceException;
 import org.apache.openejb.server.ServicePool;
@@ -34,6 +36,7 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -41,6 +44,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -61,6 +65,11 @@ public class KeepAliveServer implements ServerService {
     private BlockingQueue<Runnable> threadQueue;
     private Timer timer;
     private final boolean gzip;
+    private final boolean nio;
+    private final int multiplexInFlight;
+    private final int multiplexMaxFrame;
+    private volatile KeepAliveSelector selector;
+    private volatile boolean selectorResolved;
 
     @SuppressWarnings("deprecation")
     public KeepAliveServer() {
@@ -73,8 +82,29 @@ public class KeepAliveServer implements ServerService {
     }
 
     public KeepAliveServer(final ServerService service, final boolean gzip) {
+        this(service, gzip, false);
+    }
+
+    /**
+     * @param nio park idle sessions on a selector instead of a blocked thread,
+     *            needs channel backed sockets (ServiceDaemon nio option) and
+     *            is ignored with gzip since the inflater hides the socket state
+     */
+    public KeepAliveServer(final ServerService service, final boolean gzip, final boolean nio) {
+        this(service, gzip, nio, MultiplexedSession.DEFAULT_MAX_IN_FLIGHT, MultiplexedChannel.DEFAULT_MAX_FRAME);
+    }
+
+    /**
+     * @param multiplexInFlight maximum concurrent requests of a multiplexed connection
+     * @param multiplexMaxFrame maximum length of a multiplexed request
+     */
+    public KeepAliveServer(final ServerService service, final boolean gzip, final boolean nio,
+                           final int multiplexInFlight, final int multiplexMaxFrame) {
         this.service = service;
         this.gzip = gzip;
+        this.nio = nio && !gzip;
+        this.multiplexInFlight = multiplexInFlight;
+        this.multiplexMaxFrame = multiplexMaxFrame;
     }
 
     private void closeInactiveSessions() {
@@ -88,6 +118,8 @@ public class KeepAliveServer implements ServerService {
             return;
         }
 
+        // a virtual thread ServicePool hands sockets over directly (no backlog),
+        // idle sessions are cheap there and are left open until the client leaves
         int backlog = queue.size();
         if (backlog <= 0) {
             return;
@@ -189,6 +221,67 @@ public class KeepAliveServer implements ServerService {
         return this.sessions.remove(session.thread);
     }
 
+    /**
+     * The selector resumes sessions on the executor of the ServicePool
+     * serving this service, it is only used when that pool leaves the
+     * socket closing to us (forceSocketClose=false). Parked sessions are
+     * no longer in {@link #sessions}, the selector closes them itself once
+     * they are idle for longer than the timeout.
+     */
+    private KeepAliveSelector selector() {
+        if (!this.nio) {
+            return null;
+        }
+        if (!this.selectorResolved) {
+            synchronized (this) {
+                if (!this.selectorResolved) {
+                    final Executor executor = findExecutor();
+                    if (executor != null && this.running.get()) {
+                        try {
+                            this.selector = new KeepAliveSelector(getName(), executor, this.timeout).start();
+                        } catch (final IOException e) {
+                            logger.warning("Can't open keep-alive selector, idle sessions will block a thread: " + e.getMessage());
+                        }
+                    } else if (executor == null) {
+                        logger.warning("No ServicePool with forceSocketClose=false found for '" + getName() + "', idle sessions will block a thread");
+                    }
+                    this.selectorResolved = true;
+                }
+            }
+        }
+        return this.selector;
+    }
+
+    private Executor findExecutor() {
+        final ServicePool pool = findPool();
+        return pool != null && !pool.isForceSocketClose() ? pool::tryExecute : null;
+    }
+
+    /**
+     * Multiplexed requests run on the ServicePool serving this service,
+     * or one after the other on the session thread if there is none.
+     */
+    private Executor multiplexExecutor() {
+        final ServicePool pool = findPool();
+        if (pool == null) {
+            return Runnable::run;
+        }
+        return pool::tryExecute;
+    }
+
+    private ServicePool findPool() {
+        final ServicePool.Registry registry = SystemInstance.get().getComponent(ServicePool.Registry.class);
+        if (registry == null) {
+            return null;
+        }
+        for (final ServicePool pool : registry.getPools()) {
+            if (getName().equals(pool.getName())) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
     public class KeepAliveTimer extends TimerTask {
 
         private final KeepAliveServer kas;
@@ -205,7 +298,7 @@ public class KeepAliveServer implements ServerService {
 
     private class Session {
 
-        private final Thread thread;
+        private volatile Thread thread;
         private final KeepAliveServer kas;
         private final Lock lock = new ReentrantLock();
 
@@ -232,28 +325,38 @@ public class KeepAliveServer implements ServerService {
         }
 
         private void service() throws ServiceException, IOException {
+            this.thread = Thread.currentThread();
             this.kas.addSession(this);
 
             int i = -1;
+            boolean parked = false;
 
             try {
 
-                final Lock l1 = this.lock;
-                l1.lock();
+                if (in == null) { // else resumed from the selector
+                    final Lock l1 = this.lock;
+                    l1.lock();
 
-                try {
-                    if (!KeepAliveServer.this.gzip) {
-                        in = new BufferedInputStream(socket.getInputStream());
-                        out = new BufferedOutputStream(socket.getOutputStream());
-                    } else {
-                        in = new GZIPInputStream(new BufferedInputStream(socket.getInputStream()));
-                        out = new BufferedOutputStream(new FlushableGZIPOutputStream(socket.getOutputStream()));
+                    try {
+                        if (!KeepAliveServer.this.gzip) {
+                            in = new BufferedInputStream(socket.getInputStream());
+                            out = new BufferedOutputStream(socket.getOutputStream());
+                        } else {
+                            in = new GZIPInputStream(new BufferedInputStream(socket.getInputStream()));
+                            out = new BufferedOutputStream(new FlushableGZIPOutputStream(socket.getOutputStream()));
+                        }
+                    } finally {
+                        l1.unlock();
                     }
-                } finally {
-                    l1.unlock();
                 }
 
                 while (KeepAliveServer.this.running.get()) {
+                    if (park()) {
+                        // another thread owns the session from now on
+                        parked = true;
+                        break;
+                    }
+
                     try {
                         i = in.read();
                     } catch (SocketException e) {
@@ -266,6 +369,14 @@ public class KeepAliveServer implements ServerService {
                     }
                     final KeepAliveStyle style = KeepAliveStyle.values()[i];
 
+                    if (style == KeepAliveStyle.MULTIPLEX) {
+                        // framed until the client leaves, requests run on the pool
+                        new MultiplexedSession(KeepAliveServer.this.service, socket, in, out,
+                            this.kas.multiplexExecutor(), KeepAliveServer.this.running, this.lastRequest,
+                            KeepAliveServer.this.multiplexInFlight, KeepAliveServer.this.multiplexMaxFrame).service();
+                        break;
+                    }
+
                     final Lock l2 = this.lock;
                     l2.lock();
 
@@ -301,9 +412,61 @@ public class KeepAliveServer implements ServerService {
                 Thread.interrupted();
             } finally {
 
-                close();
+                if (!parked) {
+                    close();
+
+                    this.kas.removeSession(this);
+                }
+            }
+        }
 
+        /**
+         * @return true if the session was handed to the selector and
+         * the current thread must leave it alone
+         */
+        private boolean park() {
+            final SocketChannel channel = socket.getChannel();
+            if (channel == null) {
+                return false;
+            }
+
+            final KeepAliveSelector keepAliveSelector = this.kas.selector();
+            if (keepAliveSelector == null) {
+                return false;
+            }
+
+            try {
+                if (in.available() > 0) {
+                    // next request already there, no need to wait for it
+                    return false;
+                }
+
+                final ClassLoader loader = Thread.currentThread().getContextClassLoader();
                 this.kas.removeSession(this);
+                keepAliveSelector.park(channel, () -> resume(loader));
+                return true;
+            } catch (final IOException e) {
+                this.kas.addSession(this);
+                return false;
+            }
+        }
+
+        private void resume(final ClassLoader loader) {
+            final Thread current = Thread.currentThread();
+            final ClassLoader old = current.getContextClassLoader();
+            current.setContextClassLoader(loader);
+            RequestInfos.initRequestInfo(socket);
+            try {
+                socket.getChannel().configureBlocking(true);
+                service();
+            } catch (final Throwable e) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Keep-alive session failed: " + socket.getInetAddress(), e);
+                }
+                close();
+            } finally {
+                RequestInfos.clearRequestInfo();
+                current.setContextClassLoader(old);
             }
         }
 
@@ -384,6 +547,14 @@ public class KeepAliveServer implements ServerService {
             } catch (Throwable e) {
                 //Ignore
             }
+            final KeepAliveSelector keepAliveSelector = this.selector;
+            if (keepAliveSelector != null) {
+                keepAliveSelector.stop();
+            }
+            synchronized (this) {
+                this.selector = null;
+                this.selectorResolved = false;
+            }
         }
     }
 
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.ejbd;
+
+import org.apache.openejb.client.MultiplexedChannel;
+import org.apache.openejb.server.ServerService;
+import org.apache.openejb.server.context.RequestInfos;
+import org.apache.openejb.util.LogCategory;
+import org.apache.openejb.util.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server side of a {@link org.apache.openejb.client.KeepAliveStyle#MULTIPLEX} connection.
+ *
+ * The session thread only reads frames, each request is handed to the
+ * executor and its response is written back with the request correlation
+ * id as soon as it is ready, so a slow call doesn't hold the faster ones
+ * sharing the connection. See {@link MultiplexedChannel} for the framing.
+ *
+ * A connection runs at most maxInFlight requests at a time, the session stops
+ * reading (and the client stops sending, TCP backpressure) until one completes.
+ * The executor must not run the requests in the session thread: when it rejects
+ * a request the session waits for a free thread and closes the connection if
+ * none comes within {@link #BUSY_TIMEOUT} milliseconds.
+ */
+public class MultiplexedSession {
+
+    private static final Logger logger = Logger.getInstance(LogCategory.OPENEJB_SERVER.createChild("keepalive"), MultiplexedSession.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+    public static final long BUSY_TIMEOUT = 10000;
+    private static final long RETRY = 10;
+
+    private final ServerService service;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Executor executor;
+    private final AtomicBoolean running;
+    private final AtomicLong lastRequest;
+    private final Semaphore inFlight;
+    private final int maxFrame;
+    private final Lock writeLock = new ReentrantLock();
+
+    /**
+     * @param service     the ejbd service, called once per request frame
+     * @param executor    runs the requests without blocking, throws RejectedExecutionException when busy
+     * @param running     the session stops reading when this becomes false
+     * @param lastRequest updated on each request and response, idle sessions can be closed
+     * @param maxInFlight maximum concurrent requests of the connection
+     * @param maxFrame    maximum length of a request
+     */
+    public MultiplexedSession(final ServerService service, final Socket socket, final InputStream in, final OutputStream out,
+                              final Executor executor, final AtomicBoolean running, final AtomicLong lastRequest,
+                              final int maxInFlight, final int maxFrame) {
+        this.service = service;
+        this.socket = socket;
+        this.in = new DataInputStream(in);
+        this.out = new DataOutputStream(out);
+        this.executor = executor;
+        this.running = running;
+        this.lastRequest = lastRequest;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxFrame = maxFrame;
+    }
+
+    /**
+     * Reads the request frames until the client hangs up or the session is closed.
+     */
+    public void service() throws IOException {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+
+        while (running.get()) {
+            if (!acquire()) {
+                return;
+            }
+
+            final int id;
+            final byte[] request;
+            try {
+                id = in.readInt();
+                request = MultiplexedChannel.readPayload(in, maxFrame);
+            } catch (final EOFException | SocketException e) {
+                // client hung up or session closed
+                return;
+            }
+
+            lastRequest.set(System.currentTimeMillis());
+
+            if (!submit(() -> process(id, request, loader))) {
+                if (running.get()) {
+                    logger.warning("No thread available for a multiplexed request after " + BUSY_TIMEOUT + "ms, closing the connection of "
+                        + socket.getInetAddress());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for a free in-flight slot, the client meanwhile piles up in the socket buffers.
+     */
+    private boolean acquire() {
+        try {
+            while (running.get()) {
+                if (inFlight.tryAcquire(1, TimeUnit.SECONDS)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (final InterruptedException e) {
+            Thread.interrupted();
+            return false;
+        }
+    }
+
+    private boolean submit(final Runnable task) {
+        final long end = System.currentTimeMillis() + BUSY_TIMEOUT;
+        while (running.get()) {
+            try {
+                executor.execute(task);
+                return true;
+            } catch (final RejectedExecutionException e) {
+                if (System.currentTimeMillis() > end) {
+                    break;
+                }
+                try {
+                    Thread.sleep(RETRY);
+                } catch (final InterruptedException ie) {
+                    Thread.interrupted();
+                    break;
+                }
+            }
+        }
+        inFlight.release();
+        return false;
+    }
+
+    private void process(final int id, final byte[] request, final ClassLoader loader) {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader old = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
+        RequestInfos.initRequestInfo(socket);
+
+        final MultiplexedChannel.Buffer response = new MultiplexedChannel.Buffer(1024);
+        try {
+            service.service(new ByteArrayInputStream(request), response);
+        } catch (final Throwable e) {
+            // EjbDaemon reports the failures to the client, this is only a broken request
+            if (logger.isDebugEnabled()) {
+                logger.debug("Multiplexed request " + id + " failed: " + socket.getInetAddress(), e);
+            }
+        } finally {
+            RequestInfos.clearRequestInfo();
+            thread.setContextClassLoader(old);
+        }
+
+        // a lock rather than a monitor, requests may run on virtual threads
+        writeLock.lock();
+        try {
+            MultiplexedChannel.writeFrame(out, id, response.array(), response.size());
+            out.flush();
+            lastRequest.set(System.currentTimeMillis());
+        } catch (final IOException e) {
+            // the client is gone, unblock the reader too
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+                // no-op
+            }
+        } finally {
+            writeLock.unlock();
+            inFlight.release();
+        }
+    }
+}
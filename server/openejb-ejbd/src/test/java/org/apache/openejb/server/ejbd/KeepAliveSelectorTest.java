@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.ejbd;
+
+import junit.framework.TestCase;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class KeepAliveSelectorTest extends TestCase {
+
+    public void testResumeWhenReadable() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final KeepAliveSelector selector = new KeepAliveSelector("test", executor, 60000).start();
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            try (final Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                 final SocketChannel accepted = server.accept()) {
+
+                final AtomicInteger read = new AtomicInteger(-1);
+                final AtomicReference<Throwable> failure = new AtomicReference<>();
+                final CountDownLatch resumed = new CountDownLatch(1);
+                selector.park(accepted, () -> {
+                    try {
+                        accepted.configureBlocking(true);
+                        final InputStream in = accepted.socket().getInputStream();
+                        read.set(in.read());
+                    } catch (final Exception e) {
+                        failure.set(e);
+                    } finally {
+                        resumed.countDown();
+                    }
+                });
+
+                assertFalse(resumed.await(200, TimeUnit.MILLISECONDS));
+                assertEquals(1, selector.getParked());
+
+                client.getOutputStream().write(42);
+                client.getOutputStream().flush();
+
+                assertTrue(resumed.await(1, TimeUnit.MINUTES));
+                assertNull(failure.get());
+                assertEquals(42, read.get());
+                assertEquals(0, selector.getParked());
+            }
+        } finally {
+            selector.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    public void testIdleChannelsAreClosed() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final KeepAliveSelector selector = new KeepAliveSelector("test", executor, 200).start();
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            try (final Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                 final SocketChannel accepted = server.accept()) {
+                client.setSoTimeout(60000);
+                final AtomicReference<Throwable> failure = new AtomicReference<>();
+                selector.park(accepted, () -> failure.set(new AssertionError("should not resume")));
+
+                assertEquals(-1, client.getInputStream().read());
+                assertFalse(accepted.isOpen());
+                assertNull(failure.get());
+            }
+        } finally {
+            selector.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    public void testRejectedResumeIsRetried() throws Exception {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final AtomicInteger rejections = new AtomicInteger(3);
+        final Executor executor = task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException();
+            }
+            pool.execute(task);
+        };
+        final KeepAliveSelector selector = new KeepAliveSelector("test", executor, 60000).start();
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            try (final Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                 final SocketChannel accepted = server.accept()) {
+                final CountDownLatch resumed = new CountDownLatch(1);
+                selector.park(accepted, resumed::countDown);
+
+                client.getOutputStream().write(42);
+                client.getOutputStream().flush();
+
+                assertTrue(resumed.await(1, TimeUnit.MINUTES));
+                assertTrue(accepted.isOpen());
+            }
+        } finally {
+            selector.stop();
+            pool.shutdownNow();
+        }
+    }
+
+    public void testStopClosesParkedChannels() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final KeepAliveSelector selector = new KeepAliveSelector("test", executor, 60000).start();
+        try (final ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+            try (final Socket client = new Socket(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+                 final SocketChannel accepted = server.accept()) {
+                selector.park(accepted, () -> fail("should not resume"));
+                selector.stop();
+
+                assertFalse(accepted.isOpen());
+                assertEquals(-1, client.getInputStream().read());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
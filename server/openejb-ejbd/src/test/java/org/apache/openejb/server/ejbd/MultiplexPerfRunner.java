@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.ejbd;
+
+import org.apache.openejb.client.Connection;
+import org.apache.openejb.client.SocketConnectionFactory;
+import org.apache.openejb.server.ServerService;
+import org.apache.openejb.server.ServiceDaemon;
+import org.apache.openejb.server.ServiceException;
+import org.apache.openejb.server.ServicePool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Properties;
+
+/**
+ * Throughput of concurrent calls through a pool of sockets (one per
+ * in-flight call) versus two multiplexed connections, against a
+ * KeepAliveServer whose service answers after 1ms.
+ *
+ * Run the main to get 1 to 200 client threads.
+ */
+@State(Scope.Benchmark)
+public class MultiplexPerfRunner {
+
+    @Param({"pool", "multiplex"})
+    private String mode;
+
+    private ServiceDaemon daemon;
+    private SocketConnectionFactory factory;
+    private URI uri;
+    private final byte[] request = new byte[256];
+
+    @Setup
+    public void setup() throws Exception {
+        final KeepAliveServer keepAlive = new KeepAliveServer(new SlowEchoService(), false);
+        daemon = new ServiceDaemon(new ServicePool(keepAlive, 256, 1024, true), 0, "localhost");
+        daemon.start();
+        uri = URI.create("ejbd://localhost:" + daemon.getPort());
+
+        final Properties properties = System.getProperties();
+        if ("multiplex".equals(mode)) {
+            properties.setProperty(SocketConnectionFactory.PROPERTY_MULTIPLEX, "2");
+            properties.setProperty(SocketConnectionFactory.PROPERTY_MULTIPLEX_IN_FLIGHT, "128");
+        } else {
+            properties.setProperty(SocketConnectionFactory.PROPERTY_POOL_SIZE, "256");
+        }
+        properties.setProperty(SocketConnectionFactory.PROPERTY_POOL_TIMEOUT, "60000");
+        try {
+            factory = new SocketConnectionFactory();
+        } finally {
+            properties.remove(SocketConnectionFactory.PROPERTY_MULTIPLEX);
+            properties.remove(SocketConnectionFactory.PROPERTY_MULTIPLEX_IN_FLIGHT);
+            properties.remove(SocketConnectionFactory.PROPERTY_POOL_SIZE);
+            properties.remove(SocketConnectionFactory.PROPERTY_POOL_TIMEOUT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws ServiceException {
+        daemon.stop();
+    }
+
+    @Benchmark
+    public int call() throws IOException {
+        final Connection connection = factory.getConnection(uri);
+        try {
+            final OutputStream out = connection.getOutputStream();
+            out.write(request.length >> 8);
+            out.write(request.length);
+            out.write(request);
+            out.flush();
+
+            final DataInputStream in = new DataInputStream(connection.getInputStream());
+            final byte[] response = new byte[in.readUnsignedShort()];
+            in.readFully(response);
+            return response.length;
+        } finally {
+            connection.close();
+        }
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        for (final int threads : new int[]{1, 8, 32, 64, 200}) {
+            new Runner(new OptionsBuilder()
+                    .include(MultiplexPerfRunner.class.getSimpleName())
+                    .forks(1)
+                    .warmupIterations(3)
+                    .measurementIterations(5)
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+
+    /**
+     * Length prefixed echo, it can't rely on the end of the stream since
+     * non multiplexed connections are kept alive between calls.
+     */
+    private static class SlowEchoService implements ServerService {
+
+        @Override
+        public void service(final InputStream in, final OutputStream out) throws ServiceException, IOException {
+            final DataInputStream data = new DataInputStream(in);
+            final int length = data.readUnsignedShort();
+            final byte[] payload = new byte[length];
+            data.readFully(payload);
+
+            try {
+                Thread.sleep(1);
+            } catch (final InterruptedException e) {
+                Thread.interrupted();
+            }
+
+            out.write(length >> 8);
+            out.write(length);
+            out.write(payload);
+            out.flush();
+        }
+
+        @Override
+        public void service(final Socket socket) throws ServiceException, IOException {
+        }
+
+        @Override
+        public void init(final Properties props) throws Exception {
+        }
+
+        @Override
+        public void start() throws ServiceException {
+        }
+
+        @Override
+        public void stop() throws ServiceException {
+        }
+
+        @Override
+        public String getIP() {
+            return "localhost";
+        }
+
+        @Override
+        public int getPort() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "echo";
+        }
+    }
+}
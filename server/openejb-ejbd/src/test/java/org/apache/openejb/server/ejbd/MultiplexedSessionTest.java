@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.ejbd;
+
+import junit.framework.TestCase;
+import org.apache.openejb.client.Connection;
+import org.apache.openejb.client.KeepAliveStyle;
+import org.apache.openejb.client.MultiplexedChannel;
+import org.apache.openejb.client.SocketConnectionFactory;
+import org.apache.openejb.server.ServerService;
+import org.apache.openejb.server.ServiceException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MultiplexedSessionTest extends TestCase {
+
+    public void testConcurrentCallsShareOneConnection() throws Exception {
+        final ExecutorService workers = Executors.newCachedThreadPool();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Socket> accepted = new CopyOnWriteArrayList<>();
+        final List<Integer> completion = new CopyOnWriteArrayList<>();
+
+        try (final ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            final Thread acceptor = new Thread(() -> {
+                while (running.get()) {
+                    try {
+                        final Socket socket = server.accept();
+                        accepted.add(socket);
+                        workers.execute(() -> serve(socket, new ReverseService(completion), workers, running));
+                    } catch (final IOException e) {
+                        return;
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            System.setProperty(SocketConnectionFactory.PROPERTY_MULTIPLEX, "1");
+            final SocketConnectionFactory factory;
+            try {
+                factory = new SocketConnectionFactory();
+            } finally {
+                System.clearProperty(SocketConnectionFactory.PROPERTY_MULTIPLEX);
+            }
+            final URI uri = URI.create("ejbd://127.0.0.1:" + server.getLocalPort());
+
+            final ExecutorService clients = Executors.newFixedThreadPool(20);
+            try {
+                final List<Future<String>> responses = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    // the first calls are the slowest ones
+                    final byte delay = (byte) (20 - i);
+                    responses.add(clients.submit(() -> call(factory, uri, delay, "call-" + delay)));
+                }
+                for (int i = 0; i < 20; i++) {
+                    final byte delay = (byte) (20 - i);
+                    assertEquals(new StringBuilder("call-" + delay).reverse().toString(), responses.get(i).get(1, TimeUnit.MINUTES));
+                }
+            } finally {
+                clients.shutdownNow();
+            }
+
+            assertEquals(1, accepted.size());
+            assertEquals(20, completion.size());
+            assertTrue("responses came back out of order", completion.get(0) < completion.get(completion.size() - 1));
+        } finally {
+            running.set(false);
+            for (final Socket socket : accepted) {
+                socket.close();
+            }
+            workers.shutdownNow();
+        }
+    }
+
+    public void testInFlightRequestsAreBounded() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final ServerService service = new ReverseService(new CopyOnWriteArrayList<>()) {
+            @Override
+            public void service(final InputStream in, final OutputStream out) throws ServiceException, IOException {
+                max.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    super.service(in, out);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try (final Sessions sessions = new Sessions(service, executor, 2, 1024)) {
+            for (int i = 1; i <= 10; i++) {
+                sessions.send(i, new byte[]{2, 'a', 'b'});
+            }
+            for (int i = 1; i <= 10; i++) {
+                assertEquals("ba", new String(sessions.receive(), "UTF-8"));
+            }
+            assertEquals(2, max.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testFrameLengthIsBounded() throws Exception {
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try (final Sessions sessions = new Sessions(new ReverseService(new CopyOnWriteArrayList<>()), executor, 2, 1024)) {
+            sessions.send(1, new byte[2048]);
+            assertTrue(sessions.session.get(1, TimeUnit.MINUTES) instanceof StreamCorruptedException);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testRejectedRequestsDontRunOnTheSessionThread() throws Exception {
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        final ServerService service = new ReverseService(new CopyOnWriteArrayList<>()) {
+            @Override
+            public void service(final InputStream in, final OutputStream out) throws ServiceException, IOException {
+                threads.add(Thread.currentThread());
+                super.service(in, out);
+            }
+        };
+
+        final ExecutorService pool = Executors.newCachedThreadPool();
+        final AtomicInteger rejections = new AtomicInteger(3);
+        final Executor executor = task -> {
+            if (rejections.getAndDecrement() > 0) {
+                throw new RejectedExecutionException();
+            }
+            pool.execute(task);
+        };
+        try (final Sessions sessions = new Sessions(service, executor, 2, 1024)) {
+            sessions.send(1, new byte[]{0, 'o', 'k'});
+            assertEquals("ko", new String(sessions.receive(), "UTF-8"));
+            assertEquals(1, threads.size());
+            assertNotSame(sessions.reader, threads.get(0));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String call(final SocketConnectionFactory factory, final URI uri, final byte delay, final String message) throws IOException {
+        final Connection connection = factory.getConnection(uri);
+        try {
+            final OutputStream out = connection.getOutputStream();
+            out.write(delay);
+            out.write(message.getBytes("UTF-8"));
+            out.close();
+
+            final InputStream in = connection.getInputStream();
+            final ByteArrayOutputStream response = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                response.write(b);
+            }
+            return new String(response.toByteArray(), "UTF-8");
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static void serve(final Socket socket, final ServerService service, final ExecutorService executor, final AtomicBoolean running) {
+        try (final Socket s = socket) {
+            final InputStream in = s.getInputStream();
+            assertEquals(KeepAliveStyle.MULTIPLEX.ordinal(), in.read());
+            new MultiplexedSession(service, s, in, s.getOutputStream(), executor, running, new AtomicLong(),
+                MultiplexedSession.DEFAULT_MAX_IN_FLIGHT, MultiplexedChannel.DEFAULT_MAX_FRAME).service();
+        } catch (final IOException e) {
+            // closed
+        }
+    }
+
+    /**
+     * A session served on its own thread and the client end of its socket.
+     */
+    private static class Sessions implements AutoCloseable {
+
+        private final ServerSocket server;
+        private final Socket client;
+        private final DataOutputStream out;
+        private final DataInputStream in;
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final CompletableFuture<Throwable> session = new CompletableFuture<>();
+        private volatile Thread reader;
+
+        private Sessions(final ServerService service, final Executor executor, final int maxInFlight, final int maxFrame) throws IOException {
+            server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            client = new Socket(InetAddress.getLoopbackAddress(), server.getLocalPort());
+            final Socket accepted = server.accept();
+            final Thread thread = new Thread(() -> {
+                reader = Thread.currentThread();
+                try (final Socket s = accepted) {
+                    new MultiplexedSession(service, s, s.getInputStream(), s.getOutputStream(), executor, running, new AtomicLong(),
+                        maxInFlight, maxFrame).service();
+                    session.complete(null);
+                } catch (final Throwable e) {
+                    session.complete(e);
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+            out = new DataOutputStream(client.getOutputStream());
+            in = new DataInputStream(client.getInputStream());
+        }
+
+        private void send(final int id, final byte[] payload) throws IOException {
+            MultiplexedChannel.writeFrame(out, id, payload, payload.length);
+            out.flush();
+        }
+
+        private byte[] receive() throws IOException {
+            in.readInt();
+            return MultiplexedChannel.readPayload(in, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            running.set(false);
+            client.close();
+            server.close();
+        }
+    }
+
+    /**
+     * Sleeps the number of 10ms given by the first byte and answers the rest reversed.
+     */
+    private static class ReverseService implements ServerService {
+
+        private final List<Integer> completion;
+
+        private ReverseService(final List<Integer> completion) {
+            this.completion = completion;
+        }
+
+        @Override
+        public void service(final InputStream in, final OutputStream out) throws ServiceException, IOException {
+            final int delay = in.read();
+            final ByteArrayOutputStream message = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                message.write(b);
+            }
+
+            try {
+                Thread.sleep(delay * 10L);
+            } catch (final InterruptedException e) {
+                Thread.interrupted();
+            }
+
+            out.write(new StringBuilder(new String(message.toByteArray(), "UTF-8")).reverse().toString().getBytes("UTF-8"));
+            completion.add(delay);
+        }
+
+        @Override
+        public void service(final Socket socket) throws ServiceException, IOException {
+        }
+
+        @Override
+        public void init(final Properties props) throws Exception {
+        }
+
+        @Override
+        public void start() throws ServiceException {
+        }
+
+        @Override
+        public void stop() throws ServiceException {
+        }
+
+        @Override
+        public String getIP() {
+            return "127.0.0.1";
+        }
+
+        @Override
+        public int getPort() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "reverse";
+        }
+    }
+}
@@ -50,6 +50,9 @@ public abstract class HttpEjbServer implements ServerService {
         }
 
         registry.addHttpListener(adapter, "/ejb/?.*");
+        if ("true".equalsIgnoreCase(props.getProperty("metrics", "false").trim())) {
+            registry.addHttpListener(new MetricsHttpListener(), "/metrics/?");
+        }
 
         // register the http server
         systemInstance.setComponent(HttpServer.class, httpServer);
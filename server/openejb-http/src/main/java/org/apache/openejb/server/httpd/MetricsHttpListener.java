@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server.httpd;
+
+import org.apache.openejb.loader.SystemInstance;
+import org.apache.openejb.monitoring.InvocationMetrics;
+import org.apache.openejb.spi.ContainerSystem;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Serves the EJB invocation metrics in the Prometheus text format,
+ * registered under /metrics when the metrics property of httpejbd is true.
+ */
+public class MetricsHttpListener implements HttpListener {
+
+    @Override
+    public void onMessage(final HttpRequest request, final HttpResponse response) throws Exception {
+        if (!"GET".equals(request.getMethod())) {
+            response.setStatus(HttpResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        final ContainerSystem containerSystem = SystemInstance.get().getComponent(ContainerSystem.class);
+        final StringBuilder text = new StringBuilder();
+        InvocationMetrics.write(containerSystem == null ? Collections.emptyList() : Arrays.asList(containerSystem.deployments()), text);
+
+        final byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.setContentLength(bytes.length);
+        final OutputStream out = response.getOutputStream();
+        out.write(bytes);
+        out.flush();
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.openejb.server;
 import org.apache.openejb.loader.Options;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.monitoring.Managed;
+import org.apache.openejb.threads.impl.VirtualThreadHelper;
 import org.apache.openejb.util.LogCategory;
 import org.apache.openejb.util.Logger;
 
@@ -30,7 +31,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Properties;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -46,6 +49,7 @@ public class ServicePool extends ServerServiceFilter {
     private final ThreadPoolExecutor threadPool;
     private final AtomicBoolean stop = new AtomicBoolean();
     private boolean forceSocketClose = true;
+    private final boolean virtualThreads;
 
     public ServicePool(final ServerService next, final Properties properties) {
         /**Defaults.
@@ -61,7 +65,9 @@ public class ServicePool extends ServerServiceFilter {
         this(next, properties.get("threadsCore", 10), properties.get("threads", 150),
                 properties.get("queue", 0), properties.get("block", true),
                 properties.get("keepAliveTime", KEEP_ALIVE_TIME),
-                properties.get("forceSocketClose", true));
+                // nio sockets outlive a pooled task (idle keep-alive sessions are parked), the service closes them
+                properties.get("forceSocketClose", !properties.get("nio", false)),
+                properties.get("virtualThreads", false));
     }
 
     public ServicePool(final ServerService next, final int threads) {
@@ -72,11 +78,23 @@ public class ServicePool extends ServerServiceFilter {
         this(next, threads, threads, queue, block, KEEP_ALIVE_TIME, true);
     }
 
-    public ServicePool(final ServerService next, int threadCore, int threads, int queue, final boolean block, long keepAliveTime, boolean forceClose) {
+    public ServicePool(final ServerService next, final int threadCore, final int threads, final int queue, final boolean block, final long keepAliveTime, final boolean forceClose) {
+        this(next, threadCore, threads, queue, block, keepAliveTime, forceClose, false);
+    }
+
+    public ServicePool(final ServerService next, int threadCore, int threads, int queue, final boolean block, long keepAliveTime, boolean forceClose,
+                       final boolean virtualThreads) {
         super(next);
 
         this.forceSocketClose = forceClose;
 
+        if (virtualThreads && !VirtualThreadHelper.isSupported()) {
+            log.warning("ServicePool '" + getName() + "': virtualThreads requires Java 21+, using platform threads");
+            this.virtualThreads = false;
+        } else {
+            this.virtualThreads = virtualThreads;
+        }
+
         if (keepAliveTime <= 0) {
             keepAliveTime = KEEP_ALIVE_TIME;
         }
@@ -103,18 +121,37 @@ public class ServicePool extends ServerServiceFilter {
          is true then a final attempt is made to run the runnable in the current thread (the service thread).
          */
 
+        /**
+         In virtual thread mode each connection gets its own virtual thread, an idle keep-alive session
+         then only costs a parked virtual thread instead of a platform one. The executor stays a
+         ThreadPoolExecutor (for JMX and the KeepAliveServer backlog check) but is unbounded and hands
+         tasks over directly, so 'threads' and 'queue' no longer limit the number of connections.
+         */
+        if (this.virtualThreads) {
+            threads = Integer.MAX_VALUE;
+            queue = 0;
+        }
+
         final int c = threadCore;
         final int t = threads;
         final int q = queue;
+        final ThreadFactory virtualFactory = this.virtualThreads ?
+            VirtualThreadHelper.newVirtualThreadFactory("OpenEJB." + getName() + ".virtual.") : null;
 
-        threadPool = new ThreadPoolExecutor(threadCore, threads, keepAliveTime, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(queue),
+        threadPool = new ThreadPoolExecutor(threadCore, threads, keepAliveTime, TimeUnit.MILLISECONDS,
+            this.virtualThreads ? new SynchronousQueue<>() : new LinkedBlockingQueue<>(queue),
             new ThreadFactory() {
                 private final AtomicInteger i = new AtomicInteger(0);
 
                 @Override
                 public Thread newThread(final Runnable r) {
-                    final Thread t = new Thread(r, "OpenEJB." + ServicePool.this.getName() + "." + i.incrementAndGet());
-                    t.setDaemon(true);
+                    final Thread t;
+                    if (virtualFactory != null) {
+                        t = virtualFactory.newThread(r); // always daemon
+                    } else {
+                        t = new Thread(r, "OpenEJB." + ServicePool.this.getName() + "." + i.incrementAndGet());
+                        t.setDaemon(true);
+                    }
                     t.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
                         @Override
                         public void uncaughtException(final Thread t, final Throwable e) {
@@ -130,6 +167,10 @@ public class ServicePool extends ServerServiceFilter {
                 @Override
                 public void rejectedExecution(final Runnable r, final ThreadPoolExecutor tpe) {
 
+                    if (r instanceof NonBlocking) {
+                        throw new RejectedExecutionException("ServicePool '" + ServicePool.this.getName() + "' is at capacity");
+                    }
+
                     if (null == r || null == tpe || tpe.isShutdown() || tpe.isTerminated() || tpe.isTerminating()) {
                         return;
                     }
@@ -174,7 +215,11 @@ public class ServicePool extends ServerServiceFilter {
         }
 
         if (log.isInfoEnabled()) {
-            log.info(String.format("Created ServicePool '%1$s' with (%2$s) core threads, limited to (%3$s) threads with a queue of (%4$s)", getName(), c, t, q));
+            if (this.virtualThreads) {
+                log.info(String.format("Created ServicePool '%1$s' running each connection on a virtual thread", getName()));
+            } else {
+                log.info(String.format("Created ServicePool '%1$s' with (%2$s) core threads, limited to (%3$s) threads with a queue of (%4$s)", getName(), c, t, q));
+            }
         }
     }
 
@@ -182,6 +227,25 @@ public class ServicePool extends ServerServiceFilter {
         return threadPool;
     }
 
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Runs a task on the pool without the fallback of {@link #getThreadPool()}, which waits
+     * for a queue slot and then runs the task in the calling thread. For selector or reader
+     * threads which must never block nor run a request themselves.
+     *
+     * @throws RejectedExecutionException if no thread nor queue slot is available
+     */
+    public void tryExecute(final Runnable task) {
+        threadPool.execute(new NonBlocking(task));
+    }
+
+    public boolean isForceSocketClose() {
+        return forceSocketClose;
+    }
+
     @Override
     public void start() throws ServiceException {
         super.start();
@@ -288,6 +352,11 @@ public class ServicePool extends ServerServiceFilter {
     @Managed(append = true)
     public class Pool {
 
+        @Managed
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
         @Managed
         public boolean isShutdown() {
             return getThreadPool().isShutdown();
@@ -392,4 +461,23 @@ public class ServicePool extends ServerServiceFilter {
             return new ArrayList<>(pools);
         }
     }
+
+    private static final class NonBlocking implements Runnable {
+
+        private final Runnable task;
+
+        private NonBlocking(final Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public String toString() {
+            return task.toString();
+        }
+    }
 }
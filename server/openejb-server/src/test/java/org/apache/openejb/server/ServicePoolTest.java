@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.openejb.server;
+
+import junit.framework.TestCase;
+import org.apache.openejb.loader.Options;
+import org.apache.openejb.threads.impl.VirtualThreadHelper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ServicePoolTest extends TestCase {
+
+    public void testPlatformThreadsByDefault() throws Exception {
+        final ServicePool pool = new ServicePool(new NoopService(), new Options(new Properties()));
+        try {
+            assertFalse(pool.isVirtualThreads());
+            assertEquals(150, pool.getThreadPool().getMaximumPoolSize());
+        } finally {
+            pool.getThreadPool().shutdownNow();
+        }
+    }
+
+    public void testVirtualThreads() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty("virtualThreads", "true");
+        final ServicePool pool = new ServicePool(new NoopService(), new Options(properties));
+        try {
+            // falls back to platform threads before Java 21
+            assertEquals(VirtualThreadHelper.isSupported(), pool.isVirtualThreads());
+            if (!pool.isVirtualThreads()) {
+                return;
+            }
+
+            assertEquals(Integer.MAX_VALUE, pool.getThreadPool().getMaximumPoolSize());
+
+            final AtomicReference<Thread> thread = new AtomicReference<>();
+            final CountDownLatch latch = new CountDownLatch(1);
+            pool.getThreadPool().execute(() -> {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            });
+            assertTrue(latch.await(1, TimeUnit.MINUTES));
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread.get()));
+        } finally {
+            pool.getThreadPool().shutdownNow();
+        }
+    }
+
+    private static class NoopService implements ServerService {
+
+        @Override
+        public void init(final Properties props) throws Exception {
+        }
+
+        @Override
+        public void start() throws ServiceException {
+        }
+
+        @Override
+        public void stop() throws ServiceException {
+        }
+
+        @Override
+        public String getIP() {
+            return "127.0.0.1";
+        }
+
+        @Override
+        public int getPort() {
+            return 0;
+        }
+
+        @Override
+        public void service(final Socket socket) throws ServiceException, IOException {
+        }
+
+        @Override
+        public void service(final InputStream in, final OutputStream out) throws ServiceException, IOException {
+        }
+
+        @Override
+        public String getName() {
+            return "noop";
+        }
+    }
+}
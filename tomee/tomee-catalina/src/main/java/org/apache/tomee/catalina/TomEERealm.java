@@ -27,6 +27,7 @@ import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
 import org.apache.catalina.realm.CombinedRealm;
 import org.apache.catalina.realm.GenericPrincipal;
+import org.apache.openejb.core.security.AuthenticationCache;
 import org.apache.openejb.core.security.JaccProvider;
 import org.apache.openejb.loader.SystemInstance;
 import org.apache.openejb.spi.SecurityService;
@@ -58,6 +59,7 @@ public class TomEERealm extends CombinedRealm {
     private static final ThreadLocal<Object> HANDLER_DATA_TL = lookupHandlerDataThreadLocal();
 
     private TomcatSecurityService securityService;
+    private AuthenticationCache<Principal> authenticationCache;
 
     @SuppressWarnings("unchecked")
     private static ThreadLocal<Object> lookupHandlerDataThreadLocal() {
@@ -79,11 +81,42 @@ public class TomEERealm extends CombinedRealm {
     protected void startInternal() throws LifecycleException {
         super.startInternal();
         this.securityService = (TomcatSecurityService) SystemInstance.get().getComponent(SecurityService.class);
+        this.authenticationCache = AuthenticationCache.create("TomEERealm");
+    }
+
+    @Override
+    protected void stopInternal() throws LifecycleException {
+        if (authenticationCache != null) {
+            authenticationCache.close();
+            authenticationCache = null;
+        }
+        super.stopInternal();
     }
 
     @Override
     public Principal authenticate(final String username, final String password) {
-        return logInTomEE(super.authenticate(username, password));
+        final AuthenticationCache<Principal> cache = authenticationCache;
+        if (cache == null || !cache.isEnabled()) {
+            return logInTomEE(super.authenticate(username, password));
+        }
+
+        final String realmName = cacheRealmName();
+        final Principal cached = cache.get(realmName, username, password);
+        if (cached != null) {
+            return logInTomEE(cached);
+        }
+
+        final Principal principal = super.authenticate(username, password);
+        cache.put(realmName, username, password, principal);
+        return logInTomEE(principal);
+    }
+
+    public AuthenticationCache<Principal> getAuthenticationCache() {
+        return authenticationCache;
+    }
+
+    private String cacheRealmName() {
+        return getContainer() == null ? getRealmPath() : getContainer().getName() + getRealmPath();
     }
 
     @Override
@@ -24,16 +24,19 @@ import java.util.regex.Pattern;
 
 public class Route {
     private static final String[] EMPTY_CONTEXT = new String[0];
+    private static final String META_CHARACTERS = "\\[](){}.*+?^$|";
 
     private final ThreadLocal<Matcher> matcher = new ThreadLocal<>();
 
     private Pattern originPattern;
     private String origin;
+    private String literalPrefix;
     private String destination;
 
     public Route from(final String value) {
         origin = value;
         originPattern = Pattern.compile(value);
+        literalPrefix = literalPrefix(value);
         return this;
     }
 
@@ -65,6 +68,45 @@ public class Route {
         return origin;
     }
 
+    /**
+     * @return the start all the URIs matching the origin have, the whole origin if it is not a regex
+     */
+    public String getLiteralPrefix() {
+        return literalPrefix;
+    }
+
+    public boolean isLiteral() {
+        return literalPrefix.length() == origin.length();
+    }
+
+    /**
+     * Same as {@link #matches(String)} followed by {@link #cleanDestination(String)}
+     * without keeping anything in the thread.
+     *
+     * @return the destination for this uri or null if the route doesn't match it
+     */
+    public String destination(final String uri, final String prefix) {
+        String destination = this.destination;
+        if (isLiteral()) {
+            if (!origin.equals(uri)) {
+                return null;
+            }
+        } else {
+            final Matcher matcher = originPattern.matcher(uri);
+            if (!matcher.matches()) {
+                return null;
+            }
+            for (int i = 0; i < matcher.groupCount(); i++) {
+                destination = destination.replace("$" + (i + 1), matcher.group(i + 1));
+            }
+        }
+
+        if (prefix == null) {
+            return destination;
+        }
+        return destination.substring(prefix.length());
+    }
+
     public boolean matches(final String uri) {
         final Matcher matcher = originPattern.matcher(uri);
         final boolean ok = matcher.matches();
@@ -95,4 +137,20 @@ public class Route {
     public String getRawDestination() {
         return destination;
     }
+
+    private static String literalPrefix(final String regex) {
+        if (regex.indexOf('|') >= 0) { // an alternative can start with anything
+            return "";
+        }
+        for (int i = 0; i < regex.length(); i++) {
+            final char c = regex.charAt(i);
+            if (META_CHARACTERS.indexOf(c) >= 0) {
+                if (c == '*' || c == '+' || c == '?' || c == '{') { // quantifier of the previous character
+                    return regex.substring(0, Math.max(0, i - 1));
+                }
+                return regex.substring(0, i);
+            }
+        }
+        return regex;
+    }
 }
@@ -56,6 +56,16 @@ public class RouterValve extends ValveBase {
         router.readConfiguration(configurationPath);
     }
 
+    public void setCacheSize(final int cacheSize) {
+        router.setCacheSize(cacheSize);
+    }
+
+    @Override
+    public void backgroundProcess() {
+        // tomcat background thread, the requests keep the current routes while the file is read
+        router.reloadIfModified();
+    }
+
     @Override
     protected synchronized void startInternal() throws LifecycleException {
         super.startInternal();
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tomee.catalina.routing;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The routes of a {@link SimpleRouter} compiled for lookups, never modified:
+ * a change of the routes builds a new table.
+ *
+ * The literal prefixes of the route origins (the whole origin when it is
+ * not a regex) are merged in a trie. Walking the uri in it gives the only
+ * routes which can match, the regex of the others is never evaluated. The
+ * first declared route matching the uri still wins.
+ *
+ * The decisions (uri to destination, no destination included) are cached,
+ * when the cache is full it is emptied.
+ */
+final class RoutingTable {
+    private static final Object NO_ROUTE = new Object();
+    private static final int[] NO_ROUTES = new int[0];
+
+    private final Route[] routes;
+    private final String prefix;
+    private final Node root;
+    private final ConcurrentMap<String, Object> decisions = new ConcurrentHashMap<>();
+    private final int maxDecisions;
+
+    RoutingTable(final Route[] routes, final String prefix, final int maxDecisions) {
+        this.routes = routes;
+        this.prefix = prefix;
+        this.maxDecisions = maxDecisions;
+
+        final Builder builder = new Builder();
+        for (int i = 0; i < routes.length; i++) {
+            builder.add(routes[i], i);
+        }
+        this.root = builder.build();
+    }
+
+    String route(final String uri) {
+        final Object cached = decisions.get(uri);
+        if (cached != null) {
+            return cached == NO_ROUTE ? null : (String) cached;
+        }
+
+        final String destination = resolve(uri);
+        if (maxDecisions > 0) {
+            if (decisions.size() >= maxDecisions) {
+                decisions.clear();
+            }
+            decisions.put(uri, destination == null ? NO_ROUTE : destination);
+        }
+        return destination;
+    }
+
+    int size() {
+        return routes.length;
+    }
+
+    private String resolve(final String uri) {
+        int[] candidates = root.regex;
+        int count = candidates.length;
+        candidates = Arrays.copyOf(candidates, Math.max(4, count));
+
+        int literal = uri.isEmpty() ? root.literal : -1;
+        Node node = root;
+        for (int i = 0; i < uri.length(); i++) {
+            node = node.child(uri.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.regex.length > 0) {
+                if (count + node.regex.length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, count + node.regex.length));
+                }
+                System.arraycopy(node.regex, 0, candidates, count, node.regex.length);
+                count += node.regex.length;
+            }
+            if (i == uri.length() - 1) {
+                literal = node.literal;
+            }
+        }
+
+        // declaration order
+        Arrays.sort(candidates, 0, count);
+        for (int i = 0; i < count; i++) {
+            final int index = candidates[i];
+            if (literal >= 0 && index > literal) {
+                break;
+            }
+            final String destination = routes[index].destination(uri, prefix);
+            if (destination != null) {
+                return destination;
+            }
+        }
+        if (literal >= 0) {
+            return routes[literal].destination(uri, prefix);
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+        private final int[] regex; // routes whose literal prefix ends here, in declaration order
+        private final int literal; // first literal route ending here
+
+        private Node(final char[] keys, final Node[] children, final int[] regex, final int literal) {
+            this.keys = keys;
+            this.children = children;
+            this.regex = regex;
+            this.literal = literal;
+        }
+
+        private Node child(final char c) {
+            final int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+
+    private static final class Builder {
+        private final Map<Character, Builder> children = new TreeMap<>();
+        private int[] regex = NO_ROUTES;
+        private int literal = -1;
+
+        private void add(final Route route, final int index) {
+            final String key = route.getLiteralPrefix();
+            Builder node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Builder());
+            }
+            if (!route.isLiteral()) {
+                node.regex = Arrays.copyOf(node.regex, node.regex.length + 1);
+                node.regex[node.regex.length - 1] = index;
+            } else if (node.literal < 0) {
+                node.literal = index;
+            }
+        }
+
+        private Node build() {
+            final char[] keys = new char[children.size()];
+            final Node[] nodes = new Node[keys.length];
+            int i = 0;
+            for (final Map.Entry<Character, Builder> child : children.entrySet()) {
+                keys[i] = child.getKey();
+                nodes[i] = child.getValue().build();
+                i++;
+            }
+            return new Node(keys, nodes, regex, literal);
+        }
+    }
+}
@@ -42,8 +42,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -55,14 +57,82 @@ public class SimpleRouter {
 
     private String prefix = "";
     private ObjectName objectName;
-    private Route[] routes = new Route[0];
-    private final Map<String, Route> cache = new ConcurrentHashMap<>();
+    private volatile Route[] routes = new Route[0];
+    private volatile RoutingTable table = new RoutingTable(routes, prefix, 0);
+    private int cacheSize = 10000;
+    private URL configuration;
+    private long configurationLastModified;
 
     public SimpleRouter readConfiguration(final URL url) {
         if (url == null) {
             return this;
         }
 
+        final long lastModified = lastModified(url);
+        final List<Route> read = parseConfiguration(url);
+        synchronized (this) {
+            final List<Route> newRoutes = new ArrayList<>(Arrays.asList(routes));
+            newRoutes.addAll(read);
+            setRoutes(newRoutes.toArray(new Route[newRoutes.size()]));
+            configuration = url;
+            configurationLastModified = lastModified;
+        }
+        return this;
+    }
+
+    /**
+     * Replaces the routes by the ones of the configuration file if it changed since it was read,
+     * the requests keep using the previous routes until the new ones are ready.
+     *
+     * @return true if the routes were reloaded
+     */
+    public boolean reloadIfModified() {
+        final URL url;
+        final long previous;
+        synchronized (this) {
+            url = configuration;
+            previous = configurationLastModified;
+        }
+        if (url == null) {
+            return false;
+        }
+
+        final long lastModified = lastModified(url);
+        if (lastModified == 0 || lastModified == previous) {
+            return false;
+        }
+
+        final List<Route> read;
+        try {
+            read = parseConfiguration(url);
+        } catch (final RuntimeException e) { // keep the current routes
+            logger.warning("Can't reload " + url.toExternalForm() + ": " + e.getMessage(), e);
+            return false;
+        }
+        synchronized (this) {
+            setRoutes(read.toArray(new Route[read.size()]));
+            configurationLastModified = lastModified;
+        }
+        logger.info("Reloaded " + read.size() + " routes from " + url.toExternalForm());
+        return true;
+    }
+
+    private static long lastModified(final URL url) {
+        try {
+            final URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            try {
+                return connection.getLastModified();
+            } finally {
+                connection.getInputStream().close();
+            }
+        } catch (final IOException e) {
+            return 0;
+        }
+    }
+
+    private List<Route> parseConfiguration(final URL url) {
+        final List<Route> read = new ArrayList<>();
         BufferedReader reader = null;
         try {
             final InputStream is = new BufferedInputStream(url.openStream());
@@ -72,7 +142,10 @@ public class SimpleRouter {
             while ((line = reader.readLine()) != null) {
                 line = line.trim();
                 if (!line.isEmpty() && !line.startsWith("#")) {
-                    parseRoute(line);
+                    final Route route = parseRoute(line);
+                    if (route != null) {
+                        read.add(route);
+                    }
                 }
             }
         } catch (final IOException e) {
@@ -86,60 +159,60 @@ public class SimpleRouter {
                 }
             }
         }
-        return this;
+        return read;
     }
 
-    private void parseRoute(final String line) {
+    private Route parseRoute(final String line) {
         final Matcher matcher = PATTERN.matcher(line);
         if (matcher.matches()) {
             final String from = prefix(matcher.group(1).trim());
             final String to = prefix(matcher.group(2).trim());
-            addRoute(new Route().from(from).to(to));
+            return new Route().from(from).to(to);
         }
+        return null;
     }
 
     public String route(final String uri) throws IOException, ServletException {
         if (uri == null) {
             return null;
         }
-
-        final Route cachedRoute = cache.get(uri);
-        if (cachedRoute != null) {
-            cachedRoute.matches(uri);
-            return cachedRoute.cleanDestination(prefix);
-        }
-
-        for (final Route route : routes) {
-            if (route.matches(uri)) {
-                if (route.getOrigin().equals(uri)) {
-                    cache.put(uri, route);
-                }
-                return route.cleanDestination(prefix);
-            }
-        }
-
-        return null;
+        return table.route(uri);
     }
 
     public synchronized void addRoute(final Route route) {
         final Route[] newRoutes = new Route[routes.length + 1];
         System.arraycopy(routes, 0, newRoutes, 0, routes.length);
         newRoutes[routes.length] = route;
+        setRoutes(newRoutes);
+    }
+
+    // the table is built before being visible so the requests never wait for it
+    private synchronized void setRoutes(final Route[] newRoutes) {
+        table = new RoutingTable(newRoutes, prefix, cacheSize);
         routes = newRoutes;
     }
 
-    public void cleanUp() {
+    public synchronized void cleanUp() {
         JMXOff();
-        routes = null;
-        cache.clear();
+        configuration = null;
+        setRoutes(new Route[0]);
     }
 
-    public void setPrefix(final String prefix) {
+    public synchronized void setPrefix(final String prefix) {
         if (prefix == null || prefix.isEmpty() || prefix.equals("/")) {
             this.prefix = "";
         } else {
             this.prefix = prefix;
         }
+        setRoutes(routes);
+    }
+
+    /**
+     * @param cacheSize the number of uri to destination decisions kept, 0 to disable the cache
+     */
+    public synchronized void setCacheSize(final int cacheSize) {
+        this.cacheSize = cacheSize;
+        setRoutes(routes);
     }
 
     private String prefix(final String value) {
@@ -175,6 +248,7 @@ public class SimpleRouter {
 
     @ManagedAttribute
     public TabularData getActiveRoutes() {
+        final Route[] routes = this.routes;
         if (routes.length == 0) {
             return null;
         }
@@ -208,19 +282,24 @@ public class SimpleRouter {
     }
 
     @ManagedOperation
-    public void removeRoute(final String from, final String to) {
+    public synchronized void removeRoute(final String from, final String to) {
         if (routes.length == 0) {
             return;
         }
 
-        for (int i = 0; i < routes.length; i++) {
-            if (routes[i].getOrigin().equals(from) && routes[i].getRawDestination().endsWith(to)) {
-                final Route[] newRoutes = new Route[routes.length - 1];
-                System.arraycopy(routes, 0, newRoutes, 0, i);
-                System.arraycopy(routes, i + 1, newRoutes, i, routes.length - i - 1);
-                routes = newRoutes;
+        Route[] current = routes;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].getOrigin().equals(from) && current[i].getRawDestination().endsWith(to)) {
+                final Route[] newRoutes = new Route[current.length - 1];
+                System.arraycopy(current, 0, newRoutes, 0, i);
+                System.arraycopy(current, i + 1, newRoutes, i, current.length - i - 1);
+                current = newRoutes;
+                i--;
             }
         }
+        if (current != routes) {
+            setRoutes(current);
+        }
     }
 
     public boolean hasPrefix() {
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.catalina.routing;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimpleRouterTest {
+    @Test
+    public void routes() throws Exception {
+        final SimpleRouter router = new SimpleRouter();
+        router.addRoute(new Route().from("/exact").to("/target"));
+        router.addRoute(new Route().from("/users/([0-9]+)/profile").to("/profile?id=$1"));
+        router.addRoute(new Route().from("/files/(.*)").to("/static/$1"));
+        router.addRoute(new Route().from("/a+b").to("/ab"));
+
+        for (int i = 0; i < 2; i++) { // second time from the cache
+            assertEquals("/target", router.route("/exact"));
+            assertEquals("/profile?id=42", router.route("/users/42/profile"));
+            assertEquals("/static/css/app.css", router.route("/files/css/app.css"));
+            assertEquals("/ab", router.route("/aaab"));
+            assertNull(router.route("/exactly"));
+            assertNull(router.route("/users/x/profile"));
+            assertNull(router.route(""));
+        }
+    }
+
+    @Test
+    public void firstDeclaredRouteWins() throws Exception {
+        final SimpleRouter router = new SimpleRouter();
+        router.addRoute(new Route().from("/shop/.*").to("/regex"));
+        router.addRoute(new Route().from("/shop/cart").to("/literal"));
+        router.addRoute(new Route().from("/other").to("/literal"));
+        router.addRoute(new Route().from("/oth.*").to("/regex"));
+
+        assertEquals("/regex", router.route("/shop/cart"));
+        assertEquals("/literal", router.route("/other"));
+        assertEquals("/regex", router.route("/others"));
+    }
+
+    @Test
+    public void prefix() throws Exception {
+        final SimpleRouter router = new SimpleRouter();
+        router.setPrefix("/app");
+        router.addRoute("/old/(.*)", "/new/$1");
+
+        assertEquals("/new/page", router.route("/app/old/page"));
+        assertNull(router.route("/old/page"));
+    }
+
+    @Test
+    public void removeRoute() throws Exception {
+        final SimpleRouter router = new SimpleRouter();
+        router.addRoute("/foo", "/bar");
+        assertEquals("/bar", router.route("/foo"));
+
+        router.removeRoute("/foo", "/bar");
+        assertNull(router.route("/foo"));
+    }
+
+    @Test
+    public void reload() throws Exception {
+        final File conf = File.createTempFile("tomee-router", ".conf");
+        conf.deleteOnExit();
+        Files.write(conf.toPath(), "/foo -> /bar\n".getBytes(StandardCharsets.UTF_8));
+
+        final SimpleRouter router = new SimpleRouter().readConfiguration(conf.toURI().toURL());
+        assertEquals("/bar", router.route("/foo"));
+        assertFalse(router.reloadIfModified());
+
+        Files.write(conf.toPath(), "# changed\n/foo -> /baz\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(conf.setLastModified(conf.lastModified() + 2000));
+        assertTrue(router.reloadIfModified());
+        assertEquals("/baz", router.route("/foo"));
+    }
+}
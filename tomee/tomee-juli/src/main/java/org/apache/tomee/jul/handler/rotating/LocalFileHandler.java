@@ -28,13 +28,23 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.Locale;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -71,6 +81,9 @@ import java.util.zip.ZipOutputStream;
  * | compressionLevel          | -1                                                | In case of zip archiving the zip compression level (-1 for off or 0-9).
  * | formatterPattern          | -                                                 | SimpleFormatter pattern (ignored if formatter is provided).
  * | formatterLocale           | -                                                 | Locale to use.
+ * | async                     | false                                             | if true the records are formatted by the logging thread but queued and written to the file by a dedicated thread which also handles the rotation.
+ * | asyncQueueSize            | 8192                                              | number of formatted records the async queue can hold (rounded to a power of 2, at most 2^30).
+ * | asyncOverflowPolicy       | block                                             | what to do when the async queue is full: block (wait for the writer) or drop (the record is lost and counted, see getDroppedRecords()).
  * |===
  * </p>
  * <p>
@@ -81,14 +94,20 @@ import java.util.zip.ZipOutputStream;
  * `org.apache.tomee.jul.handler.rotating.BackgroundTaskRunner.threads` property in `conf/logging.properties`.
  * Default is 2 which should be fine for most applications.
  * </p>
+ * <p>
+ * NOTE: in async mode the writer thread encodes the queued records in a direct buffer (bufferSize, 64 kilobytes by default)
+ * written to the file channel once full or when the queue is empty, so the logging threads never wait for the disk or a
+ * rotation (excepted with the block policy when the queue is full). When records were dropped a warning with their count
+ * is written in the file.
+ * </p>
  */
 /*
  Open point/enhancements:
   - date pattern/filename pattern instead of hardcoded String.format?
-  - write another async version? ensure it flushed well, use disruptor? -> bench seems to show it is useless
  */
 public class LocalFileHandler extends Handler {
     private static final int BUFFER_SIZE = 8102;
+    private static final int ASYNC_BUFFER_SIZE = 64 * 1024;
 
     private long limit = 0;
     private int bufferSize = -1;
@@ -101,6 +120,8 @@ public class LocalFileHandler extends Handler {
     private int compressionLevel;
     private long purgeExpiryDuration;
     private File archiveDir;
+    private int asyncQueueSize = 8192;
+    private boolean dropOnOverflow;
 
     private volatile int currentIndex;
     private volatile long lastTimestamp;
@@ -110,6 +131,8 @@ public class LocalFileHandler extends Handler {
     private final ReadWriteLock writerLock = new ReentrantReadWriteLock();
     private final Lock backgroundTaskLock = new ReentrantLock();
     private volatile boolean closed;
+    private volatile AsyncWriter asyncWriter;
+    private final LongAdder droppedRecords = new LongAdder();
 
     public LocalFileHandler() {
         configure();
@@ -188,6 +211,14 @@ public class LocalFileHandler extends Handler {
         setErrorManager(new ErrorManager());
 
         lastTimestamp = System.currentTimeMillis();
+
+        if (Boolean.parseBoolean(getProperty(className + ".async", "false"))) {
+            asyncQueueSize = Math.max(1, Math.min(RingBuffer.MAX_CAPACITY,
+                    Integer.parseInt(getProperty(className + ".asyncQueueSize", String.valueOf(asyncQueueSize)))));
+            dropOnOverflow = "drop".equalsIgnoreCase(getProperty(className + ".asyncOverflowPolicy", "block"));
+            asyncWriter = new AsyncWriter(className);
+            asyncWriter.thread.start();
+        }
     }
 
     private Formatter newSimpleFormatter(final String className) {
@@ -247,12 +278,25 @@ public class LocalFileHandler extends Handler {
         return new Timestamp(System.currentTimeMillis()).toString().substring(0, 10);
     }
 
+    /**
+     * @return the number of records lost because the async queue was full (asyncOverflowPolicy=drop)
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.sum();
+    }
+
     @Override
     public void publish(final LogRecord record) {
         if (!isLoggable(record)) {
             return;
         }
 
+        final AsyncWriter async = asyncWriter;
+        if (async != null) {
+            async.publish(record);
+            return;
+        }
+
         final long now = System.currentTimeMillis();
         final String tsDate;
         // just do it once / sec if we have a lot of log, can make some log appearing in the wrong file but better than doing it each time
@@ -333,6 +377,11 @@ public class LocalFileHandler extends Handler {
     public void close() {
         closed = true;
 
+        final AsyncWriter async = asyncWriter;
+        if (async != null) {
+            async.close();
+        }
+
         writerLock.writeLock().lock();
         try {
             if (writer == null) {
@@ -355,6 +404,12 @@ public class LocalFileHandler extends Handler {
 
     @Override
     public void flush() {
+        final AsyncWriter async = asyncWriter;
+        if (async != null) {
+            async.flush();
+            return;
+        }
+
         writerLock.readLock().lock();
         try {
             writer.flush();
@@ -372,17 +427,11 @@ public class LocalFileHandler extends Handler {
         FileOutputStream fos = null;
         OutputStream os = null;
         try {
-            File pathname;
-            do {
-                pathname = new File(formatFilename(filenamePattern, date, currentIndex));
-                final File parent = pathname.getParentFile();
-                if (!parent.isDirectory() && !parent.mkdirs()) {
-                    reportError("Unable to create [" + parent + "]", null, ErrorManager.OPEN_FAILURE);
-                    writer = null;
-                    return;
-                }
-                currentIndex++;
-            } while (pathname.isFile()); // loop to ensure we don't overwrite existing files
+            final File pathname = nextFile();
+            if (pathname == null) {
+                writer = null;
+                return;
+            }
 
             final String encoding = getEncoding();
             fos = new FileOutputStream(pathname, true);
@@ -403,6 +452,24 @@ public class LocalFileHandler extends Handler {
             writerLock.writeLock().unlock();
         }
 
+        scheduleEviction(beforeRotation);
+    }
+
+    private File nextFile() {
+        File pathname;
+        do {
+            pathname = new File(formatFilename(filenamePattern, date, currentIndex));
+            final File parent = pathname.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                reportError("Unable to create [" + parent + "]", null, ErrorManager.OPEN_FAILURE);
+                return null;
+            }
+            currentIndex++;
+        } while (pathname.isFile()); // loop to ensure we don't overwrite existing files
+        return pathname;
+    }
+
+    private void scheduleEviction(final long beforeRotation) {
         BackgroundTaskRunner.push(new Runnable() {
             @Override
             public void run() {
@@ -567,6 +634,237 @@ public class LocalFileHandler extends Handler {
         return result;
     }
 
+    // async mode: the only thread touching the file, the logging threads just format and queue their records
+    private final class AsyncWriter implements Runnable {
+        private final RingBuffer<String> queue = new RingBuffer<>(asyncQueueSize);
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize > 0 ? bufferSize : ASYNC_BUFFER_SIZE);
+        private final CharsetEncoder encoder;
+        private final Thread thread;
+        private volatile boolean sleeping;
+        private volatile long synced; // number of queued records written to the channel
+
+        // writer thread state
+        private FileChannel channel;
+        private long fileWritten;
+        private long lastDateCheck = System.currentTimeMillis();
+        private long reportedDrops;
+
+        private AsyncWriter(final String name) {
+            final String encoding = getEncoding();
+            encoder = (encoding != null ? Charset.forName(encoding) : Charset.defaultCharset()).newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            thread = new Thread(this, name + "-writer");
+            thread.setDaemon(true);
+        }
+
+        private void publish(final LogRecord record) {
+            final String result;
+            try {
+                result = getFormatter().format(record);
+            } catch (final Exception e) {
+                reportError(null, e, ErrorManager.FORMAT_FAILURE);
+                return;
+            }
+
+            if (closed) {
+                reportError(LocalFileHandler.this.getClass().getSimpleName() + " is closed, unable to log [" + result + "]", null, ErrorManager.WRITE_FAILURE);
+                return;
+            }
+            while (!queue.offer(result)) {
+                if (dropOnOverflow || closed || !thread.isAlive()) {
+                    droppedRecords.increment();
+                    return;
+                }
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            }
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void flush() {
+            final long target = queue.offered();
+            while (synced < target && thread.isAlive()) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+
+        private void close() {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int batch = 0;
+                while (true) {
+                    final String record = queue.poll();
+                    if (record != null) {
+                        write(record);
+                        if (++batch == queue.capacity()) { // don't let flush() wait for an idle queue
+                            batch = 0;
+                            drain();
+                            synced = queue.polled();
+                        }
+                        continue;
+                    }
+                    if (!queue.isEmpty()) { // claimed by a logging thread but not yet published
+                        Thread.onSpinWait();
+                        continue;
+                    }
+
+                    batch = 0;
+                    reportDrops();
+                    drain();
+                    synced = queue.polled();
+                    if (closed) {
+                        if (queue.isEmpty()) {
+                            break;
+                        }
+                        continue;
+                    }
+
+                    sleeping = true;
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+                    }
+                    sleeping = false;
+                }
+            } finally {
+                closeFile();
+            }
+        }
+
+        private void write(final String record) {
+            final long now = System.currentTimeMillis();
+            final String currentDate;
+            if (now - lastDateCheck > dateCheckInterval) {
+                lastDateCheck = now;
+                currentDate = currentDate();
+            } else {
+                currentDate = null;
+            }
+
+            final boolean newDay = currentDate != null && !date.equals(currentDate);
+            if (channel == null) {
+                openFile();
+            } else if (newDay || (limit > 0 && fileWritten >= limit)) {
+                closeFile();
+                if (newDay) {
+                    currentIndex = 0;
+                    date = currentDate;
+                }
+                openFile();
+            }
+
+            if (channel == null) {
+                reportError(LocalFileHandler.this.getClass().getSimpleName() + " is closed or not yet initialized, unable to log [" + record + "]", null, ErrorManager.WRITE_FAILURE);
+                return;
+            }
+            encode(record);
+        }
+
+        private void reportDrops() {
+            final long dropped = droppedRecords.sum();
+            if (dropped == reportedDrops) {
+                return;
+            }
+
+            final LogRecord record = new LogRecord(Level.WARNING,
+                    (dropped - reportedDrops) + " log records dropped, the async queue (" + queue.capacity() + " records) was full");
+            record.setLoggerName(LocalFileHandler.class.getName());
+            reportedDrops = dropped;
+            try {
+                write(getFormatter().format(record));
+            } catch (final Exception e) {
+                reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            }
+        }
+
+        private void openFile() {
+            final long beforeRotation = System.currentTimeMillis();
+            final File pathname = nextFile();
+            if (pathname == null) {
+                return;
+            }
+
+            try {
+                channel = FileChannel.open(pathname.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } catch (final IOException e) {
+                reportError(null, e, ErrorManager.OPEN_FAILURE);
+                return;
+            }
+            fileWritten = 0;
+            encode(getFormatter().getHead(LocalFileHandler.this));
+
+            scheduleEviction(beforeRotation);
+        }
+
+        private void closeFile() {
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                encode(getFormatter().getTail(LocalFileHandler.this));
+                drain();
+                channel.close();
+            } catch (final Exception e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            } finally {
+                channel = null;
+                buffer.clear();
+            }
+        }
+
+        private void encode(final String value) {
+            final CharBuffer chars = CharBuffer.wrap(value);
+            encoder.reset();
+            CoderResult result;
+            do {
+                final int position = buffer.position();
+                result = encoder.encode(chars, buffer, true);
+                fileWritten += buffer.position() - position;
+                if (result.isOverflow()) {
+                    drain();
+                }
+            } while (result.isOverflow());
+            do {
+                final int position = buffer.position();
+                result = encoder.flush(buffer);
+                fileWritten += buffer.position() - position;
+                if (result.isOverflow()) {
+                    drain();
+                }
+            } while (result.isOverflow());
+        }
+
+        private void drain() {
+            if (buffer.position() == 0) {
+                return;
+            }
+
+            buffer.flip();
+            try {
+                while (channel != null && buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (final IOException e) {
+                reportError(null, e, ErrorManager.WRITE_FAILURE);
+            } finally {
+                buffer.clear();
+            }
+        }
+    }
+
     private final class CountingStream extends OutputStream {
         private final OutputStream out;
 
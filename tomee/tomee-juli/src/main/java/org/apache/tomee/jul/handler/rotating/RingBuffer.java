@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.jul.handler.rotating;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// bounded lock free queue, any thread can offer but a single one can poll
+final class RingBuffer<E> {
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next slot to poll
+    private final AtomicLong tail = new AtomicLong(); // next slot to claim
+
+    RingBuffer(final int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity should be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return false if the buffer is full
+     */
+    boolean offer(final E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() > mask) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+
+    /**
+     * Only the consumer thread can call it.
+     *
+     * @return null if the buffer is empty or the next element is claimed but not yet published
+     */
+    E poll() {
+        final long current = head.get();
+        final int index = (int) current & mask;
+        final E element = slots.get(index);
+        if (element == null) {
+            return null;
+        }
+        slots.lazySet(index, null);
+        head.lazySet(current + 1);
+        return element;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    /**
+     * @return the number of elements offered so far
+     */
+    long offered() {
+        return tail.get();
+    }
+
+    /**
+     * @return the number of elements polled so far
+     */
+    long polled() {
+        return head.get();
+    }
+}
@@ -24,6 +24,7 @@ import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -120,6 +121,64 @@ public class LocalFileHandlerTest {
         handler.close();
     }
 
+    @Test
+    public void asyncLogAndRotate() throws IOException {
+        final File out = new File("target/LocalFileHandlerTest/async-logs/");
+        if (out.exists()) {
+            for (final File file : asList(out.listFiles())) {
+                if (!file.delete()) {
+                    file.deleteOnExit();
+                }
+            }
+        }
+
+        final AtomicReference<String> today = new AtomicReference<>("day1");
+        final Map<String, String> config = new HashMap<>();
+        config.put("filenamePattern", "target/LocalFileHandlerTest/async-logs/test.%s.%d.log");
+        config.put("limit", "10 kilobytes");
+        config.put("dateCheckInterval", "1 second");
+        config.put("formatter", MessageOnlyFormatter.class.getName());
+        config.put("async", "true");
+        config.put("asyncQueueSize", "64");
+
+        final LocalFileHandler handler = new LocalFileHandler() {
+            @Override
+            protected String currentDate() {
+                return today.get();
+            }
+
+            @Override
+            protected String getProperty(final String name, final String defaultValue) {
+                final String s = config.get(name.substring(name.lastIndexOf('.') + 1));
+                return s != null ? s : defaultValue;
+            }
+        };
+
+        final String string10chars = "abcdefghij";
+        for (int i = 0; i < 950; i++) {
+            handler.publish(new LogRecord(Level.INFO, string10chars));
+        }
+        handler.flush();
+
+        assertEquals(new HashSet<>(asList("test.day1.0.log", "test.day1.1.log")), new HashSet<>(asList(out.list())));
+        try (final InputStream is = new FileInputStream(new File(out, "test.day1.1.log"))) {
+            assertEquals(19, IOUtils.readLines(is).size());
+        }
+        final long firstFileLen = new File(out, "test.day1.0.log").length();
+        assertTrue(firstFileLen >= 1024 * 10 && firstFileLen < 1024 * 10 + (1 + string10chars.getBytes().length));
+
+        today.set("day2");
+        try {
+            Thread.sleep(1500);
+        } catch (final InterruptedException e) {
+            Thread.interrupted();
+        }
+        handler.publish(new LogRecord(Level.INFO, string10chars));
+        handler.close();
+        assertEquals(string10chars + "\r", new String(Files.readAllBytes(new File(out, "test.day2.0.log").toPath())));
+        assertEquals(0, handler.getDroppedRecords());
+    }
+
     public static class MessageOnlyFormatter extends Formatter {
         @Override
         public String format(final LogRecord record) {
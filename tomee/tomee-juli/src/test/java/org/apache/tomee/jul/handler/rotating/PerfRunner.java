@@ -46,6 +46,7 @@ PerfRunner.defaultLogger     thrpt    5   62014.127 ±  36682.710  ops/s
 public class PerfRunner {
     private Logger defaultLogger;
     private Logger bufferizedLogger;
+    private Logger asyncLogger;
 
     @Setup
     public void setup() {
@@ -86,12 +87,32 @@ public class PerfRunner {
                 }
             });
         }
+        {
+            asyncLogger = Logger.getLogger("perf.logger.async");
+            cleanHandlers(asyncLogger);
+
+            final Map<String, String> config = new HashMap<>();
+
+            // initial config
+            config.put("filenamePattern", "target/PerfRunner/logs/performance.async.%s.%02d.log");
+            config.put("limit", "10 Mega");
+            config.put("async", "true");
+            config.put("formatter", OneLineFormatter.class.getName());
+            asyncLogger.addHandler(new LocalFileHandler() {
+                @Override
+                protected String getProperty(final String name, final String defaultValue) {
+                    final String key = name.substring(name.lastIndexOf('.') + 1);
+                    return config.containsKey(key) ? config.get(key) : defaultValue;
+                }
+            });
+        }
     }
 
     @TearDown
     public void tearDown() {
         defaultLogger.getHandlers()[0].close();
         bufferizedLogger.getHandlers()[0].close();
+        asyncLogger.getHandlers()[0].close();
     }
 
     private void cleanHandlers(final Logger logger) {
@@ -112,6 +133,11 @@ public class PerfRunner {
         bufferizedLogger.info("something happens here and nowhere else so i need to write it down");
     }
 
+    @Benchmark
+    public void asyncLogger() {
+        asyncLogger.info("something happens here and nowhere else so i need to write it down");
+    }
+
     public static void main(final String[] args) throws RunnerException {
         new Runner(new OptionsBuilder()
                 .include(PerfRunner.class.getSimpleName())
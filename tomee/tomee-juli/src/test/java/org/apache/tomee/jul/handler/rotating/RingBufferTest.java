@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomee.jul.handler.rotating;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RingBufferTest {
+    @Test
+    public void bounded() {
+        final RingBuffer<String> buffer = new RingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("r" + i));
+        }
+        assertFalse(buffer.offer("r4"));
+
+        assertEquals("r0", buffer.poll());
+        assertTrue(buffer.offer("r4"));
+        for (int i = 1; i < 5; i++) {
+            assertEquals("r" + i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+        assertEquals(5, buffer.polled());
+    }
+
+    @Test
+    public void capacity() {
+        assertEquals(1, new RingBuffer<String>(1).capacity());
+        assertEquals(1024, new RingBuffer<String>(1000).capacity());
+        assertEquals(1024, new RingBuffer<String>(1024).capacity());
+        for (final int invalid : new int[]{0, -1, RingBuffer.MAX_CAPACITY + 1, Integer.MAX_VALUE}) {
+            try {
+                new RingBuffer<String>(invalid);
+                fail("capacity " + invalid);
+            } catch (final IllegalArgumentException iae) {
+                // ok
+            }
+        }
+    }
+
+    @Test
+    public void concurrentProducers() throws InterruptedException {
+        final RingBuffer<Integer> buffer = new RingBuffer<>(16);
+        final int producers = 4;
+        final int perProducer = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(id * perProducer + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        final int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int received = 0;
+        while (received < producers * perProducer) {
+            final Integer value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            final int producer = value / perProducer;
+            assertTrue(value % perProducer > last[producer]); // order kept by producer
+            last[producer] = value % perProducer;
+            received++;
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}